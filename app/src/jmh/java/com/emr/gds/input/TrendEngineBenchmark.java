@@ -0,0 +1,80 @@
+package com.emr.gds.input;
+
+import com.emr.gds.input.IAIVitalsStore.Metric;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a new HbA1c entry with {@link IAITrendEngine}'s running statistics, against recomputing
+ * the same statistics from the patient's full history as a non-incremental engine would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendEngineBenchmark {
+
+    private static final long DAY = 86_400_000L;
+
+    @Param({"100", "10000"})
+    public int history;
+
+    private Path dir;
+    private IAIVitalsStore store;
+    private IAITrendEngine engine;
+    private long time;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("trend-bench");
+        store = IAIVitalsStore.open(dir);
+        engine = new IAITrendEngine(store);
+        for (int i = 0; i < history; i++) {
+            store.record("target", Metric.HBA1C, i * 30 * DAY, 6.0 + (i % 20) / 10.0);
+        }
+        time = history * 30 * DAY;
+        engine.snapshot("target", Metric.HBA1C); // seed once
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public IAITrendEngine.Snapshot incrementalEntry() {
+        engine.record("target", Metric.HBA1C, time++, 6.8);
+        return engine.snapshot("target", Metric.HBA1C);
+    }
+
+    @Benchmark
+    public IAITrendEngine.Snapshot recomputeFromHistory() {
+        IAIVitalsStore.Range all = store.range("target", Metric.HBA1C, Long.MIN_VALUE, Long.MAX_VALUE);
+        IAITrendEngine.Stats stats = new IAITrendEngine.Stats(new double[]{4.0, 7.0});
+        for (int i = 0; i < all.size(); i++) {
+            stats.add(all.times()[i], all.values()[i]);
+        }
+        return stats.snapshot(Metric.HBA1C);
+    }
+}
@@ -0,0 +1,89 @@
+package com.emr.gds.input;
+
+import com.emr.gds.input.IAIVitalsStore.Metric;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query and append costs of {@link IAIVitalsStore} for one patient with {@code readings} systolic
+ * pressures, one per day, among 100 other patients with a year of readings each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VitalsStoreBenchmark {
+
+    private static final long DAY = 86_400_000L;
+    private static final long START = 1_600_000_000_000L;
+
+    @Param({"1000", "100000"})
+    public int readings;
+
+    private Path dir;
+    private IAIVitalsStore store;
+    private long appendTime;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("vitals-bench");
+        store = IAIVitalsStore.open(dir);
+        for (int p = 0; p < 100; p++) {
+            for (int d = 0; d < 365; d++) {
+                store.record("P" + p, Metric.SBP, START + d * DAY, 110 + (d % 40));
+            }
+        }
+        for (int d = 0; d < readings; d++) {
+            store.record("target", Metric.SBP, START + d * DAY, 120 + (d % 30));
+        }
+        appendTime = START + readings * DAY;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public IAIVitalsStore.Range lastTen() {
+        return store.lastN("target", Metric.SBP, 10);
+    }
+
+    /** Ninety days in the middle of the series, as a sparkline would request. */
+    @Benchmark
+    public IAIVitalsStore.Range ninetyDayRange() {
+        long from = START + (readings / 2) * DAY;
+        return store.range("target", Metric.SBP, from, from + 90 * DAY);
+    }
+
+    @Benchmark
+    public double latest() {
+        return store.latest("target", Metric.SBP);
+    }
+
+    @Benchmark
+    public void append() {
+        store.record("target", Metric.PULSE, appendTime++, 72);
+    }
+}
@@ -0,0 +1,63 @@
+package com.emr.gds.main;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the old regex-based control character filter with the scanning filter in
+ * {@link IAMTextFormatUtil#stripControlChars(String)}.
+ * <p>
+ * A length of 1 stands in for a single keystroke; the larger sizes stand in for pastes,
+ * either clean or with a control character roughly every 200 characters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControlCharFilterBenchmark {
+
+    private static final Pattern LEGACY = Pattern.compile("[\\u0000-\\u0008\\u000B\\u000C\\u000E-\\u001F]");
+
+    @Param({"1", "4096", "1048576"})
+    public int length;
+
+    @Param({"false", "true"})
+    public boolean dirty;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        String line = "BP 130/80 mmHg, HR 72, BT 36.5\tHbA1c 6.8 % -> continue metformin 500 mg bid\n";
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(line);
+            if (dirty) sb.append('\u0007');
+        }
+        sb.setLength(length);
+        text = sb.toString();
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        return LEGACY.matcher(text).replaceAll("");
+    }
+
+    @Benchmark
+    public String scanAndStrip() {
+        return IAMTextFormatUtil.stripControlChars(text);
+    }
+}
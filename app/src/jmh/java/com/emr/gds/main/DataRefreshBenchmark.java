@@ -0,0 +1,153 @@
+package com.emr.gds.main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * F5 with nothing changed on disk, over a 5k-entry abbreviation table, a 2k-entry problem list and
+ * the FMH condition lists: the {@link IAMDataRefresher} check (data_version and file stamps) against reloading
+ * every table as a blanket refresh would, and applying a one-item diff against rebuilding the list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataRefreshBenchmark {
+
+    private static final int ABBREVIATIONS = 5_000;
+    private static final int PROBLEMS = 2_000;
+
+    private Path dir;
+    private IAMDataRefresher refresher;
+    private Connection abbrevConn;
+    private Connection problemConn;
+    private Connection fmhConn;
+    private List<String> problems;
+    private List<String> problemsPlusOne;
+    private ObservableList<String> shown;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("data-refresh-bench");
+        abbrevConn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("abbreviations.db"));
+        problemConn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("prolist.db"));
+        fill(abbrevConn, "CREATE TABLE abbreviations (short TEXT PRIMARY KEY, full TEXT)",
+                "INSERT INTO abbreviations VALUES (?, ?)", ABBREVIATIONS, 2);
+        fill(problemConn, "CREATE TABLE problems (id INTEGER PRIMARY KEY AUTOINCREMENT, problem_text TEXT NOT NULL UNIQUE)",
+                "INSERT INTO problems (problem_text) VALUES (?)", PROBLEMS, 1);
+        fmhConn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("fmh.db"));
+        fill(fmhConn, "CREATE TABLE fmh_conditions (id INTEGER PRIMARY KEY, category TEXT NOT NULL, name TEXT NOT NULL)",
+                "INSERT INTO fmh_conditions (category, name) VALUES ('endocrine', ?)", 20, 1);
+
+        Map<IAMDataRefresher.Source, Path> paths = new EnumMap<>(IAMDataRefresher.Source.class);
+        paths.put(IAMDataRefresher.Source.ABBREVIATIONS, dir.resolve("abbreviations.db"));
+        paths.put(IAMDataRefresher.Source.PROBLEMS, dir.resolve("prolist.db"));
+        paths.put(IAMDataRefresher.Source.FMH, dir.resolve("fmh.db"));
+        refresher = new IAMDataRefresher(paths);
+        refresher.refresh().join();
+
+        problems = readProblems();
+        problemsPlusOne = new ArrayList<>(problems);
+        problemsPlusOne.add(PROBLEMS / 2, "Added elsewhere");
+        shown = FXCollections.observableArrayList(problems);
+    }
+
+    private static void fill(Connection conn, String ddl, String insert, int rows, int params) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl);
+        }
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(insert)) {
+            for (int i = 0; i < rows; i++) {
+                ps.setString(1, "item" + i);
+                if (params == 2) ps.setString(2, "expansion of item " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        refresher.close();
+        abbrevConn.close();
+        problemConn.close();
+        fmhConn.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Set<IAMDataRefresher.Source> checkUnchanged() {
+        return refresher.refresh().join();
+    }
+
+    @Benchmark
+    public int reloadEverything() throws Exception {
+        Map<String, String> abbreviations = new HashMap<>();
+        try (Statement stmt = abbrevConn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM abbreviations")) {
+            while (rs.next()) abbreviations.put(rs.getString("short"), rs.getString("full"));
+        }
+        int conditions = 0;
+        try (Statement stmt = fmhConn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name FROM fmh_conditions")) {
+            while (rs.next()) conditions++;
+        }
+        return abbreviations.size() + readProblems().size() + conditions;
+    }
+
+    @Benchmark
+    public int applyOneItemDiff() {
+        IAMDataRefresher.applyDiff(shown, problemsPlusOne);
+        IAMDataRefresher.applyDiff(shown, problems);
+        return shown.size();
+    }
+
+    @Benchmark
+    public int rebuildList() {
+        shown.setAll(problemsPlusOne);
+        shown.setAll(problems);
+        return shown.size();
+    }
+
+    private List<String> readProblems() throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (Statement stmt = problemConn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT problem_text FROM problems ORDER BY problem_text COLLATE NOCASE")) {
+            while (rs.next()) out.add(rs.getString(1));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,104 @@
+package com.emr.gds.main;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * F3 search latency over a 100 KB note spread across the ten areas, against a 16 ms frame: literal
+ * queries through the trigram index (rare and common terms, Korean and English), a short query and a
+ * regex that both scan, a plain fold-and-indexOf scan for reference, and the index update that every
+ * keystroke pays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoteSearchBenchmark {
+
+    private static final int AREAS = 10;
+    private static final int NOTE_CHARS = 100_000;
+    private static final String[] WORDS = {
+            "Metformin", "500mg", "bid", "HbA1c", "7.2%", "F/U", "in", "3", "months", "BP", "128/76",
+            "혈압", "당뇨", "갑상선", "기능", "검사", "정상", "환자", "TSH", "free", "T4", "No", "chest", "pain",
+            "dyspnea", "denied", "Continue", "current", "medication", "LDL", "cholesterol", "level"
+    };
+
+    private IAMNoteSearch search;
+    private String[] texts;
+    private int typed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        search = new IAMNoteSearch(AREAS);
+        texts = new String[AREAS];
+        for (int a = 0; a < AREAS; a++) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < NOTE_CHARS / AREAS) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]);
+                sb.append(random.nextInt(12) == 0 ? '\n' : ' ');
+            }
+            if (a == 7) sb.append("\nPapillary thyroid carcinoma s/p total thyroidectomy\n");
+            texts[a] = sb.toString();
+            search.reset(a, texts[a]);
+        }
+    }
+
+    @Benchmark
+    public List<IAMNoteSearch.Hit> literalRare() {
+        return search.find(new IAMNoteSearch.Query("papillary", false, false));
+    }
+
+    @Benchmark
+    public List<IAMNoteSearch.Hit> literalCommon() {
+        return search.find(new IAMNoteSearch.Query("metformin", false, false));
+    }
+
+    @Benchmark
+    public List<IAMNoteSearch.Hit> literalKorean() {
+        return search.find(new IAMNoteSearch.Query("갑상선 기능", false, false));
+    }
+
+    @Benchmark
+    public List<IAMNoteSearch.Hit> literalShortScan() {
+        return search.find(new IAMNoteSearch.Query("bp", false, false));
+    }
+
+    @Benchmark
+    public List<IAMNoteSearch.Hit> regexScan() {
+        return search.find(new IAMNoteSearch.Query("\\d+/\\d+", true, false));
+    }
+
+    @Benchmark
+    public int foldAndScanReference() {
+        int hits = 0;
+        for (String text : texts) {
+            String folded = IAMNoteSearch.fold(text);
+            for (int at = folded.indexOf("papillary"); at >= 0; at = folded.indexOf("papillary", at + 9)) hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public void keystroke() {
+        // Types one character into the middle of an area and deletes it again.
+        int area = typed++ % AREAS;
+        String text = texts[area];
+        int mid = text.length() / 2;
+        search.update(area, text.substring(0, mid) + 'x' + text.substring(mid));
+        search.update(area, text);
+    }
+}
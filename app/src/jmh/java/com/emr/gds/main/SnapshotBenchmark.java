@@ -0,0 +1,95 @@
+package com.emr.gds.main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * F9 snapshot of a 100 KB encounter (ten areas of mixed Korean/English text plus scratchpad) against
+ * the 50 ms budget: encoding alone, decoding, and the full background save including fsync, rename
+ * and pruning of the day's folder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final String[] WORDS = {
+            "Metformin", "500mg", "bid", "HbA1c", "7.2%", "F/U", "in", "3", "months", "BP", "128/76",
+            "혈압", "당뇨", "갑상선", "기능", "검사", "정상", "환자", "TSH", "free", "T4", "No", "chest", "pain",
+            "dyspnea", "denied", "Continue", "current", "medication", "LDL", "cholesterol", "level"
+    };
+
+    private Path dir;
+    private IAMSnapshotStore store;
+    private IAMEncounterSnapshot snapshot;
+    private byte[] encoded;
+    private long savedAt;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        List<String> areas = new ArrayList<>();
+        for (int a = 0; a < 10; a++) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < 10_000) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? '\n' : ' ');
+                if (random.nextInt(8) == 0) sb.append(random.nextInt(1000)).append(' ');
+            }
+            areas.add(sb.toString());
+        }
+        snapshot = new IAMEncounterSnapshot(System.currentTimeMillis(), areas, String.join("\n", areas).substring(0, 5_000),
+                List.of("Hypercholesterolemia [F/U]", "Thyroid nodule (small)"),
+                List.of(new IAMEncounterSnapshot.WindowState("Frequent Data Input", 100, 100, 640, 480)));
+        encoded = IAMSnapshotStore.encode(snapshot);
+        dir = Files.createTempDirectory("snapshot-bench");
+        store = new IAMSnapshotStore(dir, IAMSnapshotStore.KEEP_PER_DAY, ZoneId.systemDefault());
+        savedAt = snapshot.savedAt();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return IAMSnapshotStore.encode(snapshot);
+    }
+
+    @Benchmark
+    public IAMEncounterSnapshot decode() throws IOException {
+        return IAMSnapshotStore.decode(encoded);
+    }
+
+    @Benchmark
+    public Path saveToDisk() throws IOException {
+        // A new millisecond each time so every save is a new file and pruning runs.
+        savedAt++;
+        return store.write(new IAMEncounterSnapshot(savedAt, snapshot.areas(), snapshot.scratchpad(),
+                snapshot.selectedProblems(), snapshot.windows()));
+    }
+}
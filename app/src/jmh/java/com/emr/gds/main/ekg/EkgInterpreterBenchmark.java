@@ -0,0 +1,89 @@
+package com.emr.gds.main.ekg;
+
+import com.emr.gds.main.ekg.EkgInterpreter.Interpretation;
+import com.emr.gds.main.ekg.EkgInterpreter.Measure;
+import com.emr.gds.main.ekg.EkgInterpreter.Rule;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Interpreting 1,024 tracings (about one in eight values missing) with the compiled decision table
+ * versus checking every rule's conditions in turn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EkgInterpreterBenchmark {
+
+    private static final int TRACINGS = 1024;
+
+    private EkgInterpreter interpreter;
+    private List<Rule> rules;
+    private double[][] tracings;
+
+    @Setup
+    public void setUp() {
+        interpreter = EkgInterpreter.standard();
+        rules = interpreter.rules();
+        Random r = new Random(42);
+        tracings = new double[TRACINGS][];
+        for (int i = 0; i < TRACINGS; i++) {
+            double[] v = EkgInterpreter.measurements();
+            for (Measure m : Measure.values()) {
+                if (m.derived() || r.nextInt(8) == 0) continue;
+                v[m.ordinal()] = switch (m) {
+                    case RATE -> 35 + r.nextInt(150);
+                    case PR -> 100 + r.nextInt(150);
+                    case QRS -> 70 + r.nextInt(80);
+                    case QTC -> 320 + r.nextInt(200);
+                    case AXIS -> -120 + r.nextInt(240);
+                    case SINUS, REGULAR -> r.nextInt(10) == 0 ? 0 : 1;
+                    case FEMALE -> r.nextInt(2);
+                    default -> r.nextInt(30);
+                };
+            }
+            tracings[i] = v;
+        }
+    }
+
+    @Benchmark
+    public int decisionTable() {
+        int statements = 0;
+        for (double[] v : tracings) {
+            Interpretation r = interpreter.interpret(v);
+            statements += r.statements().size();
+        }
+        return statements;
+    }
+
+    @Benchmark
+    public int ruleByRule() {
+        int statements = 0;
+        for (double[] v : tracings) {
+            Set<String> groups = new HashSet<>();
+            for (Rule rule : rules) {
+                if (!groups.contains(rule.group()) && rule.matches(v)) {
+                    groups.add(rule.group());
+                    statements++;
+                }
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,96 @@
+package com.emr.gds.main.ekg;
+
+import com.emr.gds.main.ekg.EkgReference.Line;
+import com.emr.gds.main.ekg.EkgReference.Match;
+import com.emr.gds.main.ekg.EkgReference.Section;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EKG reference card: opening it from the compiled form versus parsing the ODT, and looking up
+ * the findings-form lines through the keyword index versus scanning every section's text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EkgReferenceBenchmark {
+
+    private static final String[] FINDINGS = {
+            "Rate:", "Rhythm:", "Axis:", "Intervals (PR, QRS, QTc):", "Hypertrophy:", "Ischemia / ST-T changes:", "Others:"};
+
+    private byte[] odt;
+    private byte[] compiled;
+    private EkgReference reference;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path source = Paths.get("src/main/resources" + EkgReference.SOURCE_RESOURCE);
+        if (!Files.exists(source)) source = Paths.get("app/src/main/resources" + EkgReference.SOURCE_RESOURCE);
+        odt = Files.readAllBytes(source);
+        reference = EkgReferenceCompiler.compile(new ByteArrayInputStream(odt));
+        compiled = reference.encode();
+    }
+
+    @Benchmark
+    public EkgReference loadCompiled() throws IOException {
+        return EkgReference.decode(ByteBuffer.wrap(compiled));
+    }
+
+    @Benchmark
+    public EkgReference parseOdt() throws IOException {
+        try (InputStream in = new ByteArrayInputStream(odt)) {
+            return EkgReferenceCompiler.compile(in);
+        }
+    }
+
+    @Benchmark
+    public int lookupIndexed() {
+        int hits = 0;
+        for (String f : FINDINGS) {
+            List<Match> matches = reference.lookup(f);
+            hits += matches.size();
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int lookupScanningText() {
+        int hits = 0;
+        for (String f : FINDINGS) {
+            List<String> words = EkgReference.tokens(f);
+            for (Section s : reference.sections()) {
+                StringBuilder text = new StringBuilder(s.title());
+                for (Line l : s.lines()) text.append(' ').append(l.text()).append(' ').append(l.value());
+                String lower = text.toString().toLowerCase(Locale.ROOT);
+                for (String w : words) {
+                    if (lower.contains(w)) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,75 @@
+package com.emr.gds.main.macro;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Work done per shortcut press for an eight-step macro against a 5k-entry abbreviation table:
+ * interpreting the script on every press (parse, template lookup, abbreviation expansion) against
+ * resolving the blocks that {@link MacroCompiler} precomputed. The inserts themselves need a running
+ * FX toolkit and are the same in both cases, so the blocks go into plain buffers here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MacroBenchmark {
+
+    private static final Macro MACRO = new Macro("Thyroid visit", "Ctrl+Alt+T", """
+            focus A>
+            template TFT
+            line Hypothyroidism :ht, euthyroid on :lt
+            focus P>
+            line Continue :lt 100 mcg qd
+            template Follow-up
+            line F/U in 3 months with TSH, free T4 :cd
+            date
+            """);
+
+    private Map<String, String> abbrevs;
+    private CompiledMacro compiled;
+    private final StringBuilder[] areas = new StringBuilder[10];
+
+    @Setup
+    public void setUp() {
+        abbrevs = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) abbrevs.put("ab" + i, "expansion of abbreviation " + i);
+        abbrevs.put("ht", "hypothyroidism");
+        abbrevs.put("lt", "levothyroxine");
+        compiled = MacroCompiler.compile(MACRO, abbrevs);
+        for (int i = 0; i < areas.length; i++) areas[i] = new StringBuilder();
+    }
+
+    @Benchmark
+    public int interpretPerPress() {
+        return insert(MacroCompiler.compile(MACRO, abbrevs));
+    }
+
+    @Benchmark
+    public int precompiled() {
+        return insert(compiled);
+    }
+
+    private int insert(CompiledMacro macro) {
+        for (StringBuilder area : areas) area.setLength(0);
+        int[] inserts = new int[1];
+        macro.forEachBlock(0, areas.length, (target, block) -> {
+            areas[target].append(block);
+            inserts[0]++;
+        });
+        return inserts[0];
+    }
+}
@@ -0,0 +1,85 @@
+package com.emr.gds.main.medication.db;
+
+import com.emr.gds.main.medication.model.MedicationItem;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medication search over a synthetic 50k-item formulary: the old lower-case/contains scan used by
+ * the Find dialog versus {@link MedicationSearchIndex}, plus the one-off cost of building the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MedicationSearchBenchmark {
+
+    private static final String[] STEMS = {"amlo", "losar", "olme", "telmi", "metfor", "glime", "sita", "empa", "dapa",
+            "atorva", "rosuva", "levo", "methi", "aleno", "denos", "cefa", "amoxi", "ibupro", "acet", "predni"};
+    private static final String[] SUFFIXES = {"dipine", "tan", "mide", "gliptin", "flozin", "statin", "xine", "nate", "cillin", "sone"};
+    private static final String[] FORMS = {"tab", "cap", "inj", "syr"};
+    private static final String[] FREQ = {"p.o. q.d.", "p.o. b.i.d.", "p.o. t.i.d.", "p.o. q.h.s.", "s.c. q.w."};
+
+    @Param({"50000"})
+    public int items;
+
+    @Param({"aml 5", "statin 20 bid", "flozin"})
+    public String query;
+
+    private List<MedicationSearchIndex.Entry> entries;
+    private MedicationSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        entries = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            String name = STEMS[random.nextInt(STEMS.length)] + SUFFIXES[random.nextInt(SUFFIXES.length)]
+                    + (i % 7 == 0 ? " XR" : "");
+            String text = name + " [ " + (5 * (1 + random.nextInt(40))) + " ] mg 1 "
+                    + FORMS[random.nextInt(FORMS.length)] + " " + FREQ[random.nextInt(FREQ.length)];
+            String category = "Category " + (i % 25);
+            String group = category + " group " + (i % 180);
+            entries.add(new MedicationSearchIndex.Entry(category, group, new MedicationItem(text), text));
+        }
+        index = MedicationSearchIndex.build(entries);
+    }
+
+    @Benchmark
+    public List<MedicationItem> legacyContainsScan() {
+        String lowerQuery = query.toLowerCase();
+        List<MedicationItem> matches = new ArrayList<>();
+        for (MedicationSearchIndex.Entry e : entries) {
+            if (e.item().getText().toLowerCase().contains(lowerQuery)) {
+                matches.add(e.item());
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<MedicationSearchIndex.Hit> indexedSearch() {
+        return index.search(query, 50);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MedicationSearchIndex buildIndex() {
+        return MedicationSearchIndex.build(entries);
+    }
+}
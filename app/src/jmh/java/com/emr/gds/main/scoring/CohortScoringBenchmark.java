@@ -0,0 +1,101 @@
+package com.emr.gds.main.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-calculator cost of scoring one row, and of a 100,000-row cohort scored sequentially versus
+ * through {@link CohortScorer}'s fork-join chunks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CohortScoringBenchmark {
+
+    private static final int COHORT_ROWS = 100_000;
+
+    @Param({"ATA", "TIRADS", "DEXA", "HBA1C", "EKG"})
+    public CohortCalculator calculator;
+
+    private List<Map<String, String>> cohort;
+    private CohortScorer scorer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        cohort = new ArrayList<>(COHORT_ROWS);
+        for (int i = 0; i < COHORT_ROWS; i++) {
+            cohort.add(row(random));
+        }
+        scorer = new CohortScorer(calculator);
+    }
+
+    private Map<String, String> row(Random r) {
+        return switch (calculator) {
+            case ATA -> Map.of("gross_ete", r.nextInt(20) == 0 ? "yes" : "no",
+                    "vascular_invasion", r.nextBoolean() ? "1" : "0",
+                    "lymph_nodes", Integer.toString(r.nextInt(8)),
+                    "largest_node_cm", Double.toString(r.nextInt(40) / 10.0));
+            case TIRADS -> Map.of("composition", pick(r, "CYSTIC_SPONGI", "MIXED", "SOLID"),
+                    "echogenicity", pick(r, "ANECHOIC", "HYPER_ISO", "HYPO", "VERY_HYPO"),
+                    "shape", pick(r, "WIDER", "TALLER"),
+                    "margin", pick(r, "SMOOTH", "LOBULATED", "EXTRA"),
+                    "foci", pick(r, "NONE", "MACRO", "RIM", "PUNCTATE"));
+            case DEXA -> Map.of("score", Double.toString(-4 + r.nextInt(50) / 10.0),
+                    "score_type", r.nextInt(4) == 0 ? "Z" : "T",
+                    "fracture", r.nextInt(10) == 0 ? "yes" : "no");
+            case HBA1C -> Map.of("hba1c", Double.toString(5 + r.nextInt(70) / 10.0));
+            case EKG -> Map.ofEntries(Map.entry("rate", Integer.toString(40 + r.nextInt(120))),
+                    Map.entry("pr", Integer.toString(100 + r.nextInt(150))),
+                    Map.entry("qrs", Integer.toString(70 + r.nextInt(80))),
+                    Map.entry("qtc", Integer.toString(360 + r.nextInt(160))),
+                    Map.entry("axis", Integer.toString(-90 + r.nextInt(210))),
+                    Map.entry("sv1", Integer.toString(r.nextInt(25))), Map.entry("rv5", Integer.toString(r.nextInt(30))),
+                    Map.entry("ravl", Integer.toString(r.nextInt(15))), Map.entry("sv3", Integer.toString(r.nextInt(20))),
+                    Map.entry("sinus", r.nextInt(10) == 0 ? "no" : "yes"), Map.entry("regular", r.nextInt(10) == 0 ? "no" : "yes"),
+                    Map.entry("sex", pick(r, "M", "F")));
+        };
+    }
+
+    private static String pick(Random r, String... values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    @Benchmark
+    public String[] singleRow() {
+        return CohortScorer.scoreRow(calculator, cohort.get(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String[][] cohortSequential() {
+        String[][] results = new String[cohort.size()][];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = CohortScorer.scoreRow(calculator, cohort.get(i));
+        }
+        return results;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String[][] cohortForkJoin() {
+        return scorer.scoreAll(cohort);
+    }
+}
@@ -0,0 +1,89 @@
+package com.emr.gds.main.spell;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * F7 dictionary costs over the real sources (bundled list, KCD names, medication catalog): opening by
+ * mapping the cached file against rebuilding it, a lookup, suggestions for a misspelling, and checking
+ * one typical note paragraph as the background thread does per edited line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpellDictionaryBenchmark {
+
+    private static final String PARAGRAPH = "Pt c/o palpitaion and wieght loss for 3 months. TSH 0.01, free T4 2.8, "
+            + "갑상선 기능 검사 f/u. Thyroid nodule on US, TI-RADS 3. Continue metformin 500mg bid and levothyroxine.";
+
+    private Path dir;
+    private Path file;
+    private Set<String> words;
+    private long stamp;
+    private SpellDictionary dictionary;
+    private SpellChecker checker;
+
+    @Setup
+    public void setUp() throws IOException {
+        SpellSources sources = new SpellSources(
+                Paths.get("src/main/resources/database/kcd_database.db"), Map.of("htn", "hypertension"));
+        words = sources.words();
+        stamp = sources.stamp();
+        dir = Files.createTempDirectory("spell-bench");
+        file = dir.resolve("spell_dict.bin");
+        dictionary = SpellDictionary.build(words, stamp, file);
+        checker = new SpellChecker(dictionary, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public SpellDictionary openMapped() {
+        return SpellDictionary.map(file, stamp);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SpellDictionary openRebuilt() {
+        return SpellDictionary.inMemory(words);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return dictionary.contains("levothyroxine");
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return dictionary.suggest("hypertenion", 5);
+    }
+
+    @Benchmark
+    public List<SpellChecker.Misspelling> checkParagraph() {
+        return checker.check(PARAGRAPH);
+    }
+}
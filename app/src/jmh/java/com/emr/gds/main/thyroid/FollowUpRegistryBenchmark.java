@@ -0,0 +1,102 @@
+package com.emr.gds.main.thyroid;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * "Who is due for an ultrasound this week" through {@link ThyroidFollowUpRegistry}'s due-date index,
+ * against scanning every patient's latest visit and applying the rules, plus the cost of a full
+ * recalculation after a rule change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FollowUpRegistryBenchmark {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 1);
+    private static final String[] LEVELS = {"TR2 (Not Suspicious)", "TR3 (Mildly Suspicious)",
+            "TR4 (Moderately Suspicious)", "TR5 (Highly Suspicious)"};
+
+    @Param({"10000", "100000"})
+    public int patients;
+
+    private Path dir;
+    private ThyroidHistoryStore store;
+    private ThyroidFollowUpRegistry registry;
+    private ThyroidFollowUpRules rules;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("thyroid-registry-bench");
+        store = ThyroidHistoryStore.open(dir);
+        for (int i = 0; i < patients; i++) {
+            LocalDate visit = TODAY.minusDays(i % 730);
+            ThyroidEntry e = ThyroidEntry.builder()
+                    .addCategory(i % 3 == 0 ? ThyroidEntry.MainCategory.HYPOTHYROIDISM : ThyroidEntry.MainCategory.NODULE)
+                    .tiRadsLevel(LEVELS[i % LEVELS.length])
+                    .tsh(1.0 + i % 5)
+                    .lastLabDate(visit)
+                    .followUpInterval(i % 2 == 0 ? "6 months" : null)
+                    .build();
+            store.append("P" + i, e, visit.atStartOfDay(ZONE).toInstant().toEpochMilli());
+        }
+        rules = ThyroidFollowUpRules.defaults();
+        registry = new ThyroidFollowUpRegistry(store, rules, ZONE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<ThyroidFollowUpRegistry.Due> ultrasoundDueThisWeekIndexed() {
+        return registry.dueBetween(ThyroidFollowUpRegistry.Test.ULTRASOUND, TODAY, TODAY.plusDays(6));
+    }
+
+    @Benchmark
+    public List<String> ultrasoundDueThisWeekScan() {
+        LocalDate end = TODAY.plusDays(6);
+        List<String> due = new ArrayList<>();
+        for (ThyroidHistoryStore.Visit v : store.latestVisits()) {
+            LocalDate visitDate = LocalDate.ofInstant(java.time.Instant.ofEpochMilli(v.savedAt()), ZONE);
+            LocalDate d = rules.ultrasoundDue(v.entry(), visitDate);
+            if (d != null && !d.isBefore(TODAY) && !d.isAfter(end)) due.add(v.patientId());
+        }
+        return due;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int recalculate() {
+        return registry.recalculate(rules);
+    }
+}
@@ -0,0 +1,110 @@
+package com.emr.gds.soap;
+
+import com.emr.gds.soap.FamilyHistoryStore.Category;
+import com.emr.gds.soap.FamilyHistoryStore.Condition;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FMH condition lists of 500 entries each: typing a four-letter search against the lower-cased keys
+ * versus lower-casing every name per keystroke, and adding one condition as a single row versus
+ * rewriting every list file as "Save Lists" did.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FamilyHistoryBenchmark {
+
+    private static final int PER_LIST = 500;
+    private static final String[] KEYSTROKES = {"H", "Hy", "Hyp", "Hypo"};
+
+    private Path dir;
+    private FamilyHistoryStore store;
+    private List<List<Condition>> lists;
+    private List<List<String>> names;
+    private int added;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("fmh-bench");
+        Path legacy = Files.createDirectories(dir.resolve("emr_fmh_data"));
+        for (Category c : Category.values()) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < PER_LIST; i++) lines.add(c.title() + " Condition " + i + (i % 7 == 0 ? " Hypoplasia" : ""));
+            Files.write(legacy.resolve(c.name().toLowerCase() + ".txt"), lines);
+        }
+        store = new FamilyHistoryStore(dir.resolve(FamilyHistoryStore.DB_FILE), legacy);
+        Map<Category, List<Condition>> vocabulary = store.conditions().join();
+        lists = new ArrayList<>(vocabulary.values());
+        names = lists.stream().map(l -> l.stream().map(Condition::name).toList()).toList();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        store.close().join();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int searchByKey() {
+        int shown = 0;
+        for (String query : KEYSTROKES) {
+            Predicate<Condition> filter = FamilyHistoryStore.matching(query);
+            for (List<Condition> list : lists) {
+                for (Condition c : list) if (filter.test(c)) shown++;
+            }
+        }
+        return shown;
+    }
+
+    @Benchmark
+    public int searchLowercasingEachItem() {
+        int shown = 0;
+        for (String query : KEYSTROKES) {
+            String filter = query.toLowerCase();
+            for (List<String> list : names) {
+                for (String s : list) if (s.toLowerCase().contains(filter)) shown++;
+            }
+        }
+        return shown;
+    }
+
+    @Benchmark
+    public Condition addOneRow() {
+        Condition c = store.addCondition(Category.GENETIC, "Added " + added++).join();
+        store.removeConditions(List.of(c)).join();
+        return c;
+    }
+
+    @Benchmark
+    public int rewriteAllFiles() throws Exception {
+        Path out = Files.createDirectories(dir.resolve("rewrite"));
+        for (int i = 0; i < names.size(); i++) {
+            Files.write(out.resolve(i + ".txt"), names.get(i));
+        }
+        return names.size();
+    }
+}
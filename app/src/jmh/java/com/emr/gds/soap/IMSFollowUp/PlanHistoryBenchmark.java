@@ -0,0 +1,131 @@
+package com.emr.gds.soap.IMSFollowUp;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PlanHistoryStore} over 1M historical plans for 20k patients: recalling a patient's last five
+ * plans through the (patient_id, encounter_date) index against the same query forced to scan, and
+ * saving plans in batches against the old connection-per-insert path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlanHistoryBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int PATIENTS = 20_000;
+    private static final int SAVES = 100;
+
+    private Path dir;
+    private Path dbFile;
+    private PlanHistoryStore store;
+    private Connection scanConnection;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("plan-history-bench");
+        dbFile = dir.resolve(PlanHistoryStore.DB_FILE);
+        store = new PlanHistoryStore(dbFile);
+        LocalDate start = LocalDate.of(2015, 1, 1);
+        List<PlanHistoryStore.Plan> chunk = new ArrayList<>(50_000);
+        for (int i = 0; i < ROWS; i++) {
+            String date = start.plusDays(i / PATIENTS).toString();
+            chunk.add(new PlanHistoryStore.Plan(0, date + "T09:00", "P>",
+                    "- F/U in 3 month(s)\n- Continue current medication", "P" + (i % PATIENTS), date));
+            if (chunk.size() == 50_000) {
+                store.saveAll(chunk).join();
+                chunk = new ArrayList<>(50_000);
+            }
+        }
+        store.recall("P0", 1).join(); // index and connection ready
+        scanConnection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        scanConnection.close();
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<PlanHistoryStore.Plan> recallIndexed() {
+        return store.recall(randomPatient(), 5).join();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int recallWithoutIndex() throws SQLException {
+        try (PreparedStatement ps = scanConnection.prepareStatement(
+                "SELECT id, content FROM plan_history NOT INDEXED WHERE patient_id = ? ORDER BY encounter_date DESC, id DESC LIMIT 5")) {
+            ps.setString(1, randomPatient());
+            int n = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) n++;
+            }
+            return n;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAVES)
+    public void saveBatched() {
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < SAVES; i++) {
+            last = store.save("P>", "- F/U in 4 week(s)", randomPatient(), "2026-10-18");
+        }
+        last.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAVES)
+    public void saveConnectionPerInsert() throws SQLException {
+        for (int i = 0; i < SAVES; i++) {
+            try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+                 PreparedStatement ps = c.prepareStatement(
+                         "INSERT INTO plan_history (created_at, section, content, patient_id, encounter_date) VALUES (?,?,?,?,?)")) {
+                ps.setString(1, "2026-10-18T09:00");
+                ps.setString(2, "P>");
+                ps.setString(3, "- F/U in 4 week(s)");
+                ps.setString(4, randomPatient());
+                ps.setString(5, "2026-10-18");
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static String randomPatient() {
+        return "P" + ThreadLocalRandom.current().nextInt(PATIENTS);
+    }
+}
@@ -0,0 +1,131 @@
+package com.emr.gds.soap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A 5k-phrase Present Illness bank: counting a pick, opening the editor (ranked list) and filtering
+ * by a typed prefix, each against the straightforward version that sorts or scans the whole bank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhraseLibraryBenchmark {
+
+    private static final int PHRASES = 5_000;
+    private static final String[] WORDS = {
+            "acute", "chronic", "chest", "pain", "radiating", "shortness", "breath", "abdominal", "fever",
+            "nausea", "headache", "palpitation", "fatigue", "weight", "loss", "polyuria", "thirst", "tremor",
+            "neck", "swelling", "dizziness", "worse", "exertion", "night", "sweats", "cough", "since"
+    };
+    private static final PhraseLibrary.Section SECTION = PhraseLibrary.Section.PRESENT_ILLNESS;
+
+    private Path dir;
+    private PhraseLibrary library;
+    private List<PhraseLibrary.Phrase> phrases;
+    private int[] counts;
+    private final Random random = new Random(7);
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("phrase-bench");
+        Path db = dir.resolve(PhraseLibrary.DB_FILE);
+        PhraseLibrary init = new PhraseLibrary(db);
+        init.load();
+        init.close().join();
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db)) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO phrases (section, text, sort_order) VALUES ('pi', ?, ?)")) {
+                Random r = new Random(42);
+                for (int i = 0; i < PHRASES; i++) {
+                    StringBuilder sb = new StringBuilder();
+                    for (int w = 0; w < 8; w++) sb.append(WORDS[r.nextInt(WORDS.length)]).append(' ');
+                    ps.setString(1, sb.append(i).toString());
+                    ps.setInt(2, 10 + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            c.commit();
+        }
+        library = new PhraseLibrary(db);
+        library.load();
+        phrases = new ArrayList<>(library.ranked(SECTION));
+        counts = new int[phrases.size()];
+        for (int i = 0; i < 20_000; i++) {
+            int k = (int) Math.abs(random.nextGaussian() * 300) % phrases.size();
+            library.recordUse(phrases.get(k));
+            counts[k]++;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        library.close().join();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int recordPick() {
+        library.recordUse(phrases.get(random.nextInt(phrases.size())));
+        return phrases.size();
+    }
+
+    @Benchmark
+    public List<PhraseLibrary.Phrase> openRankedCached() {
+        return library.ranked(SECTION);
+    }
+
+    @Benchmark
+    public List<Integer> openSortEveryTime() {
+        List<Integer> order = new ArrayList<>(phrases.size());
+        for (int i = 0; i < phrases.size(); i++) order.add(i);
+        order.sort((a, b) -> Integer.compare(counts[b], counts[a]));
+        return order;
+    }
+
+    @Benchmark
+    public List<PhraseLibrary.Phrase> filterIndexed() {
+        return library.filter(SECTION, "polyu");
+    }
+
+    @Benchmark
+    public List<PhraseLibrary.Phrase> filterScan() {
+        List<PhraseLibrary.Phrase> out = new ArrayList<>();
+        for (PhraseLibrary.Phrase p : library.ranked(SECTION)) {
+            for (String w : p.text().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (w.startsWith("polyu")) {
+                    out.add(p);
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+}
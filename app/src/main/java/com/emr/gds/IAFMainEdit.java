@@ -1,5 +1,7 @@
 package com.emr.gds;
 
+import com.emr.gds.main.IAMDataRefresher;
+import com.emr.gds.main.IAMPaths;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.Font;
@@ -8,7 +10,6 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -18,8 +19,10 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -69,19 +72,14 @@ public class IAFMainEdit extends JFrame {
     // === Data / Logic ===
     private final DatabaseManager dbManager;
     private int selectedTemplateId = -1;
+    private boolean refreshingTable;
+    private final Runnable externalReload = () -> SwingUtilities.invokeLater(this::refreshTemplatesFromDb);
     private final Consumer<String> onTemplateSelectedCallback;
 
     // --- DB Path Helpers ---
-    private static Path repoRoot() {
-        Path p = Paths.get("").toAbsolutePath();
-        while (p != null && !Files.exists(p.resolve("gradlew")) && !Files.exists(p.resolve(".git"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p : Paths.get("").toAbsolutePath();
-    }
     
     private static Path dbPath() {
-        return repoRoot().resolve("app").resolve("db").resolve("emr_templates.db");
+        return IAMPaths.dbDirectory().resolve("emr_templates.db");
     }
 
     public IAFMainEdit(Consumer<String> onTemplateSelectedCallback) {
@@ -112,11 +110,18 @@ public class IAFMainEdit extends JFrame {
         attachListeners();
         loadTemplatesIntoTable();
 
+        // Templates edited in another instance or tool show up here while the editor is open
+        IAMDataRefresher.shared().addListener(IAMDataRefresher.Source.TEMPLATES, externalReload);
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
                 dbManager.closeConnection();
             }
+
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent windowEvent) {
+                IAMDataRefresher.shared().removeListener(IAMDataRefresher.Source.TEMPLATES, externalReload);
+            }
         });
     }
 
@@ -179,7 +184,7 @@ public class IAFMainEdit extends JFrame {
 
     private void attachListeners() {
         templateTable.getSelectionModel().addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) handleTableSelection();
+            if (!e.getValueIsAdjusting() && !refreshingTable) handleTableSelection();
         });
         newButton.addActionListener(e -> clearEditor());
         saveButton.addActionListener(e -> saveTemplate());
@@ -196,6 +201,44 @@ public class IAFMainEdit extends JFrame {
         }
     }
     
+    /**
+     * Applies template rows changed outside this window to the table in place, keeping the selected
+     * row and any unsaved text in the editor. The editor is cleared only if its template was deleted.
+     */
+    private void refreshTemplatesFromDb() {
+        if (!isDisplayable()) return;
+        List<Object[]> rows = dbManager.getAllTemplates();
+        Map<Integer, String> fresh = new HashMap<>();
+        for (Object[] row : rows) fresh.put((Integer) row[0], (String) row[1]);
+
+        refreshingTable = true;
+        try {
+            for (int r = tableModel.getRowCount() - 1; r >= 0; r--) {
+                if (!fresh.containsKey((Integer) tableModel.getValueAt(r, 0))) tableModel.removeRow(r);
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                Integer id = (Integer) rows.get(i)[0];
+                String name = (String) rows.get(i)[1];
+                int at = -1;
+                for (int r = i; r < tableModel.getRowCount(); r++) {
+                    if (id.equals(tableModel.getValueAt(r, 0))) {
+                        at = r;
+                        break;
+                    }
+                }
+                if (at < 0) {
+                    tableModel.insertRow(i, new Object[]{id, name});
+                    continue;
+                }
+                if (at != i) tableModel.moveRow(at, at, i);
+                if (!name.equals(tableModel.getValueAt(i, 1))) tableModel.setValueAt(name, i, 1);
+            }
+        } finally {
+            refreshingTable = false;
+        }
+        if (selectedTemplateId != -1 && !fresh.containsKey(selectedTemplateId)) clearEditor();
+    }
+
     private void handleTableSelection() {
         int selectedRow = templateTable.getSelectedRow();
         if (selectedRow != -1) {
@@ -8,11 +8,19 @@ import com.emr.gds.input.IAIFxTextAreaManager;
 import com.emr.gds.input.IAIMain;
 import com.emr.gds.input.IAITextAreaManager;
 import com.emr.gds.main.IAMButtonAction;
+import com.emr.gds.main.IAMDataRefresher;
+import com.emr.gds.main.IAMEncounterSnapshot;
 import com.emr.gds.main.IAMFunctionkey;
+import com.emr.gds.main.IAMPaths;
 import com.emr.gds.main.IAMProblemAction;
+import com.emr.gds.main.IAMSnapshotStore;
+import com.emr.gds.main.IAMStartupPipeline;
 import com.emr.gds.main.IAMTextArea;
 import com.emr.gds.main.IAMTextFormatUtil;
+import com.emr.gds.main.IAMTrainingSession;
 import com.emr.gds.main.TextAreaControlProcessor;
+import com.emr.gds.main.macro.MacroEditor;
+import com.emr.gds.main.macro.MacroEngine;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
@@ -38,29 +46,37 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 
 import com.emr.gds.main.medication.MedicationCategory;
 import com.emr.gds.main.thyroid.ThyroidLauncher;
+import com.emr.gds.soap.FamilyHistoryStore;
+import com.emr.gds.soap.PhraseLibrary;
 
+import java.awt.Frame;
 import javax.swing.SwingUtilities;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Main JavaFX Application for GDSEMR ITTIA - EMR Prototype.
@@ -97,8 +113,18 @@ public class IttiaApp extends Application {
     private final Map<String, String> abbrevMap = new HashMap<>();
     private IAIFreqFrame freqStage; // Manages the vital signs window
     private IAMFunctionkey functionKeyHandler;
+    private IAMDataRefresher dataRefresher;
+    private MacroEngine macroEngine;
+    private MacroEditor macroEditor;
     private Stage mainStage;
 
+    // ================================
+    // Startup State
+    // ================================
+    private final IAMStartupPipeline startup = new IAMStartupPipeline();
+    private CompletableFuture<Void> coreDataReady;
+    private boolean mainSceneRequested;
+
     // ================================
     // Application Lifecycle
     // ================================
@@ -121,6 +147,13 @@ public class IttiaApp extends Application {
         primaryStage.setTitle(APP_TITLE);
 
         showLoginScene(primaryStage);
+        startBackgroundInitialization();
+
+        if (IAMTrainingSession.isEnabled()) {
+            // AOT cache training run: skip the login and replay a scripted session.
+            mainSceneRequested = true;
+            openMainSceneWhenReady(() -> IAMTrainingSession.run(this));
+        }
     }
 
     private void showLoginScene(Stage stage) {
@@ -192,28 +225,48 @@ public class IttiaApp extends Application {
             return;
         }
 
+        if (mainSceneRequested) return;
+        mainSceneRequested = true;
+
         statusLabel.setText("Signing in...");
-        launchMainScene();
+        startup.submit("phrase usage", () -> PhraseLibrary.shared().signIn(username).join()).exceptionally(e -> null);
+        // Background loading has usually finished while the credentials were typed.
+        openMainSceneWhenReady(() -> {});
+    }
+
+    private void openMainSceneWhenReady(Runnable afterLaunch) {
+        coreDataReady.whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                showFatalError("Application Startup Error", "Failed to load application data.", cause);
+            } else {
+                launchMainScene();
+                afterLaunch.run();
+            }
+        }));
     }
 
     private void launchMainScene() {
         try {
             // Initialize core components before building the UI
-            initializeApplicationComponents();
+            startup.time("ui components", this::initializeApplicationComponents);
             
             // Build the main layout
-            BorderPane root = buildRootLayout();
+            BorderPane root = startup.compute("layout", this::buildRootLayout);
             Scene scene = new Scene(root, SCENE_WIDTH, SCENE_HEIGHT);
             
             // Load the CSS stylesheet
             scene.getStylesheets().add(getClass().getResource("/css/application.css").toExternalForm());
             
-            mainStage.setTitle(APP_TITLE);
-            mainStage.setScene(scene);
-            mainStage.show();
+            startup.time("show main stage", () -> {
+                mainStage.setTitle(APP_TITLE);
+                mainStage.setScene(scene);
+                mainStage.show();
+            });
             
             // Perform setup tasks after the stage is visible
-            configurePostShow(scene);
+            startup.time("post-show setup", () -> configurePostShow(scene));
+            startup.finish();
         } catch (Exception e) {
             showFatalError("Application Startup Error", "Failed to start the application.", e);
         }
@@ -229,6 +282,14 @@ public class IttiaApp extends Application {
     @Override
     public void stop() throws Exception {
         super.stop();
+        if (dataRefresher != null) {
+            dataRefresher.close();
+        }
+        if (macroEngine != null) {
+            macroEngine.close();
+        }
+        PhraseLibrary.closeShared();
+        FamilyHistoryStore.closeShared();
         // Ensure the database connection is closed
         if (dbConn != null && !dbConn.isClosed()) {
             dbConn.close();
@@ -241,11 +302,25 @@ public class IttiaApp extends Application {
     // ================================
 
     /**
-     * Initializes database connection and core application managers.
+     * Starts loading the data the main scene depends on while the login screen is showing.
+     * The abbreviation and problem list databases are independent, so they load in parallel;
+     * KCD and medication data are only warmed up for the tool windows that use them.
      */
-    private void initializeApplicationComponents() throws SQLException, IOException, ClassNotFoundException {
-        initAbbrevDatabase();
-        problemAction = new IAMProblemAction(this);
+    private void startBackgroundInitialization() {
+        CompletableFuture<Void> abbreviations = startup.submit("abbreviations", () -> {
+            initAbbrevDatabase();
+            return null;
+        });
+        CompletableFuture<Void> problems = startup.submit("problem list", () -> new IAMProblemAction(this))
+                .thenAccept(action -> problemAction = action);
+        coreDataReady = CompletableFuture.allOf(abbreviations, problems);
+        startup.warmUpSharedData();
+    }
+
+    /**
+     * Creates the FX-side managers once the background data has been loaded.
+     */
+    private void initializeApplicationComponents() {
         textAreaManager = new IAMTextArea(abbrevMap, problemAction);
         buttonAction = new IAMButtonAction(this, dbConn, abbrevMap);
         functionKeyHandler = new IAMFunctionkey(this);
@@ -481,6 +556,141 @@ public class IttiaApp extends Application {
             textAreaManager.focusArea(INITIAL_FOCUS_AREA);
         });
         installAllKeyboardShortcuts(scene);
+        // After the built-in shortcuts, so macros cannot take them over.
+        macroEngine = new MacroEngine(textAreaManager, abbrevMap);
+        macroEngine.install(scene);
+        textAreaManager.prewarmEditors();
+        startDataRefresh();
+        if (!IAMTrainingSession.isEnabled()) {
+            offerSnapshotRestore();
+        }
+    }
+
+    /**
+     * Reloads abbreviations and the problem list when their databases are edited outside the app,
+     * either on F5 or when the file watcher sees a write.
+     */
+    private void startDataRefresh() {
+        dataRefresher = IAMDataRefresher.shared();
+        dataRefresher.addListener(IAMDataRefresher.Source.ABBREVIATIONS, this::reloadAbbreviations);
+        dataRefresher.addListener(IAMDataRefresher.Source.PROBLEMS, problemAction::reloadFromDb);
+        dataRefresher.startWatching();
+    }
+
+    /**
+     * Re-reads the abbreviation table and applies only the changed entries to the shared map.
+     * Runs on the refresher thread.
+     */
+    private void reloadAbbreviations() {
+        Map<String, String> fresh = new HashMap<>();
+        try (Statement stmt = dbConn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + DB_TABLE_NAME)) {
+            while (rs.next()) {
+                fresh.put(rs.getString("short"), rs.getString("full"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to reload abbreviations: " + e.getMessage());
+            return;
+        }
+        Platform.runLater(() -> {
+            IAMDataRefresher.applyDiff(abbrevMap, fresh);
+            // Macros bake expansions in at compile time.
+            if (macroEngine != null) macroEngine.recompile();
+        });
+    }
+
+    // ================================
+    // Encounter Snapshots (F9)
+    // ================================
+
+    private static final String VITAL_WINDOW_TITLE = "Frequent Data Input";
+    private static final String TEMPLATE_EDITOR_TITLE = "EMR Template Editor";
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Copies the encounter on the FX thread and writes it in the background.
+     *
+     * @return the saved file, or the failure.
+     */
+    public CompletableFuture<Path> saveEncounterSnapshot() {
+        long start = System.nanoTime();
+        IAMEncounterSnapshot snapshot = captureSnapshot();
+        System.out.printf("[SNAPSHOT] Captured on FX thread in %.2f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+        return IAMSnapshotStore.shared().save(snapshot);
+    }
+
+    private IAMEncounterSnapshot captureSnapshot() {
+        problemAction.flushScratchpadSync(); // the scratchpad may lag the areas by one debounce
+        List<String> areas = new ArrayList<>();
+        for (TextArea ta : textAreaManager.getTextAreas()) {
+            areas.add(ta.getText());
+        }
+        List<IAMEncounterSnapshot.WindowState> windows = new ArrayList<>();
+        for (Window w : Window.getWindows()) {
+            if (w != mainStage && w.isShowing() && w instanceof Stage stage && stage.getTitle() != null && !stage.getTitle().isBlank()) {
+                windows.add(new IAMEncounterSnapshot.WindowState(stage.getTitle(), w.getX(), w.getY(), w.getWidth(), w.getHeight()));
+            }
+        }
+        for (Frame f : Frame.getFrames()) {
+            if (f.isShowing() && f.getTitle() != null && !f.getTitle().isBlank()) {
+                windows.add(new IAMEncounterSnapshot.WindowState(f.getTitle(), f.getX(), f.getY(), f.getWidth(), f.getHeight()));
+            }
+        }
+        return new IAMEncounterSnapshot(System.currentTimeMillis(), areas,
+                problemAction.getScratchpadText(), problemAction.getSelectedProblems(), windows);
+    }
+
+    /**
+     * Restores the text areas and problem selection, rebuilds the scratchpad from the restored areas,
+     * reopens the vital and template windows if they were open, and moves open FX tool windows back to
+     * their saved bounds.
+     */
+    public void restoreSnapshot(IAMEncounterSnapshot snapshot) {
+        List<TextArea> areas = textAreaManager.getTextAreas();
+        for (int i = 0; i < areas.size() && i < snapshot.areas().size(); i++) {
+            areas.get(i).setText(snapshot.areas().get(i));
+        }
+        problemAction.resyncScratchpad();
+        problemAction.selectProblems(snapshot.selectedProblems());
+
+        for (IAMEncounterSnapshot.WindowState w : snapshot.windows()) {
+            if (VITAL_WINDOW_TITLE.equals(w.title())) openVitalWindow();
+            if (TEMPLATE_EDITOR_TITLE.equals(w.title())) openTemplateEditor();
+        }
+        Platform.runLater(() -> {
+            for (IAMEncounterSnapshot.WindowState w : snapshot.windows()) {
+                for (Window window : Window.getWindows()) {
+                    if (window instanceof Stage stage && w.title().equals(stage.getTitle()) && stage != mainStage) {
+                        stage.setX(w.x());
+                        stage.setY(w.y());
+                        stage.setWidth(w.width());
+                        stage.setHeight(w.height());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Looks for the newest snapshot in the background and offers to restore it.
+     */
+    private void offerSnapshotRestore() {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return IAMSnapshotStore.shared().latest();
+            } catch (IOException e) {
+                System.err.println("[SNAPSHOT] Failed to look for snapshots: " + e.getMessage());
+                return Optional.<IAMEncounterSnapshot>empty();
+            }
+        }).thenAccept(latest -> latest.filter(s -> !s.isEmpty()).ifPresent(snapshot -> Platform.runLater(() -> {
+            String savedAt = SNAPSHOT_TIME.format(Instant.ofEpochMilli(snapshot.savedAt()).atZone(ZoneId.systemDefault()));
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Restore the encounter saved at " + savedAt + "?", ButtonType.YES, ButtonType.NO);
+            alert.setTitle("Restore Snapshot");
+            alert.setHeaderText(null);
+            alert.initOwner(mainStage);
+            alert.showAndWait().filter(ButtonType.YES::equals).ifPresent(b -> restoreSnapshot(snapshot));
+        })));
     }
 
     /**
@@ -535,6 +745,9 @@ public class IttiaApp extends Application {
         // Ctrl+Shift+C: Copy all content to clipboard
         shortcuts.put(new KeyCodeCombination(KeyCode.C, KeyCombination.CONTROL_DOWN, KeyCombination.SHIFT_DOWN), this::copyAllToClipboard);
 
+        // Ctrl+Shift+M: Edit keyboard macros
+        shortcuts.put(new KeyCodeCombination(KeyCode.M, KeyCombination.CONTROL_DOWN, KeyCombination.SHIFT_DOWN), this::openMacroEditor);
+
         addAreaFocusShortcuts(shortcuts);
 
         // Register all shortcuts with the scene
@@ -554,6 +767,17 @@ public class IttiaApp extends Application {
         shortcuts.put(new KeyCodeCombination(KeyCode.DIGIT0, KeyCombination.CONTROL_DOWN), () -> textAreaManager.focusArea(9));
     }
 
+    /**
+     * Opens the macro editor; macros themselves are bound by {@link MacroEngine}.
+     */
+    public void openMacroEditor() {
+        if (macroEngine == null) return;
+        if (macroEditor == null) {
+            macroEditor = new MacroEditor(macroEngine, mainStage);
+        }
+        macroEditor.show();
+    }
+
     // ================================
     // Text Manipulation Methods
     // ================================
@@ -654,23 +878,11 @@ public class IttiaApp extends Application {
     // Utility Methods
     // ================================
 
-    /**
-     * Finds the root directory of the repository.
-     */
-    private Path getRepoRoot() {
-        Path p = Paths.get("").toAbsolutePath();
-        // Traverse up until a marker file is found
-        while (p != null && !Files.exists(p.resolve("gradlew")) && !Files.exists(p.resolve(".git"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p : Paths.get("").toAbsolutePath();
-    }
-
     /**
      * Constructs the full path to a database file within the project structure.
      */
     private Path getDbPath(String fileName) {
-        return getRepoRoot().resolve("app").resolve("db").resolve(fileName);
+        return IAMPaths.dbDirectory().resolve(fileName);
     }
 
     /**
@@ -721,6 +933,10 @@ public class IttiaApp extends Application {
         return abbrevMap;
     }
 
+    public IAMProblemAction getProblemAction() {
+        return problemAction;
+    }
+
     public IAMFunctionkey getFunctionKeyHandler() {
         return functionKeyHandler;
     }
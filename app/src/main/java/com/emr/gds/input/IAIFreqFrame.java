@@ -1,7 +1,11 @@
 package com.emr.gds.input;
 
+import com.emr.gds.input.IAIVitalsStore.Metric;
+import com.emr.gds.main.scoring.Hba1cCalculator;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -26,9 +30,17 @@ import javafx.stage.StageStyle;
 /**
  * A compact JavaFX utility window for frequent EMR data entries, including BMI, HbA1c, and vital signs.
  * This window is designed as an undecorated stage that positions itself on the top-right of the screen.
+ * Values saved to the note are also recorded in {@link IAIVitalsStore} under the entered patient id,
+ * and the patient's running trends from {@link IAITrendEngine} are shown in the Trends pane.
  */
 public class IAIFreqFrame extends Stage {
 
+    /** A value waiting for the section's Save before it is recorded. */
+    private record Reading(Metric metric, double value) {}
+
+    private final TextField patientIdField = new TextField();
+    private final TextArea trendArea = new TextArea();
+
     // BMI components
     private final TextField[] bmiInputs = new TextField[3];
 
@@ -43,6 +55,9 @@ public class IAIFreqFrame extends Stage {
     private Set<String> vsValidInputs;
     private Integer sbp, dbp, pulseRate, respirationRate;
     private Double bodyTemperature;
+    private final List<Reading> pendingVitals = new ArrayList<>();
+    private final List<Reading> pendingLabs = new ArrayList<>();
+    private Metric pendingGlucoseMetric = Metric.GLUCOSE_FASTING;
 
     public IAIFreqFrame() {
         initStyle(StageStyle.UNDECORATED);
@@ -53,14 +68,16 @@ public class IAIFreqFrame extends Stage {
 
         VBox content = new VBox(8);
         content.getChildren().addAll(
+                createPatientRow(),
                 createBmiPane(),
                 createHba1cPane(),
                 createVitalsPane(),
+                createTrendPane(),
                 createBottomButtons()
         );
         root.setCenter(content);
 
-        setScene(new Scene(root, 360, 810));
+        setScene(new Scene(root, 360, 960));
         setOnShown(e -> positionInTopRight());
 
         initializeVitalsValidInputs();
@@ -68,6 +85,57 @@ public class IAIFreqFrame extends Stage {
         show();
     }
 
+    private HBox createPatientRow() {
+        patientIdField.setPromptText("Chart number (optional)");
+        patientIdField.setOnAction(e -> refreshTrends());
+        patientIdField.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) refreshTrends();
+        });
+        HBox.setHgrow(patientIdField, javafx.scene.layout.Priority.ALWAYS);
+        HBox row = new HBox(8, new Label("Patient ID:"), patientIdField);
+        row.setAlignment(Pos.CENTER_LEFT);
+        return row;
+    }
+
+    private void recordReadings(List<Reading> readings) {
+        if (readings.isEmpty()) return;
+        try {
+            IAITrendEngine engine = IAITrendEngine.shared();
+            long now = System.currentTimeMillis();
+            for (Reading r : readings) {
+                engine.record(patientIdField.getText(), r.metric(), now, r.value());
+            }
+        } catch (RuntimeException ex) {
+            // The note already has the values; a broken store must not block charting.
+            System.err.println("[VITALS] Could not record readings: " + ex.getMessage());
+        }
+        readings.clear();
+        refreshTrends();
+    }
+
+    private TitledPane createTrendPane() {
+        trendArea.setEditable(false);
+        trendArea.setPrefRowCount(4);
+        trendArea.setPromptText("Trends appear after values are saved for this patient.");
+        HBox buttons = new HBox(8, createButton("Refresh", e -> refreshTrends()), createButton("Add to A>", e -> saveTrendsToAssessment()));
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+        return new TitledPane("Trends", new VBox(6, trendArea, buttons));
+    }
+
+    private void refreshTrends() {
+        try {
+            trendArea.setText(IAITrendEngine.shared().summary(patientIdField.getText()));
+        } catch (RuntimeException ex) {
+            trendArea.setText("Trends unavailable: " + ex.getMessage());
+        }
+    }
+
+    private void saveTrendsToAssessment() {
+        String text = trendArea.getText();
+        if (text == null || text.isBlank() || text.startsWith("Trends unavailable")) return;
+        IAIMain.getTextAreaManager().insertBlockIntoArea(IAITextAreaManager.AREA_A, "\n< Trends >\n" + text.strip(), true);
+    }
+
     private TitledPane createBmiPane() {
         GridPane grid = createFormGrid();
         String[] bmiLabels = {"Height (cm):", "Weight (kg):", "Waist (cm or inch):"};
@@ -89,32 +157,41 @@ public class IAIFreqFrame extends Stage {
     }
 
     private void onSaveBMI() {
+        double height, weight, waist;
         try {
-            double height = Double.parseDouble(bmiInputs[0].getText());
-            double weight = Double.parseDouble(bmiInputs[1].getText());
-            double bmi = weight / Math.pow(height / 100.0, 2.0);
-            String category = (bmi < 18.5) ? "Underweight" : (bmi < 25.0) ? "Healthy" : (bmi < 30.0) ? "Overweight" : "Obesity";
-            String waist = processWaist(bmiInputs[2].getText());
-
-            String report = String.format("\n< BMI >\n%s : BMI: [ %.2f ] kg/m^2\nHeight : %.1f cm   Weight : %.1f kg%s",
-                    category, bmi, height, weight, waist.isEmpty() ? "" : "   Waist: " + waist + " cm");
-
-            IAIMain.getTextAreaManager().appendTextToSection(IAITextAreaManager.AREA_O, report + "\n");
-            for (TextField field : bmiInputs) field.clear();
-            bmiInputs[0].requestFocus();
+            // Validate every field before anything is written, so a bad value never leaves half a note.
+            height = Double.parseDouble(bmiInputs[0].getText());
+            weight = Double.parseDouble(bmiInputs[1].getText());
+            waist = waistCm(bmiInputs[2].getText());
         } catch (NumberFormatException ex) {
-            showError("Please enter valid numbers for Height and Weight.");
+            showError("Please enter valid numbers for Height, Weight and Waist.");
+            return;
         }
+        double bmi = weight / Math.pow(height / 100.0, 2.0);
+        String category = (bmi < 18.5) ? "Underweight" : (bmi < 25.0) ? "Healthy" : (bmi < 30.0) ? "Overweight" : "Obesity";
+
+        String report = String.format("\n< BMI >\n%s : BMI: [ %.2f ] kg/m^2\nHeight : %.1f cm   Weight : %.1f kg%s",
+                category, bmi, height, weight, Double.isNaN(waist) ? "" : String.format("   Waist: %.1f cm", waist));
+
+        IAIMain.getTextAreaManager().appendTextToSection(IAITextAreaManager.AREA_O, report + "\n");
+        List<Reading> readings = new ArrayList<>(List.of(
+                new Reading(Metric.HEIGHT, height), new Reading(Metric.WEIGHT, weight), new Reading(Metric.BMI, bmi)));
+        if (!Double.isNaN(waist)) readings.add(new Reading(Metric.WAIST, waist));
+        recordReadings(readings);
+        for (TextField field : bmiInputs) field.clear();
+        bmiInputs[0].requestFocus();
     }
 
-    private String processWaist(String waistRaw) {
-        if (waistRaw == null || waistRaw.isBlank()) return "";
-        String w = waistRaw.trim().toLowerCase();
-        if (w.contains("i")) {
-            double inches = Double.parseDouble(w.replaceAll("[^\\d.]", ""));
-            return String.format("%.1f", inches * 2.54);
-        }
-        return w.replaceAll("[^\\d.]", "");
+    /**
+     * Waist in cm; values containing an "i" (in, inch) are converted from inches. NaN when blank.
+     *
+     * @throws NumberFormatException if the field holds no usable number.
+     */
+    private static double waistCm(String waistRaw) {
+        if (waistRaw == null || waistRaw.isBlank()) return Double.NaN;
+        String w = waistRaw.trim().toLowerCase(Locale.ROOT);
+        double value = Double.parseDouble(w.replaceAll("[^\\d.]", ""));
+        return w.contains("i") ? value * 2.54 : value;
     }
 
     private TitledPane createHba1cPane() {
@@ -145,11 +222,18 @@ public class IAIFreqFrame extends Stage {
 
         if (index == 0) {
             hba1cOutputArea.appendText("\n   " + (value.equals("0") ? "FBS" : "PP" + value));
+            pendingGlucoseMetric = value.equals("0") ? Metric.GLUCOSE_FASTING : Metric.GLUCOSE_POSTPRANDIAL;
         } else if (index == 1) {
             hba1cOutputArea.appendText("   [ " + value + " ] mg/dL");
+            try {
+                pendingLabs.add(new Reading(pendingGlucoseMetric, Double.parseDouble(value)));
+            } catch (NumberFormatException ignored) {
+                // Free-text glucose still goes into the note; it just isn't charted.
+            }
         } else if (index == 2) {
             try {
                 double hba1c = Double.parseDouble(value);
+                pendingLabs.add(new Reading(Metric.HBA1C, hba1c));
                 hba1cOutputArea.appendText("   HbA1c [ " + value + " ] %\n");
                 appendHba1cCalculations(hba1c);
                 saveHba1cToEMR();
@@ -165,16 +249,15 @@ public class IAIFreqFrame extends Stage {
     }
 
     private void appendHba1cCalculations(double hba1c) {
-        double ifcc = (hba1c - 2.15) * 10.929;
-        double eagMgDl = (28.7 * hba1c) - 46.7;
-        hba1cOutputArea.appendText(String.format("\n\tIFCC HbA1c: [ %.0f ] mmol/mol\n\teAG: [ %.0f ] mg/dL\n", ifcc, eagMgDl));
-
-        String status = (hba1c > 9.0) ? "Very poor" : (hba1c > 8.5) ? "Poor" : (hba1c > 7.5) ? "Fair" : (hba1c > 6.5) ? "Good" : "Excellent";
-        IAIMain.getTextAreaManager().insertLineIntoArea(IAITextAreaManager.AREA_A, "\n...now [ " + status + " ] controlled glucose status", true);
+        Hba1cCalculator.Result result = Hba1cCalculator.evaluate(hba1c);
+        hba1cOutputArea.appendText(String.format("\n\tIFCC HbA1c: [ %.0f ] mmol/mol\n\teAG: [ %.0f ] mg/dL\n", result.ifccMmolPerMol(), result.eagMgDl()));
+        IAIMain.getTextAreaManager().insertLineIntoArea(IAITextAreaManager.AREA_A, "\n...now [ " + result.status() + " ] controlled glucose status", true);
     }
 
     private void clearHba1c() {
         hba1cOutputArea.clear();
+        pendingLabs.clear();
+        pendingGlucoseMetric = Metric.GLUCOSE_FASTING;
         for (TextField field : hba1cInputs) field.clear();
         hba1cInputs[0].requestFocus();
     }
@@ -183,6 +266,7 @@ public class IAIFreqFrame extends Stage {
         String text = hba1cOutputArea.getText();
         if (text != null && !text.isBlank()) {
             IAIMain.getTextAreaManager().insertBlockIntoArea(IAITextAreaManager.AREA_O, text, true);
+            recordReadings(pendingLabs);
         }
     }
 
@@ -242,6 +326,8 @@ public class IAIFreqFrame extends Stage {
             double temp = Double.parseDouble(input.substring(1));
             vsDescriptionArea.setText(" at GDS : Forehead (Temporal Artery) Thermometer:");
             vsOutputArea.setText("Body Temperature [ " + temp + " ] ℃");
+            pendingVitals.clear(); // the output was replaced, so only this reading will be saved
+            pendingVitals.add(new Reading(Metric.TEMPERATURE, temp));
         } catch (RuntimeException ex) {
             vsOutputArea.setText("Invalid temperature format. Use 't' followed by a number (e.g., t36.5).");
         }
@@ -249,19 +335,25 @@ public class IAIFreqFrame extends Stage {
 
     private void processVitalsNumeric(double value) {
         if (sbp == null) {
+            pendingVitals.clear(); // a new SBP replaces the output, and with it the earlier readings
             sbp = (int) value;
+            pendingVitals.add(new Reading(Metric.SBP, sbp));
             vsOutputArea.setText("\tSBP [" + sbp + "] mmHg");
         } else if (dbp == null) {
             dbp = (int) value;
+            pendingVitals.add(new Reading(Metric.DBP, dbp));
             vsOutputArea.setText("BP [" + sbp + " / " + dbp + "] mmHg");
         } else if (pulseRate == null) {
             pulseRate = (int) value;
+            pendingVitals.add(new Reading(Metric.PULSE, pulseRate));
             vsOutputArea.appendText("   PR [" + pulseRate + "]/minute");
         } else if (bodyTemperature == null) {
             bodyTemperature = value;
+            pendingVitals.add(new Reading(Metric.TEMPERATURE, bodyTemperature));
             vsOutputArea.appendText("\n\tBody Temperature [" + bodyTemperature + "]℃");
         } else if (respirationRate == null) {
             respirationRate = (int) value;
+            pendingVitals.add(new Reading(Metric.RESPIRATION, respirationRate));
             vsOutputArea.appendText("\n\tRespiration Rate [" + respirationRate + "]/minute");
             resetVitalsStagedValues();
         }
@@ -276,6 +368,7 @@ public class IAIFreqFrame extends Stage {
         manager.focusArea(IAITextAreaManager.AREA_O);
         if (!description.isBlank()) manager.insertLineIntoFocusedArea(description);
         if (!output.isBlank()) manager.insertLineIntoFocusedArea("\t" + output);
+        recordReadings(pendingVitals);
         resetVitalsFields();
     }
 
@@ -283,6 +376,7 @@ public class IAIFreqFrame extends Stage {
         vsInputField.clear();
         vsOutputArea.clear();
         vsDescriptionArea.setText(" at GDS : Regular pulse, Right Seated Position");
+        pendingVitals.clear();
         resetVitalsStagedValues();
     }
 
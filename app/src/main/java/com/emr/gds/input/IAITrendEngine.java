@@ -0,0 +1,233 @@
+package com.emr.gds.input;
+
+import com.emr.gds.input.IAIVitalsStore.Metric;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Running trend statistics per patient and metric on top of {@link IAIVitalsStore}.
+ * <p>
+ * Each series keeps the last value, the change from the previous reading, a least-squares slope,
+ * the mean of the last {@link #ROLLING_WINDOW} readings and the share of elapsed time spent inside the
+ * metric's target range. All of them are maintained from running sums, so a new reading costs O(1).
+ * History is replayed from the store only once, the first time a series is asked for, and again
+ * only if a reading arrives with a timestamp older than the latest one.
+ */
+public final class IAITrendEngine {
+
+    // ================================
+    // Constants
+    // ================================
+    static final int ROLLING_WINDOW = 5;
+    private static final double DAY_MS = 86_400_000.0;
+    private static final double MONTH_DAYS = 30.0;
+
+    /** Target ranges used for time in range; metrics without one report no time in range. */
+    private static final Map<Metric, double[]> TARGETS = new EnumMap<>(Metric.class);
+    static {
+        TARGETS.put(Metric.HBA1C, new double[]{4.0, 7.0});
+        TARGETS.put(Metric.GLUCOSE_FASTING, new double[]{70, 130});
+        TARGETS.put(Metric.GLUCOSE_POSTPRANDIAL, new double[]{70, 180});
+        TARGETS.put(Metric.BMI, new double[]{18.5, 25.0});
+        TARGETS.put(Metric.SBP, new double[]{90, 130});
+        TARGETS.put(Metric.DBP, new double[]{60, 80});
+    }
+
+    /** Metrics shown in the vitals window trend summary, in display order. */
+    public static final Metric[] SUMMARY_METRICS = {
+            Metric.HBA1C, Metric.GLUCOSE_FASTING, Metric.GLUCOSE_POSTPRANDIAL, Metric.BMI, Metric.SBP, Metric.DBP
+    };
+
+    /** Immutable view of a series' statistics; doubles are {@code NaN} when not yet defined. */
+    public record Snapshot(Metric metric, int count, double last, long lastTime, double delta,
+                           double slopePerMonth, double rollingMean, double timeInRange) {
+
+        /** One line for the note, e.g. {@code HbA1c 6.8 % (Δ -0.4, -0.10/mo, mean 7.0, in range 62%, n=8)}. */
+        public String describe() {
+            if (count == 0) return label(metric) + ": no data";
+            StringBuilder sb = new StringBuilder();
+            sb.append(label(metric)).append(' ').append(fmt(last)).append(' ').append(metric.unit()).append(" (");
+            if (!Double.isNaN(delta)) sb.append("Δ ").append(signed(delta)).append(", ");
+            if (!Double.isNaN(slopePerMonth)) sb.append(signed(slopePerMonth)).append("/mo, ");
+            sb.append("mean ").append(fmt(rollingMean));
+            if (!Double.isNaN(timeInRange)) sb.append(", in range ").append(Math.round(timeInRange * 100)).append('%');
+            sb.append(", n=").append(count).append(')');
+            return sb.toString();
+        }
+
+        private static String fmt(double v) {
+            return String.format(Locale.ROOT, Math.abs(v) >= 100 ? "%.0f" : "%.1f", v);
+        }
+
+        private static String signed(double v) {
+            return String.format(Locale.ROOT, "%+.2f", v);
+        }
+    }
+
+    private static volatile IAITrendEngine shared;
+
+    private final IAIVitalsStore store;
+    private final Map<String, Stats[]> stats = new HashMap<>();
+
+    IAITrendEngine(IAIVitalsStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the engine over {@link IAIVitalsStore#shared()}, creating it on first use.
+     */
+    public static IAITrendEngine shared() {
+        IAITrendEngine engine = shared;
+        if (engine == null) {
+            synchronized (IAITrendEngine.class) {
+                engine = shared;
+                if (engine == null) {
+                    engine = new IAITrendEngine(IAIVitalsStore.shared());
+                    shared = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    // ================================
+    // Updates and queries
+    // ================================
+
+    /**
+     * Records a reading in the store and folds it into the running statistics.
+     */
+    public synchronized void record(String patientId, Metric metric, long epochMillis, double value) {
+        if (!Double.isFinite(value)) return;
+        String patient = key(patientId);
+        Stats[] all = stats.get(patient);
+        Stats s = all == null ? null : all[metric.ordinal()];
+        store.record(patient, metric, epochMillis, value);
+        if (s == null) return; // seeded from the store, including this reading, on first query
+        if (s.count > 0 && epochMillis < s.lastTime) {
+            all[metric.ordinal()] = replay(patient, metric); // late entry; rare enough to recompute
+        } else {
+            s.add(epochMillis, value);
+        }
+    }
+
+    public synchronized Snapshot snapshot(String patientId, Metric metric) {
+        String patient = key(patientId);
+        Stats[] all = stats.computeIfAbsent(patient, p -> new Stats[Metric.values().length]);
+        Stats s = all[metric.ordinal()];
+        if (s == null) {
+            s = replay(patient, metric);
+            all[metric.ordinal()] = s;
+        }
+        return s.snapshot(metric);
+    }
+
+    /**
+     * Lines describing every {@link #SUMMARY_METRICS} series that has data, or an empty string.
+     */
+    public String summary(String patientId) {
+        StringBuilder sb = new StringBuilder();
+        for (Metric m : SUMMARY_METRICS) {
+            Snapshot s = snapshot(patientId, m);
+            if (s.count() > 0) sb.append(s.describe()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private Stats replay(String patient, Metric metric) {
+        IAIVitalsStore.Range history = store.range(patient, metric, Long.MIN_VALUE, Long.MAX_VALUE);
+        Stats s = new Stats(TARGETS.get(metric));
+        for (int i = 0; i < history.size(); i++) {
+            s.add(history.times()[i], history.values()[i]);
+        }
+        return s;
+    }
+
+    private static String key(String patientId) {
+        return patientId == null ? IAIVitalsStore.UNASSIGNED : patientId.strip();
+    }
+
+    static String label(Metric metric) {
+        return switch (metric) {
+            case HBA1C -> "HbA1c";
+            case GLUCOSE_FASTING -> "FBS";
+            case GLUCOSE_POSTPRANDIAL -> "PP2";
+            case SBP -> "SBP";
+            case DBP -> "DBP";
+            case BMI -> "BMI";
+            default -> metric.name().charAt(0) + metric.name().substring(1).toLowerCase(Locale.ROOT);
+        };
+    }
+
+    // ================================
+    // Running statistics
+    // ================================
+
+    /** O(1) accumulator; readings must arrive in time order. */
+    static final class Stats {
+        private final double[] target;
+        private int count;
+        private long firstTime;
+        private long lastTime;
+        private double last = Double.NaN;
+        private double previous = Double.NaN;
+
+        // Least-squares sums over (days since first reading, value).
+        private double sumX, sumY, sumXY, sumXX;
+
+        // Last ROLLING_WINDOW values as a ring.
+        private final double[] window = new double[ROLLING_WINDOW];
+        private double windowSum;
+
+        // Step-wise time in range: each value holds until the next reading.
+        private long elapsedMs;
+        private long inRangeMs;
+
+        Stats(double[] target) {
+            this.target = target;
+        }
+
+        void add(long time, double value) {
+            if (count == 0) {
+                firstTime = time;
+            } else {
+                long dt = time - lastTime;
+                elapsedMs += dt;
+                if (inTarget(last)) inRangeMs += dt;
+            }
+
+            double x = (time - firstTime) / DAY_MS;
+            sumX += x;
+            sumY += value;
+            sumXY += x * value;
+            sumXX += x * x;
+
+            int slot = count % ROLLING_WINDOW;
+            if (count >= ROLLING_WINDOW) windowSum -= window[slot];
+            window[slot] = value;
+            windowSum += value;
+
+            previous = last;
+            last = value;
+            lastTime = time;
+            count++;
+        }
+
+        private boolean inTarget(double value) {
+            return target != null && value >= target[0] && value <= target[1];
+        }
+
+        Snapshot snapshot(Metric metric) {
+            double delta = count >= 2 ? last - previous : Double.NaN;
+            double denominator = count * sumXX - sumX * sumX;
+            double slope = count >= 2 && denominator > 1e-9
+                    ? (count * sumXY - sumX * sumY) / denominator * MONTH_DAYS
+                    : Double.NaN;
+            double mean = count == 0 ? Double.NaN : windowSum / Math.min(count, ROLLING_WINDOW);
+            double tir = target == null || elapsedMs == 0 ? Double.NaN : (double) inRangeMs / elapsedMs;
+            return new Snapshot(metric, count, last, lastTime, delta, slope, mean, tir);
+        }
+    }
+}
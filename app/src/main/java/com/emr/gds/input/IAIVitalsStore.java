@@ -0,0 +1,349 @@
+package com.emr.gds.input;
+
+import com.emr.gds.main.IAMPaths;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar time-series store for the vitals and lab values entered through {@link IAIFreqFrame}.
+ * <p>
+ * In memory, every (patient, metric) pair is a {@link Series}: a {@code long[]} of timestamps and a
+ * {@code double[]} of values kept in time order, so last-N and range lookups are a binary search plus
+ * an array copy. On disk, readings are appended as fixed 24-byte records to a memory-mapped file
+ * ({@code app/db/vitals.dat}); patient ids are interned in {@code app/db/vitals_patients.txt}, one per
+ * line, and records refer to them by line number. The record count in the file header is written after
+ * the record itself, so a reading interrupted mid-write is simply not counted.
+ */
+public final class IAIVitalsStore {
+
+    /** Measured quantities; the ordinal is stored on disk, so only append new constants. */
+    public enum Metric {
+        SBP("mmHg"), DBP("mmHg"), PULSE("/min"), TEMPERATURE("℃"), RESPIRATION("/min"),
+        HEIGHT("cm"), WEIGHT("kg"), WAIST("cm"), BMI("kg/m^2"),
+        GLUCOSE_FASTING("mg/dL"), GLUCOSE_POSTPRANDIAL("mg/dL"), HBA1C("%");
+
+        private final String unit;
+
+        Metric(String unit) {
+            this.unit = unit;
+        }
+
+        public String unit() {
+            return unit;
+        }
+    }
+
+    /** A copied slice of a series, oldest first. */
+    public record Range(long[] times, double[] values) {
+        public int size() {
+            return values.length;
+        }
+
+        public double min() {
+            return Arrays.stream(values).min().orElse(Double.NaN);
+        }
+
+        public double max() {
+            return Arrays.stream(values).max().orElse(Double.NaN);
+        }
+    }
+
+    // ================================
+    // Constants
+    // ================================
+    /** Key used when the frame has no patient id entered. */
+    public static final String UNASSIGNED = "";
+    private static final String DATA_FILE = "vitals.dat";
+    private static final String PATIENT_FILE = "vitals_patients.txt";
+    private static final int MAGIC = 0x47565453; // "GVTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;  // magic, version, long record count
+    private static final int RECORD_BYTES = 24;  // int patient, int metric, long epoch millis, double value
+    private static final int GROW_RECORDS = 64 * 1024;
+
+    private static volatile IAIVitalsStore shared;
+
+    private final Path dataFile;
+    private final Path patientFile;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private long recordCount;
+
+    private final List<String> patients = new ArrayList<>();
+    private final Map<String, Integer> patientIndex = new HashMap<>();
+    private final Map<String, Series[]> seriesByPatient = new HashMap<>();
+
+    // ================================
+    // Opening
+    // ================================
+
+    /**
+     * Returns the store in {@code app/db}, opening it on first use.
+     */
+    public static IAIVitalsStore shared() {
+        IAIVitalsStore store = shared;
+        if (store == null) {
+            synchronized (IAIVitalsStore.class) {
+                store = shared;
+                if (store == null) {
+                    try {
+                        store = open(IAMPaths.dbDirectory());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not open vitals store", e);
+                    }
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Opens (or creates) a store in the given directory and loads every recorded reading.
+     */
+    public static IAIVitalsStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new IAIVitalsStore(directory.resolve(DATA_FILE), directory.resolve(PATIENT_FILE));
+    }
+
+    private IAIVitalsStore(Path dataFile, Path patientFile) throws IOException {
+        this.dataFile = dataFile;
+        this.patientFile = patientFile;
+        if (Files.isRegularFile(patientFile)) {
+            for (String id : Files.readAllLines(patientFile, StandardCharsets.UTF_8)) {
+                patientIndex.put(id, patients.size());
+                patients.add(id);
+            }
+        }
+
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() < HEADER_BYTES;
+        remap(Math.max(channel.size(), HEADER_BYTES + (long) GROW_RECORDS * RECORD_BYTES));
+        if (fresh) {
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putLong(8, 0);
+        } else if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException("Not a vitals store: " + dataFile);
+        }
+        load();
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        long count = map.getLong(8);
+        long capacity = (map.capacity() - HEADER_BYTES) / RECORD_BYTES;
+        recordCount = Math.min(count, capacity);
+        Metric[] metrics = Metric.values();
+        for (long i = 0; i < recordCount; i++) {
+            int at = (int) (HEADER_BYTES + i * RECORD_BYTES);
+            int patient = map.getInt(at);
+            int metric = map.getInt(at + 4);
+            if (patient < 0 || patient >= patients.size() || metric < 0 || metric >= metrics.length) continue;
+            series(patients.get(patient), metrics[metric]).append(map.getLong(at + 8), map.getDouble(at + 16));
+        }
+        for (Series[] all : seriesByPatient.values()) {
+            for (Series s : all) {
+                if (s != null) s.sort();
+            }
+        }
+        if (recordCount > 0) {
+            System.out.printf("[VITALS] Loaded %,d readings for %d patients in %.1f ms%n",
+                    recordCount, patients.size(), (System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+
+    private void remap(long size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // ================================
+    // Writing
+    // ================================
+
+    /**
+     * Records a reading taken now.
+     */
+    public void record(String patientId, Metric metric, double value) {
+        record(patientId, metric, System.currentTimeMillis(), value);
+    }
+
+    /**
+     * Records a reading. Values that are not finite are ignored.
+     */
+    public synchronized void record(String patientId, Metric metric, long epochMillis, double value) {
+        if (!Double.isFinite(value)) return;
+        String patient = patientId == null ? UNASSIGNED : patientId.strip();
+        try {
+            int slot = patientSlot(patient);
+            long end = HEADER_BYTES + (recordCount + 1) * RECORD_BYTES;
+            if (end > map.capacity()) {
+                remap(map.capacity() + (long) GROW_RECORDS * RECORD_BYTES);
+            }
+            int at = (int) (HEADER_BYTES + recordCount * RECORD_BYTES);
+            map.putInt(at, slot);
+            map.putInt(at + 4, metric.ordinal());
+            map.putLong(at + 8, epochMillis);
+            map.putDouble(at + 16, value);
+            recordCount++;
+            map.putLong(8, recordCount);
+        } catch (IOException e) {
+            System.err.println("[VITALS] Could not persist " + metric + " reading: " + e.getMessage());
+        }
+        series(patient, metric).add(epochMillis, value);
+    }
+
+    private int patientSlot(String patient) throws IOException {
+        Integer slot = patientIndex.get(patient);
+        if (slot != null) return slot;
+        Files.writeString(patientFile, patient + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        slot = patients.size();
+        patients.add(patient);
+        patientIndex.put(patient, slot);
+        return slot;
+    }
+
+    /**
+     * Forces written readings to the storage device. Readings are already safe from a JVM crash once
+     * {@link #record} returns, since they live in the OS page cache.
+     */
+    public synchronized void flush() {
+        map.force();
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    /** The most recent value, or {@code NaN} when nothing was recorded. */
+    public synchronized double latest(String patientId, Metric metric) {
+        Series s = find(patientId, metric);
+        return s == null || s.size == 0 ? Double.NaN : s.values[s.size - 1];
+    }
+
+    /** The last {@code n} readings, oldest first. */
+    public synchronized Range lastN(String patientId, Metric metric, int n) {
+        Series s = find(patientId, metric);
+        if (s == null || n <= 0) return new Range(new long[0], new double[0]);
+        int from = Math.max(0, s.size - n);
+        return s.slice(from, s.size);
+    }
+
+    /** Readings with {@code fromMillis <= time < toMillis}, oldest first. */
+    public synchronized Range range(String patientId, Metric metric, long fromMillis, long toMillis) {
+        Series s = find(patientId, metric);
+        if (s == null || fromMillis >= toMillis) return new Range(new long[0], new double[0]);
+        return s.slice(s.lowerBound(fromMillis), s.lowerBound(toMillis));
+    }
+
+    public synchronized int count(String patientId, Metric metric) {
+        Series s = find(patientId, metric);
+        return s == null ? 0 : s.size;
+    }
+
+    private Series find(String patientId, Metric metric) {
+        Series[] all = seriesByPatient.get(patientId == null ? UNASSIGNED : patientId.strip());
+        return all == null ? null : all[metric.ordinal()];
+    }
+
+    private Series series(String patient, Metric metric) {
+        Series[] all = seriesByPatient.computeIfAbsent(patient, p -> new Series[Metric.values().length]);
+        Series s = all[metric.ordinal()];
+        if (s == null) {
+            s = new Series();
+            all[metric.ordinal()] = s;
+        }
+        return s;
+    }
+
+    // ================================
+    // Helpers
+    // ================================
+
+    /** Parallel primitive arrays sorted by time; readings normally arrive in order and are appended. */
+    private static final class Series {
+        private long[] times = new long[8];
+        private double[] values = new double[8];
+        private int size;
+
+        void add(long time, double value) {
+            ensureCapacity();
+            int at = (size == 0 || times[size - 1] <= time) ? size : upperBound(time);
+            System.arraycopy(times, at, times, at + 1, size - at);
+            System.arraycopy(values, at, values, at + 1, size - at);
+            times[at] = time;
+            values[at] = value;
+            size++;
+        }
+
+        /** Appends without keeping order; used while loading, followed by {@link #sort()}. */
+        void append(long time, double value) {
+            ensureCapacity();
+            times[size] = time;
+            values[size] = value;
+            size++;
+        }
+
+        void sort() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) sorted = times[i - 1] <= times[i];
+            if (sorted) return;
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b])); // stable: equal times keep file order
+            long[] t = new long[times.length];
+            double[] v = new double[values.length];
+            for (int i = 0; i < size; i++) {
+                t[i] = times[order[i]];
+                v[i] = values[order[i]];
+            }
+            times = t;
+            values = v;
+        }
+
+        private void ensureCapacity() {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+
+        Range slice(int from, int to) {
+            return new Range(Arrays.copyOfRange(times, from, to), Arrays.copyOfRange(values, from, to));
+        }
+
+        int lowerBound(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < time) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int upperBound(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] <= time) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
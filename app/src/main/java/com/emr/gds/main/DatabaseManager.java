@@ -1,5 +1,8 @@
 package com.emr.gds.main;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -17,6 +20,20 @@ class DatabaseManager {
         return DriverManager.getConnection(KCDDatabaseManagerJavaFX.JDBC_URL);
     }
 
+    /**
+     * Opens the KCD database once and touches the code table so the SQLite driver and file pages are
+     * loaded before the KCD window is first opened. Skipped when the file is missing, because opening
+     * it would create an empty database.
+     */
+    static void warmUp() throws SQLException {
+        Path dbFile = Paths.get(KCDDatabaseManagerJavaFX.JDBC_URL.substring("jdbc:sqlite:".length()));
+        if (!Files.exists(dbFile)) return;
+        try (Connection conn = getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM kcd_codes")) {
+            rs.next();
+        }
+    }
+
     public static List<KCDRecord> getAllRecords() throws SQLException {
         List<KCDRecord> records = new ArrayList<>();
         String sql = "SELECT * FROM kcd_codes ORDER BY disease_code";
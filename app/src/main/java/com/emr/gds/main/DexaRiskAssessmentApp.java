@@ -2,6 +2,7 @@ package com.emr.gds.main;
 
 import com.emr.gds.input.IAIMain;
 import com.emr.gds.input.IAITextAreaManager;
+import com.emr.gds.main.scoring.DexaCalculator;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import javafx.application.Application;
@@ -229,19 +230,8 @@ public class DexaRiskAssessmentApp extends Application {
                                   boolean hasFracture, boolean isMenopausal, boolean onHrt, boolean hasTah, boolean hasStones) {
 
         String scoreType = isTScore ? "T-Score" : "Z-Score";
-        String diagnosis;
-
-        if (isTScore) {
-            if (score <= -2.5) {
-                diagnosis = hasFracture ? "Severe Osteoporosis" : "Osteoporosis";
-            } else if (score < -1.0) {
-                diagnosis = "Osteopenia";
-            } else {
-                diagnosis = "Normal Bone Density";
-            }
-        } else {
-            diagnosis = (score <= -2.0) ? "Below expected range for age" : "Within expected range for age";
-        }
+        DexaCalculator.Result result = DexaCalculator.evaluate(score, isTScore, hasFracture);
+        String diagnosis = result.diagnosis();
 
         String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
 
@@ -260,10 +250,8 @@ public class DexaRiskAssessmentApp extends Application {
 
         sb.append("\nComment>\n");
         sb.append(String.format("# %s based on %s of %.1f.\n", diagnosis, scoreType, score));
-        if (isTScore && score <= -2.5) {
-            sb.append("# Consider bisphosphonate, denosumab, or anabolic therapy.\n");
-        } else if (isTScore && score <= -1.0) {
-            sb.append("# Lifestyle modification, calcium + vitamin D, repeat DEXA in 2–3 years.\n");
+        if (!result.comment().isEmpty()) {
+            sb.append("# ").append(result.comment()).append('\n');
         }
         return sb.toString();
     }
@@ -2,9 +2,9 @@ package com.emr.gds.main;
 
 import com.emr.gds.input.IAIMain;
 import com.emr.gds.input.IAITextAreaManager;
+import com.emr.gds.main.ekg.EkgReference;
+import com.emr.gds.main.ekg.EkgReferenceViewer;
 import java.awt.BorderLayout;
-import java.awt.Desktop;
-import java.io.File;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import javax.swing.BorderFactory;
@@ -18,6 +18,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
 
 /**
  * A JFrame-based application for systematic EKG (Electrocardiogram) analysis.
@@ -27,6 +28,7 @@ public class EkgStructuredReportApp extends JFrame {
 
     private final JTextArea findingsArea = new JTextArea(12, 40);
     private final JTextArea summaryArea = new JTextArea(3, 40);
+    private EkgReferenceViewer referenceViewer;
 
     public EkgStructuredReportApp() {
         setTitle("EMR EKG Analysis");
@@ -54,6 +56,9 @@ Hypertrophy:
 Ischemia / ST-T changes:
 Others:
 """);
+        findingsArea.addCaretListener(e -> {
+            if (referenceViewer != null && referenceViewer.isVisible()) referenceViewer.lookup(currentFindingsLine());
+        });
         centralPanel.add(new JScrollPane(findingsArea), BorderLayout.CENTER);
 
         JPanel summaryPanel = new JPanel(new BorderLayout());
@@ -88,14 +93,24 @@ Others:
 
     private void openReference() {
         try {
-            File file = new File("src/main/resources/text/EKG_reference.odt").getAbsoluteFile();
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().open(file);
-            } else {
-                JOptionPane.showMessageDialog(this, "Desktop operations not supported on this platform.");
-            }
-        } catch (Exception ex) {
+            if (referenceViewer == null) referenceViewer = new EkgReferenceViewer(this, EkgReference.shared());
+        } catch (RuntimeException ex) {
             JOptionPane.showMessageDialog(this, "Failed to open reference: " + ex.getMessage());
+            return;
+        }
+        referenceViewer.lookup(currentFindingsLine());
+        referenceViewer.setVisible(true);
+        referenceViewer.toFront();
+    }
+
+    /** The findings line under the caret, e.g. "Axis: left" while the axis is being typed. */
+    private String currentFindingsLine() {
+        try {
+            int line = findingsArea.getLineOfOffset(findingsArea.getCaretPosition());
+            int start = findingsArea.getLineStartOffset(line);
+            return findingsArea.getText(start, findingsArea.getLineEndOffset(line) - start);
+        } catch (BadLocationException e) {
+            return "";
         }
     }
 
@@ -0,0 +1,391 @@
+package com.emr.gds.main;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import javafx.collections.ObservableList;
+
+/**
+ * Detects edits made to the app's data files outside the app and tells the owners of the in-memory
+ * copies to reload (F5, or automatically when a watched file changes).
+ * <p>
+ * The SQLite databases are checked with {@code PRAGMA data_version} on a read connection held by the
+ * refresher, which changes whenever another connection commits, together with the size and
+ * modification time of the database and its WAL file (which catches a file copied over the old one).
+ * A {@link WatchService} on the containing directories schedules a check shortly after a write.
+ * <p>
+ * Listeners run on the "data-refresh" thread, one source at a time; they re-read their data there and
+ * then apply it on their UI thread with {@link #applyDiff}, so lists keep their selection and do not
+ * flicker.
+ */
+public final class IAMDataRefresher {
+
+    /** A reloadable data set. */
+    public enum Source {
+        ABBREVIATIONS("abbreviations"),
+        PROBLEMS("problem list"),
+        TEMPLATES("templates"),
+        KCD("KCD codes"),
+        FMH("family history lists");
+
+        private final String label;
+
+        Source(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    // ================================
+    // Constants
+    // ================================
+    private static final long DEBOUNCE_MS = 500;
+
+    private static volatile IAMDataRefresher shared;
+
+    private final Map<Source, Probe> probes = new EnumMap<>(Source.class);
+    private final Map<Source, List<Runnable>> listeners = new EnumMap<>(Source.class);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "data-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private WatchService watchService;
+    private ScheduledFuture<?> pendingCheck;
+
+    IAMDataRefresher(Map<Source, Path> paths) {
+        paths.forEach((source, path) -> probes.put(source, new SqliteProbe(path)));
+        for (Source s : Source.values()) listeners.put(s, new CopyOnWriteArrayList<>());
+        executor.execute(() -> probes.values().forEach(Probe::changed)); // baseline
+    }
+
+    /** The process-wide refresher for the databases under {@code app/db} and the KCD database. */
+    public static IAMDataRefresher shared() {
+        IAMDataRefresher r = shared;
+        if (r == null) {
+            synchronized (IAMDataRefresher.class) {
+                r = shared;
+                if (r == null) {
+                    Path db = IAMPaths.dbDirectory();
+                    Map<Source, Path> paths = new EnumMap<>(Source.class);
+                    paths.put(Source.ABBREVIATIONS, db.resolve("abbreviations.db"));
+                    paths.put(Source.PROBLEMS, db.resolve("prolist.db"));
+                    paths.put(Source.TEMPLATES, db.resolve("emr_templates.db"));
+                    paths.put(Source.KCD, Paths.get(KCDDatabaseManagerJavaFX.JDBC_URL.substring("jdbc:sqlite:".length())));
+                    paths.put(Source.FMH, db.resolve("fmh.db"));
+                    shared = r = new IAMDataRefresher(paths);
+                }
+            }
+        }
+        return r;
+    }
+
+    // ================================
+    // Listeners
+    // ================================
+
+    /** Runs {@code reload} on the refresher thread whenever {@code source} changes. */
+    public void addListener(Source source, Runnable reload) {
+        listeners.get(source).add(reload);
+    }
+
+    public void removeListener(Source source, Runnable reload) {
+        listeners.get(source).remove(reload);
+    }
+
+    // ================================
+    // Checking
+    // ================================
+
+    /**
+     * Checks every source now and runs the listeners of those that changed.
+     *
+     * @return the changed sources, once their listeners have run.
+     */
+    public CompletableFuture<Set<Source>> refresh() {
+        return CompletableFuture.supplyAsync(this::checkAll, executor);
+    }
+
+    /** Names of the changed sources for a status message. */
+    public static String describe(Set<Source> changed) {
+        List<String> names = new ArrayList<>();
+        for (Source s : changed) names.add(s.label());
+        return String.join(", ", names);
+    }
+
+    private Set<Source> checkAll() {
+        Set<Source> changed = EnumSet.noneOf(Source.class);
+        probes.forEach((source, probe) -> {
+            if (probe.changed()) changed.add(source);
+        });
+        for (Source source : changed) {
+            System.out.println("[DATA REFRESH] " + source.label() + " changed, reloading");
+            for (Runnable reload : listeners.get(source)) {
+                try {
+                    reload.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[DATA REFRESH] Reloading " + source.label() + " failed: " + e.getMessage());
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Starts watching the source directories; changes trigger a check {@value #DEBOUNCE_MS} ms after
+     * the last write. Calling it again does nothing.
+     */
+    public synchronized void startWatching() {
+        if (watchService != null) return;
+        Map<WatchKey, Path> keys = new HashMap<>();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> dirs = new HashSet<>();
+            for (Probe probe : probes.values()) dirs.add(probe.watchedDirectory());
+            for (Path dir : dirs) {
+                if (dir != null && Files.isDirectory(dir)) {
+                    keys.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[DATA REFRESH] File watching unavailable, F5 still works: " + e.getMessage());
+            return;
+        }
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> watch(service, keys), "data-refresh-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(WatchService service, Map<WatchKey, Path> keys) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = keys.get(key);
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir != null && event.context() instanceof Path name) {
+                        Path file = dir.resolve(name);
+                        for (Probe probe : probes.values()) relevant |= probe.covers(file);
+                    }
+                }
+                key.reset();
+                if (relevant) scheduleCheck();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private synchronized void scheduleCheck() {
+        if (pendingCheck != null) pendingCheck.cancel(false);
+        pendingCheck = executor.schedule(this::checkAll, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops watching and closes the read connections. */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            watchService = null;
+        }
+        executor.execute(() -> probes.values().forEach(Probe::close));
+        executor.shutdown();
+    }
+
+    // ================================
+    // Diff helpers
+    // ================================
+
+    /**
+     * Edits {@code target} into {@code fresh} with removals, in-place replacements and insertions
+     * instead of clearing it, so list views keep their selection and scroll position. Items are matched
+     * by {@code key}; matched items that are not {@code same} are replaced. Falls back to replacing the
+     * contents when {@code fresh} has duplicate keys.
+     */
+    public static <T, K> void applyDiff(List<T> target, List<? extends T> fresh,
+                                        Function<? super T, K> key, BiPredicate<? super T, ? super T> same) {
+        Map<K, T> byKey = new HashMap<>();
+        for (T item : fresh) {
+            if (byKey.put(key.apply(item), item) != null) {
+                if (!target.equals(fresh)) replaceAll(target, fresh);
+                return;
+            }
+        }
+        target.removeIf(item -> !byKey.containsKey(key.apply(item)));
+        Set<K> present = new HashSet<>();
+        for (T item : target) present.add(key.apply(item));
+        for (int i = 0; i < fresh.size(); i++) {
+            T want = fresh.get(i);
+            K k = key.apply(want);
+            if (i < target.size() && Objects.equals(key.apply(target.get(i)), k)) {
+                if (!same.test(target.get(i), want)) target.set(i, want);
+            } else if (present.add(k)) {
+                target.add(i, want);
+            } else {
+                // Moved: take it out of its old place further down.
+                for (int j = i + 1; j < target.size(); j++) {
+                    if (Objects.equals(key.apply(target.get(j)), k)) {
+                        target.remove(j);
+                        break;
+                    }
+                }
+                target.add(i, want);
+            }
+        }
+        // Duplicate keys in target leave stale copies past the end of fresh.
+        if (target.size() > fresh.size()) target.subList(fresh.size(), target.size()).clear();
+    }
+
+    /** {@link #applyDiff(List, List, Function, BiPredicate)} for items compared by equality. */
+    public static <T> void applyDiff(List<T> target, List<? extends T> fresh) {
+        applyDiff(target, fresh, Function.identity(), Objects::equals);
+    }
+
+    /** Removes, adds and updates entries of {@code target} so it equals {@code fresh}. */
+    public static <K, V> void applyDiff(Map<K, V> target, Map<K, V> fresh) {
+        target.keySet().retainAll(fresh.keySet());
+        fresh.forEach((k, v) -> {
+            if (!Objects.equals(target.get(k), v)) target.put(k, v);
+        });
+    }
+
+    private static <T> void replaceAll(List<T> target, List<? extends T> fresh) {
+        if (target instanceof ObservableList<T> observable) {
+            observable.setAll(fresh);
+        } else {
+            target.clear();
+            target.addAll(fresh);
+        }
+    }
+
+    // ================================
+    // Change probes
+    // ================================
+
+    private interface Probe {
+        /** Whether the data changed since the previous call; the first call records a baseline. */
+        boolean changed();
+
+        Path watchedDirectory();
+
+        boolean covers(Path file);
+
+        default void close() {}
+    }
+
+    private static String fileStamp(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis() : "-";
+        } catch (IOException e) {
+            return "?";
+        }
+    }
+
+    /** One SQLite file: data_version on a private connection plus the file stamps. */
+    private static final class SqliteProbe implements Probe {
+        private final Path db;
+        private Connection connection;
+        private long dataVersion = Long.MIN_VALUE;
+        private String stamp;
+
+        SqliteProbe(Path db) {
+            this.db = db.toAbsolutePath();
+        }
+
+        @Override
+        public boolean changed() {
+            String newStamp = fileStamp(db) + "|" + fileStamp(walFile());
+            boolean replaced = stamp != null && !stamp.equals(newStamp) && connection != null;
+            long version = readDataVersion();
+            boolean first = stamp == null;
+            boolean changed = !first && (!newStamp.equals(stamp) || version != dataVersion);
+            if (replaced && version == dataVersion) {
+                // File changed but this connection saw no commit: it may have been replaced on disk.
+                close();
+                version = readDataVersion();
+            }
+            stamp = newStamp;
+            dataVersion = version;
+            return changed;
+        }
+
+        private Path walFile() {
+            return db.resolveSibling(db.getFileName() + "-wal");
+        }
+
+        private long readDataVersion() {
+            if (!Files.exists(db)) return Long.MIN_VALUE; // opening would create an empty database
+            try {
+                if (connection == null) connection = DriverManager.getConnection("jdbc:sqlite:" + db);
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+                    return rs.next() ? rs.getLong(1) : Long.MIN_VALUE;
+                }
+            } catch (SQLException e) {
+                System.err.println("[DATA REFRESH] Cannot read data_version of " + db + ": " + e.getMessage());
+                close();
+                return Long.MIN_VALUE;
+            }
+        }
+
+        @Override
+        public Path watchedDirectory() {
+            return db.getParent();
+        }
+
+        @Override
+        public boolean covers(Path file) {
+            return file.toAbsolutePath().getFileName().toString().startsWith(db.getFileName().toString())
+                    && Objects.equals(file.toAbsolutePath().getParent(), db.getParent());
+        }
+
+        @Override
+        public void close() {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Already unusable
+                }
+                connection = null;
+            }
+        }
+    }
+}
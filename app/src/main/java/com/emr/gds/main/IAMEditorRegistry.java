@@ -0,0 +1,104 @@
+package com.emr.gds.main;
+
+import com.emr.gds.soap.SoapEditor;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.event.EventHandler;
+import javafx.scene.control.TextArea;
+import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+
+/**
+ * Keeps one instance of each SOAP section editor. An editor is built the first time it is needed,
+ * or earlier by {@link #prewarmWhenIdle()}, and every later double-click only rebinds and shows it.
+ * Stages can only be created on the FX thread, so pre-warming builds one editor per pulse once the
+ * main window has settled rather than on a worker thread.
+ */
+public final class IAMEditorRegistry {
+
+    private static final Duration IDLE_DELAY = Duration.seconds(2);
+
+    private final Map<Integer, Supplier<? extends SoapEditor>> factories = new HashMap<>();
+    private final Map<Integer, SoapEditor> editors = new HashMap<>();
+    private final Map<Integer, String> names = new HashMap<>();
+
+    /** Registers the factory used to build the editor for an area; it runs at most once. */
+    public void register(int areaIndex, String name, Supplier<? extends SoapEditor> factory) {
+        factories.put(areaIndex, factory);
+        names.put(areaIndex, name);
+    }
+
+    public boolean isRegistered(int areaIndex) {
+        return factories.containsKey(areaIndex);
+    }
+
+    /**
+     * Binds the area's editor to {@code target} and shows it, building it first if pre-warming has not
+     * reached it yet. An editor that is already open is only brought to front, so a second double-click
+     * does not reset a form the user is filling in. Logs the time from the double-click to the window
+     * being shown.
+     */
+    public void open(int areaIndex, TextArea target) {
+        long start = System.nanoTime();
+        boolean built = !editors.containsKey(areaIndex);
+        SoapEditor editor = editorFor(areaIndex);
+        Stage stage = editor.stage();
+        if (stage.isShowing()) {
+            stage.toFront();
+            return;
+        }
+        editor.bind(target);
+        stage.addEventHandler(WindowEvent.WINDOW_SHOWN, new EventHandler<>() {
+            @Override
+            public void handle(WindowEvent e) {
+                stage.removeEventHandler(WindowEvent.WINDOW_SHOWN, this);
+                System.out.printf("[EDITOR] %s %s in %.1f ms%n", names.get(areaIndex),
+                        built ? "built and opened" : "opened", (System.nanoTime() - start) / 1_000_000.0);
+            }
+        });
+        editor.show();
+    }
+
+    /**
+     * Builds the editors that have not been built yet, one per FX pulse, starting after the UI has
+     * been idle for a moment, so the first double-click on any area finds its editor ready.
+     */
+    public void prewarmWhenIdle() {
+        Deque<Integer> pending = new ArrayDeque<>(factories.keySet());
+        PauseTransition idle = new PauseTransition(IDLE_DELAY);
+        idle.setOnFinished(e -> prewarmNext(pending));
+        idle.play();
+    }
+
+    private void prewarmNext(Deque<Integer> pending) {
+        Integer areaIndex = pending.poll();
+        if (areaIndex == null) return;
+        if (!editors.containsKey(areaIndex)) {
+            try {
+                editorFor(areaIndex);
+            } catch (RuntimeException ex) {
+                // Left unbuilt; open() will retry and report the error to the user.
+                System.err.println("[EDITOR] Pre-warming " + names.get(areaIndex) + " failed: " + ex.getMessage());
+            }
+        }
+        Platform.runLater(() -> prewarmNext(pending));
+    }
+
+    private SoapEditor editorFor(int areaIndex) {
+        SoapEditor editor = editors.get(areaIndex);
+        if (editor == null) {
+            Supplier<? extends SoapEditor> factory = factories.get(areaIndex);
+            if (factory == null) throw new IllegalArgumentException("No editor registered for area " + areaIndex);
+            editor = factory.get();
+            editor.stage(); // build lazily-built stages now, not on first open
+            editors.put(areaIndex, editor);
+        }
+        return editor;
+    }
+}
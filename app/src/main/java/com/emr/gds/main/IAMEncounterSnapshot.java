@@ -0,0 +1,27 @@
+package com.emr.gds.main;
+
+import java.util.List;
+
+/**
+ * Immutable copy of the encounter taken on the FX thread for F9: the ten SOAP areas in
+ * {@link IAMTextArea#TEXT_AREA_TITLES} order, the scratchpad, the selected problems and the tool
+ * windows that were open. Saved and loaded by {@link IAMSnapshotStore}.
+ */
+public record IAMEncounterSnapshot(long savedAt, List<String> areas, String scratchpad,
+                                   List<String> selectedProblems, List<WindowState> windows) {
+
+    /** An open tool window: its title and screen bounds. */
+    public record WindowState(String title, double x, double y, double width, double height) {}
+
+    public IAMEncounterSnapshot {
+        areas = List.copyOf(areas);
+        scratchpad = scratchpad == null ? "" : scratchpad;
+        selectedProblems = List.copyOf(selectedProblems);
+        windows = List.copyOf(windows);
+    }
+
+    /** Whether there is nothing worth restoring. */
+    public boolean isEmpty() {
+        return areas.stream().allMatch(String::isBlank) && scratchpad.isBlank();
+    }
+}
@@ -0,0 +1,289 @@
+package com.emr.gds.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Non-modal F3 find/replace window over all SOAP text areas.
+ * <p>
+ * Results update as you type. Every hit is listed with its area and surrounding text; the current one
+ * is selected in its text area, and Next/Previous (Enter/Shift+Enter, F3/Shift+F3) move across areas.
+ * The areas are indexed by {@link IAMNoteSearch} the first time the window opens and kept current from
+ * their text listeners afterwards.
+ */
+public final class IAMFindReplaceDialog {
+
+    // ================================
+    // Constants
+    // ================================
+    private static final int CONTEXT_CHARS = 30;
+
+    private final List<TextArea> areas;
+    private final IAMNoteSearch search;
+    private final Stage stage = new Stage();
+
+    private final TextField findField = new TextField();
+    private final TextField replaceField = new TextField();
+    private final CheckBox regexBox = new CheckBox("Regex");
+    private final CheckBox matchCaseBox = new CheckBox("Match case");
+    private final Label statusLabel = new Label();
+    private final ListView<IAMNoteSearch.Hit> hitList = new ListView<>();
+
+    private List<IAMNoteSearch.Hit> hits = List.of();
+    private int current = -1;
+    private boolean hitsStale;
+    private boolean replacing;
+
+    public IAMFindReplaceDialog(List<TextArea> areas, Window owner) {
+        this.areas = areas;
+        this.search = new IAMNoteSearch(areas.size());
+        for (int i = 0; i < areas.size(); i++) {
+            final int index = i;
+            TextArea area = areas.get(i);
+            search.reset(index, area.getText());
+            ChangeListener<String> listener = (obs, oldText, newText) -> {
+                search.update(index, newText);
+                if (!replacing) hitsStale = true;
+            };
+            area.textProperty().addListener(listener);
+        }
+        if (owner != null) stage.initOwner(owner);
+        stage.setTitle("Find / Replace");
+        stage.setScene(buildScene());
+        stage.focusedProperty().addListener((obs, was, focused) -> {
+            if (focused && hitsStale) refresh(false);
+        });
+    }
+
+    /** Shows the window, seeding the query from {@code selection} when it is a single line. */
+    public void show(String selection) {
+        if (selection != null && !selection.isEmpty() && selection.indexOf('\n') < 0) {
+            findField.setText(selection);
+        }
+        if (stage.isShowing()) {
+            stage.toFront();
+        } else {
+            stage.show();
+        }
+        if (hitsStale) refresh(false);
+        findField.requestFocus();
+        findField.selectAll();
+    }
+
+    public boolean isShowing() {
+        return stage.isShowing();
+    }
+
+    // ================================
+    // Layout
+    // ================================
+
+    private Scene buildScene() {
+        findField.setPromptText("Find (Korean/English, case-insensitive)");
+        replaceField.setPromptText("Replace with");
+        statusLabel.setStyle("-fx-text-fill: #555555;");
+
+        Button prevButton = new Button("Previous");
+        Button nextButton = new Button("Next");
+        Button replaceButton = new Button("Replace");
+        Button replaceAllButton = new Button("Replace All");
+        prevButton.setOnAction(e -> move(-1));
+        nextButton.setOnAction(e -> move(1));
+        replaceButton.setOnAction(e -> replaceCurrent());
+        replaceAllButton.setOnAction(e -> replaceAll());
+
+        findField.textProperty().addListener((obs, o, n) -> refresh(true));
+        regexBox.selectedProperty().addListener((obs, o, n) -> refresh(true));
+        matchCaseBox.selectedProperty().addListener((obs, o, n) -> refresh(true));
+        findField.setOnAction(e -> move(1));
+        replaceField.setOnAction(e -> replaceCurrent());
+
+        GridPane grid = new GridPane();
+        grid.setHgap(8);
+        grid.setVgap(6);
+        grid.addRow(0, new Label("Find:"), findField, prevButton, nextButton);
+        grid.addRow(1, new Label("Replace:"), replaceField, replaceButton, replaceAllButton);
+        GridPane.setHgrow(findField, Priority.ALWAYS);
+        GridPane.setHgrow(replaceField, Priority.ALWAYS);
+
+        HBox options = new HBox(12, regexBox, matchCaseBox, statusLabel);
+        options.setAlignment(Pos.CENTER_LEFT);
+
+        hitList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(IAMNoteSearch.Hit hit, boolean empty) {
+                super.updateItem(hit, empty);
+                setText(empty || hit == null ? null : describe(hit));
+            }
+        });
+        hitList.getSelectionModel().selectedIndexProperty().addListener((obs, o, n) -> {
+            int i = n.intValue();
+            if (i >= 0 && i != current) select(i);
+        });
+        VBox.setVgrow(hitList, Priority.ALWAYS);
+
+        VBox root = new VBox(8, grid, options, hitList);
+        root.setPadding(new Insets(10));
+        Scene scene = new Scene(root, 520, 420);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F3), () -> move(1));
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F3, KeyCombination.SHIFT_DOWN), () -> move(-1));
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.ENTER, KeyCombination.SHIFT_DOWN), () -> move(-1));
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.ESCAPE), stage::close);
+        return scene;
+    }
+
+    private String describe(IAMNoteSearch.Hit hit) {
+        String text = search.text(hit.area());
+        int from = Math.max(0, hit.start() - CONTEXT_CHARS);
+        int to = Math.min(text.length(), hit.end() + CONTEXT_CHARS);
+        String context = (from > 0 ? "…" : "") + text.substring(from, to).replace('\n', ' ') + (to < text.length() ? "…" : "");
+        return areaTitle(hit.area()) + "  " + context;
+    }
+
+    private static String areaTitle(int area) {
+        return area < IAMTextArea.TEXT_AREA_TITLES.length ? IAMTextArea.TEXT_AREA_TITLES[area] : "#" + (area + 1);
+    }
+
+    // ================================
+    // Searching and navigation
+    // ================================
+
+    private IAMNoteSearch.Query query() {
+        return new IAMNoteSearch.Query(findField.getText(), regexBox.isSelected(), matchCaseBox.isSelected());
+    }
+
+    // Re-runs the query; `fromStart` jumps to the first hit, otherwise the nearest one to the old position.
+    private void refresh(boolean fromStart) {
+        hitsStale = false;
+        IAMNoteSearch.Hit previous = current >= 0 && current < hits.size() ? hits.get(current) : null;
+        try {
+            hits = search.find(query());
+            findField.setStyle("");
+        } catch (PatternSyntaxException e) {
+            hits = List.of();
+            findField.setStyle("-fx-border-color: #c0392b;");
+            statusLabel.setText("Invalid regex: " + e.getDescription());
+            hitList.getItems().clear();
+            current = -1;
+            return;
+        }
+        hitList.getItems().setAll(hits);
+        current = -1;
+        if (hits.isEmpty()) {
+            statusLabel.setText(findField.getText().isEmpty() ? "" : "No matches");
+            return;
+        }
+        int target = 0;
+        if (!fromStart && previous != null) {
+            target = nearest(previous);
+        }
+        select(target);
+    }
+
+    private int nearest(IAMNoteSearch.Hit from) {
+        for (int i = 0; i < hits.size(); i++) {
+            IAMNoteSearch.Hit h = hits.get(i);
+            if (h.area() > from.area() || (h.area() == from.area() && h.start() >= from.start())) return i;
+        }
+        return 0;
+    }
+
+    private void move(int step) {
+        if (hitsStale) refresh(false);
+        if (hits.isEmpty()) return;
+        int next = current < 0 ? (step > 0 ? 0 : hits.size() - 1) : Math.floorMod(current + step, hits.size());
+        select(next);
+    }
+
+    private void select(int index) {
+        current = index;
+        IAMNoteSearch.Hit hit = hits.get(index);
+        TextArea area = areas.get(hit.area());
+        area.selectRange(hit.start(), hit.end());
+        hitList.getSelectionModel().select(index);
+        hitList.scrollTo(Math.max(0, index - 3));
+        long inArea = hits.stream().filter(h -> h.area() == hit.area()).count();
+        statusLabel.setText((index + 1) + " of " + hits.size() + " (" + inArea + " in " + areaTitle(hit.area()) + ")");
+    }
+
+    // ================================
+    // Replacing
+    // ================================
+
+    private void replaceCurrent() {
+        if (hitsStale) refresh(false);
+        if (current < 0 || current >= hits.size()) return;
+        IAMNoteSearch.Hit hit = hits.get(current);
+        String replacement;
+        try {
+            replacement = search.replacementFor(query(), hit, replaceField.getText());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            statusLabel.setText("Invalid replacement: " + e.getMessage());
+            return;
+        }
+        replacing = true;
+        try {
+            areas.get(hit.area()).replaceText(hit.start(), hit.end(), replacement);
+        } finally {
+            replacing = false;
+        }
+        refresh(false);
+    }
+
+    // One edit per area, spanning its first to last hit, so each area's undo restores it in one step.
+    private void replaceAll() {
+        if (hitsStale) refresh(false);
+        if (hits.isEmpty()) return;
+        IAMNoteSearch.Query query = query();
+        int replaced = hits.size();
+        int i = 0;
+        try {
+            replacing = true;
+            while (i < hits.size()) {
+                int area = hits.get(i).area();
+                List<IAMNoteSearch.Hit> inArea = new ArrayList<>();
+                while (i < hits.size() && hits.get(i).area() == area) inArea.add(hits.get(i++));
+
+                String text = search.text(area);
+                int start = inArea.get(0).start();
+                int end = inArea.get(inArea.size() - 1).end();
+                StringBuilder sb = new StringBuilder(end - start);
+                int pos = start;
+                for (IAMNoteSearch.Hit h : inArea) {
+                    sb.append(text, pos, h.start()).append(search.replacementFor(query, h, replaceField.getText()));
+                    pos = h.end();
+                }
+                areas.get(area).replaceText(start, end, sb.toString());
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            hitsStale = true; // areas before the failing one were already replaced
+            statusLabel.setText("Invalid replacement: " + e.getMessage());
+            return;
+        } finally {
+            replacing = false;
+        }
+        refresh(true);
+        statusLabel.setText("Replaced " + replaced + " match" + (replaced == 1 ? "" : "es"));
+    }
+}
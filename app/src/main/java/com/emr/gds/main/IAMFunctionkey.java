@@ -1,9 +1,11 @@
 package com.emr.gds.main;
 
 import com.emr.gds.IttiaApp;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.TextArea;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
 import javafx.scene.input.KeyCombination;
@@ -11,6 +13,7 @@ import javafx.stage.Stage;
 
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +24,8 @@ public class IAMFunctionkey {
 
     private final IttiaApp mainApp;
     private final Map<KeyCode, FunctionKeyAction> functionKeyActions = new HashMap<>();
+    private IAMFindReplaceDialog findDialog;
+    private IAMSpellCheck spellCheck;
 
     /**
      * A functional interface for defining an action to be executed by a function key.
@@ -90,15 +95,63 @@ public class IAMFunctionkey {
     }
 
     private void findInCurrentArea() {
-        showInfoDialog("Find Function", "Find functionality will be implemented in a future version.");
+        try {
+            List<TextArea> textAreas = mainApp.getTextAreaManager().getTextAreas();
+            if (textAreas.isEmpty()) return;
+            if (findDialog == null) {
+                findDialog = new IAMFindReplaceDialog(textAreas, textAreas.get(0).getScene().getWindow());
+            }
+            String selection = textAreas.stream()
+                    .filter(TextArea::isFocused)
+                    .map(TextArea::getSelectedText)
+                    .findFirst()
+                    .orElse(null);
+            findDialog.show(selection);
+        } catch (Exception e) {
+            showErrorDialog("Find Error", "Failed to open find/replace: " + e.getMessage());
+        }
     }
 
+    /**
+     * Checks the data files for outside edits and reloads only the sources that changed.
+     */
     private void refreshData() {
-        showInfoDialog("Refresh Data", "Data refresh functionality will be implemented in a future version.");
+        IAMDataRefresher.shared().refresh().whenComplete((changed, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showErrorDialog("Refresh Error", "Failed to refresh data: " + cause.getMessage());
+            } else if (changed.isEmpty()) {
+                showToast("No data changes detected.");
+            } else {
+                showToast("Reloaded: " + IAMDataRefresher.describe(changed) + ".");
+            }
+        }));
     }
 
+    /**
+     * First press turns on live spell checking; later presses offer corrections for the next
+     * misspelling after the caret in the focused area.
+     */
     private void spellCheckCurrentArea() {
-        showInfoDialog("Spell Check", "Spell check functionality will be implemented in a future version.");
+        try {
+            IAMTextArea manager = mainApp.getTextAreaManager();
+            List<TextArea> textAreas = manager.getTextAreas();
+            if (textAreas.isEmpty()) return;
+            if (spellCheck == null) {
+                spellCheck = new IAMSpellCheck(textAreas, manager.getMarkerLayers(), mainApp.getAbbrevMap());
+            }
+            TextArea target = textAreas.stream().filter(TextArea::isFocused).findFirst().orElse(textAreas.get(0));
+            if (!spellCheck.isEnabled()) {
+                spellCheck.enable(() -> {},
+                        error -> showErrorDialog("Spell Check Error", error.getMessage()));
+                return;
+            }
+            if (!spellCheck.showSuggestions(target)) {
+                showToast("No spelling issues in this area.");
+            }
+        } catch (Exception e) {
+            showErrorDialog("Spell Check Error", "Failed to run spell check: " + e.getMessage());
+        }
     }
 
     private void toggleWordWrap() {
@@ -114,8 +167,22 @@ public class IAMFunctionkey {
         }
     }
 
+    /**
+     * Saves a snapshot of the encounter; it is offered for restore on the next launch.
+     */
     private void saveCurrentState() {
-        showInfoDialog("Save State", "Auto-save functionality will be implemented in a future version.");
+        try {
+            mainApp.saveEncounterSnapshot().whenComplete((file, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    showErrorDialog("Save State Error", cause.getMessage());
+                } else {
+                    showToast("Encounter snapshot saved: " + file.getFileName());
+                }
+            }));
+        } catch (Exception e) {
+            showErrorDialog("Save State Error", "Failed to save snapshot: " + e.getMessage());
+        }
     }
 
     private void showAllShortcuts() {
@@ -143,13 +210,13 @@ public class IAMFunctionkey {
 
             F1  - Show this help dialog
             F2  - Quick insert HPI template
-            F3  - Find in current text area (Not implemented)
+            F3  - Find/replace across all text areas
             F4  - Open Vital BP & HbA1c window
-            F5  - Refresh/Reload data (Not implemented)
+            F5  - Reload data changed outside the app
             F6  - Format current text area
-            F7  - Spell check current area (Not implemented)
+            F7  - Spell check on; again for corrections in current area
             F8  - Toggle word wrap for all areas
-            F9  - Save current state (Not implemented)
+            F9  - Save encounter snapshot (offered on next launch)
             F10 - Show all keyboard shortcuts
             F11 - Toggle fullscreen mode
             F12 - Copy all content to clipboard
@@ -165,6 +232,7 @@ public class IAMFunctionkey {
             Ctrl+I - Insert current date
             Ctrl+Shift+F - Format current area
             Ctrl+Shift+C - Copy all to clipboard
+            Ctrl+Shift+M - Edit keyboard macros (saved in app/db/macros.db)
             """;
     }
 
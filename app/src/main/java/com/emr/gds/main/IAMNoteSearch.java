@@ -0,0 +1,322 @@
+package com.emr.gds.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Incremental find engine over the ten SOAP text areas, used by the F3 find/replace window.
+ * <p>
+ * Each area is kept as a list of lines, and every line is indexed by the case-folded trigrams it
+ * contains. A literal query of three or more characters only looks at lines holding all of its
+ * trigrams; shorter queries and regular expressions scan the area. Edits re-index only the lines
+ * they touch: the changed range is found from the common prefix and suffix of the old and new text.
+ * Folding is per {@code char} ({@link Character#toLowerCase(char)}), so offsets in the folded text
+ * match the original; Hangul has no case and is matched as is.
+ */
+public final class IAMNoteSearch {
+
+    /** One match: area index and the [start, end) range in that area's text. */
+    public record Hit(int area, int start, int end) {}
+
+    /** What to look for; {@link #compile()} rejects an invalid regular expression. */
+    public record Query(String text, boolean regex, boolean matchCase) {
+        Pattern compile() {
+            int flags = Pattern.MULTILINE | (matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            return Pattern.compile(regex ? text : Pattern.quote(text), flags);
+        }
+    }
+
+    private final List<Area> areas = new ArrayList<>();
+
+    public IAMNoteSearch(int areaCount) {
+        for (int i = 0; i < areaCount; i++) {
+            areas.add(new Area());
+        }
+    }
+
+    public int areaCount() {
+        return areas.size();
+    }
+
+    /** Replaces an area's text and rebuilds its index. */
+    public void reset(int area, String text) {
+        areas.get(area).reset(text == null ? "" : text);
+    }
+
+    /** Applies an edit; only the lines between the first and last changed character are re-indexed. */
+    public void update(int area, String newText) {
+        areas.get(area).update(newText == null ? "" : newText);
+    }
+
+    public String text(int area) {
+        return areas.get(area).text;
+    }
+
+    // ================================
+    // Searching
+    // ================================
+
+    /**
+     * Every non-overlapping match in every area, in area order and then text order.
+     *
+     * @throws PatternSyntaxException if a regex query does not compile.
+     */
+    public List<Hit> find(Query query) {
+        List<Hit> hits = new ArrayList<>();
+        if (query.text() == null || query.text().isEmpty()) return hits;
+        Pattern pattern = query.regex() ? query.compile() : null;
+        for (int i = 0; i < areas.size(); i++) {
+            Area a = areas.get(i);
+            if (pattern != null) {
+                a.findRegex(i, pattern, hits);
+            } else {
+                a.findLiteral(i, query.text(), query.matchCase(), hits);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * The text {@code hit} would be replaced with; for regex queries {@code $1}-style group references
+     * in {@code replacement} are expanded.
+     */
+    public String replacementFor(Query query, Hit hit, String replacement) {
+        if (!query.regex()) return replacement;
+        String text = areas.get(hit.area()).text;
+        Matcher m = query.compile().matcher(text);
+        m.useTransparentBounds(true).useAnchoringBounds(false).region(hit.start(), text.length());
+        if (!m.lookingAt()) return replacement;
+        StringBuilder sb = new StringBuilder();
+        m.appendReplacement(sb, replacement);
+        return sb.substring(hit.start());
+    }
+
+    static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    static String fold(CharSequence s) {
+        char[] out = new char[s.length()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = fold(s.charAt(i));
+        }
+        return new String(out);
+    }
+
+    private static long trigram(CharSequence s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    // ================================
+    // Per-area line index
+    // ================================
+
+    private static final class Line {
+        final String folded;
+        final long[] grams; // distinct folded trigrams, sorted
+
+        Line(String original) {
+            folded = fold(original);
+            int n = Math.max(0, folded.length() - 2);
+            long[] all = new long[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = trigram(folded, i);
+            }
+            Arrays.sort(all);
+            int distinct = 0;
+            for (int i = 0; i < n; i++) {
+                if (distinct == 0 || all[distinct - 1] != all[i]) all[distinct++] = all[i];
+            }
+            grams = Arrays.copyOf(all, distinct);
+        }
+
+        boolean has(long gram) {
+            return Arrays.binarySearch(grams, gram) >= 0;
+        }
+    }
+
+    private static final class Area {
+        private String text = "";
+        private final List<Line> lines = new ArrayList<>();
+        private final Map<Long, Set<Line>> postings = new HashMap<>();
+        private int[] starts = new int[0];
+        private boolean startsDirty = true;
+
+        void reset(String newText) {
+            text = newText;
+            lines.clear();
+            postings.clear();
+            int from = 0;
+            while (true) {
+                int nl = newText.indexOf('\n', from);
+                Line line = new Line(newText.substring(from, nl < 0 ? newText.length() : nl));
+                lines.add(line);
+                index(line);
+                if (nl < 0) break;
+                from = nl + 1;
+            }
+            startsDirty = true;
+        }
+
+        void update(String newText) {
+            String old = text;
+            if (old.equals(newText)) return;
+            int oldLen = old.length();
+            int newLen = newText.length();
+            int max = Math.min(oldLen, newLen);
+            int prefix = 0;
+            while (prefix < max && old.charAt(prefix) == newText.charAt(prefix)) prefix++;
+            int suffix = 0;
+            while (suffix < max - prefix && old.charAt(oldLen - 1 - suffix) == newText.charAt(newLen - 1 - suffix)) suffix++;
+
+            // Whole lines around the change; the text before `from` is identical in both versions.
+            int from = old.lastIndexOf('\n', prefix - 1) + 1;
+            int oldEnd = lineEnd(old, oldLen - suffix);
+            int newEnd = lineEnd(newText, newLen - suffix);
+
+            int first = lineAt(from);
+            int oldCount = 1;
+            for (int i = from; i < oldEnd; i++) {
+                if (old.charAt(i) == '\n') oldCount++;
+            }
+            List<Line> changed = lines.subList(first, first + oldCount);
+            changed.forEach(this::unindex);
+
+            List<Line> replacement = new ArrayList<>();
+            int start = from;
+            while (true) {
+                int nl = newText.indexOf('\n', start);
+                if (nl < 0 || nl >= newEnd) {
+                    replacement.add(new Line(newText.substring(start, newEnd)));
+                    break;
+                }
+                replacement.add(new Line(newText.substring(start, nl)));
+                start = nl + 1;
+            }
+            changed.clear();
+            changed.addAll(replacement);
+            replacement.forEach(this::index);
+
+            text = newText;
+            startsDirty = true;
+        }
+
+        private static int lineEnd(String s, int at) {
+            int nl = s.indexOf('\n', at);
+            return nl < 0 ? s.length() : nl;
+        }
+
+        private void index(Line line) {
+            for (long g : line.grams) {
+                postings.computeIfAbsent(g, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(line);
+            }
+        }
+
+        private void unindex(Line line) {
+            for (long g : line.grams) {
+                Set<Line> set = postings.get(g);
+                if (set != null && set.remove(line) && set.isEmpty()) postings.remove(g);
+            }
+        }
+
+        private int[] starts() {
+            if (startsDirty) {
+                if (starts.length != lines.size()) starts = new int[lines.size()];
+                int offset = 0;
+                for (int i = 0; i < lines.size(); i++) {
+                    starts[i] = offset;
+                    offset += lines.get(i).folded.length() + 1;
+                }
+                startsDirty = false;
+            }
+            return starts;
+        }
+
+        // Index of the line starting at `offset`, which must be a line start.
+        private int lineAt(int offset) {
+            int i = Arrays.binarySearch(starts(), offset);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        void findLiteral(int area, String query, boolean matchCase, List<Hit> hits) {
+            String q = fold(query);
+            if (q.indexOf('\n') >= 0) {
+                scan(area, matchCase ? text : fold(text), matchCase ? query : q, 0, hits);
+                return;
+            }
+            int[] offsets = starts();
+            if (q.length() < 3) {
+                for (int i = 0; i < lines.size(); i++) {
+                    matchLine(area, lines.get(i), offsets[i], q, query, matchCase, hits);
+                }
+                return;
+            }
+
+            // Rarest trigram picks the candidate lines; the rest filter them.
+            long[] grams = new long[q.length() - 2];
+            Set<Line> rarest = null;
+            for (int i = 0; i < grams.length; i++) {
+                grams[i] = trigram(q, i);
+                Set<Line> set = postings.get(grams[i]);
+                if (set == null) return;
+                if (rarest == null || set.size() < rarest.size()) rarest = set;
+            }
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                if (!rarest.contains(line)) continue;
+                boolean all = true;
+                for (long g : grams) {
+                    if (!line.has(g)) {
+                        all = false;
+                        break;
+                    }
+                }
+                if (all) candidates.add(i);
+            }
+            for (int i : candidates) {
+                matchLine(area, lines.get(i), offsets[i], q, query, matchCase, hits);
+            }
+        }
+
+        private void matchLine(int area, Line line, int offset, String folded, String original, boolean matchCase, List<Hit> hits) {
+            int from = 0;
+            while (true) {
+                int at = line.folded.indexOf(folded, from);
+                if (at < 0) return;
+                if (!matchCase || text.startsWith(original, offset + at)) {
+                    hits.add(new Hit(area, offset + at, offset + at + folded.length()));
+                    from = at + folded.length();
+                } else {
+                    from = at + 1;
+                }
+            }
+        }
+
+        private static void scan(int area, String haystack, String needle, int from, List<Hit> hits) {
+            while (true) {
+                int at = haystack.indexOf(needle, from);
+                if (at < 0) return;
+                hits.add(new Hit(area, at, at + needle.length()));
+                from = at + needle.length();
+            }
+        }
+
+        void findRegex(int area, Pattern pattern, List<Hit> hits) {
+            Matcher m = pattern.matcher(text);
+            while (m.find()) {
+                if (m.end() == m.start()) continue; // empty matches are not selectable
+                hits.add(new Hit(area, m.start(), m.end()));
+            }
+        }
+    }
+}
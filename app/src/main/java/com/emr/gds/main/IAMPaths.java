@@ -0,0 +1,32 @@
+package com.emr.gds.main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Where the application keeps its files. Every store resolves its database through here, so they all
+ * agree on the same {@code app/db} directory whatever the working directory is.
+ */
+public final class IAMPaths {
+
+    private IAMPaths() {
+    }
+
+    /**
+     * The nearest directory at or above the working directory that holds {@code gradlew} or
+     * {@code .git}; the working directory itself when there is none.
+     */
+    public static Path repoRoot() {
+        Path p = Paths.get("").toAbsolutePath();
+        while (p != null && !Files.exists(p.resolve("gradlew")) && !Files.exists(p.resolve(".git"))) {
+            p = p.getParent();
+        }
+        return (p != null) ? p : Paths.get("").toAbsolutePath();
+    }
+
+    /** The repo-tracked database directory, {@code app/db} under {@link #repoRoot()}. */
+    public static Path dbDirectory() {
+        return repoRoot().resolve("app").resolve("db");
+    }
+}
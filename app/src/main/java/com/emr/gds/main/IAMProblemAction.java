@@ -3,17 +3,20 @@ package com.emr.gds.main;
 import com.emr.gds.IttiaApp;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.StringJoiner;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -62,6 +65,8 @@ public class IAMProblemAction {
     private Button saveToEmrButton;
     private TextArea scratchpadArea;
     private final LinkedHashMap<String, String> scratchpadEntries = new LinkedHashMap<>();
+    private final Map<String, List<String>> scratchpadLines = new HashMap<>();
+    private IAMScratchpadSync scratchpadSync;
 
     // ================================ 
     // Constructor
@@ -132,6 +137,26 @@ public class IAMProblemAction {
         }
     }
 
+    /**
+     * Re-reads the problem table (after it was edited outside the app) and applies only the
+     * differences to the list, so the current selection is kept. Call off the FX thread.
+     */
+    public void reloadFromDb() {
+        if (dbConn == null) return;
+
+        List<String> fresh = new ArrayList<>();
+        String sql = "SELECT problem_text FROM problems ORDER BY problem_text COLLATE NOCASE";
+        try (Statement stmt = dbConn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                fresh.add(rs.getString("problem_text"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to reload problems from database: " + e.getMessage());
+            return;
+        }
+        Platform.runLater(() -> IAMDataRefresher.applyDiff(problems, fresh));
+    }
+
     /**
      * Adds a new problem to the database and updates the UI.
      * @param problemText The problem to add.
@@ -286,21 +311,143 @@ public class IAMProblemAction {
     // Scratchpad Logic
     // ================================ 
 
+    /** Connects the sync that mirrors the center areas; set once by {@link IAMTextArea}. */
+    void setScratchpadSync(IAMScratchpadSync sync) {
+        this.scratchpadSync = sync;
+    }
+
+    /**
+     * Mirrors pending area edits into the scratchpad now. Editors that write into a center area call
+     * this instead of touching the scratchpad lines, so the sync's base text stays in step.
+     */
+    public void flushScratchpadSync() {
+        if (scratchpadSync != null) scratchpadSync.flush();
+    }
+
+    /** Rebuilds the scratchpad from the center areas, e.g. after a snapshot restore replaced them. */
+    public void resyncScratchpad() {
+        if (scratchpadSync != null) scratchpadSync.resync();
+    }
+
     /**
-     * Updates the scratchpad content based on changes in the main text areas.
+     * Replaces every mirrored line of a section and re-renders only that section.
      * @param title The title of the text area that changed.
-     * @param newText The new text content.
+     * @param lines The trimmed lines of the area, blank lines included.
      */
-    public void updateAndRedrawScratchpad(String title, String newText) {
-        String trimmedText = newText.trim();
-        if (trimmedText.isEmpty()) {
+    public void replaceScratchpadLines(String title, List<String> lines) {
+        scratchpadLines.put(title, new ArrayList<>(lines));
+        updateScratchpadEntry(title);
+    }
+
+    /**
+     * Applies a line-range change from {@link IAMScratchpadSync} to a mirrored section.
+     * @param title The title of the text area that changed.
+     * @param fromLine Index of the first replaced line.
+     * @param removedCount Number of lines replaced.
+     * @param addedLines The trimmed replacement lines.
+     * @param expectedLineCount Line count of the area after the change, used as a consistency check.
+     * @return false if the mirrored section is out of step and the caller must resend the full text.
+     */
+    public boolean applyScratchpadDelta(String title, int fromLine, int removedCount, List<String> addedLines, int expectedLineCount) {
+        List<String> lines = scratchpadLines.get(title);
+        int currentCount = (lines == null) ? 1 : lines.size(); // an absent section is a single empty line
+        if (fromLine + removedCount > currentCount || currentCount - removedCount + addedLines.size() != expectedLineCount) {
+            return false;
+        }
+        if (lines == null) {
+            lines = new ArrayList<>(List.of(""));
+            scratchpadLines.put(title, lines);
+        }
+        List<String> replaced = lines.subList(fromLine, fromLine + removedCount);
+        replaced.clear();
+        replaced.addAll(addedLines);
+        updateScratchpadEntry(title);
+        return true;
+    }
+
+    /**
+     * Rebuilds the rendered entry for one section and patches it into the scratchpad in place.
+     */
+    private void updateScratchpadEntry(String title) {
+        StringJoiner sj = new StringJoiner(" \n\t ");
+        for (String line : scratchpadLines.getOrDefault(title, List.of())) {
+            if (!line.isEmpty()) sj.add(line);
+        }
+        String oldEntry = scratchpadEntries.get(title);
+        String newEntry = (sj.length() == 0) ? null : sj.toString();
+        if (newEntry == null) {
             scratchpadEntries.remove(title);
         } else {
-            // Replace newlines with a space and a tab for a more compact view
-            String singleLineText = trimmedText.replaceAll("\\s*\\R\\s*", " \n\t ");
-            scratchpadEntries.put(title, singleLineText);
+            scratchpadEntries.put(title, newEntry);
+        }
+        if (!Objects.equals(oldEntry, newEntry)) {
+            patchScratchpadSection(title, oldEntry, newEntry);
         }
-        redrawScratchpad();
+    }
+
+    /**
+     * Replaces a single section of the scratchpad text instead of resetting the whole area.
+     * Falls back to a full redraw if the scratchpad no longer matches the mirrored entries
+     * (for example after the user typed into it).
+     */
+    private void patchScratchpadSection(String title, String oldEntry, String newEntry) {
+        if (scratchpadArea == null) return;
+
+        int start = 0;          // offset of this section (or where it would be inserted)
+        int totalLength = -1;   // expected scratchpad length before the patch
+        boolean hasPreceding = false;
+        boolean hasFollowing = false;
+        boolean passedTitle = false;
+        for (String t : IAMTextArea.TEXT_AREA_TITLES) {
+            String value = t.equals(title) ? oldEntry : scratchpadEntries.get(t);
+            if (t.equals(title)) {
+                passedTitle = true;
+                if (value != null) totalLength += sectionLength(t, value) + 1;
+                continue;
+            }
+            if (value == null) continue;
+            int len = sectionLength(t, value) + 1;
+            totalLength += len;
+            if (passedTitle) {
+                hasFollowing = true;
+            } else {
+                hasPreceding = true;
+                start += len;
+            }
+        }
+        totalLength = Math.max(totalLength, 0);
+
+        if (scratchpadArea.getLength() != totalLength) {
+            redrawScratchpad();
+            return;
+        }
+
+        if (oldEntry != null && newEntry != null) {
+            scratchpadArea.replaceText(start, start + sectionLength(title, oldEntry), title + " " + newEntry);
+        } else if (newEntry != null) {
+            if (hasFollowing) {
+                scratchpadArea.insertText(start, title + " " + newEntry + "\n");
+            } else if (hasPreceding) {
+                scratchpadArea.insertText(totalLength, "\n" + title + " " + newEntry);
+            } else {
+                scratchpadArea.insertText(0, title + " " + newEntry);
+            }
+        } else if (oldEntry != null) {
+            int len = sectionLength(title, oldEntry);
+            if (hasFollowing) {
+                scratchpadArea.deleteText(start, start + len + 1);
+            } else if (hasPreceding) {
+                scratchpadArea.deleteText(start - 1, start + len);
+            } else {
+                scratchpadArea.deleteText(0, len);
+            }
+        }
+        scratchpadArea.positionCaret(scratchpadArea.getLength());
+        scratchpadArea.setScrollTop(Double.MAX_VALUE);
+    }
+
+    private static int sectionLength(String title, String entry) {
+        return title.length() + 1 + entry.length();
     }
 
     /**
@@ -328,6 +475,8 @@ public class IAMProblemAction {
     }
 
     public void clearScratchpad() {
+        scratchpadEntries.clear();
+        scratchpadLines.clear();
         if (scratchpadArea != null) {
             scratchpadArea.clear();
         }
@@ -341,6 +490,24 @@ public class IAMProblemAction {
         return problems;
     }
 
+    public String getScratchpadText() {
+        return scratchpadArea == null ? "" : scratchpadArea.getText();
+    }
+
+    public List<String> getSelectedProblems() {
+        return problemList == null ? List.of() : List.copyOf(problemList.getSelectionModel().getSelectedItems());
+    }
+
+    /** Selects the given problems that are still in the list. */
+    public void selectProblems(List<String> selected) {
+        if (problemList == null) return;
+        problemList.getSelectionModel().clearSelection();
+        for (String p : selected) {
+            int index = problemList.getItems().indexOf(p);
+            if (index >= 0) problemList.getSelectionModel().select(index);
+        }
+    }
+
     /**
      * Closes the database connection when the application shuts down.
      */
@@ -356,15 +523,7 @@ public class IAMProblemAction {
     }
 
     // --- DB Helpers (Repo-tracked under app/db) ---
-    private static Path repoRoot() {
-        Path p = Paths.get("").toAbsolutePath();
-        while (p != null && !Files.exists(p.resolve("gradlew")) && !Files.exists(p.resolve(".git"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p : Paths.get("").toAbsolutePath();
-    }
-    
     private static Path dbPath() {
-        return repoRoot().resolve("app").resolve("db").resolve("prolist.db");
+        return IAMPaths.dbDirectory().resolve("prolist.db");
     }
 }
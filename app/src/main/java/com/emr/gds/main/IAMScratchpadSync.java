@@ -0,0 +1,141 @@
+package com.emr.gds.main;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import javafx.animation.PauseTransition;
+import javafx.scene.control.TextArea;
+import javafx.util.Duration;
+
+/**
+ * Mirrors the central EMR text areas into the scratchpad of {@link IAMProblemAction}.
+ * <p>
+ * Keystrokes only mark the edited area dirty and restart a short debounce timer, so typing cost
+ * does not depend on how much text an area holds. When the timer fires, each dirty area is diffed
+ * against the text that was last synchronized and only the changed line range is sent on.
+ */
+public final class IAMScratchpadSync {
+
+    // ================================
+    // Constants
+    // ================================
+    private static final Duration DEBOUNCE_DELAY = Duration.millis(180);
+
+    // ================================
+    // Instance Variables
+    // ================================
+    private final IAMProblemAction problemAction;
+    private final TextArea[] areas = new TextArea[IAMTextArea.TEXT_AREA_TITLES.length];
+    private final String[] syncedText = new String[IAMTextArea.TEXT_AREA_TITLES.length];
+    private final BitSet dirtyAreas = new BitSet(IAMTextArea.TEXT_AREA_TITLES.length);
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE_DELAY);
+
+    public IAMScratchpadSync(IAMProblemAction problemAction) {
+        this.problemAction = Objects.requireNonNull(problemAction, "problemAction");
+        debounce.setOnFinished(e -> flush());
+    }
+
+    // ================================
+    // Public API
+    // ================================
+
+    /**
+     * Starts mirroring the given area into the scratchpad section with the same index.
+     * Areas beyond the known section titles are ignored.
+     */
+    public void attach(TextArea textArea, int index) {
+        if (textArea == null || index < 0 || index >= areas.length) return;
+        areas[index] = textArea;
+        syncedText[index] = "";
+        textArea.textProperty().addListener((obs, oldV, newV) -> markDirty(index));
+        if (!textArea.getText().isEmpty()) {
+            markDirty(index);
+        }
+    }
+
+    /**
+     * Pushes all pending changes to the scratchpad immediately, bypassing the debounce timer.
+     */
+    public void flush() {
+        debounce.stop();
+        for (int i = dirtyAreas.nextSetBit(0); i >= 0; i = dirtyAreas.nextSetBit(i + 1)) {
+            syncArea(i);
+        }
+        dirtyAreas.clear();
+    }
+
+    /**
+     * Rebuilds the scratchpad from the current area texts, e.g. after a snapshot restore replaced
+     * them all; any pending deltas against the old texts are dropped.
+     */
+    public void resync() {
+        debounce.stop();
+        dirtyAreas.clear();
+        problemAction.clearScratchpad();
+        for (int i = 0; i < areas.length; i++) {
+            if (areas[i] == null) continue;
+            syncedText[i] = "";
+            dirtyAreas.set(i);
+        }
+        flush();
+    }
+
+    // ================================
+    // Internal helpers
+    // ================================
+
+    private void markDirty(int index) {
+        dirtyAreas.set(index);
+        debounce.playFromStart();
+    }
+
+    private void syncArea(int index) {
+        TextArea area = areas[index];
+        if (area == null) return;
+
+        String title = IAMTextArea.TEXT_AREA_TITLES[index];
+        String oldText = syncedText[index];
+        String newText = area.getText();
+        if (oldText.equals(newText)) return;
+
+        int oldLen = oldText.length();
+        int newLen = newText.length();
+
+        // Common prefix and suffix bound the edited region in both texts.
+        int prefix = 0;
+        int maxPrefix = Math.min(oldLen, newLen);
+        while (prefix < maxPrefix && oldText.charAt(prefix) == newText.charAt(prefix)) prefix++;
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && oldText.charAt(oldLen - 1 - suffix) == newText.charAt(newLen - 1 - suffix)) suffix++;
+
+        // Widen the region to whole lines.
+        int regionStart = oldText.lastIndexOf('\n', prefix - 1) + 1;
+        int oldRegionEnd = lineEnd(oldText, oldLen - suffix);
+        int newRegionEnd = lineEnd(newText, newLen - suffix);
+
+        int fromLine = countNewlines(oldText, 0, regionStart);
+        int removedCount = countNewlines(oldText, regionStart, oldRegionEnd) + 1;
+        List<String> addedLines = IAMTextFormatUtil.trimmedLines(newText, regionStart, newRegionEnd);
+        int expectedLineCount = countNewlines(oldText, 0, oldLen) + 1 - removedCount + addedLines.size();
+
+        if (!problemAction.applyScratchpadDelta(title, fromLine, removedCount, addedLines, expectedLineCount)) {
+            // Scratchpad was reset independently; resend the whole section.
+            problemAction.replaceScratchpadLines(title, IAMTextFormatUtil.trimmedLines(newText, 0, newLen));
+        }
+        syncedText[index] = newText;
+    }
+
+    private static int lineEnd(String text, int from) {
+        int end = text.indexOf('\n', from);
+        return (end < 0) ? text.length() : end;
+    }
+
+    private static int countNewlines(String text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,288 @@
+package com.emr.gds.main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * F9 encounter snapshots, one compressed and checksummed file each, under
+ * {@code app/db/snapshots/<yyyy-MM-dd>/snapshot-HHmmss-SSS.gsnap}.
+ * <p>
+ * File layout (big-endian): {@code int magic, short version, int rawLength, int crc32(raw)}, then the
+ * raw payload compressed with {@link Deflater#BEST_SPEED}. The raw payload is the snapshot fields in
+ * declaration order, strings as {@code int length + UTF-8}. A file whose checksum or length does not
+ * match is skipped when loading. Saves run on one background "snapshot-writer" thread: each is written
+ * to a temp file, forced to disk and renamed into place, then the day's folder is pruned to the newest
+ * {@link #KEEP_PER_DAY} files.
+ */
+public final class IAMSnapshotStore {
+
+    // ================================
+    // Constants
+    // ================================
+    static final int KEEP_PER_DAY = 20;
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 14;
+    // Deflate never expands more than about 1032:1, and no encounter comes near 64 MB of text.
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final int MAX_RAW_BYTES = 64 << 20;
+    private static final String SUFFIX = ".gsnap";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HHmmss-SSS");
+
+    private static volatile IAMSnapshotStore shared;
+
+    private final Path root;
+    private final int keepPerDay;
+    private final ZoneId zone;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    IAMSnapshotStore(Path root, int keepPerDay, ZoneId zone) {
+        this.root = root;
+        this.keepPerDay = keepPerDay;
+        this.zone = zone;
+    }
+
+    public static IAMSnapshotStore shared() {
+        IAMSnapshotStore s = shared;
+        if (s == null) {
+            synchronized (IAMSnapshotStore.class) {
+                s = shared;
+                if (s == null) {
+                    shared = s = new IAMSnapshotStore(IAMPaths.dbDirectory().resolve("snapshots"), KEEP_PER_DAY, ZoneId.systemDefault());
+                }
+            }
+        }
+        return s;
+    }
+
+    // ================================
+    // Saving and loading
+    // ================================
+
+    /**
+     * Writes {@code snapshot} on the writer thread.
+     *
+     * @return the file written, or the I/O failure.
+     */
+    public CompletableFuture<Path> save(IAMEncounterSnapshot snapshot) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return write(snapshot);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to save snapshot: " + e.getMessage(), e);
+            }
+        }, writer);
+    }
+
+    Path write(IAMEncounterSnapshot snapshot) throws IOException {
+        long start = System.nanoTime();
+        ZonedDateTime at = Instant.ofEpochMilli(snapshot.savedAt()).atZone(zone);
+        Path dayDir = root.resolve(DAY.format(at));
+        Files.createDirectories(dayDir);
+        Path file = dayDir.resolve("snapshot-" + TIME.format(at) + SUFFIX);
+        byte[] data = encode(snapshot);
+
+        Path tmp = Files.createTempFile(dayDir, "snapshot", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.wrap(data);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        prune(dayDir);
+        System.out.printf("[SNAPSHOT] Saved %s (%d bytes) in %.1f ms%n", file.getFileName(), data.length,
+                (System.nanoTime() - start) / 1_000_000.0);
+        return file;
+    }
+
+    private void prune(Path dayDir) throws IOException {
+        List<Path> files = list(dayDir);
+        for (int i = keepPerDay; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    /** Snapshot files of one day, newest first. */
+    public List<Path> history(LocalDate day) throws IOException {
+        return list(root.resolve(DAY.format(day)));
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Collections.reverseOrder());
+        return files;
+    }
+
+    /** The newest readable snapshot of any day; damaged files are skipped. */
+    public Optional<IAMEncounterSnapshot> latest() throws IOException {
+        if (!Files.isDirectory(root)) return Optional.empty();
+        List<Path> days = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+            stream.forEach(days::add);
+        }
+        days.sort(Collections.reverseOrder());
+        for (Path day : days) {
+            for (Path file : list(day)) {
+                try {
+                    return Optional.of(read(file));
+                } catch (IOException e) {
+                    System.err.println("[SNAPSHOT] Skipping unreadable " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static IAMEncounterSnapshot read(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    // ================================
+    // Binary format
+    // ================================
+
+    static byte[] encode(IAMEncounterSnapshot s) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            out.writeLong(s.savedAt());
+            out.writeInt(s.areas().size());
+            for (String a : s.areas()) writeString(out, a);
+            writeString(out, s.scratchpad());
+            out.writeInt(s.selectedProblems().size());
+            for (String p : s.selectedProblems()) writeString(out, p);
+            out.writeInt(s.windows().size());
+            for (IAMEncounterSnapshot.WindowState w : s.windows()) {
+                writeString(out, w.title());
+                out.writeDouble(w.x());
+                out.writeDouble(w.y());
+                out.writeDouble(w.width());
+                out.writeDouble(w.height());
+            }
+        }
+        byte[] payload = raw.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream file = new ByteArrayOutputStream(HEADER_BYTES + payload.length / 3 + 64);
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(MAGIC);
+            header.writeShort(VERSION);
+            header.writeInt(payload.length);
+            header.writeInt((int) crc.getValue());
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                file.write(chunk, 0, n);
+            }
+            return file.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static IAMEncounterSnapshot decode(byte[] data) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        if (data.length < HEADER_BYTES || buf.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+        int rawLength = buf.getInt();
+        int expectedCrc = buf.getInt();
+        long compressedLength = data.length - HEADER_BYTES;
+        if (rawLength < 0 || rawLength > MAX_RAW_BYTES || rawLength > compressedLength * MAX_DEFLATE_RATIO) {
+            throw new IOException("Corrupt snapshot header");
+        }
+
+        byte[] payload = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_BYTES, data.length - HEADER_BYTES);
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int got = inflater.inflate(payload, n, rawLength - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += got;
+            }
+            if (n != rawLength || !inflater.finished()) throw new IOException("Truncated snapshot");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt snapshot data", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != expectedCrc) throw new IOException("Snapshot checksum mismatch");
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long savedAt = in.readLong();
+            List<String> areas = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) areas.add(readString(in));
+            String scratchpad = readString(in);
+            List<String> problems = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) problems.add(readString(in));
+            List<IAMEncounterSnapshot.WindowState> windows = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                windows.add(new IAMEncounterSnapshot.WindowState(readString(in),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()));
+            }
+            return new IAMEncounterSnapshot(savedAt, areas, scratchpad, problems, windows);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0 || len > in.available()) throw new IOException("Corrupt snapshot string");
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
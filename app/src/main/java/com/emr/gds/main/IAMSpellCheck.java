@@ -0,0 +1,329 @@
+package com.emr.gds.main;
+
+import com.emr.gds.main.spell.SpellChecker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.skin.TextAreaSkin;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import javafx.util.Duration;
+
+/**
+ * Live F7 spell checking of the SOAP text areas with red underlines.
+ * <p>
+ * Results are cached per paragraph (line) text, so after an edit only paragraphs whose text is new are
+ * sent to the background "spell-check" thread, a short pause after typing stops. Cached paragraphs
+ * keep their underlines immediately. Underlines are drawn on the marker layers from
+ * {@link IAMTextArea#getMarkerLayers()} and redrawn on scroll and resize. The dictionary is opened on
+ * the same thread the first time checking is turned on.
+ */
+public final class IAMSpellCheck {
+
+    // ================================
+    // Constants
+    // ================================
+    private static final Duration DEBOUNCE = Duration.millis(250);
+    private static final int CACHE_LINES = 4096;
+    private static final int SUGGESTIONS = 6;
+    private static final Color UNDERLINE = Color.web("#d62828");
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "spell-check");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<TextArea> areas;
+    private final List<Pane> layers;
+    private final Map<String, String> abbreviations;
+    private final List<AreaState> states = new ArrayList<>();
+
+    // Paragraph text -> misspellings relative to the paragraph start; FX thread only.
+    private final Map<String, List<SpellChecker.Misspelling>> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<SpellChecker.Misspelling>> eldest) {
+            return size() > CACHE_LINES;
+        }
+    };
+
+    private CompletableFuture<SpellChecker> checker;
+    private boolean enabled;
+
+    public IAMSpellCheck(List<TextArea> areas, List<Pane> layers, Map<String, String> abbreviations) {
+        this.areas = areas;
+        this.layers = layers;
+        this.abbreviations = abbreviations;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns live checking on, opening the dictionary in the background if needed; {@code onReady}
+     * runs on the FX thread once it is loaded, or receives the failure.
+     */
+    public void enable(Runnable onReady, Consumer<Throwable> onError) {
+        if (checker == null || checker.isCompletedExceptionally()) {
+            Map<String, String> snapshot = new HashMap<>(abbreviations);
+            checker = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return SpellChecker.open(snapshot);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to open spell dictionary: " + e.getMessage(), e);
+                }
+            }, EXECUTOR);
+        }
+        checker.whenComplete((c, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                onError.accept(error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            if (!enabled) {
+                enabled = true;
+                for (int i = 0; i < areas.size(); i++) {
+                    AreaState state = new AreaState(i);
+                    states.add(state);
+                    state.attach();
+                }
+            }
+            onReady.run();
+        }));
+    }
+
+    /** Turns checking off and removes every underline. */
+    public void disable() {
+        enabled = false;
+        states.forEach(AreaState::detach);
+        states.clear();
+    }
+
+    // ================================
+    // Suggestions popup
+    // ================================
+
+    /**
+     * Shows corrections for the first misspelling at or after the caret of {@code area}, wrapping to the
+     * first in the area. Returns {@code false} if the area has none.
+     */
+    public boolean showSuggestions(TextArea area) {
+        int index = areas.indexOf(area);
+        if (!enabled || index < 0 || checker == null || !checker.isDone()) return false;
+        AreaState state = states.get(index);
+        List<SpellChecker.Misspelling> marks = state.marks;
+        if (marks.isEmpty()) return false;
+        int caret = area.getCaretPosition();
+        SpellChecker.Misspelling target = marks.get(0);
+        for (SpellChecker.Misspelling m : marks) {
+            if (m.end() >= caret) {
+                target = m;
+                break;
+            }
+        }
+        showMenu(area, state, target);
+        return true;
+    }
+
+    private void showMenu(TextArea area, AreaState state, SpellChecker.Misspelling m) {
+        SpellChecker spell = checker.join();
+        String word = area.getText().substring(m.start(), m.end());
+        area.selectRange(m.start(), m.end());
+
+        ContextMenu menu = new ContextMenu();
+        List<String> suggestions = spell.suggest(word, SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            MenuItem none = new MenuItem("(no suggestions)");
+            none.setDisable(true);
+            menu.getItems().add(none);
+        }
+        for (String s : suggestions) {
+            MenuItem item = new MenuItem(s);
+            item.setOnAction(e -> {
+                if (area.getText().startsWith(word, m.start())) area.replaceText(m.start(), m.end(), s);
+            });
+            menu.getItems().add(item);
+        }
+        MenuItem add = new MenuItem("Add \"" + word + "\" to dictionary");
+        add.setOnAction(e -> {
+            spell.addUserWord(word);
+            recheckAll();
+        });
+        MenuItem ignore = new MenuItem("Ignore \"" + word + "\"");
+        ignore.setOnAction(e -> {
+            spell.ignore(word);
+            recheckAll();
+        });
+        MenuItem off = new MenuItem("Turn off spell check");
+        off.setOnAction(e -> disable());
+        menu.getItems().addAll(new SeparatorMenuItem(), add, ignore, off);
+
+        Point2D anchor = state.screenPointBelow(m.start());
+        if (anchor != null) {
+            menu.show(area, anchor.getX(), anchor.getY());
+        } else {
+            Bounds b = area.localToScreen(area.getBoundsInLocal());
+            menu.show(area, b.getMinX() + 20, b.getMinY() + 20);
+        }
+    }
+
+    // Dictionary contents changed: cached results may now be wrong.
+    private void recheckAll() {
+        cache.clear();
+        states.forEach(AreaState::refresh);
+    }
+
+    // ================================
+    // Per-area checking and drawing
+    // ================================
+
+    private final class AreaState {
+        private final TextArea area;
+        private final Pane layer;
+        private final PauseTransition pause = new PauseTransition(DEBOUNCE);
+        private final InvalidationListener onText = obs -> textChanged();
+        private final InvalidationListener onView = obs -> redraw();
+        private List<SpellChecker.Misspelling> marks = List.of();
+        private int generation;
+
+        AreaState(int index) {
+            this.area = areas.get(index);
+            this.layer = index < layers.size() ? layers.get(index) : null;
+            pause.setOnFinished(e -> checkMissing());
+        }
+
+        void attach() {
+            area.textProperty().addListener(onText);
+            area.scrollTopProperty().addListener(onView);
+            area.scrollLeftProperty().addListener(onView);
+            area.widthProperty().addListener(onView);
+            area.heightProperty().addListener(onView);
+            area.wrapTextProperty().addListener(onView);
+            refresh();
+        }
+
+        void detach() {
+            pause.stop();
+            generation++;
+            area.textProperty().removeListener(onText);
+            area.scrollTopProperty().removeListener(onView);
+            area.scrollLeftProperty().removeListener(onView);
+            area.widthProperty().removeListener(onView);
+            area.heightProperty().removeListener(onView);
+            area.wrapTextProperty().removeListener(onView);
+            marks = List.of();
+            if (layer != null) layer.getChildren().clear();
+        }
+
+        void refresh() {
+            textChanged();
+            checkMissing();
+        }
+
+        // Rebuilds the marks from cached paragraphs right away; new paragraphs wait for the pause.
+        private void textChanged() {
+            marks = marksFromCache(area.getText(), null);
+            redraw();
+            pause.playFromStart();
+        }
+
+        private List<SpellChecker.Misspelling> marksFromCache(String text, List<String> missing) {
+            List<SpellChecker.Misspelling> out = new ArrayList<>();
+            int from = 0;
+            while (from <= text.length()) {
+                int nl = text.indexOf('\n', from);
+                int to = nl < 0 ? text.length() : nl;
+                String paragraph = text.substring(from, to);
+                List<SpellChecker.Misspelling> found = cache.get(paragraph);
+                if (found == null) {
+                    if (missing != null) missing.add(paragraph);
+                } else {
+                    for (SpellChecker.Misspelling m : found) {
+                        out.add(new SpellChecker.Misspelling(from + m.start(), from + m.end()));
+                    }
+                }
+                from = to + 1;
+            }
+            return out;
+        }
+
+        private void checkMissing() {
+            List<String> missing = new ArrayList<>();
+            marksFromCache(area.getText(), missing);
+            if (missing.isEmpty()) return;
+            int gen = ++generation;
+            SpellChecker spell = checker.join();
+            CompletableFuture.supplyAsync(() -> {
+                Map<String, List<SpellChecker.Misspelling>> results = new HashMap<>();
+                for (String p : missing) results.put(p, spell.check(p));
+                return results;
+            }, EXECUTOR).thenAccept(results -> Platform.runLater(() -> {
+                if (!enabled) return;
+                cache.putAll(results);
+                if (gen != generation) return; // a newer check is on its way
+                marks = marksFromCache(area.getText(), null);
+                redraw();
+            }));
+        }
+
+        private void redraw() {
+            if (layer == null) return;
+            layer.getChildren().clear();
+            if (marks.isEmpty() || !(area.getSkin() instanceof TextAreaSkin skin)) return;
+            Node viewport = area.lookup(".viewport");
+            if (viewport == null) return;
+            double height = area.getHeight();
+            for (SpellChecker.Misspelling m : marks) {
+                // A wrapped word may span visual lines; underline each run of characters on one line.
+                Rectangle2D run = null;
+                for (int i = m.start(); i < m.end(); i++) {
+                    Rectangle2D c = skin.getCharacterBounds(i);
+                    if (run != null && Math.abs(c.getMinY() - run.getMinY()) < 1) {
+                        run = new Rectangle2D(run.getMinX(), run.getMinY(), c.getMaxX() - run.getMinX(), run.getHeight());
+                    } else {
+                        underline(viewport, run, height);
+                        run = c;
+                    }
+                }
+                underline(viewport, run, height);
+            }
+        }
+
+        private void underline(Node viewport, Rectangle2D run, double height) {
+            if (run == null) return;
+            Point2D left = layer.sceneToLocal(viewport.localToScene(run.getMinX(), run.getMaxY() - 1));
+            Point2D right = layer.sceneToLocal(viewport.localToScene(run.getMaxX(), run.getMaxY() - 1));
+            if (left == null || right == null || left.getY() < 0 || left.getY() > height) return;
+            Line line = new Line(left.getX(), left.getY(), right.getX(), right.getY());
+            line.setStroke(UNDERLINE);
+            line.setStrokeWidth(1.5);
+            line.getStrokeDashArray().setAll(3.0, 2.0);
+            layer.getChildren().add(line);
+        }
+
+        Point2D screenPointBelow(int offset) {
+            Node viewport = area.lookup(".viewport");
+            if (!(area.getSkin() instanceof TextAreaSkin skin) || viewport == null) return null;
+            Rectangle2D c = skin.getCharacterBounds(offset);
+            return viewport.localToScreen(c.getMinX(), c.getMaxY());
+        }
+    }
+}
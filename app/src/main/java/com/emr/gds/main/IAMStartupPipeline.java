@@ -0,0 +1,124 @@
+package com.emr.gds.main;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent startup work on background threads and logs the time spent in each phase.
+ * <p>
+ * {@link com.emr.gds.IttiaApp} starts the phases as soon as the login screen is shown, so loading
+ * abbreviations, the problem list and shared data overlaps with the user typing credentials. The
+ * main scene only waits for the phases it actually needs; warm-up phases never block it.
+ */
+public final class IAMStartupPipeline {
+
+    // ================================
+    // Instance Variables
+    // ================================
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService executor;
+
+    public IAMStartupPipeline() {
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "startup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ================================
+    // Public API
+    // ================================
+
+    /**
+     * Runs a phase on a background thread.
+     *
+     * @param phase Name used in the timing log.
+     * @param work  The work to run; checked exceptions complete the future exceptionally.
+     * @return A future holding the phase result.
+     */
+    public <T> CompletableFuture<T> submit(String phase, Callable<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T result = work.call();
+                log(phase, start, null);
+                return result;
+            } catch (Exception e) {
+                log(phase, start, e);
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Starts cache warm-ups that make the first opening of heavy tool windows cheaper.
+     * Failures are only logged, since each window still loads its data on demand.
+     */
+    public void warmUpSharedData() {
+        submit("kcd database warm-up", () -> {
+            DatabaseManager.warmUp();
+            return null;
+        }).exceptionally(e -> null);
+        submit("medication catalog", () -> {
+            com.emr.gds.main.medication.db.DatabaseManager.preload();
+            return null;
+        }).exceptionally(e -> null);
+        submit("phrase library", () -> {
+            com.emr.gds.soap.PhraseLibrary.shared();
+            return null;
+        }).exceptionally(e -> null);
+    }
+
+    /**
+     * Runs a phase on the calling thread (normally the FX thread) and logs its duration.
+     */
+    public void time(String phase, Runnable work) {
+        long start = System.nanoTime();
+        work.run();
+        log(phase, start, null);
+    }
+
+    /**
+     * Computes a value on the calling thread (normally the FX thread) and logs how long it took.
+     */
+    public <T> T compute(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        T result = work.get();
+        log(phase, start, null);
+        return result;
+    }
+
+    /**
+     * Logs the total time since the pipeline was created (and since JVM start, which is what an
+     * AOT cache improves) and releases the worker threads
+     * once any phases still running have finished.
+     */
+    public void finish() {
+        System.out.printf("[STARTUP] ready after %.1f ms (JVM uptime %d ms)%n",
+                millisSince(startNanos), ManagementFactory.getRuntimeMXBean().getUptime());
+        executor.shutdown();
+    }
+
+    // ================================
+    // Internal helpers
+    // ================================
+
+    private void log(String phase, long phaseStart, Exception failure) {
+        String status = (failure == null) ? "" : " FAILED: " + failure.getMessage();
+        System.out.printf("[STARTUP] %-22s %8.1f ms (at +%.1f ms, %s)%s%n",
+                phase, millisSince(phaseStart), millisSince(startNanos), Thread.currentThread().getName(), status);
+    }
+
+    private static double millisSince(long nanos) {
+        return (System.nanoTime() - nanos) / 1_000_000.0;
+    }
+}
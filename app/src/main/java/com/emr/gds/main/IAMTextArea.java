@@ -3,6 +3,7 @@ package com.emr.gds.main;
 import com.emr.gds.input.IAIFxTextAreaManager;
 import com.emr.gds.input.IAIMain;
 import com.emr.gds.input.IAITextAreaManager;
+import com.emr.gds.main.macro.CompiledMacro;
 import com.emr.gds.soap.ChiefComplaintEditor;
 import com.emr.gds.soap.EMRPMH;
 import com.emr.gds.soap.IMSPresentIllness;
@@ -22,6 +23,9 @@ import javafx.scene.control.TextFormatter;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 
 /**
@@ -86,10 +90,15 @@ public class IAMTextArea {
     // Instance Variables
     // ================================ 
     private final List<TextArea> areas = new ArrayList<>(10);
+    private final List<Pane> markerLayers = new ArrayList<>(10);
     private TextArea lastFocusedArea = null;
     private final Map<String, String> abbrevMap;
     private final IAMProblemAction problemAction;
+    private final IAMScratchpadSync scratchpadSync;
     private final Map<Integer, TextAreaDoubleClickHandler> doubleClickHandlers = new HashMap<>();
+    private final IAMEditorRegistry editors = new IAMEditorRegistry();
+    // Reflective editor lookups, resolved once; empty when the class is not on the classpath.
+    private final Map<String, Optional<Class<?>>> editorClasses = new HashMap<>();
 
     @FunctionalInterface
     public interface TextAreaDoubleClickHandler {
@@ -102,6 +111,8 @@ public class IAMTextArea {
     public IAMTextArea(Map<String, String> abbrevMap, IAMProblemAction problemAction) {
         this.abbrevMap = Objects.requireNonNull(abbrevMap, "abbrevMap");
         this.problemAction = Objects.requireNonNull(problemAction, "problemAction");
+        this.scratchpadSync = new IAMScratchpadSync(problemAction);
+        problemAction.setScratchpadSync(scratchpadSync);
         initializeDoubleClickHandlers();
         initializeTextAreas();
     }
@@ -124,6 +135,16 @@ public class IAMTextArea {
         doubleClickHandlers.put(7, this::executeAssessmentHandler);
         doubleClickHandlers.put(8, this::executePlanHandler);
         doubleClickHandlers.put(9, this::executeCommentHandler);
+
+        editors.register(0, "Chief Complaint", () -> new ChiefComplaintEditor(abbrevMap));
+        editors.register(1, "Present Illness", () -> new IMSPresentIllness(abbrevMap));
+        editors.register(3, "Past Medical History", () -> new EMRPMH(IAIMain.getTextAreaManager(), null, abbrevMap));
+        editors.register(8, "Plan & Follow-up", () -> new PlanFollowupAction(IAIMain.getTextAreaManager(), problemAction, abbrevMap));
+    }
+
+    /** Builds the section editors in the background of the FX thread once the main window is idle. */
+    public void prewarmEditors() {
+        editors.prewarmWhenIdle();
     }
 
     /**
@@ -137,7 +158,7 @@ public class IAMTextArea {
 
             // Add listeners for focus, hover, and input events
             addFocusAndHoverListeners(ta);
-            addScratchpadListener(ta, idx);
+            scratchpadSync.attach(ta, idx);
             TextAreaControlProcessor.applyStandardProcessing(ta, abbrevMap);
             addDoubleClickListener(ta, idx);
 
@@ -165,7 +186,8 @@ public class IAMTextArea {
     // ================================ 
 
     /**
-     * Constructs the central grid of text areas.
+     * Constructs the central grid of text areas. Each area is stacked under a mouse-transparent
+     * marker layer (see {@link #getMarkerLayers()}) used for spell-check underlines.
      */
     public GridPane buildCenterAreas() {
         GridPane grid = new GridPane();
@@ -174,9 +196,17 @@ public class IAMTextArea {
 
         if (areas.isEmpty()) initializeTextAreas();
 
+        markerLayers.clear();
         int rows = 5, cols = 2;
         for (int i = 0; i < Math.min(areas.size(), rows * cols); i++) {
-            grid.add(areas.get(i), i % cols, i / cols);
+            Pane layer = new Pane();
+            layer.setMouseTransparent(true);
+            Rectangle clip = new Rectangle();
+            clip.widthProperty().bind(layer.widthProperty());
+            clip.heightProperty().bind(layer.heightProperty());
+            layer.setClip(clip);
+            markerLayers.add(layer);
+            grid.add(new StackPane(areas.get(i), layer), i % cols, i / cols);
         }
         return grid;
     }
@@ -199,13 +229,6 @@ public class IAMTextArea {
         });
     }
 
-    private void addScratchpadListener(TextArea ta, int idx) {
-        if (idx < TEXT_AREA_TITLES.length) {
-            ta.textProperty().addListener((o, oldV, newV) -> 
-                    problemAction.updateAndRedrawScratchpad(TEXT_AREA_TITLES[idx], newV));
-        }
-    }
-
     private void addDoubleClickListener(TextArea ta, int idx) {
         ta.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
             if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
@@ -233,7 +256,7 @@ public class IAMTextArea {
 
     private void executeChiefComplaintHandler(TextArea textArea, int index) {
         try {
-            new ChiefComplaintEditor(textArea).showAndWait();
+            editors.open(index, textArea);
         } catch (Exception e) {
             handleEditorException("Chief Complaint", textArea, index, e);
         }
@@ -241,7 +264,7 @@ public class IAMTextArea {
 
     private void executePresentIllnessHandler(TextArea textArea, int index) {
         try {
-            new IMSPresentIllness(textArea).showAndWait();
+            editors.open(index, textArea);
         } catch (Exception e) {
             handleEditorException("Present Illness", textArea, index, e);
         }
@@ -253,7 +276,7 @@ public class IAMTextArea {
 
     private void executePastMedicalHistoryHandler(TextArea textArea, int index) {
         try {
-        	new EMRPMH(IAIMain.getTextAreaManager(), textArea, abbrevMap).showDialog();
+            editors.open(index, textArea);
         } catch (Exception e) {
             handleEditorException("Past Medical History", textArea, index, e);
         }
@@ -277,7 +300,7 @@ public class IAMTextArea {
 
     private void executePlanHandler(TextArea textArea, int index) {
         try {
-            new PlanFollowupAction(IAIMain.getTextAreaManager(), problemAction).showAndWait();
+            editors.open(index, textArea);
         } catch (Exception e) {
             handleEditorException("Plan & Follow-up Assistant", textArea, index, e);
         }
@@ -291,16 +314,27 @@ public class IAMTextArea {
 
     private void executeReflectionBasedEditor(String className, String sectionName, TextArea textArea, int index) {
         try {
-            Class<?> editorClass = Class.forName(className);
+            Optional<Class<?>> resolved = editorClasses.computeIfAbsent(className, IAMTextArea::findClass);
+            if (resolved.isEmpty()) {
+                showDefaultDoubleClick(sectionName, textArea, index);
+                return;
+            }
+            Class<?> editorClass = resolved.get();
             Object editor = editorClass.getConstructor(TextArea.class).newInstance(textArea);
             editorClass.getMethod("show").invoke(editor);
-        } catch (ClassNotFoundException e) {
-            showDefaultDoubleClick(sectionName, textArea, index);
         } catch (Exception e) {
             handleEditorException(sectionName, textArea, index, e);
         }
     }
 
+    private static Optional<Class<?>> findClass(String className) {
+        try {
+            return Optional.of(Class.forName(className));
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
     private void handleEditorException(String sectionName, TextArea ta, int index, Exception e) {
         showErrorAlert("Editor Error", "Failed to open " + sectionName + " Editor", e.getMessage());
         showDefaultDoubleClick(sectionName, ta, index);
@@ -338,6 +372,18 @@ public class IAMTextArea {
         });
     }
 
+    /**
+     * Applies a compiled macro in one pass on the FX thread: its precomputed blocks are already
+     * abbreviation-expanded, so each touched area gets a single insert and focus moves once.
+     */
+    public void applyMacro(CompiledMacro macro) {
+        int next = macro.apply(areas, areas.indexOf(getFocusedArea()));
+        if (next >= 0) {
+            lastFocusedArea = areas.get(next);
+            lastFocusedArea.requestFocus();
+        }
+    }
+
     public void formatCurrentArea() {
         Optional.ofNullable(getFocusedArea()).ifPresent(ta ->
                 ta.setText(IAMTextFormatUtil.autoFormat(ta.getText())));
@@ -345,6 +391,7 @@ public class IAMTextArea {
 
     public void clearAllTextAreas() {
         areas.forEach(TextArea::clear);
+        scratchpadSync.flush();
     }
 
     /**
@@ -408,6 +455,11 @@ public class IAMTextArea {
         }
     }
 
+    /** Overlay panes matching {@link #getTextAreas()} by index; empty until the grid is built. */
+    public List<Pane> getMarkerLayers() {
+        return Collections.unmodifiableList(markerLayers);
+    }
+
     public List<TextArea> getTextAreas() {
         IAIMain.setTextAreaManager(new IAIFxTextAreaManager(areas));
         return Collections.unmodifiableList(this.areas);
@@ -1,8 +1,14 @@
 package com.emr.gds.main;
 
+import javafx.application.Platform;
 import javafx.scene.control.TextFormatter;
+import javafx.scene.control.TextInputControl;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
@@ -20,6 +26,15 @@ public final class IAMTextFormatUtil {
      */
     private IAMTextFormatUtil() {}
 
+    /** Pastes at least this long that contain control characters are cleaned off the FX thread. */
+    static final int LARGE_PASTE_CHARS = 64 * 1024;
+
+    private static final Executor PASTE_CLEANER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "paste-cleaner");
+        t.setDaemon(true);
+        return t;
+    });
+
     // ================================ 
     // Basic String Normalization
     // ================================
@@ -56,30 +71,124 @@ public final class IAMTextFormatUtil {
                    .collect(Collectors.joining("\n"));
     }
 
+    /**
+     * Splits {@code text[from, to)} on line feeds and trims each line. Blank lines are kept as empty strings
+     * so the result lines up one-to-one with the lines of the source region.
+     *
+     * @param text The source text.
+     * @param from Start offset (inclusive), expected to be at the beginning of a line.
+     * @param to   End offset (exclusive), expected to be at the end of a line.
+     * @return The trimmed lines; never empty, since an empty region is a single empty line.
+     */
+    public static List<String> trimmedLines(String text, int from, int to) {
+        List<String> lines = new ArrayList<>();
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        lines.add(text.substring(start, to).trim());
+        return lines;
+    }
+
     // ================================ 
     // Input Filtering for JavaFX
     // ================================
 
     /**
      * Creates a UnaryOperator for a JavaFX TextFormatter that filters out unwanted ASCII control characters.
-     * It allows only Tab (U+0009) and Line Feed (U+000A) to pass through.
+     * It allows only Tab (U+0009), Line Feed (U+000A) and Carriage Return (U+000D) to pass through.
+     * <p>
+     * Clean input (every ordinary keystroke) is only scanned and passed through untouched. Large pastes
+     * that do need cleaning are rejected as typed, stripped on a background thread and then applied as
+     * one replacement of the original range, so the FX thread never copies megabytes of text inside the
+     * filter and the paste stays a single undo step. The control is read-only while the paste is being
+     * cleaned, so keystrokes cannot shift the range it lands in.
      *
      * @return A filter suitable for use in a {@link TextFormatter}.
      */
     public static UnaryOperator<TextFormatter.Change> filterControlChars() {
         return change -> {
-            if (change.isAdded()) {
-                String text = change.getText();
-                if (text != null && !text.isEmpty()) {
-                    // Remove ASCII control characters except for tab and newline
-                    String filtered = text.replaceAll("[\\u0000-\\u0008\\u000B\\u000C\\u000E-\\u001F]", "");
-                    change.setText(filtered);
-                }
+            if (!change.isAdded()) return change;
+            String text = change.getText();
+            int first = indexOfControlChar(text, 0);
+            if (first < 0) return change;
+
+            if (text.length() >= LARGE_PASTE_CHARS && change.getControl() instanceof TextInputControl control
+                    && control.isEditable()) {
+                cleanInBackground(control, change.getRangeStart(), change.getRangeEnd(), text, first);
+                return null; // re-applied in full once cleaned
+            } else {
+                change.setText(stripControlChars(text, first));
             }
             return change;
         };
     }
 
+    /**
+     * Removes ASCII control characters other than tab, line feed and carriage return.
+     *
+     * @param text The input text; may be null.
+     * @return The same instance when nothing had to be removed, otherwise a cleaned copy.
+     */
+    public static String stripControlChars(String text) {
+        int first = indexOfControlChar(text, 0);
+        return (first < 0) ? text : stripControlChars(text, first);
+    }
+
+    /**
+     * Returns the index of the first filtered control character at or after {@code from}, or -1 if there is none.
+     */
+    static int indexOfControlChar(String text, int from) {
+        if (text == null) return -1;
+        for (int i = from, n = text.length(); i < n; i++) {
+            if (isFilteredControl(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isFilteredControl(char c) {
+        return c < 0x20 && c != '\t' && c != '\n' && c != '\r';
+    }
+
+    /**
+     * Copies the clean runs of {@code text} around each control character, starting from the known first hit.
+     */
+    private static String stripControlChars(String text, int first) {
+        StringBuilder out = new StringBuilder(text.length() - 1);
+        int runStart = 0;
+        int hit = first;
+        while (hit >= 0) {
+            out.append(text, runStart, hit);
+            runStart = hit + 1;
+            hit = indexOfControlChar(text, runStart);
+        }
+        out.append(text, runStart, text.length());
+        return out.toString();
+    }
+
+    private static void cleanInBackground(TextInputControl control, int rangeStart, int rangeEnd, String text, int first) {
+        control.setEditable(false);
+        PASTE_CLEANER.execute(() -> {
+            long start = System.nanoTime();
+            String cleaned = stripControlChars(text, first);
+            long cleanedAt = System.nanoTime();
+            Platform.runLater(() -> {
+                // Only programmatic edits can have happened meanwhile; clamp in case one shortened the text.
+                int end = Math.min(rangeEnd, control.getLength());
+                int pos = Math.min(rangeStart, end);
+                control.setEditable(true);
+                control.replaceText(pos, end, cleaned);
+                control.positionCaret(pos + cleaned.length());
+                System.out.printf("[TEXT FILTER] Cleaned %,d -> %,d chars in %.1f ms (insert after %.1f ms)%n",
+                        text.length(), cleaned.length(),
+                        (cleanedAt - start) / 1_000_000.0, (System.nanoTime() - start) / 1_000_000.0);
+            });
+        });
+    }
+
     // ================================ 
     // Advanced Formatting Utilities
     // ================================
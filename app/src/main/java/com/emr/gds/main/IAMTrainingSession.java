@@ -0,0 +1,87 @@
+package com.emr.gds.main;
+
+import com.emr.gds.IttiaApp;
+import com.emr.gds.main.medication.MedicationCategory;
+import com.emr.gds.main.thyroid.ThyroidLauncher;
+import java.util.List;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Scripted session used by the {@code :app:aotCache} Gradle task to record a JDK AOT cache.
+ * <p>
+ * Enabled with {@code -Dgdsemr.training=true}: the login is skipped, every tool window is opened
+ * once, a template is inserted and the application exits, so the classes a normal session needs
+ * are loaded (and archived) before the JVM shuts down.
+ */
+public final class IAMTrainingSession {
+
+    // ================================
+    // Constants
+    // ================================
+    public static final String PROPERTY = "gdsemr.training";
+    private static final Duration STEP_DELAY = Duration.millis(400);
+    private static final long EXIT_GRACE_MS = 5_000;
+
+    private IAMTrainingSession() {}
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * Runs the scripted steps on the FX thread, one every {@link #STEP_DELAY}, then exits.
+     * Must be called after the main scene is shown.
+     */
+    public static void run(IttiaApp app) {
+        List<Runnable> steps = List.of(
+                app::openVitalWindow,
+                DexaRiskAssessmentApp::open,
+                EkgSimpleReportApp::open,
+                () -> new ChestXrayReviewStage(app.getPrimaryStage()).show(),
+                () -> {
+                    try {
+                        new MedicationCategory().start(new Stage());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                },
+                ThyroidLauncher::openThyroidEmr,
+                ThyroidLauncher::openThyroidPregnancy,
+                () -> app.insertTemplateIntoFocusedArea(IAMButtonAction.TemplateLibrary.HPI)
+        );
+        runStep(steps, 0);
+    }
+
+    private static void runStep(List<Runnable> steps, int index) {
+        if (index == steps.size()) {
+            System.out.println("[TRAINING] Session complete, exiting");
+            Platform.exit();
+            // Swing/AWT threads opened by some tools can keep the JVM alive; the cache is written on exit.
+            Thread exitGuard = new Thread(() -> {
+                try {
+                    Thread.sleep(EXIT_GRACE_MS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                System.exit(0);
+            }, "training-exit");
+            exitGuard.setDaemon(true);
+            exitGuard.start();
+            return;
+        }
+
+        PauseTransition pause = new PauseTransition(STEP_DELAY);
+        pause.setOnFinished(e -> {
+            try {
+                steps.get(index).run();
+            } catch (RuntimeException ex) {
+                System.err.println("[TRAINING] Step " + (index + 1) + " failed: " + ex.getMessage());
+            }
+            runStep(steps, index + 1);
+        });
+        pause.play();
+    }
+}
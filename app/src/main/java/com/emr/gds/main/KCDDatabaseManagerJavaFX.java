@@ -5,6 +5,7 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
 import javafx.application.Platform;
@@ -33,6 +34,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 public class KCDDatabaseManagerJavaFX {
 
@@ -68,6 +70,12 @@ public class KCDDatabaseManagerJavaFX {
 
         setupEventHandlers();
         loadInitialData();
+
+        // Reload rows edited in the database by other tools while this window is open
+        Runnable reload = this::reloadChangedRecords;
+        IAMDataRefresher.shared().addListener(IAMDataRefresher.Source.KCD, reload);
+        primaryStage.addEventHandler(WindowEvent.WINDOW_HIDDEN,
+                e -> IAMDataRefresher.shared().removeListener(IAMDataRefresher.Source.KCD, reload));
     }
 
     private TableView<KCDRecord> createTable() {
@@ -191,6 +199,27 @@ public class KCDDatabaseManagerJavaFX {
         new Thread(task).start();
     }
 
+    // Runs on the refresher thread; rows are matched by disease code so the selection survives.
+    private void reloadChangedRecords() {
+        try {
+            List<KCDRecord> fresh = DatabaseManager.getAllRecords();
+            Platform.runLater(() -> {
+                IAMDataRefresher.applyDiff(tableData, fresh, KCDRecord::getDiseaseCode, KCDDatabaseManagerJavaFX::sameRecord);
+                updateStatus("Reloaded " + tableData.size() + " records (changed on disk).");
+            });
+        } catch (SQLException e) {
+            System.err.println("Failed to reload KCD records: " + e.getMessage());
+        }
+    }
+
+    private static boolean sameRecord(KCDRecord a, KCDRecord b) {
+        return Objects.equals(a.getClassification(), b.getClassification())
+                && Objects.equals(a.getCheckField(), b.getCheckField())
+                && Objects.equals(a.getKoreanName(), b.getKoreanName())
+                && Objects.equals(a.getEnglishName(), b.getEnglishName())
+                && Objects.equals(a.getNote(), b.getNote());
+    }
+
     private void showEditDialog(KCDRecord recordToEdit) {
         boolean isUpdate = recordToEdit != null;
         String title = isUpdate ? "Edit Record" : "Add New Record";
@@ -13,8 +13,11 @@ import javafx.stage.Window;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,13 +27,19 @@ import java.util.regex.Pattern;
  * Responsibilities:
  * - Attach control-character filtering via {@link IAMTextFormatUtil}.
  * - Expand abbreviations (e.g., ":cd" or values from the abbreviation map) on space.
- * - Recursively process all TextAreas found in open JavaFX windows.
+ * - Discover TextAreas as windows, scenes and children are added, so only new subtrees are visited.
  */
 public final class TextAreaControlProcessor {
 
-    private static final String PROCESSED_KEY = "gdsfx.textarea.processed";
     private static final Pattern ABBREVIATION_PATTERN = Pattern.compile(":([\\S]+)");
 
+    // Weak registries (FX thread only): entries vanish once a window or node is garbage collected.
+    private static final Set<TextArea> PROCESSED = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<Parent> WATCHED_PARENTS = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<Scene> WATCHED_SCENES = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<Window> WATCHED_WINDOWS = Collections.newSetFromMap(new WeakHashMap<>());
+    private static boolean globalInstalled;
+
     private TextAreaControlProcessor() {
         // Utility class
     }
@@ -42,11 +51,13 @@ public final class TextAreaControlProcessor {
     public static void installGlobalProcessor(Map<String, String> abbrevMap) {
         Objects.requireNonNull(abbrevMap, "abbrevMap");
         Runnable task = () -> {
-            processOpenWindows(abbrevMap);
+            if (globalInstalled) return;
+            globalInstalled = true;
+            Window.getWindows().forEach(window -> watchWindow(window, abbrevMap));
             Window.getWindows().addListener((ListChangeListener<Window>) change -> {
                 while (change.next()) {
                     if (change.wasAdded()) {
-                        change.getAddedSubList().forEach(window -> processWindow(window, abbrevMap));
+                        change.getAddedSubList().forEach(window -> watchWindow(window, abbrevMap));
                     }
                 }
             });
@@ -56,11 +67,12 @@ public final class TextAreaControlProcessor {
 
     /**
      * Processes every TextArea in all currently open JavaFX windows.
+     * Windows that are already being watched are skipped, since their TextAreas are handled as they appear.
      * @param abbrevMap Map of abbreviations (key -> expansion). Required.
      */
     public static void processOpenWindows(Map<String, String> abbrevMap) {
         Objects.requireNonNull(abbrevMap, "abbrevMap");
-        Runnable task = () -> Window.getWindows().forEach(window -> processWindow(window, abbrevMap));
+        Runnable task = () -> Window.getWindows().forEach(window -> watchWindow(window, abbrevMap));
         runOnFxThread(task);
     }
 
@@ -72,7 +84,7 @@ public final class TextAreaControlProcessor {
         if (textArea == null) return;
         Objects.requireNonNull(abbrevMap, "abbrevMap");
         Runnable task = () -> {
-            if (Boolean.TRUE.equals(textArea.getProperties().get(PROCESSED_KEY))) {
+            if (!PROCESSED.add(textArea)) {
                 return; // Already configured
             }
 
@@ -82,8 +94,6 @@ public final class TextAreaControlProcessor {
             if (textArea.isEditable()) {
                 attachAbbreviationHandler(textArea, abbrevMap);
             }
-
-            textArea.getProperties().put(PROCESSED_KEY, true);
         };
         runOnFxThread(task);
     }
@@ -116,22 +126,40 @@ public final class TextAreaControlProcessor {
     // Internal helpers
     // ---------------------------------------------------
 
-    private static void processWindow(Window window, Map<String, String> abbrevMap) {
-        Scene scene = window.getScene();
-        if (scene != null) {
-            processNode(scene.getRoot(), abbrevMap);
-        }
+    private static void watchWindow(Window window, Map<String, String> abbrevMap) {
+        if (!WATCHED_WINDOWS.add(window)) return;
+        window.sceneProperty().addListener((obs, oldScene, newScene) -> watchScene(newScene, abbrevMap));
+        watchScene(window.getScene(), abbrevMap);
     }
 
-    private static void processNode(Node node, Map<String, String> abbrevMap) {
+    private static void watchScene(Scene scene, Map<String, String> abbrevMap) {
+        if (scene == null || !WATCHED_SCENES.add(scene)) return;
+        scene.rootProperty().addListener((obs, oldRoot, newRoot) -> watchSubtree(newRoot, abbrevMap));
+        watchSubtree(scene.getRoot(), abbrevMap);
+    }
+
+    /**
+     * Processes a newly attached subtree and listens for children added to it later.
+     * A parent that is already watched was fully handled when it first appeared, so re-attaching
+     * a known subtree (e.g. switching tabs) stops at its root.
+     */
+    private static void watchSubtree(Node node, Map<String, String> abbrevMap) {
         if (node == null) return;
 
         if (node instanceof TextArea ta) {
             applyStandardProcessing(ta, abbrevMap);
+            return; // Skin internals of a TextArea never contain further TextAreas
         }
 
-        if (node instanceof Parent parent) {
-            parent.getChildrenUnmodifiable().forEach(child -> processNode(child, abbrevMap));
+        if (node instanceof Parent parent && WATCHED_PARENTS.add(parent)) {
+            parent.getChildrenUnmodifiable().addListener((ListChangeListener<Node>) change -> {
+                while (change.next()) {
+                    if (change.wasAdded()) {
+                        change.getAddedSubList().forEach(child -> watchSubtree(child, abbrevMap));
+                    }
+                }
+            });
+            parent.getChildrenUnmodifiable().forEach(child -> watchSubtree(child, abbrevMap));
         }
     }
 
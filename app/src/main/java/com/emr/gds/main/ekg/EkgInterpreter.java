@@ -0,0 +1,343 @@
+package com.emr.gds.main.ekg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives interpretation statements and an impression from measured EKG values (rate, intervals,
+ * axis, voltages) using the rules in {@code text/ekg_rules.txt}.
+ * <p>
+ * Every condition is an interval on one measure. At compile time the interval edges of each measure
+ * become cut points, and each band between two cuts (plus one band for "missing") gets a bit mask of
+ * the rules it satisfies. Interpreting a tracing is then one binary search per measure and an AND of
+ * the masks; the surviving bits, in rule order, are the statements. One instance can serve every
+ * thread.
+ */
+public final class EkgInterpreter {
+
+    /** Values the rules can test. The last two are computed from the others. */
+    public enum Measure {
+        RATE("rate"), PR("pr"), QRS("qrs"), QTC("qtc"), AXIS("axis"),
+        SV1("sv1"), RV5("rv5"), RAVL("ravl"), SV3("sv3"),
+        SINUS("sinus"), REGULAR("regular"), FEMALE("female"),
+        SOKOLOW("sokolow"), CORNELL("cornell");
+
+        private final String key;
+
+        Measure(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public boolean derived() {
+            return this == SOKOLOW || this == CORNELL;
+        }
+    }
+
+    public enum Severity { NORMAL, BORDERLINE, ABNORMAL }
+
+    public record Statement(String group, Severity severity, String text) {}
+
+    /** The matched statements in rule order; {@code impression} is empty when nothing matched. */
+    public record Interpretation(List<Statement> statements, Severity severity, String impression) {
+
+        public boolean isEmpty() {
+            return statements.isEmpty();
+        }
+
+        /** The statement text of one rule group, e.g. "rhythm", or an empty string. */
+        public String group(String group) {
+            for (Statement s : statements) {
+                if (s.group().equals(group)) return s.text();
+            }
+            return "";
+        }
+
+        /** All statements joined with "; ". */
+        public String findings() {
+            StringBuilder sb = new StringBuilder();
+            for (Statement s : statements) {
+                if (!sb.isEmpty()) sb.append("; ");
+                sb.append(s.text());
+            }
+            return sb.toString();
+        }
+    }
+
+    /** One rule as written: the allowed interval [lo, hi) per measure, unbounded where untested. */
+    record Rule(int line, String group, Severity severity, String text, double[] lo, double[] hi) {
+
+        boolean tests(Measure m) {
+            return lo[m.ordinal()] != Double.NEGATIVE_INFINITY || hi[m.ordinal()] != Double.POSITIVE_INFINITY;
+        }
+
+        boolean matches(double[] values) {
+            for (Measure m : MEASURES) {
+                if (!tests(m)) continue;
+                double v = value(values, m);
+                if (!(v >= lo[m.ordinal()] && v < hi[m.ordinal()])) return false;
+            }
+            return true;
+        }
+    }
+
+    // ================================
+    // Constants
+    // ================================
+    static final String RULES_RESOURCE = "/text/ekg_rules.txt";
+    private static final Measure[] MEASURES = Measure.values();
+    private static final Pattern CONDITION = Pattern.compile("(\\w+)\\s*(<=|>=|<|>|=)\\s*(-?\\d+(?:\\.\\d+)?)");
+
+    private static volatile EkgInterpreter standard;
+
+    private final List<Rule> rules;
+    private final Statement[] statements;  // per rule
+    private final int[] ruleGroup;         // per rule, index into the distinct groups
+    private final int groupCount;
+    private final Measure[] tested;        // measures at least one rule tests
+    private final double[][] cuts;         // per tested measure, sorted
+    private final long[][][] masks;        // per tested measure, per band (last = missing), per word
+    // Results by matched-rule mask. Only a few hundred combinations occur, so this stays small; used
+    // while the rules fit in one word.
+    private final Map<Long, Interpretation> results = new ConcurrentHashMap<>();
+
+    private EkgInterpreter(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        int n = rules.size();
+        int words = (n + 63) >>> 6;
+        statements = new Statement[n];
+        ruleGroup = new int[n];
+        Map<String, Integer> groups = new LinkedHashMap<>();
+        for (int r = 0; r < n; r++) {
+            Rule rule = rules.get(r);
+            statements[r] = new Statement(rule.group(), rule.severity(), rule.text());
+            ruleGroup[r] = groups.computeIfAbsent(rule.group(), g -> groups.size());
+        }
+        groupCount = groups.size();
+
+        List<Measure> used = new ArrayList<>();
+        for (Measure m : MEASURES) {
+            if (rules.stream().anyMatch(rule -> rule.tests(m))) used.add(m);
+        }
+        tested = used.toArray(Measure[]::new);
+        cuts = new double[tested.length][];
+        masks = new long[tested.length][][];
+        for (int t = 0; t < tested.length; t++) {
+            int m = tested[t].ordinal();
+            TreeSet<Double> edges = new TreeSet<>();
+            for (Rule rule : rules) {
+                if (Double.isFinite(rule.lo()[m])) edges.add(rule.lo()[m]);
+                if (Double.isFinite(rule.hi()[m])) edges.add(rule.hi()[m]);
+            }
+            double[] c = edges.stream().mapToDouble(Double::doubleValue).toArray();
+            long[][] bandMasks = new long[c.length + 2][words];
+            for (int r = 0; r < n; r++) {
+                Rule rule = rules.get(r);
+                boolean untested = !rule.tests(tested[t]);
+                for (int b = 0; b <= c.length; b++) {
+                    double bandLo = b == 0 ? Double.NEGATIVE_INFINITY : c[b - 1];
+                    double bandHi = b == c.length ? Double.POSITIVE_INFINITY : c[b];
+                    if (untested || rule.lo()[m] <= bandLo && bandHi <= rule.hi()[m]) bandMasks[b][r >>> 6] |= 1L << r;
+                }
+                if (untested) bandMasks[c.length + 1][r >>> 6] |= 1L << r;
+            }
+            cuts[t] = c;
+            masks[t] = bandMasks;
+        }
+    }
+
+    /** The rules bundled with the application, compiled on first use. */
+    public static EkgInterpreter standard() {
+        EkgInterpreter interpreter = standard;
+        if (interpreter == null) {
+            synchronized (EkgInterpreter.class) {
+                interpreter = standard;
+                if (interpreter == null) {
+                    interpreter = load();
+                    standard = interpreter;
+                }
+            }
+        }
+        return interpreter;
+    }
+
+    private static EkgInterpreter load() {
+        try (InputStream in = EkgInterpreter.class.getResourceAsStream(RULES_RESOURCE)) {
+            if (in == null) throw new IOException(RULES_RESOURCE + " not on the classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return compile(reader.lines().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load the EKG rules", e);
+        }
+    }
+
+    // ================================
+    // Rule compilation
+    // ================================
+
+    /**
+     * Compiles rule lines in the {@code ekg_rules.txt} format.
+     *
+     * @throws IllegalArgumentException naming the line of the first malformed rule.
+     */
+    public static EkgInterpreter compile(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            rules.add(parseRule(i + 1, line));
+        }
+        return new EkgInterpreter(rules);
+    }
+
+    private static Rule parseRule(int lineNumber, String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length != 4) throw ruleError(lineNumber, "expected 'group | class | statement | conditions'");
+        String group = parts[0].strip().toLowerCase(Locale.ROOT);
+        Severity severity;
+        try {
+            severity = Severity.valueOf(parts[1].strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ruleError(lineNumber, "class must be normal, borderline or abnormal, not '" + parts[1].strip() + "'");
+        }
+        String text = parts[2].strip();
+        if (group.isEmpty() || text.isEmpty()) throw ruleError(lineNumber, "group and statement are required");
+
+        double[] lo = new double[MEASURES.length];
+        double[] hi = new double[MEASURES.length];
+        Arrays.fill(lo, Double.NEGATIVE_INFINITY);
+        Arrays.fill(hi, Double.POSITIVE_INFINITY);
+        for (String condition : parts[3].split(",")) {
+            Matcher m = CONDITION.matcher(condition.strip());
+            if (!m.matches()) throw ruleError(lineNumber, "cannot read condition '" + condition.strip() + "'");
+            int measure = measure(lineNumber, m.group(1)).ordinal();
+            double t = Double.parseDouble(m.group(3));
+            // Every operator becomes a half-open interval [from, to).
+            double from = Double.NEGATIVE_INFINITY, to = Double.POSITIVE_INFINITY;
+            switch (m.group(2)) {
+                case "<" -> to = t;
+                case "<=" -> to = Math.nextUp(t);
+                case ">" -> from = Math.nextUp(t);
+                case ">=" -> from = t;
+                default -> { from = t; to = Math.nextUp(t); }
+            }
+            lo[measure] = Math.max(lo[measure], from);
+            hi[measure] = Math.min(hi[measure], to);
+            if (lo[measure] >= hi[measure]) throw ruleError(lineNumber, "conditions on " + m.group(1) + " can never hold together");
+        }
+        return new Rule(lineNumber, group, severity, text, lo, hi);
+    }
+
+    private static Measure measure(int lineNumber, String key) {
+        for (Measure m : MEASURES) {
+            if (m.key().equalsIgnoreCase(key)) return m;
+        }
+        throw ruleError(lineNumber, "unknown measure '" + key + "'");
+    }
+
+    private static IllegalArgumentException ruleError(int lineNumber, String message) {
+        return new IllegalArgumentException("EKG rules line " + lineNumber + ": " + message);
+    }
+
+    // ================================
+    // Interpretation
+    // ================================
+
+    /** A measurement array with every value missing, indexed by {@link Measure#ordinal()}. */
+    public static double[] measurements() {
+        double[] values = new double[MEASURES.length];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    /**
+     * Interprets one tracing. {@code values} is indexed by {@link Measure#ordinal()}; NaN means not
+     * measured, and the derived slots are ignored.
+     */
+    public Interpretation interpret(double[] values) {
+        long[] hits = new long[(statements.length + 63) >>> 6];
+        Arrays.fill(hits, -1L);
+        for (int t = 0; t < tested.length; t++) {
+            long[] mask = masks[t][band(cuts[t], value(values, tested[t]))];
+            for (int w = 0; w < hits.length; w++) hits[w] &= mask[w];
+        }
+
+        boolean[] groupDone = new boolean[groupCount];
+        for (int w = 0; w < hits.length; w++) {
+            for (long bits = hits[w]; bits != 0; bits &= bits - 1) {
+                int r = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (r < statements.length && !groupDone[ruleGroup[r]]) {
+                    groupDone[ruleGroup[r]] = true;
+                } else {
+                    hits[w] &= ~(1L << r); // past the last rule, or a later rule of a group already reported
+                }
+            }
+        }
+        if (hits.length == 1) return results.computeIfAbsent(hits[0], k -> summarize(hits));
+        return summarize(hits);
+    }
+
+    private Interpretation summarize(long[] hits) {
+        List<Statement> matched = new ArrayList<>();
+        for (int w = 0; w < hits.length; w++) {
+            for (long bits = hits[w]; bits != 0; bits &= bits - 1) {
+                matched.add(statements[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+        return summarize(matched);
+    }
+
+    private static int band(double[] cuts, double v) {
+        if (Double.isNaN(v)) return cuts.length + 1;
+        int i = Arrays.binarySearch(cuts, v);
+        return i >= 0 ? i + 1 : -i - 1; // number of cuts <= v
+    }
+
+    static double value(double[] values, Measure m) {
+        return switch (m) {
+            case SOKOLOW -> values[Measure.SV1.ordinal()] + values[Measure.RV5.ordinal()];
+            case CORNELL -> values[Measure.RAVL.ordinal()] + values[Measure.SV3.ordinal()];
+            default -> values[m.ordinal()];
+        };
+    }
+
+    private static Interpretation summarize(List<Statement> matched) {
+        if (matched.isEmpty()) return new Interpretation(List.of(), Severity.NORMAL, "");
+        Severity worst = Severity.NORMAL;
+        StringBuilder notable = new StringBuilder();
+        for (Statement s : matched) {
+            if (s.severity().compareTo(worst) > 0) worst = s.severity();
+            if (s.severity() == Severity.NORMAL) continue;
+            if (!notable.isEmpty()) notable.append("; ");
+            notable.append(s.text());
+        }
+        String impression = switch (worst) {
+            case NORMAL -> "Normal ECG";
+            case BORDERLINE -> "Borderline ECG: " + notable;
+            case ABNORMAL -> "Abnormal ECG: " + notable;
+        };
+        return new Interpretation(List.copyOf(matched), worst, impression);
+    }
+
+    /** The rules in file order; for checking the table against a plain rule-by-rule scan. */
+    List<Rule> rules() {
+        return rules;
+    }
+}
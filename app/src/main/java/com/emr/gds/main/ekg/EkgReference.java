@@ -0,0 +1,302 @@
+package com.emr.gds.main.ekg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The EKG reference card, split into sections of bullet points and criteria rows ("Duration: &lt;0.12
+ * secs") with a keyword index over them.
+ * <p>
+ * The build compiles {@code text/EKG_reference.odt} into {@code text/EKG_reference.ekgref} with
+ * {@link EkgReferenceCompiler}. At run time that file is memory-mapped when it is a plain file on the
+ * classpath and read in one go from the jar otherwise; without it (an IDE run that skipped the Gradle
+ * task) the ODT itself is compiled in memory. Keywords are kept sorted, so a lookup is a binary search.
+ */
+public final class EkgReference {
+
+    /** What a line of a section is. */
+    public enum Kind { TEXT, BULLET, CRITERION }
+
+    /** One paragraph; {@code value} is set for criteria only. */
+    public record Line(Kind kind, String text, String value) {}
+
+    /** A heading with its lines; level 2 sections are the numbered steps under a level 1 heading. */
+    public record Section(int index, String title, int level, List<Line> lines) {}
+
+    /** A section and how strongly it matched a lookup. */
+    public record Match(Section section, int score) {}
+
+    // ================================
+    // Constants
+    // ================================
+    static final String RESOURCE = "/text/EKG_reference.ekgref";
+    static final String SOURCE_RESOURCE = "/text/EKG_reference.odt";
+    private static final int MAGIC = 0x454B4752; // "EKGR"
+    private static final int VERSION = 1;
+    private static final int TITLE_WEIGHT = 3;
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "any", "are", "as", "at", "be", "by", "e", "for", "from", "g", "i", "if", "in",
+            "is", "it", "may", "of", "on", "or", "other", "than", "that", "the", "their", "there", "they",
+            "this", "to", "with", "within", "which");
+    // Findings-form words the card does not use, indexed like the word it uses instead.
+    private static final Map<String, String> ALIASES = Map.of(
+            "hypertrophy", "voltage", "lvh", "voltage", "rvh", "voltage",
+            "afib", "fibrillation", "flutter", "arrhythmias", "hr", "rate", "bpm", "rate",
+            "infarction", "infarct", "mi", "infarct", "block", "bundle");
+
+    private static volatile EkgReference shared;
+
+    private final List<Section> sections;
+    private final String[] keywords;   // sorted
+    private final int[][] postings;    // per keyword: section index, score, section index, score, ...
+
+    private EkgReference(List<Section> sections, String[] keywords, int[][] postings) {
+        this.sections = List.copyOf(sections);
+        this.keywords = keywords;
+        this.postings = postings;
+    }
+
+    /** Builds the keyword index over {@code sections}; used by the compiler. */
+    static EkgReference of(List<Section> sections) {
+        Map<String, Map<Integer, Integer>> index = new HashMap<>();
+        for (Section s : sections) {
+            for (String t : tokens(s.title())) index.computeIfAbsent(t, k -> new LinkedHashMap<>()).merge(s.index(), TITLE_WEIGHT, Integer::sum);
+            for (Line l : s.lines()) {
+                String text = l.value() == null ? l.text() : l.text() + " " + l.value();
+                for (String t : tokens(text)) index.computeIfAbsent(t, k -> new LinkedHashMap<>()).merge(s.index(), 1, Integer::sum);
+            }
+        }
+        ALIASES.forEach((alias, word) -> {
+            Map<Integer, Integer> hits = index.get(word);
+            if (hits != null) hits.forEach((s, n) -> index.computeIfAbsent(alias, k -> new LinkedHashMap<>()).merge(s, n, Integer::sum));
+        });
+        String[] keys = index.keySet().toArray(String[]::new);
+        Arrays.sort(keys);
+        int[][] posts = new int[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            Map<Integer, Integer> hits = index.get(keys[i]);
+            int[] p = new int[hits.size() * 2];
+            int j = 0;
+            for (Map.Entry<Integer, Integer> e : hits.entrySet()) {
+                p[j++] = e.getKey();
+                p[j++] = e.getValue();
+            }
+            posts[i] = p;
+        }
+        return new EkgReference(sections, keys, posts);
+    }
+
+    /** The bundled reference, loaded on first use. */
+    public static EkgReference shared() {
+        EkgReference ref = shared;
+        if (ref == null) {
+            synchronized (EkgReference.class) {
+                ref = shared;
+                if (ref == null) {
+                    ref = load();
+                    shared = ref;
+                }
+            }
+        }
+        return ref;
+    }
+
+    private static EkgReference load() {
+        try {
+            URL url = EkgReference.class.getResource(RESOURCE);
+            if (url != null) return decode(map(url));
+            System.err.println("[EKG REF] " + RESOURCE + " not on the classpath; compiling the ODT instead");
+            try (InputStream in = openSource()) {
+                return EkgReferenceCompiler.compile(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load the EKG reference", e);
+        }
+    }
+
+    private static ByteBuffer map(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel ch = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    private static InputStream openSource() throws IOException {
+        InputStream in = EkgReference.class.getResourceAsStream(SOURCE_RESOURCE);
+        if (in != null) return in;
+        Path file = Paths.get("src/main/resources" + SOURCE_RESOURCE);
+        if (!Files.exists(file)) file = Paths.get("app/src/main/resources" + SOURCE_RESOURCE);
+        return Files.newInputStream(file);
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    public List<Section> sections() {
+        return sections;
+    }
+
+    /**
+     * Sections mentioning the words of {@code text}, best first. Each word is looked up exactly, so
+     * "QTc" finds the QT interval criteria and "axis" the electrical axis section.
+     */
+    public List<Match> lookup(String text) {
+        int[] scores = new int[sections.size()];
+        boolean any = false;
+        for (String t : tokens(text)) {
+            int i = Arrays.binarySearch(keywords, t);
+            if (i < 0) continue;
+            int[] p = postings[i];
+            for (int j = 0; j < p.length; j += 2) scores[p[j]] += p[j + 1];
+            any = true;
+        }
+        return any ? ranked(scores) : List.of();
+    }
+
+    /** Sections with a keyword starting with each word of {@code query}, best first; for typing. */
+    public List<Match> search(String query) {
+        List<String> words = tokens(query);
+        if (words.isEmpty()) return List.of();
+        int[] scores = null;
+        for (String w : words) {
+            int[] wordScores = new int[sections.size()];
+            int i = Arrays.binarySearch(keywords, w);
+            if (i < 0) i = -i - 1;
+            for (; i < keywords.length && keywords[i].startsWith(w); i++) {
+                int[] p = postings[i];
+                for (int j = 0; j < p.length; j += 2) wordScores[p[j]] += p[j + 1];
+            }
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                for (int s = 0; s < scores.length; s++) scores[s] = wordScores[s] == 0 ? 0 : scores[s] + wordScores[s];
+            }
+        }
+        return ranked(scores);
+    }
+
+    private List<Match> ranked(int[] scores) {
+        List<Match> out = new ArrayList<>();
+        for (int s = 0; s < scores.length; s++) {
+            if (scores[s] > 0) out.add(new Match(sections.get(s), scores[s]));
+        }
+        out.sort((a, b) -> a.score() != b.score() ? Integer.compare(b.score(), a.score())
+                : Integer.compare(a.section().index(), b.section().index()));
+        return out;
+    }
+
+    static List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        for (String t : TOKEN_SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty() && !STOP_WORDS.contains(t) && !out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    // ================================
+    // Binary form
+    // ================================
+
+    /** The {@code .ekgref} bytes: sections with their lines, then the sorted keywords and postings. */
+    byte[] encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sections.size());
+            for (Section s : sections) {
+                writeString(out, s.title());
+                out.writeByte(s.level());
+                out.writeInt(s.lines().size());
+                for (Line l : s.lines()) {
+                    out.writeByte(l.kind().ordinal());
+                    writeString(out, l.text());
+                    if (l.kind() == Kind.CRITERION) writeString(out, l.value());
+                }
+            }
+            out.writeInt(keywords.length);
+            for (int i = 0; i < keywords.length; i++) {
+                writeString(out, keywords[i]);
+                out.writeInt(postings[i].length);
+                for (int v : postings[i]) out.writeInt(v);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+    }
+
+    static EkgReference decode(ByteBuffer in) throws IOException {
+        if (in.remaining() < 8 || in.getInt() != MAGIC) throw new IOException("Not an EKG reference file");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported EKG reference version " + version);
+        int sectionCount = in.getInt();
+        List<Section> sections = new ArrayList<>(sectionCount);
+        for (int s = 0; s < sectionCount; s++) {
+            String title = readString(in);
+            int level = in.get();
+            int lineCount = in.getInt();
+            List<Line> lines = new ArrayList<>(lineCount);
+            for (int l = 0; l < lineCount; l++) {
+                Kind kind = Kind.values()[in.get()];
+                String text = readString(in);
+                lines.add(new Line(kind, text, kind == Kind.CRITERION ? readString(in) : null));
+            }
+            sections.add(new Section(s, title, level, List.copyOf(lines)));
+        }
+        int keywordCount = in.getInt();
+        String[] keywords = new String[keywordCount];
+        int[][] postings = new int[keywordCount][];
+        for (int i = 0; i < keywordCount; i++) {
+            keywords[i] = readString(in);
+            int[] p = new int[in.getInt()];
+            for (int j = 0; j < p.length; j++) p[j] = in.getInt();
+            postings[i] = p;
+        }
+        return new EkgReference(sections, keywords, postings);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] b = new byte[in.getInt()];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
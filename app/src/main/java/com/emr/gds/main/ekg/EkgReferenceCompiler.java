@@ -0,0 +1,147 @@
+package com.emr.gds.main.ekg;
+
+import com.emr.gds.main.ekg.EkgReference.Kind;
+import com.emr.gds.main.ekg.EkgReference.Line;
+import com.emr.gds.main.ekg.EkgReference.Section;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Compiles the EKG reference ODT into {@link EkgReference}'s indexed binary form. Run by the
+ * {@code compileEkgReference} Gradle task:
+ * <pre>
+ * EkgReferenceCompiler &lt;EKG_reference.odt&gt; &lt;EKG_reference.ekgref&gt;
+ * </pre>
+ * The document has no heading styles, so structure is read from the text: "•" paragraphs are bullets,
+ * bullets of the form "Label: value" with a short label are criteria, "N. ..." paragraphs are numbered
+ * steps, and other short paragraphs are headings. Paragraphs that start mid-sentence (left over from
+ * image captions) are skipped.
+ */
+public final class EkgReferenceCompiler {
+
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+    private static final Pattern STEP = Pattern.compile("(\\d+)\\.\\s+\\S.*");
+    private static final Pattern CRITERION = Pattern.compile("([^:]{1,40}):\\s*(\\S.*)");
+    private static final int MAX_HEADING_LENGTH = 60;
+    private static final String OVERVIEW = "Normal EKG waveform";
+
+    private EkgReferenceCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: EkgReferenceCompiler <EKG_reference.odt> <EKG_reference.ekgref>");
+            System.exit(2);
+        }
+        Path out = Paths.get(args[1]);
+        EkgReference ref;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            ref = compile(in);
+        }
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        byte[] bytes = ref.encode();
+        Files.write(out, bytes);
+        System.out.println("[EKG REF] " + ref.sections().size() + " sections, " + bytes.length + " bytes -> " + out);
+    }
+
+    /** Reads an ODT package and builds the reference from its paragraphs. */
+    public static EkgReference compile(InputStream odt) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(odt)) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+                if (e.getName().equals("content.xml")) return EkgReference.of(structure(paragraphs(zip)));
+            }
+        }
+        throw new IOException("No content.xml in the ODT");
+    }
+
+    /** The text of every {@code text:p} and {@code text:h}, with spaces, tabs and breaks as whitespace. */
+    static List<String> paragraphs(InputStream contentXml) throws IOException {
+        List<String> out = new ArrayList<>();
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader r = factory.createXMLStreamReader(contentXml);
+            StringBuilder current = null;
+            int depth = 0;
+            while (r.hasNext()) {
+                switch (r.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        String name = r.getLocalName();
+                        boolean paragraph = TEXT_NS.equals(r.getNamespaceURI()) && (name.equals("p") || name.equals("h"));
+                        if (paragraph) {
+                            if (depth++ == 0) current = new StringBuilder();
+                        } else if (current != null && TEXT_NS.equals(r.getNamespaceURI())) {
+                            switch (name) {
+                                case "s", "tab", "line-break" -> current.append(' ');
+                                default -> { }
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (current != null) current.append(r.getText());
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        String name = r.getLocalName();
+                        if (TEXT_NS.equals(r.getNamespaceURI()) && (name.equals("p") || name.equals("h")) && --depth == 0) {
+                            out.add(current.toString().replace('\u00A0', ' ').strip());
+                            current = null;
+                        }
+                    }
+                    default -> { }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed content.xml: " + e.getMessage(), e);
+        }
+        return out;
+    }
+
+    /** Groups paragraphs into sections; see the class comment for the rules. */
+    static List<Section> structure(List<String> paragraphs) {
+        List<Section> sections = new ArrayList<>();
+        String title = OVERVIEW;
+        int level = 1;
+        List<Line> lines = new ArrayList<>();
+        int skipped = 0;
+        for (String p : paragraphs) {
+            if (p.isEmpty() || p.chars().allMatch(c -> c == '-') || p.matches("\\d+\\.?")) continue;
+            if (p.startsWith("•")) {
+                String text = p.substring(1).strip();
+                Matcher m = CRITERION.matcher(text);
+                lines.add(m.matches() ? new Line(Kind.CRITERION, m.group(1).strip(), m.group(2).strip())
+                        : new Line(Kind.BULLET, text, null));
+                continue;
+            }
+            if (!Character.isUpperCase(p.codePointAt(0)) && !STEP.matcher(p).matches()) {
+                skipped++;
+                continue;
+            }
+            boolean step = STEP.matcher(p).matches();
+            if (step || p.length() <= MAX_HEADING_LENGTH) {
+                if (!lines.isEmpty() || level == 1 && !title.equals(OVERVIEW)) {
+                    sections.add(new Section(sections.size(), title, level, List.copyOf(lines)));
+                }
+                title = p;
+                level = step ? 2 : 1;
+                lines = new ArrayList<>();
+            } else {
+                lines.add(new Line(Kind.TEXT, p, null));
+            }
+        }
+        if (!lines.isEmpty()) sections.add(new Section(sections.size(), title, level, List.copyOf(lines)));
+        if (skipped > 0) System.out.println("[EKG REF] Skipped " + skipped + " caption fragment(s)");
+        return sections;
+    }
+}
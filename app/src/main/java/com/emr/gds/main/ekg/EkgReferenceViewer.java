@@ -0,0 +1,158 @@
+package com.emr.gds.main.ekg;
+
+import com.emr.gds.main.ekg.EkgReference.Line;
+import com.emr.gds.main.ekg.EkgReference.Match;
+import com.emr.gds.main.ekg.EkgReference.Section;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Window;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JDialog;
+import javax.swing.JEditorPane;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * In-app viewer for {@link EkgReference}: the sections on the left, the selected one on the right
+ * with its criteria as a table. Typing in the search box narrows the list by keyword prefix;
+ * {@link #lookup(String)} does the same for a line of findings text.
+ */
+public class EkgReferenceViewer extends JDialog {
+
+    private final EkgReference reference;
+    private final DefaultListModel<Section> model = new DefaultListModel<>();
+    private final JList<Section> sectionList = new JList<>(model);
+    private final JEditorPane content = new JEditorPane("text/html", "");
+    private final JTextField searchField = new JTextField();
+    private final JLabel statusLabel = new JLabel(" ");
+    private String lastLookup = "";
+
+    public EkgReferenceViewer(Window owner, EkgReference reference) {
+        super(owner, "EKG Reference", ModalityType.MODELESS);
+        this.reference = reference;
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+        buildUI();
+        showSections(reference.sections(), "");
+        setSize(new Dimension(760, 520));
+        setLocationRelativeTo(owner);
+    }
+
+    private void buildUI() {
+        sectionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        sectionList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean selected, boolean focus) {
+                Section s = (Section) value;
+                super.getListCellRendererComponent(list, (s.level() > 1 ? "    " : "") + s.title(), index, selected, focus);
+                return this;
+            }
+        });
+        sectionList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) render(sectionList.getSelectedValue());
+        });
+
+        content.setEditable(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { onSearch(); }
+            @Override public void removeUpdate(DocumentEvent e) { onSearch(); }
+            @Override public void changedUpdate(DocumentEvent e) { onSearch(); }
+        });
+
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(sectionList), new JScrollPane(content));
+        split.setDividerLocation(260);
+
+        JPanel main = new JPanel(new BorderLayout(5, 5));
+        main.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        main.add(searchPanel, BorderLayout.NORTH);
+        main.add(split, BorderLayout.CENTER);
+        main.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(main);
+    }
+
+    /**
+     * Shows the sections that mention the words of {@code findingsLine}, best first, and opens the
+     * best one. Leaves the view as it is when nothing matches or the line has not changed.
+     */
+    public void lookup(String findingsLine) {
+        if (findingsLine.equals(lastLookup)) return;
+        lastLookup = findingsLine;
+        List<Match> matches = reference.lookup(findingsLine);
+        if (matches.isEmpty()) return;
+        searchField.setText("");
+        showSections(matches.stream().map(Match::section).toList(), "Matches for \"" + findingsLine.strip() + "\"");
+    }
+
+    private void onSearch() {
+        String query = searchField.getText();
+        if (query.isBlank()) {
+            showSections(reference.sections(), "");
+        } else {
+            showSections(reference.search(query).stream().map(Match::section).toList(), "");
+        }
+    }
+
+    private void showSections(List<Section> sections, String status) {
+        model.clear();
+        sections.forEach(model::addElement);
+        statusLabel.setText(status.isEmpty() ? sections.size() + " section(s)" : status);
+        if (!sections.isEmpty()) {
+            sectionList.setSelectedIndex(0);
+        } else {
+            render(null);
+        }
+    }
+
+    private void render(Section s) {
+        if (s == null) {
+            content.setText("<html><body><i>No matching section.</i></body></html>");
+            return;
+        }
+        StringBuilder html = new StringBuilder("<html><body style='font-family:sans-serif;font-size:12pt'>");
+        html.append("<h2>").append(escape(s.title())).append("</h2>");
+        boolean inList = false, inTable = false;
+        for (Line l : s.lines()) {
+            switch (l.kind()) {
+                case CRITERION -> {
+                    if (inList) { html.append("</ul>"); inList = false; }
+                    if (!inTable) { html.append("<table border='1' cellpadding='4' cellspacing='0'>"); inTable = true; }
+                    html.append("<tr><td><b>").append(escape(l.text())).append("</b></td><td>")
+                            .append(escape(l.value())).append("</td></tr>");
+                }
+                case BULLET -> {
+                    if (inTable) { html.append("</table>"); inTable = false; }
+                    if (!inList) { html.append("<ul>"); inList = true; }
+                    html.append("<li>").append(escape(l.text())).append("</li>");
+                }
+                case TEXT -> {
+                    if (inTable) { html.append("</table>"); inTable = false; }
+                    if (inList) { html.append("</ul>"); inList = false; }
+                    html.append("<p>").append(escape(l.text())).append("</p>");
+                }
+            }
+        }
+        if (inTable) html.append("</table>");
+        if (inList) html.append("</ul>");
+        content.setText(html.append("</body></html>").toString());
+        content.setCaretPosition(0);
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
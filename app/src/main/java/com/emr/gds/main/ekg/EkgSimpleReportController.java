@@ -1,24 +1,152 @@
 package com.emr.gds.main.ekg;
 
+import com.emr.gds.main.ekg.EkgInterpreter.Interpretation;
+import com.emr.gds.main.ekg.EkgInterpreter.Measure;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.TextField;
 
 /**
  * Controller that wires the EKG view with the service.
  */
 public class EkgSimpleReportController {
 
+    private static final String INVALID_STYLE = "-fx-border-color: #d9534f;";
+
     private final EkgSimpleReportView view;
     private final EkgReportService service;
+    private final EkgInterpreter interpreter;
+    private final List<String> invalidFields = new ArrayList<>(); // labels, from the last readMeasurements()
 
     public EkgSimpleReportController(EkgSimpleReportView view, EkgReportService service) {
+        this(view, service, EkgInterpreter.standard());
+    }
+
+    public EkgSimpleReportController(EkgSimpleReportView view, EkgReportService service, EkgInterpreter interpreter) {
         this.view = view;
         this.service = service;
+        this.interpreter = interpreter;
         hookActions();
     }
 
     private void hookActions() {
         view.getSaveButton().setOnAction(e -> save());
+        view.getInterpretButton().setOnAction(e -> applyInterpretation());
+        // The rules evaluate in microseconds, so the impression follows every keystroke.
+        view.getMeasureFields().values().forEach(f -> f.textProperty().addListener((obs, o, n) -> preview()));
+        view.getSinusBox().setOnAction(e -> preview());
+        view.getRegularBox().setOnAction(e -> preview());
+        view.getSexBox().valueProperty().addListener((obs, o, n) -> preview());
+    }
+
+    // ================================
+    // Interpretation
+    // ================================
+
+    private double[] readMeasurements() {
+        double[] values = EkgInterpreter.measurements();
+        invalidFields.clear();
+        for (Map.Entry<Measure, TextField> e : view.getMeasureFields().entrySet()) {
+            TextField field = e.getValue();
+            String text = field.getText().strip();
+            field.setStyle("");
+            if (text.isEmpty()) continue;
+            try {
+                double v = Double.parseDouble(text);
+                if (!Double.isFinite(v)) throw new NumberFormatException(text);
+                values[e.getKey().ordinal()] = v;
+            } catch (NumberFormatException ex) {
+                field.setStyle(INVALID_STYLE);
+                invalidFields.add(view.getMeasureLabel(e.getKey()));
+            }
+        }
+        values[Measure.SINUS.ordinal()] = flag(view.getSinusBox());
+        values[Measure.REGULAR.ordinal()] = flag(view.getRegularBox());
+        String sex = view.getSexBox().getValue();
+        values[Measure.FEMALE.ordinal()] = sex == null || sex.isEmpty() ? Double.NaN : sex.equals("F") ? 1 : 0;
+        return values;
+    }
+
+    private static double flag(CheckBox box) {
+        return box.isIndeterminate() ? Double.NaN : box.isSelected() ? 1 : 0;
+    }
+
+    private void preview() {
+        double[] values = readMeasurements();
+        if (!invalidFields.isEmpty()) {
+            view.getImpressionLabel().setText(invalidMessage());
+            return;
+        }
+        Interpretation r = interpreter.interpret(values);
+        view.getImpressionLabel().setText(r.isEmpty() ? "" : r.impression());
+    }
+
+    private String invalidMessage() {
+        return "Not a number: " + String.join(", ", invalidFields) + ". Correct it before interpreting.";
+    }
+
+    /** Writes the interpretation into the matching lines of the findings template. */
+    private void applyInterpretation() {
+        double[] values = readMeasurements();
+        // A typo must not be read as "not measured", or e.g. a bad QTc could yield "Normal ECG".
+        if (!invalidFields.isEmpty()) {
+            view.getStatusLabel().setText(invalidMessage());
+            return;
+        }
+        Interpretation r = interpreter.interpret(values);
+        if (r.isEmpty()) {
+            view.getStatusLabel().setText("Enter measurements to interpret.");
+            return;
+        }
+        String text = view.getEkgFindingsArea().getText();
+        // Lines with neither a statement nor a measurement keep whatever the user wrote there.
+        String rhythm = join(r.group("rhythm"), measured(values, Measure.RATE, " bpm"));
+        if (!rhythm.isEmpty()) text = setLine(text, "Rhythm", rhythm);
+        String axis = join(r.group("axis"), measured(values, Measure.AXIS, "°"));
+        if (!axis.isEmpty()) text = setLine(text, "Axis", axis);
+        String pr = measured(values, Measure.PR, ""), qrs = measured(values, Measure.QRS, ""), qtc = measured(values, Measure.QTC, "");
+        String intervals = pr.equals("-") && qrs.equals("-") && qtc.equals("-") ? "" : pr + " / " + qrs + " / " + qtc + " ms";
+        String intervalLine = join(intervals, r.group("pr"), r.group("qrs"), r.group("qt"));
+        if (!intervalLine.isEmpty()) text = setLine(text, "PR / QRS / QTc", intervalLine);
+        if (!r.group("voltage").isEmpty()) text = setLine(text, "Voltage", r.group("voltage"));
+        text = setLine(text, "Impression", r.impression());
+        view.getEkgFindingsArea().setText(text);
+        view.getStatusLabel().setText("Interpretation applied; review before saving.");
+    }
+
+    private static String measured(double[] values, Measure m, String unit) {
+        double v = values[m.ordinal()];
+        if (Double.isNaN(v)) return "-";
+        return (v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v)) + unit;
+    }
+
+    private static String join(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String p : parts) {
+            if (p.isEmpty() || p.equals("-")) continue;
+            if (!sb.isEmpty()) sb.append("; ");
+            sb.append(p);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the "- label:" line of the template, or adds one above "- Impression:" (or at the end)
+     * when the user has removed it.
+     */
+    static String setLine(String text, String label, String value) {
+        String line = "- " + label + ": " + value;
+        Matcher m = Pattern.compile("(?m)^- " + Pattern.quote(label) + ":.*$").matcher(text);
+        if (m.find()) return text.substring(0, m.start()) + line + text.substring(m.end());
+        Matcher impression = Pattern.compile("(?m)^- Impression:").matcher(text);
+        if (impression.find()) return text.substring(0, impression.start()) + line + "\n" + text.substring(impression.start());
+        return text + (text.isEmpty() || text.endsWith("\n") ? "" : "\n") + line + "\n";
     }
 
     private void save() {
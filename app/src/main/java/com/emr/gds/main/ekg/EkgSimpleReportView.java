@@ -1,13 +1,20 @@
 package com.emr.gds.main.ekg;
 
+import com.emr.gds.main.ekg.EkgInterpreter.Measure;
+import java.util.EnumMap;
+import java.util.Map;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import javafx.scene.Parent;
 
 /**
  * Pure view for the simple EKG report form.
@@ -22,18 +29,56 @@ EKG INTERPRETATION REPORT
 - ST-T changes:
 - Impression:
 """);
+    private final Map<Measure, TextField> measureFields = new EnumMap<>(Measure.class);
+    private final Map<Measure, String> measureLabels = new EnumMap<>(Measure.class);
+    private final CheckBox sinusBox = new CheckBox("Sinus P waves");
+    private final CheckBox regularBox = new CheckBox("Regular R-R");
+    private final ComboBox<String> sexBox = new ComboBox<>();
+    private final Button interpretButton = new Button("Interpret");
+    private final Label impressionLabel = new Label();
     private final Button saveButton = new Button("Save to EMR");
     private final Label statusLabel = new Label();
 
     public EkgSimpleReportView() {
         ekgFindingsArea.setWrapText(true);
         ekgFindingsArea.setPrefRowCount(12);
+        String[] labels = {"Rate", "PR", "QRS", "QTc", "Axis", "SV1", "RV5/6", "RaVL", "SV3"};
+        int i = 0;
+        for (Measure m : Measure.values()) {
+            if (m.derived() || m == Measure.SINUS || m == Measure.REGULAR || m == Measure.FEMALE) continue;
+            TextField field = new TextField();
+            field.setPrefColumnCount(4);
+            measureFields.put(m, field);
+            measureLabels.put(m, labels[i++]);
+        }
+        // Indeterminate = not assessed, so the rules that need it stay silent.
+        for (CheckBox box : new CheckBox[]{sinusBox, regularBox}) {
+            box.setAllowIndeterminate(true);
+            box.setIndeterminate(true);
+        }
+        sexBox.getItems().addAll("", "M", "F");
+        sexBox.getSelectionModel().selectFirst();
+        impressionLabel.setWrapText(true);
     }
 
     public Parent createContent() {
         var container = new BorderPane();
         container.setPadding(new Insets(12));
-        container.setTop(new Label("Enter EKG Findings:"));
+
+        var grid = new GridPane();
+        grid.setHgap(6);
+        grid.setVgap(4);
+        int i = 0;
+        for (Map.Entry<Measure, TextField> e : measureFields.entrySet()) {
+            grid.add(new Label(measureLabels.get(e.getKey())), (i % 5) * 2, i / 5);
+            grid.add(e.getValue(), (i % 5) * 2 + 1, i / 5);
+            i++;
+        }
+        var rhythm = new HBox(10, sinusBox, regularBox, new Label("Sex"), sexBox, interpretButton);
+        var measurements = new VBox(6, new Label("Measurements (bpm, ms, degrees, mm):"), grid, rhythm, impressionLabel,
+                new Label("Enter EKG Findings:"));
+        measurements.setPadding(new Insets(0, 0, 6, 0));
+        container.setTop(measurements);
         container.setCenter(ekgFindingsArea);
 
         var footer = new VBox(6, saveButton, statusLabel);
@@ -47,6 +92,36 @@ EKG INTERPRETATION REPORT
         return ekgFindingsArea;
     }
 
+    /** Text fields for the measured values, in {@link Measure} order; flags and sex are separate. */
+    public Map<Measure, TextField> getMeasureFields() {
+        return measureFields;
+    }
+
+    /** The label shown next to a measure's field, e.g. "QTc". */
+    public String getMeasureLabel(Measure m) {
+        return measureLabels.get(m);
+    }
+
+    public CheckBox getSinusBox() {
+        return sinusBox;
+    }
+
+    public CheckBox getRegularBox() {
+        return regularBox;
+    }
+
+    public ComboBox<String> getSexBox() {
+        return sexBox;
+    }
+
+    public Button getInterpretButton() {
+        return interpretButton;
+    }
+
+    public Label getImpressionLabel() {
+        return impressionLabel;
+    }
+
     public Button getSaveButton() {
         return saveButton;
     }
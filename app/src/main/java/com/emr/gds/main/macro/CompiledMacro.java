@@ -0,0 +1,81 @@
+package com.emr.gds.main.macro;
+
+import javafx.scene.control.TextInputControl;
+import javafx.scene.input.KeyCombination;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * A macro ready to run: its steps already resolved into one text block per target area, with
+ * templates looked up and abbreviations expanded at compile time. Running it is one
+ * {@code insertText} per touched area and a single focus change, all in the caller's FX pulse.
+ * <p>
+ * Inserts made before the first {@code focus} step go to whichever area is focused when the macro
+ * runs; that target is stored as {@link #FOCUSED}.
+ */
+public final class CompiledMacro {
+
+    /** Target index meaning "the area that is focused when the macro runs". */
+    static final int FOCUSED = -1;
+    /** Stands in for today's ISO date in a block until the macro runs, so it never goes stale. */
+    static final char DATE_MARK = '\uE000';
+
+    private final String name;
+    private final KeyCombination shortcut;
+    private final int[] targets;
+    private final String[] blocks;
+    private final boolean dated;
+    private final int focusAfter;
+    private final int steps;
+
+    CompiledMacro(String name, KeyCombination shortcut, int[] targets, String[] blocks, boolean dated,
+                  int focusAfter, int steps) {
+        this.name = name;
+        this.shortcut = shortcut;
+        this.targets = targets;
+        this.blocks = blocks;
+        this.dated = dated;
+        this.focusAfter = focusAfter;
+        this.steps = steps;
+    }
+
+    public String name() { return name; }
+
+    /** The bound shortcut, or {@code null} when the macro is only run from the editor. */
+    public KeyCombination shortcut() { return shortcut; }
+
+    /** Number of script steps the macro was compiled from. */
+    public int steps() { return steps; }
+
+    /**
+     * Applies the macro to the SOAP areas.
+     *
+     * @param areas        the areas in {@code IAMTextArea.TEXT_AREA_TITLES} order
+     * @param focusedIndex the area focused now, or -1 if none
+     * @return the area that should get focus afterwards, or -1 to leave focus alone
+     */
+    public int apply(List<? extends TextInputControl> areas, int focusedIndex) {
+        forEachBlock(focusedIndex, areas.size(), (target, block) -> {
+            TextInputControl area = areas.get(target);
+            area.insertText(area.getCaretPosition(), block);
+        });
+        return focusAfter != FOCUSED ? focusAfter : focusedIndex;
+    }
+
+    /** Receives the text for one area, ready to insert at its caret. */
+    interface BlockSink {
+        void insert(int area, String block);
+    }
+
+    /** Resolves each block's target and date; blocks whose target is out of range are dropped. */
+    void forEachBlock(int focusedIndex, int areaCount, BlockSink sink) {
+        String today = dated ? LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE) : null;
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i] == FOCUSED ? focusedIndex : targets[i];
+            if (target < 0 || target >= areaCount) continue;
+            sink.insert(target, dated ? blocks[i].replace(String.valueOf(DATE_MARK), today) : blocks[i]);
+        }
+    }
+}
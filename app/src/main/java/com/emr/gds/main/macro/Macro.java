@@ -0,0 +1,15 @@
+package com.emr.gds.main.macro;
+
+/**
+ * A user-defined macro as stored in {@code app/db/macros.db}: its name, the shortcut it is bound to
+ * (in {@link javafx.scene.input.KeyCombination#valueOf} form, e.g. {@code Ctrl+Alt+T}) and the script
+ * understood by {@link MacroCompiler}.
+ */
+public record Macro(String name, String shortcut, String script) {
+
+    public Macro {
+        name = name == null ? "" : name.strip();
+        shortcut = shortcut == null ? "" : shortcut.strip();
+        script = script == null ? "" : script;
+    }
+}
@@ -0,0 +1,118 @@
+package com.emr.gds.main.macro;
+
+import com.emr.gds.main.IAMButtonAction;
+import com.emr.gds.main.IAMTextArea;
+import com.emr.gds.main.TextAreaControlProcessor;
+import javafx.scene.input.KeyCombination;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a macro script into a {@link CompiledMacro}. One command per line; blank lines and lines
+ * starting with {@code #} are ignored:
+ * <pre>
+ * focus A>          move to a SOAP area, by title ("A>", "Physical Exam") or number 1-10
+ * template TFT      insert a template or snippet, by name ("TFT_LIST") or button label ("TFT")
+ * line F/U 3 months insert text followed by a newline
+ * text :cd          insert text as is; \n and \t are recognised
+ * date              insert today's date as Ctrl+I does
+ * </pre>
+ * Because nothing moves the caret while a macro runs, everything a macro inserts into one area is
+ * contiguous, so the steps are folded into one block per area here rather than replayed one by one.
+ */
+public final class MacroCompiler {
+
+    private static final Pattern TODAY_ABBREVIATION = Pattern.compile("(?i):cd(?=\\s|$)");
+
+    private MacroCompiler() {}
+
+    /**
+     * @param abbrevs the abbreviation map; expansions are baked into the compiled blocks
+     * @throws IllegalArgumentException with the offending line number if the macro does not compile
+     */
+    public static CompiledMacro compile(Macro macro, Map<String, String> abbrevs) {
+        if (macro.name().isEmpty()) throw new IllegalArgumentException("Macro name is empty.");
+        KeyCombination shortcut = parseShortcut(macro.shortcut());
+
+        Map<Integer, StringBuilder> blocks = new LinkedHashMap<>();
+        int target = CompiledMacro.FOCUSED;
+        int steps = 0;
+        String[] lines = macro.script().split("\\R");
+        for (int n = 0; n < lines.length; n++) {
+            String line = lines[n].strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int space = line.indexOf(' ');
+            String command = (space < 0 ? line : line.substring(0, space)).toLowerCase(Locale.ROOT);
+            String arg = space < 0 ? "" : line.substring(space + 1).strip();
+            switch (command) {
+                case "focus" -> target = areaIndex(arg, n + 1);
+                case "template" -> append(blocks, target, template(arg, n + 1).body());
+                case "line" -> append(blocks, target, unescape(arg) + "\n");
+                case "text" -> append(blocks, target, unescape(arg));
+                case "date" -> append(blocks, target, " [ " + CompiledMacro.DATE_MARK + " ]\n");
+                default -> throw new IllegalArgumentException("Line " + (n + 1) + ": unknown command '" + command + "'.");
+            }
+            steps++;
+        }
+        if (steps == 0) throw new IllegalArgumentException("Macro '" + macro.name() + "' has no steps.");
+
+        int[] targets = new int[blocks.size()];
+        String[] texts = new String[blocks.size()];
+        boolean dated = false;
+        int i = 0;
+        for (Map.Entry<Integer, StringBuilder> e : blocks.entrySet()) {
+            // :cd is the date when the macro runs, not when it was compiled.
+            String text = TODAY_ABBREVIATION.matcher(e.getValue()).replaceAll(String.valueOf(CompiledMacro.DATE_MARK));
+            text = TextAreaControlProcessor.expandAbbreviations(text, abbrevs);
+            dated |= text.indexOf(CompiledMacro.DATE_MARK) >= 0;
+            targets[i] = e.getKey();
+            texts[i++] = text;
+        }
+        return new CompiledMacro(macro.name(), shortcut, targets, texts, dated, target, steps);
+    }
+
+    /** Parses a shortcut such as {@code Ctrl+Alt+T}; blank means none. */
+    public static KeyCombination parseShortcut(String shortcut) {
+        if (shortcut == null || shortcut.isBlank()) return null;
+        try {
+            return KeyCombination.valueOf(shortcut.strip());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unrecognised shortcut '" + shortcut + "'.", e);
+        }
+    }
+
+    private static void append(Map<Integer, StringBuilder> blocks, int target, String text) {
+        blocks.computeIfAbsent(target, k -> new StringBuilder()).append(text);
+    }
+
+    private static int areaIndex(String arg, int lineNo) {
+        String[] titles = IAMTextArea.TEXT_AREA_TITLES;
+        if (arg.matches("\\d+")) {
+            int n = Integer.parseInt(arg);
+            if (n >= 1 && n <= titles.length) return n - 1;
+        }
+        String wanted = stripMarker(arg);
+        for (int i = 0; i < titles.length; i++) {
+            if (stripMarker(titles[i]).equalsIgnoreCase(wanted)) return i;
+        }
+        throw new IllegalArgumentException("Line " + lineNo + ": unknown area '" + arg + "'.");
+    }
+
+    private static String stripMarker(String title) {
+        return title.endsWith(">") ? title.substring(0, title.length() - 1).strip() : title.strip();
+    }
+
+    private static IAMButtonAction.TemplateLibrary template(String arg, int lineNo) {
+        for (IAMButtonAction.TemplateLibrary t : IAMButtonAction.TemplateLibrary.values()) {
+            if (t.name().equalsIgnoreCase(arg) || t.displayName().equalsIgnoreCase(arg)) return t;
+        }
+        throw new IllegalArgumentException("Line " + lineNo + ": unknown template '" + arg + "'.");
+    }
+
+    private static String unescape(String s) {
+        return s.replace("\\n", "\n").replace("\\t", "\t");
+    }
+}
@@ -0,0 +1,198 @@
+package com.emr.gds.main.macro;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-modal window (Ctrl+Shift+M) for writing, testing and deleting macros. Save compiles the script
+ * first and reports the failing line; Run applies the macro to the last focused SOAP area and shows
+ * how long it took.
+ */
+public final class MacroEditor {
+
+    private static final String SYNTAX_HELP = """
+            focus A>            move to a SOAP area (title or 1-10)
+            template TFT        insert a template or snippet
+            line F/U 3 months   insert a line
+            text :cd            insert text without a newline
+            date                insert today's date
+            # comment""";
+
+    private final MacroEngine engine;
+    private final Stage stage = new Stage();
+    private final ListView<String> list = new ListView<>();
+    private final TextField nameField = new TextField();
+    private final TextField shortcutField = new TextField();
+    private final TextArea scriptArea = new TextArea();
+    private final Label statusLabel = new Label();
+    private String editing; // name of the stored macro being edited, null for a new one
+
+    public MacroEditor(MacroEngine engine, Window owner) {
+        this.engine = engine;
+        if (owner != null) stage.initOwner(owner);
+        stage.setTitle("Macros");
+        stage.setScene(buildScene());
+    }
+
+    public void show() {
+        reloadList(editing);
+        if (stage.isShowing()) {
+            stage.toFront();
+        } else {
+            stage.show();
+        }
+    }
+
+    // ================================
+    // Layout
+    // ================================
+
+    private Scene buildScene() {
+        nameField.setPromptText("Macro name");
+        shortcutField.setPromptText("e.g. Ctrl+Alt+T");
+        scriptArea.setStyle("-fx-font-family: 'Consolas', 'Monospaced';");
+        scriptArea.setPrefRowCount(12);
+        statusLabel.setStyle("-fx-text-fill: #555555;");
+        statusLabel.setWrapText(true);
+        Label help = new Label(SYNTAX_HELP);
+        help.setStyle("-fx-font-family: 'Consolas', 'Monospaced'; -fx-text-fill: #555555;");
+
+        list.setPrefWidth(180);
+        list.getSelectionModel().selectedItemProperty().addListener((obs, o, name) -> {
+            if (name != null) select(name);
+        });
+
+        Button newButton = new Button("New");
+        Button saveButton = new Button("Save");
+        Button deleteButton = new Button("Delete");
+        Button runButton = new Button("Run");
+        newButton.setOnAction(e -> clearForm());
+        saveButton.setOnAction(e -> save());
+        deleteButton.setOnAction(e -> delete());
+        runButton.setOnAction(e -> run());
+
+        GridPane fields = new GridPane();
+        fields.setHgap(8);
+        fields.setVgap(6);
+        fields.addRow(0, new Label("Name:"), nameField);
+        fields.addRow(1, new Label("Shortcut:"), shortcutField);
+        GridPane.setHgrow(nameField, Priority.ALWAYS);
+
+        HBox buttons = new HBox(8, newButton, saveButton, deleteButton, runButton);
+        VBox form = new VBox(8, fields, scriptArea, help, buttons, statusLabel);
+        VBox.setVgrow(scriptArea, Priority.ALWAYS);
+
+        BorderPane root = new BorderPane(form);
+        root.setLeft(list);
+        BorderPane.setMargin(list, new Insets(0, 10, 0, 0));
+        root.setPadding(new Insets(10));
+        return new Scene(root, 680, 460);
+    }
+
+    // ================================
+    // Actions
+    // ================================
+
+    private void reloadList(String selected) {
+        list.getItems().setAll(engine.macros().stream().map(Macro::name).toList());
+        if (selected != null && list.getItems().contains(selected)) {
+            list.getSelectionModel().select(selected);
+        } else if (!list.getItems().isEmpty() && editing == null && nameField.getText().isEmpty()) {
+            list.getSelectionModel().selectFirst();
+        }
+    }
+
+    private void select(String name) {
+        engine.macros().stream().filter(m -> m.name().equals(name)).findFirst().ifPresent(m -> {
+            editing = m.name();
+            nameField.setText(m.name());
+            shortcutField.setText(m.shortcut());
+            scriptArea.setText(m.script());
+            String error = engine.error(name);
+            statusLabel.setText(error != null ? "Disabled: " + error : describeLastRun(name));
+        });
+    }
+
+    private void clearForm() {
+        editing = null;
+        list.getSelectionModel().clearSelection();
+        nameField.clear();
+        shortcutField.clear();
+        scriptArea.clear();
+        statusLabel.setText("");
+        nameField.requestFocus();
+    }
+
+    private void save() {
+        Macro macro = new Macro(nameField.getText(), shortcutField.getText(), scriptArea.getText());
+        CompletableFuture<Void> saved;
+        try {
+            saved = engine.save(macro, editing);
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText(e.getMessage());
+            return;
+        }
+        saved.whenComplete((v, e) -> {
+            // The engine completes on the FX thread.
+            if (e != null) {
+                statusLabel.setText("Save failed: " + rootMessage(e));
+                return;
+            }
+            editing = macro.name();
+            reloadList(macro.name());
+            statusLabel.setText("Saved '" + macro.name() + "'.");
+        });
+    }
+
+    private void delete() {
+        if (editing == null) return;
+        String name = editing;
+        engine.delete(name).whenComplete((v, e) -> {
+            if (e != null) {
+                statusLabel.setText("Delete failed: " + rootMessage(e));
+                return;
+            }
+            clearForm();
+            reloadList(null);
+            statusLabel.setText("Deleted '" + name + "'.");
+        });
+    }
+
+    private void run() {
+        if (editing == null) {
+            statusLabel.setText("Save the macro before running it.");
+            return;
+        }
+        try {
+            engine.run(editing);
+            statusLabel.setText(describeLastRun(editing));
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText(e.getMessage());
+        }
+    }
+
+    private String describeLastRun(String name) {
+        return engine.lastRunMillis(name).stream()
+                .mapToObj(ms -> String.format("Last run: %.2f ms", ms))
+                .findFirst().orElse("");
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,238 @@
+package com.emr.gds.main.macro;
+
+import com.emr.gds.main.IAMTextArea;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCombination;
+import javafx.stage.Popup;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs user macros from {@code app/db/macros.db} on their shortcuts.
+ * <p>
+ * Macros are compiled once, when loaded or edited, and recompiled when the abbreviation table
+ * changes. A shortcut press then applies the precomputed blocks to the SOAP areas directly on the FX
+ * thread - one insert per area and one focus change, with no {@code runLater} per step. Each run is
+ * timed; the time is shown briefly over the main window and kept for the macro editor.
+ * <p>
+ * Shortcuts already taken when {@link #install(Scene)} is called (the function keys and the built-in
+ * Ctrl combinations) cannot be reused by a macro. All methods except the constructor are FX-thread only.
+ */
+public final class MacroEngine {
+
+    private final IAMTextArea textAreas;
+    private final Map<String, String> abbrevs;
+    private final MacroStore store;
+
+    private final Map<String, Macro> macros = new LinkedHashMap<>();
+    private final Map<String, CompiledMacro> compiled = new HashMap<>();
+    private final Map<String, String> errors = new HashMap<>();
+    private final Map<String, Double> lastRunMillis = new HashMap<>();
+    private final Map<KeyCombination, Runnable> installed = new HashMap<>();
+    private final Set<KeyCombination> reserved = new HashSet<>();
+    private Scene scene;
+    private Popup timingPopup;
+    private PauseTransition timingHide;
+
+    public MacroEngine(IAMTextArea textAreas, Map<String, String> abbrevs) {
+        this(textAreas, abbrevs, MacroStore.openDefault());
+    }
+
+    MacroEngine(IAMTextArea textAreas, Map<String, String> abbrevs, MacroStore store) {
+        this.textAreas = Objects.requireNonNull(textAreas, "textAreas");
+        this.abbrevs = Objects.requireNonNull(abbrevs, "abbrevs");
+        this.store = store;
+    }
+
+    // ================================
+    // Installation
+    // ================================
+
+    /**
+     * Reserves the scene's current accelerators, then loads the stored macros and binds them.
+     *
+     * @return completes once the macros are bound
+     */
+    public CompletableFuture<Void> install(Scene scene) {
+        this.scene = scene;
+        reserved.addAll(scene.getAccelerators().keySet());
+        return store.loadAll().thenAccept(list -> Platform.runLater(() -> {
+            list.forEach(m -> macros.put(m.name(), m));
+            rebind();
+            System.out.println("[MACRO] Loaded " + compiled.size() + " of " + list.size() + " macro(s)");
+        })).exceptionally(e -> {
+            System.err.println("[MACRO] Failed to load macros: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /** Recompiles every macro, e.g. after the abbreviation table has been reloaded. */
+    public void recompile() {
+        if (scene != null) rebind();
+    }
+
+    private void rebind() {
+        installed.forEach((key, action) -> scene.getAccelerators().remove(key, action));
+        installed.clear();
+        compiled.clear();
+        errors.clear();
+        for (Macro m : macros.values()) {
+            try {
+                CompiledMacro c = compileChecked(m, m.name());
+                compiled.put(m.name(), c);
+                if (c.shortcut() != null) {
+                    Runnable action = () -> run(c);
+                    installed.put(c.shortcut(), action);
+                    scene.getAccelerators().put(c.shortcut(), action);
+                }
+            } catch (IllegalArgumentException e) {
+                errors.put(m.name(), e.getMessage());
+                System.err.println("[MACRO] '" + m.name() + "' disabled: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compiles {@code m} and checks its shortcut is free, ignoring the macro currently stored as
+     * {@code previousName}, which it replaces.
+     */
+    private CompiledMacro compileChecked(Macro m, String previousName) {
+        CompiledMacro c = MacroCompiler.compile(m, abbrevs);
+        KeyCombination key = c.shortcut();
+        if (key == null) return c;
+        if (reserved.contains(key)) {
+            throw new IllegalArgumentException(key.getDisplayText() + " is a built-in shortcut.");
+        }
+        for (CompiledMacro other : compiled.values()) {
+            if (!other.name().equals(previousName) && key.equals(other.shortcut())) {
+                throw new IllegalArgumentException(key.getDisplayText() + " is already used by '" + other.name() + "'.");
+            }
+        }
+        return c;
+    }
+
+    // ================================
+    // Running
+    // ================================
+
+    /** Runs a macro by name, e.g. from the editor. */
+    public void run(String name) {
+        CompiledMacro c = compiled.get(name);
+        if (c == null) throw new IllegalArgumentException(errors.getOrDefault(name, "No macro named '" + name + "'."));
+        run(c);
+    }
+
+    private void run(CompiledMacro c) {
+        long start = System.nanoTime();
+        textAreas.applyMacro(c);
+        double ms = (System.nanoTime() - start) / 1_000_000.0;
+        lastRunMillis.put(c.name(), ms);
+        System.out.printf("[MACRO] %s: %d steps in %.3f ms%n", c.name(), c.steps(), ms);
+        showTiming(String.format("%s - %d steps in %.2f ms", c.name(), c.steps(), ms));
+    }
+
+    private void showTiming(String text) {
+        Window owner = scene == null ? null : scene.getWindow();
+        if (owner == null || !owner.isShowing()) return;
+        if (timingPopup == null) {
+            Label label = new Label();
+            label.setStyle("-fx-background-color: rgba(30,41,59,0.9); -fx-text-fill: white; "
+                    + "-fx-padding: 6 12; -fx-background-radius: 6; -fx-font-size: 12px;");
+            timingPopup = new Popup();
+            timingPopup.getContent().add(label);
+            timingHide = new PauseTransition(Duration.millis(1500));
+            timingHide.setOnFinished(e -> timingPopup.hide());
+        }
+        ((Label) timingPopup.getContent().get(0)).setText(text);
+        Bounds b = scene.getRoot().localToScreen(scene.getRoot().getLayoutBounds());
+        if (b == null) return;
+        timingPopup.show(owner, b.getMaxX() - 320, b.getMaxY() - 60);
+        timingHide.playFromStart();
+    }
+
+    // ================================
+    // Editing
+    // ================================
+
+    /** Stored macros in name order. */
+    public List<Macro> macros() {
+        List<Macro> list = new ArrayList<>(macros.values());
+        list.sort(Comparator.comparing(Macro::name, String.CASE_INSENSITIVE_ORDER));
+        return list;
+    }
+
+    /** Why the stored macro is disabled, or {@code null} if it compiled. */
+    public String error(String name) {
+        return errors.get(name);
+    }
+
+    /** Duration of the last run of the macro in this session. */
+    public OptionalDouble lastRunMillis(String name) {
+        Double ms = lastRunMillis.get(name);
+        return ms == null ? OptionalDouble.empty() : OptionalDouble.of(ms);
+    }
+
+    /**
+     * Validates and stores {@code macro}, replacing {@code previousName} (which may differ when the
+     * macro was renamed, or be {@code null} for a new one), then rebinds.
+     *
+     * @throws IllegalArgumentException if the macro does not compile or its shortcut is taken
+     */
+    public CompletableFuture<Void> save(Macro macro, String previousName) {
+        compileChecked(macro, previousName);
+        // New or renamed onto another macro's name: the UPSERT would silently overwrite that macro.
+        if (!macro.name().equals(previousName) && macros.containsKey(macro.name())) {
+            throw new IllegalArgumentException("A macro named '" + macro.name() + "' already exists.");
+        }
+        CompletableFuture<Void> stored = store.save(macro);
+        if (previousName != null && !previousName.equals(macro.name())) {
+            stored = stored.thenCompose(v -> store.delete(previousName));
+        }
+        return onFxThread(stored, () -> {
+            if (previousName != null) macros.remove(previousName);
+            macros.put(macro.name(), macro);
+            rebind();
+        });
+    }
+
+    public CompletableFuture<Void> delete(String name) {
+        return onFxThread(store.delete(name), () -> {
+            macros.remove(name);
+            lastRunMillis.remove(name);
+            rebind();
+        });
+    }
+
+    private static CompletableFuture<Void> onFxThread(CompletableFuture<Void> stored, Runnable update) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        stored.whenComplete((v, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                done.completeExceptionally(e);
+                return;
+            }
+            update.run();
+            done.complete(null);
+        }));
+        return done;
+    }
+
+    public void close() {
+        store.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.emr.gds.main.macro;
+
+import com.emr.gds.main.IAMPaths;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * User macros in {@code app/db/macros.db}. Like the plan history store, every statement runs on one
+ * daemon thread that owns the connection. A new database is seeded with one example macro.
+ */
+final class MacroStore {
+
+    // ================================
+    // Constants
+    // ================================
+    static final String DB_FILE = "macros.db";
+    private static final String UPSERT =
+            "INSERT INTO macros (name, shortcut, script, updated_at) VALUES (?,?,?,?)"
+            + " ON CONFLICT(name) DO UPDATE SET shortcut = excluded.shortcut, script = excluded.script,"
+            + " updated_at = excluded.updated_at";
+    static final Macro EXAMPLE = new Macro("TSH follow-up", "Ctrl+Alt+T", """
+            # Thyroid follow-up: labs into A>, plan line into P>
+            focus A>
+            template TFT
+            focus P>
+            line F/U in 3 months with TSH, free T4
+            date
+            """);
+
+    private final Path dbFile;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "macro-store");
+        t.setDaemon(true);
+        return t;
+    });
+    private Connection connection; // confined to the worker thread
+
+    MacroStore(Path dbFile) {
+        this.dbFile = Objects.requireNonNull(dbFile);
+    }
+
+    static MacroStore openDefault() {
+        return new MacroStore(IAMPaths.dbDirectory().resolve(DB_FILE));
+    }
+
+    // ================================
+    // Statements
+    // ================================
+
+    CompletableFuture<List<Macro>> loadAll() {
+        return call(() -> {
+            List<Macro> macros = new ArrayList<>();
+            try (Statement st = connection().createStatement();
+                 ResultSet rs = st.executeQuery("SELECT name, shortcut, script FROM macros ORDER BY name COLLATE NOCASE")) {
+                while (rs.next()) macros.add(new Macro(rs.getString(1), rs.getString(2), rs.getString(3)));
+            }
+            return macros;
+        });
+    }
+
+    CompletableFuture<Void> save(Macro macro) {
+        return call(() -> {
+            try (PreparedStatement ps = connection().prepareStatement(UPSERT)) {
+                ps.setString(1, macro.name());
+                ps.setString(2, macro.shortcut());
+                ps.setString(3, macro.script());
+                ps.setString(4, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    CompletableFuture<Void> delete(String name) {
+        return call(() -> {
+            try (PreparedStatement ps = connection().prepareStatement("DELETE FROM macros WHERE name = ?")) {
+                ps.setString(1, name);
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    private <T> CompletableFuture<T> call(SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.run();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, worker);
+    }
+
+    // ================================
+    // Connection
+    // ================================
+
+    private Connection connection() throws SQLException {
+        if (connection != null) return connection;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            Files.createDirectories(dbFile.getParent());
+        } catch (Exception e) {
+            throw new SQLException("Cannot open " + dbFile, e);
+        }
+        Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        try (Statement st = c.createStatement()) {
+            boolean created;
+            try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'macros'")) {
+                created = !rs.next();
+            }
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS macros (name TEXT PRIMARY KEY, shortcut TEXT, script TEXT NOT NULL, updated_at TEXT);");
+            // Only a brand-new table gets the example, so deleting it stays deleted.
+            if (created) seed(c);
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        connection = c;
+        return c;
+    }
+
+    private void seed(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(UPSERT)) {
+            ps.setString(1, EXAMPLE.name());
+            ps.setString(2, EXAMPLE.shortcut());
+            ps.setString(3, EXAMPLE.script());
+            ps.setString(4, LocalDateTime.now().toString());
+            ps.executeUpdate();
+        }
+    }
+
+    /** Closes the connection after queued work has finished. */
+    void close() {
+        worker.execute(() -> {
+            try {
+                if (connection != null) connection.close();
+            } catch (SQLException e) {
+                System.err.println("[MACRO] Close failed: " + e.getMessage());
+            }
+            connection = null;
+        });
+        worker.shutdown();
+    }
+}
@@ -1,6 +1,7 @@
 package com.emr.gds.main.medication.controller;
 
 import com.emr.gds.main.medication.db.DatabaseManager;
+import com.emr.gds.main.medication.db.MedicationSearchIndex;
 import com.emr.gds.main.medication.model.MedicationItem;
 import com.emr.gds.main.medication.model.MedicationGroup;
 import com.emr.gds.main.service.EmrBridgeService;
@@ -8,19 +9,27 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.GridPane;
+import javafx.stage.Popup;
 import javafx.stage.Stage;
 import javafx.util.Pair;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class MainController {
@@ -29,29 +38,89 @@ public class MainController {
     @FXML private TabPane mainTabPane;
     @FXML private Label selectionLabel;
     @FXML private Button btnEdit, btnDelete, btnSave;
+    @FXML private TextField searchField;
+
+    private static final int SEARCH_LIMIT = 50;
+    // Index builds and queries run here, in submission order, so the FX thread never scans the catalog.
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "medication-search");
+        t.setDaemon(true);
+        return t;
+    });
 
     private final DatabaseManager dbManager = new DatabaseManager();
+    private boolean saving = false;
     private final EmrBridgeService emrBridge = new EmrBridgeService();
 
     private MedicationItem activeItem;
     private ListView<MedicationItem> activeListView;
 
+    // Tabs get their accordion when first shown and groups their list when first expanded.
+    private final Map<MedicationGroup, ListView<MedicationItem>> groupLists = new IdentityHashMap<>();
+
+    private CompletableFuture<MedicationSearchIndex> searchIndex;
+    private long searchGeneration;
+    private final ListView<MedicationSearchIndex.Hit> searchResults = new ListView<>();
+    private final Popup searchPopup = new Popup();
+
+    @FXML
+    public void initialize() {
+        searchResults.setPrefSize(620, 320);
+        searchResults.setPlaceholder(new Label("No medications found"));
+        searchResults.setOnMouseClicked(e -> chooseSearchHit(searchResults.getSelectionModel().getSelectedItem()));
+        searchPopup.getContent().add(searchResults);
+        searchPopup.setAutoHide(true);
+
+        searchField.textProperty().addListener((obs, oldV, newV) -> runSearch(newV));
+        searchField.addEventFilter(KeyEvent.KEY_PRESSED, this::handleSearchKey);
+    }
+
     public void setSelectedCategory(String categoryName) {
-        loadAllTabs();
+        if (mainTabPane.getTabs().isEmpty()) {
+            createTabs();
+        }
         selectTabByName(categoryName);
     }
 
-    private void loadAllTabs() {
-        mainTabPane.getTabs().clear();
+    // ================================
+    // Lazy tab / group materialization
+    // ================================
+
+    private void createTabs() {
         for (String cat : dbManager.getOrderedCategories()) {
-            Accordion accordion = new Accordion();
-            for (MedicationGroup group : dbManager.getMedicationData().getOrDefault(cat, java.util.List.of())) {
-                ListView<MedicationItem> lv = createListView(group.medications());
-                TitledPane tp = new TitledPane(group.title(), lv);
-                accordion.getPanes().add(tp);
-            }
-            mainTabPane.getTabs().add(new Tab(cat, accordion));
+            mainTabPane.getTabs().add(new Tab(cat));
+        }
+        // Added after the tabs so the TabPane's automatic selection of the first tab doesn't build it.
+        mainTabPane.getSelectionModel().selectedItemProperty().addListener((obs, old, tab) -> {
+            if (tab != null) materializeTab(tab);
+        });
+        rebuildSearchIndex();
+    }
+
+    private Accordion materializeTab(Tab tab) {
+        if (tab.getContent() instanceof Accordion accordion) return accordion;
+        Accordion accordion = new Accordion();
+        for (MedicationGroup group : dbManager.getMedicationData().getOrDefault(tab.getText(), List.of())) {
+            TitledPane tp = new TitledPane(group.title(), null);
+            tp.setUserData(group);
+            tp.expandedProperty().addListener((obs, wasExpanded, expanded) -> {
+                if (expanded) materializePane(tp);
+            });
+            accordion.getPanes().add(tp);
         }
+        tab.setContent(accordion);
+        return accordion;
+    }
+
+    private ListView<MedicationItem> materializePane(TitledPane pane) {
+        MedicationGroup group = (MedicationGroup) pane.getUserData();
+        ListView<MedicationItem> lv = groupLists.get(group);
+        if (lv == null) {
+            lv = createListView(group.medications());
+            groupLists.put(group, lv);
+            pane.setContent(lv);
+        }
+        return lv;
     }
 
     private ListView<MedicationItem> createListView(List<MedicationItem> items) {
@@ -82,71 +151,98 @@ public class MainController {
     }
 
     private void refreshSaveButton() {
-        btnSave.setDisable(!dbManager.hasPendingChanges());
+        btnSave.setDisable(saving || !dbManager.hasPendingChanges());
     }
 
     @FXML
     private void findMedication() {
-        TextInputDialog searchDialog = new TextInputDialog();
-        searchDialog.setTitle("Find Medication");
-        searchDialog.setHeaderText("Search for a medication across all categories");
-        searchDialog.setContentText("Query:");
-
-        Optional<String> searchResult = searchDialog.showAndWait();
-        searchResult.ifPresent(query -> {
-            String lowerQuery = query.toLowerCase();
-            List<MedicationItem> matches = new ArrayList<>();
-            
-            for (List<MedicationGroup> groups : dbManager.getMedicationData().values()) {
-                for (MedicationGroup group : groups) {
-                    for (MedicationItem item : group.medications()) {
-                        if (item.getText().toLowerCase().contains(lowerQuery)) {
-                            matches.add(item);
-                        }
-                    }
-                }
-            }
+        searchField.requestFocus();
+        searchField.selectAll();
+    }
 
-            if (matches.isEmpty()) {
-                showAlert(Alert.AlertType.INFORMATION, "No Results", "No medications found matching: " + query);
-            } else {
-                Dialog<MedicationItem> resultsDialog = new Dialog<>();
-                resultsDialog.setTitle("Search Results");
-                resultsDialog.setHeaderText("Found " + matches.size() + " matches. Double-click to select.");
-                
-                ButtonType selectButtonType = new ButtonType("Select", ButtonBar.ButtonData.OK_DONE);
-                resultsDialog.getDialogPane().getButtonTypes().addAll(selectButtonType, ButtonType.CANCEL);
-                
-                ListView<MedicationItem> listView = new ListView<>();
-                listView.setItems(FXCollections.observableArrayList(matches));
-                listView.setPrefHeight(300);
-                listView.setPrefWidth(400);
-                
-                listView.setOnMouseClicked(event -> {
-                    if (event.getClickCount() == 2) {
-                        MedicationItem selected = listView.getSelectionModel().getSelectedItem();
-                        if (selected != null) {
-                            resultsDialog.setResult(selected);
-                            resultsDialog.close();
-                        }
-                    }
-                });
+    // ================================
+    // Typeahead search
+    // ================================
+
+    private void rebuildSearchIndex() {
+        List<MedicationSearchIndex.Entry> snapshot = dbManager.snapshotSearchEntries();
+        searchIndex = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            MedicationSearchIndex index = MedicationSearchIndex.build(snapshot);
+            System.out.printf("[MED SEARCH] Indexed %,d items in %.1f ms%n", index.size(), (System.nanoTime() - start) / 1_000_000.0);
+            return index;
+        }, SEARCH_EXECUTOR);
+        if (searchPopup.isShowing()) {
+            runSearch(searchField.getText());
+        }
+    }
 
-                resultsDialog.getDialogPane().setContent(listView);
-                
-                resultsDialog.setResultConverter(dialogButton -> {
-                    if (dialogButton == selectButtonType) {
-                        return listView.getSelectionModel().getSelectedItem();
+    private void runSearch(String query) {
+        long generation = ++searchGeneration;
+        if (query == null || query.isBlank() || searchIndex == null) {
+            searchPopup.hide();
+            return;
+        }
+        searchIndex.thenApplyAsync(index -> index.search(query, SEARCH_LIMIT), SEARCH_EXECUTOR)
+                .whenComplete((hits, error) -> Platform.runLater(() -> {
+                    if (generation != searchGeneration) return; // superseded by a newer keystroke
+                    if (error != null) {
+                        System.err.println("Medication search failed: " + error.getMessage());
+                        return;
                     }
-                    return null;
-                });
+                    showSearchResults(hits);
+                }));
+    }
+
+    private void showSearchResults(List<MedicationSearchIndex.Hit> hits) {
+        searchResults.getItems().setAll(hits);
+        if (!hits.isEmpty()) {
+            searchResults.getSelectionModel().selectFirst();
+            searchResults.scrollTo(0);
+        }
+        if (!searchPopup.isShowing() && searchField.getScene() != null) {
+            Bounds bounds = searchField.localToScreen(searchField.getBoundsInLocal());
+            searchPopup.show(searchField, bounds.getMinX(), bounds.getMaxY());
+        }
+    }
 
-                resultsDialog.showAndWait().ifPresent(item -> {
-                    outputTextArea.appendText(item.getText() + "\n");
-                    copyToClipboard(item.getText());
-                });
+    // Focus stays in the search field; arrows move the highlighted result.
+    private void handleSearchKey(KeyEvent event) {
+        var selection = searchResults.getSelectionModel();
+        switch (event.getCode()) {
+            case DOWN -> {
+                if (!searchPopup.isShowing()) return;
+                selection.selectNext();
+                searchResults.scrollTo(selection.getSelectedIndex());
             }
-        });
+            case UP -> {
+                if (!searchPopup.isShowing()) return;
+                selection.selectPrevious();
+                searchResults.scrollTo(selection.getSelectedIndex());
+            }
+            case ENTER -> {
+                if (!searchPopup.isShowing()) return;
+                chooseSearchHit(selection.getSelectedItem());
+            }
+            case ESCAPE -> {
+                if (!searchPopup.isShowing()) return;
+                searchPopup.hide();
+            }
+            default -> {
+                return;
+            }
+        }
+        event.consume();
+    }
+
+    private void chooseSearchHit(MedicationSearchIndex.Hit hit) {
+        if (hit == null) return;
+        searchPopup.hide();
+        String text = hit.entry().item().getText();
+        outputTextArea.appendText(text + "\n");
+        copyToClipboard(text);
+        revealItem(hit.entry());
+        searchField.selectAll();
     }
 
     @FXML
@@ -199,8 +295,9 @@ public class MainController {
             if (!pair.getValue().isBlank()) {
                 MedicationItem newItem = new MedicationItem(pair.getValue());
                 dbManager.addItem(category, pair.getKey(), newItem);
-                refreshCurrentTab();
+                refreshGroupList(category, pair.getKey());
                 refreshSaveButton();
+                rebuildSearchIndex();
             }
         });
     }
@@ -235,10 +332,10 @@ public class MainController {
         Optional<String> result = dialog.showAndWait();
         result.ifPresent(newText -> {
             if (!newText.equals(activeItem.getText())) {
-                activeItem.setText(newText);
+                dbManager.updateItem(activeItem, newText);
                 activeListView.refresh();
-                dbManager.markDirty();
                 refreshSaveButton();
+                rebuildSearchIndex();
             }
         });
     }
@@ -264,14 +361,25 @@ public class MainController {
             btnEdit.setDisable(true);
             btnDelete.setDisable(true);
             refreshSaveButton();
+            rebuildSearchIndex();
         }
     }
 
     @FXML
     private void saveChanges() {
-        dbManager.commitPending();
+        // Report the outcome only once the change log write has finished; Save stays off until then.
+        saving = true;
         refreshSaveButton();
-        showAlert(Alert.AlertType.INFORMATION, "Saved", "Changes have been saved to the current session.");
+        dbManager.commitPending().whenComplete((ignored, error) -> Platform.runLater(() -> {
+            saving = false;
+            refreshSaveButton();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save medication changes: " + cause.getMessage());
+            } else {
+                showAlert(Alert.AlertType.INFORMATION, "Saved", "Changes have been saved.");
+            }
+        }));
     }
 
     @FXML private void copyAll() {
@@ -305,30 +413,45 @@ public class MainController {
 
     @FXML private void quitApp() { System.exit(0); }
 
-    private void selectTabByName(String name) {
-        mainTabPane.getTabs().stream()
+    private Optional<Tab> selectTabByName(String name) {
+        Optional<Tab> tab = mainTabPane.getTabs().stream()
                 .filter(t -> t.getText().equals(name))
-                .findFirst()
-                .ifPresent(t -> mainTabPane.getSelectionModel().select(t));
+                .findFirst();
+        tab.ifPresent(t -> {
+            mainTabPane.getSelectionModel().select(t);
+            materializeTab(t); // already-selected tabs don't fire the selection listener
+        });
+        return tab;
     }
 
-    private void refreshCurrentTab() {
-        Tab selectedTab = mainTabPane.getSelectionModel().getSelectedItem();
-        if (selectedTab != null) {
-            String category = selectedTab.getText();
-            // Rebuild accordion for this tab
-            Accordion accordion = new Accordion();
-            for (MedicationGroup group : dbManager.getMedicationData().getOrDefault(category, java.util.List.of())) {
-                ListView<MedicationItem> lv = createListView(group.medications());
-                TitledPane tp = new TitledPane(group.title(), lv);
-                accordion.getPanes().add(tp);
+    // Opens the item's tab and group and selects it, building only what is needed.
+    private void revealItem(MedicationSearchIndex.Entry entry) {
+        selectTabByName(entry.category()).ifPresent(tab -> {
+            Accordion accordion = materializeTab(tab);
+            for (TitledPane pane : accordion.getPanes()) {
+                if (((MedicationGroup) pane.getUserData()).title().equals(entry.group())) {
+                    ListView<MedicationItem> lv = materializePane(pane);
+                    accordion.setExpandedPane(pane);
+                    lv.getSelectionModel().select(entry.item());
+                    lv.scrollTo(entry.item());
+                    return;
+                }
+            }
+        });
+    }
+
+    // Groups that were never expanded pick up the change when they are built.
+    private void refreshGroupList(String category, String groupTitle) {
+        for (MedicationGroup group : dbManager.getMedicationData().getOrDefault(category, List.of())) {
+            ListView<MedicationItem> lv = groupLists.get(group);
+            if (lv != null && group.title().equals(groupTitle)) {
+                lv.getItems().setAll(group.medications());
             }
-            selectedTab.setContent(accordion);
         }
     }
 
     private boolean isSeparator(String text) {
-        return text.trim().matches("^-{3,}$|^---.*---$|^\\.{3,}$");
+        return MedicationItem.isSeparator(text);
     }
 
     private void copyToClipboard(String text) {
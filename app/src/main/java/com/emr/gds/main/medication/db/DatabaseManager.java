@@ -2,16 +2,20 @@ package com.emr.gds.main.medication.db;
 
 import com.emr.gds.main.medication.model.MedicationGroup;
 import com.emr.gds.main.medication.model.MedicationItem;
-import org.w3c.dom.*;
-import javax.xml.parsers.*;
-import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseManager {
-    private boolean pendingChanges = false;
+    private volatile boolean pendingChanges = false;
     private Map<String, List<MedicationGroup>> cachedData = null;
     private List<String> cachedCategories = null;
 
+    // Where each loaded item lives, so edits find their group without scanning the catalog.
+    private record Location(String category, MedicationGroup group) {}
+    private final Map<MedicationItem, Location> itemLocations = new IdentityHashMap<>();
+    // Guarded by itself: edits append on the UI thread, a finished save trims it on the writer thread.
+    private final List<MedicationChangeLog.Change> pendingLog = new ArrayList<>();
+
     public void createTables() {
         // Mock implementation
     }
@@ -34,60 +38,51 @@ public class DatabaseManager {
         return cachedData;
     }
 
+    /**
+     * Loads the shared {@link MedicationCatalog} so later windows open without reading med_data.xml.
+     * Safe to call from a background thread; the startup pipeline calls it while the login screen is up.
+     */
+    public static void preload() {
+        MedicationCatalog.shared();
+    }
+
+    // Each manager edits its own mutable copy of the shared, immutable catalog.
     private void loadData() {
+        MedicationCatalog catalog = MedicationCatalog.shared();
+        cachedCategories = new ArrayList<>(catalog.categories());
         cachedData = new HashMap<>();
-        cachedCategories = new ArrayList<>();
-
-        try (InputStream is = getClass().getResourceAsStream("/com/emr/gds/main/medication/med_data.xml")) {
-            if (is == null) {
-                System.err.println("Could not find med_data.xml");
-                return;
+        itemLocations.clear();
+        for (String category : catalog.categories()) {
+            List<MedicationGroup> copy = new ArrayList<>();
+            for (MedicationCatalog.Group group : catalog.groups(category)) {
+                List<MedicationItem> items = new ArrayList<>(group.items().size());
+                MedicationGroup mutableGroup = new MedicationGroup(group.title(), items);
+                for (String text : group.items()) {
+                    MedicationItem item = new MedicationItem(text);
+                    items.add(item);
+                    itemLocations.put(item, new Location(category, mutableGroup));
+                }
+                copy.add(mutableGroup);
             }
+            cachedData.put(category, copy);
+        }
+    }
 
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(is);
-            doc.getDocumentElement().normalize();
-
-            NodeList catList = doc.getElementsByTagName("category");
-            for (int i = 0; i < catList.getLength(); i++) {
-                Node catNode = catList.item(i);
-                if (catNode.getNodeType() == Node.ELEMENT_NODE) {
-                    Element catElement = (Element) catNode;
-                    String categoryName = catElement.getAttribute("name");
-                    cachedCategories.add(categoryName);
-
-                    List<MedicationGroup> groups = new ArrayList<>();
-                    NodeList groupList = catElement.getElementsByTagName("group");
-
-                    for (int j = 0; j < groupList.getLength(); j++) {
-                        Node groupNode = groupList.item(j);
-                        if (groupNode.getNodeType() == Node.ELEMENT_NODE) {
-                            Element groupElement = (Element) groupNode;
-                            String groupName = groupElement.getAttribute("name");
-
-                            List<MedicationItem> items = new ArrayList<>();
-                            NodeList itemList = groupElement.getElementsByTagName("item");
-
-                            for (int k = 0; k < itemList.getLength(); k++) {
-                                Node itemNode = itemList.item(k);
-                                if (itemNode.getNodeType() == Node.ELEMENT_NODE) {
-                                    String itemText = itemNode.getTextContent().trim();
-                                    items.add(new MedicationItem(itemText));
-                                }
-                            }
-                            groups.add(new MedicationGroup(groupName, items));
-                        }
-                    }
-                    cachedData.put(categoryName, groups);
+    /**
+     * Flattens the current data, in category order, into entries for {@link MedicationSearchIndex}.
+     * The list is a snapshot, so the index can be built on another thread while edits continue.
+     */
+    public List<MedicationSearchIndex.Entry> snapshotSearchEntries() {
+        List<MedicationSearchIndex.Entry> entries = new ArrayList<>();
+        Map<String, List<MedicationGroup>> data = getMedicationData();
+        for (String category : getOrderedCategories()) {
+            for (MedicationGroup group : data.getOrDefault(category, List.of())) {
+                for (MedicationItem item : group.medications()) {
+                    entries.add(new MedicationSearchIndex.Entry(category, group.title(), item, item.getText()));
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            // Fallback to empty if error
-            cachedCategories = new ArrayList<>();
-            cachedData = new HashMap<>();
         }
+        return entries;
     }
 
     public boolean hasPendingChanges() {
@@ -98,20 +93,42 @@ public class DatabaseManager {
         this.pendingChanges = true;
     }
 
-    public void commitPending() {
-        pendingChanges = false;
+    /**
+     * Hands the edits made since the last save to the background writer and returns at once.
+     * The returned future completes when they are safely in the change log. The edits stay queued
+     * until then, so a failed write leaves them at the front of the queue for the next save.
+     */
+    public CompletableFuture<Void> commitPending() {
+        List<MedicationChangeLog.Change> changes;
+        synchronized (pendingLog) {
+            changes = List.copyOf(pendingLog);
+        }
+        CompletableFuture<Void> write = MedicationStore.commit(changes);
+        write.thenRun(() -> {
+            synchronized (pendingLog) {
+                pendingLog.subList(0, changes.size()).clear();
+                pendingChanges = !pendingLog.isEmpty();
+            }
+        });
+        write.exceptionally(error -> {
+            markDirty();
+            return null;
+        });
+        return write;
     }
 
-    public void removeItem(MedicationItem item) {
-        if (cachedData == null) return;
-        for (List<MedicationGroup> groups : cachedData.values()) {
-            for (MedicationGroup group : groups) {
-                if (group.medications().remove(item)) {
-                    markDirty();
-                    return;
-                }
-            }
+    private void record(MedicationChangeLog.Change change) {
+        synchronized (pendingLog) {
+            pendingLog.add(change);
         }
+        markDirty();
+    }
+
+    public void removeItem(MedicationItem item) {
+        Location location = itemLocations.remove(item);
+        if (location == null) return;
+        location.group().medications().remove(item);
+        record(MedicationChangeLog.Change.remove(location.category(), location.group().title(), item.getText()));
     }
 
     public void addItem(String category, String groupName, MedicationItem item) {
@@ -121,10 +138,23 @@ public class DatabaseManager {
             for (MedicationGroup group : groups) {
                 if (group.title().equals(groupName)) {
                     group.medications().add(item);
-                    markDirty();
+                    itemLocations.put(item, new Location(category, group));
+                    record(MedicationChangeLog.Change.add(category, groupName, item.getText()));
                     return;
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Changes the text of a loaded item and records the edit for the next save.
+     */
+    public void updateItem(MedicationItem item, String newText) {
+        Location location = itemLocations.get(item);
+        if (location != null) {
+            record(MedicationChangeLog.Change.edit(location.category(), location.group().title(), item.getText(), newText));
+        }
+        item.setText(newText);
+        markDirty();
+    }
+}
@@ -0,0 +1,300 @@
+package com.emr.gds.main.medication.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Immutable medication catalog read from {@code med_data.xml}, shared by every window in the process.
+ * <p>
+ * The XML is read with a streaming StAX parser. The result is also written to a small binary cache
+ * keyed by the SHA-256 of the XML, so later launches with an unchanged file skip XML parsing and just
+ * read the cache. A missing, stale or corrupt cache is ignored and rewritten. Loading, saved edits and
+ * compaction are handled by {@link MedicationStore}.
+ */
+public final class MedicationCatalog {
+
+    /** A named group of item texts, in file order. */
+    public record Group(String title, List<String> items) {
+        public Group {
+            items = List.copyOf(items);
+        }
+    }
+
+    // ================================
+    // Constants
+    // ================================
+    private static final int CACHE_MAGIC = 0x474D4544; // "GMED"
+    private static final int CACHE_VERSION = 1;
+
+    private final List<String> categories;
+    private final Map<String, List<Group>> groups;
+
+    private MedicationCatalog(List<String> categories, Map<String, List<Group>> groups) {
+        this.categories = List.copyOf(categories);
+        Map<String, List<Group>> copy = new LinkedHashMap<>();
+        groups.forEach((category, list) -> copy.put(category, List.copyOf(list)));
+        this.groups = copy;
+    }
+
+    // ================================
+    // Accessors
+    // ================================
+
+    /** Category names in file order. */
+    public List<String> categories() {
+        return categories;
+    }
+
+    /** Groups of a category in file order; empty for unknown categories. */
+    public List<Group> groups(String category) {
+        return groups.getOrDefault(category, List.of());
+    }
+
+    public int itemCount() {
+        int count = 0;
+        for (List<Group> list : groups.values()) {
+            for (Group g : list) count += g.items().size();
+        }
+        return count;
+    }
+
+    // ================================
+    // Loading
+    // ================================
+
+    /**
+     * Returns the process-wide catalog, loading it on first use. Safe to call from any thread.
+     */
+    public static MedicationCatalog shared() {
+        return MedicationStore.catalog();
+    }
+
+    static MedicationCatalog empty() {
+        return new MedicationCatalog(List.of(), Map.of());
+    }
+
+    /**
+     * Returns a new catalog with the given edits applied in order. Items are matched by text within
+     * their group; an add to an unknown category or group creates it, other edits to missing items
+     * are ignored.
+     */
+    MedicationCatalog apply(List<MedicationChangeLog.Change> changes) {
+        List<String> newCategories = new ArrayList<>(categories);
+        Map<String, List<Group>> newGroups = new LinkedHashMap<>();
+        Map<String, Map<String, List<String>>> items = new LinkedHashMap<>();
+        for (String category : categories) {
+            Map<String, List<String>> byTitle = new LinkedHashMap<>();
+            for (Group g : groups(category)) byTitle.put(g.title(), new ArrayList<>(g.items()));
+            items.put(category, byTitle);
+        }
+
+        for (MedicationChangeLog.Change c : changes) {
+            Map<String, List<String>> byTitle = items.get(c.category());
+            if (byTitle == null) {
+                if (c.type() != MedicationChangeLog.Type.ADD) continue;
+                byTitle = new LinkedHashMap<>();
+                items.put(c.category(), byTitle);
+                newCategories.add(c.category());
+            }
+            List<String> list = byTitle.get(c.group());
+            if (list == null) {
+                if (c.type() != MedicationChangeLog.Type.ADD) continue;
+                list = new ArrayList<>();
+                byTitle.put(c.group(), list);
+            }
+            switch (c.type()) {
+                case ADD -> list.add(c.text());
+                case REMOVE -> list.remove(c.text());
+                case EDIT -> {
+                    int at = list.indexOf(c.text());
+                    if (at >= 0) list.set(at, c.newText());
+                }
+            }
+        }
+
+        items.forEach((category, byTitle) -> {
+            List<Group> list = new ArrayList<>(byTitle.size());
+            byTitle.forEach((title, texts) -> list.add(new Group(title, texts)));
+            newGroups.put(category, list);
+        });
+        return new MedicationCatalog(newCategories, newGroups);
+    }
+
+    /**
+     * Streams {@code <category name><group name><item>text</item></group></category>} elements.
+     */
+    static MedicationCatalog parseXml(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        List<String> categories = new ArrayList<>();
+        Map<String, List<Group>> groups = new LinkedHashMap<>();
+        List<Group> currentGroups = null;
+        String groupTitle = null;
+        List<String> groupItems = null;
+
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "category" -> {
+                            String name = attribute(reader, "name");
+                            categories.add(name);
+                            currentGroups = new ArrayList<>();
+                            groups.put(name, currentGroups);
+                        }
+                        case "group" -> {
+                            groupTitle = attribute(reader, "name");
+                            groupItems = new ArrayList<>();
+                        }
+                        case "item" -> {
+                            String text = reader.getElementText().trim();
+                            if (groupItems != null) groupItems.add(text);
+                        }
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "group".equals(reader.getLocalName())) {
+                    if (currentGroups != null && groupItems != null) {
+                        currentGroups.add(new Group(groupTitle, groupItems));
+                    }
+                    groupItems = null;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new MedicationCatalog(categories, groups);
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    // ================================
+    // Binary cache
+    // ================================
+
+    static MedicationCatalog readCache(Path file, byte[] expectedHash) {
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+            if (!Arrays.equals(hash, expectedHash)) return null;
+
+            int categoryCount = in.readInt();
+            List<String> categories = new ArrayList<>(categoryCount);
+            Map<String, List<Group>> groups = new LinkedHashMap<>();
+            for (int c = 0; c < categoryCount; c++) {
+                String category = in.readUTF();
+                int groupCount = in.readInt();
+                List<Group> list = new ArrayList<>(groupCount);
+                for (int g = 0; g < groupCount; g++) {
+                    String title = in.readUTF();
+                    int itemCount = in.readInt();
+                    List<String> items = new ArrayList<>(itemCount);
+                    for (int i = 0; i < itemCount; i++) items.add(in.readUTF());
+                    list.add(new Group(title, items));
+                }
+                categories.add(category);
+                groups.put(category, list);
+            }
+            return new MedicationCatalog(categories, groups);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable medication cache " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static void writeCache(Path file, byte[] hash, MedicationCatalog catalog) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeByte(hash.length);
+                out.write(hash);
+                out.writeInt(catalog.categories.size());
+                for (String category : catalog.categories) {
+                    out.writeUTF(category);
+                    List<Group> list = catalog.groups(category);
+                    out.writeInt(list.size());
+                    for (Group group : list) {
+                        out.writeUTF(group.title());
+                        out.writeInt(group.items().size());
+                        for (String item : group.items()) out.writeUTF(item);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write medication cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    // ================================
+    // XML output (compaction)
+    // ================================
+
+    /**
+     * Writes the catalog in the med_data.xml format.
+     */
+    void writeXml(OutputStream out) throws XMLStreamException {
+        XMLStreamWriter w = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+        try {
+            w.writeStartDocument("UTF-8", "1.0");
+            w.writeCharacters("\n");
+            w.writeStartElement("medications");
+            for (String category : categories) {
+                w.writeCharacters("\n    ");
+                w.writeStartElement("category");
+                w.writeAttribute("name", category);
+                for (Group group : groups(category)) {
+                    w.writeCharacters("\n        ");
+                    w.writeStartElement("group");
+                    w.writeAttribute("name", group.title());
+                    for (String item : group.items()) {
+                        w.writeCharacters("\n            ");
+                        w.writeStartElement("item");
+                        w.writeCharacters(item);
+                        w.writeEndElement();
+                    }
+                    w.writeCharacters("\n        ");
+                    w.writeEndElement();
+                }
+                w.writeCharacters("\n    ");
+                w.writeEndElement();
+            }
+            w.writeCharacters("\n");
+            w.writeEndElement();
+            w.writeCharacters("\n");
+            w.writeEndDocument();
+        } finally {
+            w.close();
+        }
+    }
+}
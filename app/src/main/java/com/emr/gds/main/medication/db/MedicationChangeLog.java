@@ -0,0 +1,183 @@
+package com.emr.gds.main.medication.db;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Append-only log of medication catalog edits, replayed on top of the catalog file at load time.
+ * <p>
+ * The first line records the SHA-256 of the catalog file the edits apply to ({@code #base <hex>}),
+ * followed by one tab-separated line per change. When the catalog is compacted, the new file is
+ * written first and the log is then reset to a header for the new hash; if the process dies in
+ * between, the old header no longer matches and the already-compacted edits are not applied twice.
+ */
+final class MedicationChangeLog {
+
+    /** Kind of edit. */
+    enum Type { ADD, REMOVE, EDIT }
+
+    /** One edit, addressed by category, group title and item text. */
+    record Change(Type type, String category, String group, String text, String newText) {
+        static Change add(String category, String group, String text) {
+            return new Change(Type.ADD, category, group, text, null);
+        }
+
+        static Change remove(String category, String group, String text) {
+            return new Change(Type.REMOVE, category, group, text, null);
+        }
+
+        static Change edit(String category, String group, String oldText, String newText) {
+            return new Change(Type.EDIT, category, group, oldText, newText);
+        }
+    }
+
+    private static final String HEADER_PREFIX = "#base ";
+
+    private final Path file;
+
+    MedicationChangeLog(Path file) {
+        this.file = file;
+    }
+
+    // ================================
+    // Reading
+    // ================================
+
+    /**
+     * Returns the changes recorded against the catalog with the given hash, or an empty list when the
+     * log is missing or belongs to a different (already compacted) catalog file.
+     */
+    List<Change> read(byte[] baseHash) {
+        if (!Files.isRegularFile(file)) return List.of();
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') end--;
+            if (end < bytes.length) {
+                // A write was cut short; drop the partial line so later appends start on a clean line.
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+
+            String[] lines = new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n");
+            if (lines.length == 0 || !lines[0].equals(header(baseHash))) return List.of();
+            List<Change> changes = new ArrayList<>(lines.length - 1);
+            for (int i = 1; i < lines.length; i++) {
+                Change change = decode(lines[i]);
+                if (change != null) changes.add(change);
+            }
+            return changes;
+        } catch (IOException e) {
+            System.err.println("Could not read medication change log " + file + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    // ================================
+    // Writing (called from the medication writer thread)
+    // ================================
+
+    /**
+     * Appends changes and forces them to disk. Starts a new log when none exists for {@code baseHash}.
+     *
+     * @return The number of changes now in the log.
+     */
+    int append(byte[] baseHash, List<Change> changes, int changesInLog) throws IOException {
+        Files.createDirectories(file.getParent());
+        boolean fresh = changesInLog == 0 || !Files.isRegularFile(file);
+        StringBuilder sb = new StringBuilder();
+        if (fresh) sb.append(header(baseHash)).append('\n');
+        for (Change c : changes) sb.append(encode(c)).append('\n');
+
+        StandardOpenOption mode = fresh ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            channel.write(StandardCharsets.UTF_8.encode(sb.toString()));
+            channel.force(false);
+        }
+        return (fresh ? 0 : changesInLog) + changes.size();
+    }
+
+    /**
+     * Resets the log to an empty header for a freshly compacted catalog file.
+     */
+    void reset(byte[] newBaseHash) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(header(newBaseHash));
+            out.write('\n');
+        }
+    }
+
+    // ================================
+    // Encoding
+    // ================================
+
+    private static String header(byte[] hash) {
+        return HEADER_PREFIX + HexFormat.of().formatHex(hash);
+    }
+
+    static String encode(Change c) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(c.type().name().charAt(0));
+        sb.append('\t').append(escape(c.category()));
+        sb.append('\t').append(escape(c.group()));
+        sb.append('\t').append(escape(c.text()));
+        if (c.type() == Type.EDIT) sb.append('\t').append(escape(c.newText()));
+        return sb.toString();
+    }
+
+    static Change decode(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length < 4) return null;
+        return switch (f[0]) {
+            case "A" -> Change.add(unescape(f[1]), unescape(f[2]), unescape(f[3]));
+            case "R" -> Change.remove(unescape(f[1]), unescape(f[2]), unescape(f[3]));
+            case "E" -> f.length < 5 ? null : Change.edit(unescape(f[1]), unescape(f[2]), unescape(f[3]), unescape(f[4]));
+            default -> null;
+        };
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}
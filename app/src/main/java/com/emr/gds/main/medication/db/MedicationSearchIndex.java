@@ -0,0 +1,231 @@
+package com.emr.gds.main.medication.db;
+
+import com.emr.gds.main.medication.model.MedicationItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable token index over the medication catalog used by the typeahead search.
+ * <p>
+ * Every item is indexed under the normalized words of its own text (name, strength, dosing) plus
+ * the words of its group and category. Query words are matched as prefixes through a binary search
+ * over the sorted vocabulary; a word with no prefix match falls back to a substring scan of the
+ * vocabulary (not of the items), so "dipine" still finds amlodipine. An item must match every query
+ * word. Results are ranked so that matches on the item text beat matches on the group or category.
+ * <p>
+ * Instances are built from a snapshot and never change, so they can be queried from any thread.
+ */
+public final class MedicationSearchIndex {
+
+    /** One searchable item together with where it lives in the catalog. */
+    public record Entry(String category, String group, MedicationItem item, String text) {}
+
+    /** A ranked search result. */
+    public record Hit(Entry entry, int score) {
+        @Override
+        public String toString() {
+            return entry.text() + "   [" + entry.category() + " › " + entry.group() + "]";
+        }
+    }
+
+    private static final int MIN_INFIX_LENGTH = 3;
+    private static final int OTHER = 0;
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+
+    private final Entry[] entries;
+    private final String[] itemKeys;     // normalized item text, per entry
+    private final String[] vocabulary;   // sorted distinct words
+    private final int[][] postings;      // entry ids per vocabulary word, ascending
+
+    private MedicationSearchIndex(Entry[] entries, String[] itemKeys, String[] vocabulary, int[][] postings) {
+        this.entries = entries;
+        this.itemKeys = itemKeys;
+        this.vocabulary = vocabulary;
+        this.postings = postings;
+    }
+
+    // ================================
+    // Building
+    // ================================
+
+    /**
+     * Builds an index over the given entries. Separator rows are skipped.
+     */
+    public static MedicationSearchIndex build(List<Entry> source) {
+        List<Entry> kept = new ArrayList<>(source.size());
+        for (Entry e : source) {
+            if (!MedicationItem.isSeparator(e.text())) kept.add(e);
+        }
+
+        Entry[] entries = kept.toArray(new Entry[0]);
+        String[] itemKeys = new String[entries.length];
+        Map<String, IntList> byWord = new HashMap<>();
+        Map<String, String[]> contextWords = new HashMap<>(); // group/category words are shared by many items
+
+        for (int id = 0; id < entries.length; id++) {
+            Entry e = entries[id];
+            itemKeys[id] = normalize(e.text());
+            addWords(byWord, id, tokenize(itemKeys[id]));
+            addWords(byWord, id, contextWords.computeIfAbsent(e.group(), g -> tokenize(normalize(g))));
+            addWords(byWord, id, contextWords.computeIfAbsent(e.category(), c -> tokenize(normalize(c))));
+        }
+
+        String[] vocabulary = byWord.keySet().toArray(new String[0]);
+        Arrays.sort(vocabulary);
+        int[][] postings = new int[vocabulary.length][];
+        for (int i = 0; i < vocabulary.length; i++) {
+            postings[i] = byWord.get(vocabulary[i]).toArray();
+        }
+        return new MedicationSearchIndex(entries, itemKeys, vocabulary, postings);
+    }
+
+    private static void addWords(Map<String, IntList> byWord, int id, String[] words) {
+        for (String w : words) {
+            byWord.computeIfAbsent(w, k -> new IntList()).addIfLast(id);
+        }
+    }
+
+    // ================================
+    // Querying
+    // ================================
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns up to {@code limit} items matching every word of the query, best first.
+     */
+    public List<Hit> search(String query, int limit) {
+        String[] words = tokenize(normalize(query));
+        if (words.length == 0 || limit <= 0) return List.of();
+
+        BitSet candidates = null;
+        for (String w : words) {
+            BitSet matches = entriesMatching(w);
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.and(matches);
+            }
+            if (candidates.isEmpty()) return List.of();
+        }
+
+        // Keep the best `limit` hits in a min-heap, then emit them best first.
+        Comparator<Hit> ranking = Comparator.comparingInt(Hit::score)
+                .thenComparing(h -> h.entry().text(), Comparator.reverseOrder());
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ranking);
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            best.add(new Hit(entries[id], score(itemKeys[id], words)));
+            if (best.size() > limit) best.poll();
+        }
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(ranking.reversed());
+        return result;
+    }
+
+    private BitSet entriesMatching(String word) {
+        BitSet matches = new BitSet(entries.length);
+        int from = lowerBound(word);
+        int i = from;
+        while (i < vocabulary.length && vocabulary[i].startsWith(word)) {
+            for (int id : postings[i]) matches.set(id);
+            i++;
+        }
+        if (i == from && word.length() >= MIN_INFIX_LENGTH) {
+            for (int v = 0; v < vocabulary.length; v++) {
+                if (vocabulary[v].contains(word)) {
+                    for (int id : postings[v]) matches.set(id);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int lowerBound(String word) {
+        int lo = 0;
+        int hi = vocabulary.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (vocabulary[mid].compareTo(word) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int score(String itemKey, String[] words) {
+        int score = 0;
+        for (String w : words) {
+            if (itemKey.startsWith(w)) {
+                score += 100;
+            } else if (itemKey.contains(" " + w)) {
+                score += 50;
+            } else if (itemKey.contains(w)) {
+                score += 20;
+            } else {
+                score += 5; // matched through the group or category only
+            }
+        }
+        // Prefer shorter, more specific entries among equal matches.
+        return score * 4 - Math.min(itemKey.length(), 200) / 10;
+    }
+
+    // ================================
+    // Normalization
+    // ================================
+
+    /**
+     * Lower-cases the text and splits it into words of letters or digits separated by single spaces.
+     * Letters and digits are split apart ("500mg" becomes "500 mg"), decimal points are kept ("2.5")
+     * and other dots are dropped, so "p.o. q.d." becomes "po qd".
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(lower.length());
+        int prevType = OTHER;
+        for (int i = 0, n = lower.length(); i < n; i++) {
+            char c = lower.charAt(i);
+            if (c == '.') {
+                if (prevType == DIGIT && i + 1 < n && Character.isDigit(lower.charAt(i + 1))) out.append('.');
+                continue;
+            }
+            int type = Character.isLetter(c) ? LETTER : Character.isDigit(c) ? DIGIT : OTHER;
+            if (type == OTHER) {
+                prevType = OTHER;
+                continue;
+            }
+            if (out.length() > 0 && type != prevType) out.append(' ');
+            out.append(c);
+            prevType = type;
+        }
+        return out.toString();
+    }
+
+    private static String[] tokenize(String normalized) {
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    /** Growable int array for postings; ids arrive in ascending order, so duplicates are adjacent. */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.emr.gds.main.medication.db;
+
+import com.emr.gds.main.IAMPaths;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Owns the process-wide {@link MedicationCatalog} and its persistence.
+ * <p>
+ * The catalog is read from {@code app/db/med_data.xml} once edits have been compacted into it, and
+ * from the bundled resource before that. Saved edits are appended to {@code app/db/med_changes.log}
+ * on a background writer thread and replayed on the next load; once the log grows past
+ * {@link #COMPACT_THRESHOLD} changes it is folded back into the XML file. Saving from the UI only
+ * queues work, so it stays instant regardless of catalog size.
+ */
+final class MedicationStore {
+
+    // ================================
+    // Constants
+    // ================================
+    private static final String XML_RESOURCE = "/com/emr/gds/main/medication/med_data.xml";
+    private static final String XML_FILE = "med_data.xml";
+    private static final String LOG_FILE = "med_changes.log";
+    private static final String CACHE_FILE = "med_data.bin";
+    static final int COMPACT_THRESHOLD = 500;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "medication-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ================================
+    // State (loaded once; mutated only on the writer thread afterwards)
+    // ================================
+    private static volatile MedicationCatalog current;
+    private static MedicationChangeLog changeLog;
+    private static byte[] baseHash;
+    private static int changesInLog;
+
+    private MedicationStore() {}
+
+    // ================================
+    // Public API (package)
+    // ================================
+
+    static MedicationCatalog catalog() {
+        MedicationCatalog catalog = current;
+        if (catalog == null) {
+            synchronized (MedicationStore.class) {
+                catalog = current;
+                if (catalog == null) {
+                    catalog = load();
+                    current = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Queues changes for the change log and returns immediately. The shared catalog is updated once
+     * the changes are on disk, so windows opened afterwards see them.
+     */
+    static CompletableFuture<Void> commit(List<MedicationChangeLog.Change> changes) {
+        catalog(); // make sure the base hash and log are known
+        if (changes.isEmpty()) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                changesInLog = changeLog.append(baseHash, changes, changesInLog);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write medication change log", e);
+            }
+            current = current.apply(changes);
+            if (changesInLog >= COMPACT_THRESHOLD) {
+                compact();
+            }
+        }, WRITER);
+    }
+
+    // ================================
+    // Loading
+    // ================================
+
+    private static MedicationCatalog load() {
+        long start = System.nanoTime();
+        Path dbDir = IAMPaths.dbDirectory();
+        changeLog = new MedicationChangeLog(dbDir.resolve(LOG_FILE));
+
+        byte[] xml = readCatalogXml(dbDir.resolve(XML_FILE));
+        if (xml == null) {
+            baseHash = sha256(new byte[0]);
+            return MedicationCatalog.empty();
+        }
+        baseHash = sha256(xml);
+
+        Path cache = dbDir.resolve("cache").resolve(CACHE_FILE);
+        MedicationCatalog catalog = MedicationCatalog.readCache(cache, baseHash);
+        String source = "binary cache";
+        if (catalog == null) {
+            try {
+                catalog = MedicationCatalog.parseXml(new ByteArrayInputStream(xml));
+                source = "XML";
+                MedicationCatalog.writeCache(cache, baseHash, catalog);
+            } catch (XMLStreamException e) {
+                e.printStackTrace();
+                // Fallback to empty if error
+                return MedicationCatalog.empty();
+            }
+        }
+
+        List<MedicationChangeLog.Change> changes = changeLog.read(baseHash);
+        if (!changes.isEmpty()) {
+            catalog = catalog.apply(changes);
+            changesInLog = changes.size();
+        }
+        System.out.printf("[MED CATALOG] Loaded %,d items from %s (+%d logged edits) in %.1f ms%n",
+                catalog.itemCount(), source, changes.size(), (System.nanoTime() - start) / 1_000_000.0);
+
+        if (changesInLog >= COMPACT_THRESHOLD) {
+            WRITER.execute(MedicationStore::compact);
+        }
+        return catalog;
+    }
+
+    private static byte[] readCatalogXml(Path compacted) {
+        try {
+            if (Files.isRegularFile(compacted)) {
+                return Files.readAllBytes(compacted);
+            }
+            try (InputStream is = MedicationStore.class.getResourceAsStream(XML_RESOURCE)) {
+                if (is == null) {
+                    System.err.println("Could not find med_data.xml");
+                    return null;
+                }
+                return is.readAllBytes();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // ================================
+    // Compaction (writer thread)
+    // ================================
+
+    /**
+     * Writes the current catalog to app/db/med_data.xml and starts a new, empty log for it.
+     * The XML is replaced atomically before the log is reset; see {@link MedicationChangeLog}.
+     */
+    private static void compact() {
+        long start = System.nanoTime();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            current.writeXml(buffer);
+            byte[] xml = buffer.toByteArray();
+            byte[] newHash = sha256(xml);
+
+            Path dbDir = IAMPaths.dbDirectory();
+            Path target = dbDir.resolve(XML_FILE);
+            Path tmp = Files.createTempFile(dbDir, XML_FILE, ".tmp");
+            Files.write(tmp, xml);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            changeLog.reset(newHash);
+            baseHash = newHash;
+            changesInLog = 0;
+            MedicationCatalog.writeCache(dbDir.resolve("cache").resolve(CACHE_FILE), newHash, current);
+            System.out.printf("[MED CATALOG] Compacted change log into %s in %.1f ms%n",
+                    target, (System.nanoTime() - start) / 1_000_000.0);
+        } catch (IOException | XMLStreamException e) {
+            System.err.println("Medication catalog compaction failed; keeping the change log: " + e.getMessage());
+        }
+    }
+
+    // ================================
+    // Helpers
+    // ================================
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
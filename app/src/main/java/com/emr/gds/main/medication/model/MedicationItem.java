@@ -1,6 +1,10 @@
 package com.emr.gds.main.medication.model;
 
+import java.util.regex.Pattern;
+
 public class MedicationItem {
+    private static final Pattern SEPARATOR = Pattern.compile("^-{3,}$|^---.*---$|^\\.{3,}$");
+
     private String text;
 
     public MedicationItem(String text) {
@@ -15,6 +19,11 @@ public class MedicationItem {
         this.text = text;
     }
 
+    /** True for rows like "--- Cephalosporins ---" that only divide a group visually. */
+    public static boolean isSeparator(String text) {
+        return text != null && SEPARATOR.matcher(text.trim()).matches();
+    }
+
     @Override
     public String toString() {
         return text;
@@ -0,0 +1,188 @@
+package com.emr.gds.main.scoring;
+
+import com.emr.gds.main.ekg.EkgInterpreter;
+import com.emr.gds.main.ekg.EkgInterpreter.Measure;
+import com.emr.gds.main.thyroid.ThyroidRiskCalculator;
+import com.emr.gds.main.thyroid.ThyroidRiskCalculator.TiRadsFeature;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The calculators that can be run over a cohort, with the input columns each one reads and the
+ * output columns it produces. Every calculator is a pure function of one row, so rows can be scored
+ * in any order and on any thread.
+ */
+public enum CohortCalculator {
+
+    /** ATA risk of structural recurrence after thyroid cancer surgery. */
+    ATA(List.of("gross_ete", "incomplete_resection", "distant_mets", "aggressive_histology",
+                "vascular_invasion", "lymph_nodes", "largest_node_cm"),
+        List.of("ata_risk")) {
+        @Override
+        String[] score(Map<String, String> row) {
+            return new String[]{ThyroidRiskCalculator.calculateAtaRisk(
+                    flag(row, "gross_ete"), flag(row, "incomplete_resection"), flag(row, "distant_mets"),
+                    flag(row, "aggressive_histology"), flag(row, "vascular_invasion"),
+                    (int) number(row, "lymph_nodes", 0), number(row, "largest_node_cm", 0))};
+        }
+    },
+
+    /** ACR TI-RADS; features are TiRadsFeature names, with or without their prefix (e.g. SOLID). */
+    TIRADS(List.of("composition", "echogenicity", "shape", "margin", "foci"),
+           List.of("tirads_points", "tirads_level", "tirads_recommendation")) {
+        @Override
+        String[] score(Map<String, String> row) {
+            ThyroidRiskCalculator.TiRadsResult r = ThyroidRiskCalculator.calculateTiRads(
+                    feature(row, "composition", "COMP_"), feature(row, "echogenicity", "ECHO_"),
+                    feature(row, "shape", "SHAPE_"), feature(row, "margin", "MARGIN_"),
+                    feature(row, "foci", "FOCI_"));
+            return new String[]{Integer.toString(r.score), r.level, r.recommendation};
+        }
+    },
+
+    /** DEXA interpretation; {@code score_type} is T (default) or Z. */
+    DEXA(List.of("score", "score_type", "fracture"),
+         List.of("dexa_diagnosis", "dexa_comment")) {
+        @Override
+        String[] score(Map<String, String> row) {
+            boolean isTScore = !"z".equalsIgnoreCase(text(row, "score_type", "t"));
+            DexaCalculator.Result r = DexaCalculator.evaluate(required(row, "score"), isTScore, flag(row, "fracture"));
+            return new String[]{r.diagnosis(), r.comment()};
+        }
+    },
+
+    /** HbA1c conversions and control status. */
+    HBA1C(List.of("hba1c"),
+          List.of("ifcc_mmol_mol", "eag_mg_dl", "control_status")) {
+        @Override
+        String[] score(Map<String, String> row) {
+            Hba1cCalculator.Result r = Hba1cCalculator.evaluate(required(row, "hba1c"));
+            // Whole units, as in the note; Math.round avoids String.format's cost on large cohorts.
+            return new String[]{Long.toString(Math.round(r.ifccMmolPerMol())), Long.toString(Math.round(r.eagMgDl())), r.status()};
+        }
+    },
+
+    /**
+     * Rule-based EKG interpretation (see EkgInterpreter); every column is optional, flags are yes/no
+     * and {@code sex} is M or F. {@code ekg_class} is empty when no rule applied.
+     */
+    EKG(List.of("rate", "pr", "qrs", "qtc", "axis", "sv1", "rv5", "ravl", "sv3", "sinus", "regular", "sex"),
+        List.of("ekg_findings", "ekg_class", "ekg_impression")) {
+        @Override
+        String[] score(Map<String, String> row) {
+            double[] values = EkgInterpreter.measurements();
+            for (Measure m : Measure.values()) {
+                switch (m) {
+                    case SOKOLOW, CORNELL -> { }
+                    case SINUS, REGULAR -> values[m.ordinal()] = optionalFlag(row, m.key());
+                    case FEMALE -> values[m.ordinal()] = sex(row);
+                    default -> values[m.ordinal()] = number(row, m.key(), Double.NaN);
+                }
+            }
+            EkgInterpreter.Interpretation r = EkgInterpreter.standard().interpret(values);
+            return new String[]{r.findings(), r.isEmpty() ? "" : r.severity().name().toLowerCase(Locale.ROOT), r.impression()};
+        }
+    };
+
+    private final List<String> inputColumns;
+    private final List<String> outputColumns;
+
+    CohortCalculator(List<String> inputColumns, List<String> outputColumns) {
+        this.inputColumns = inputColumns;
+        this.outputColumns = outputColumns;
+    }
+
+    public List<String> inputColumns() {
+        return inputColumns;
+    }
+
+    public List<String> outputColumns() {
+        return outputColumns;
+    }
+
+    /**
+     * Scores one row; values line up with {@link #outputColumns()}.
+     *
+     * @throws IllegalArgumentException if a required value is missing or malformed.
+     */
+    abstract String[] score(Map<String, String> row);
+
+    public static CohortCalculator parse(String name) {
+        try {
+            return valueOf(name.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown calculator '" + name + "'; expected one of " + List.of(values()));
+        }
+    }
+
+    // ================================
+    // Column parsing
+    // ================================
+
+    private static String text(Map<String, String> row, String column, String fallback) {
+        String v = row.get(column);
+        return v == null || v.isEmpty() ? fallback : v;
+    }
+
+    private static double required(Map<String, String> row, String column) {
+        String v = row.get(column);
+        if (v == null || v.isEmpty()) throw new IllegalArgumentException("missing " + column);
+        return parseNumber(column, v);
+    }
+
+    private static double number(Map<String, String> row, String column, double fallback) {
+        String v = row.get(column);
+        return v == null || v.isEmpty() ? fallback : parseNumber(column, v);
+    }
+
+    private static double parseNumber(String column, String v) {
+        double d;
+        try {
+            d = Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + v);
+        }
+        // "NaN" and "Infinity" parse, but would read as "not measured" or as out of range.
+        if (!Double.isFinite(d)) throw new IllegalArgumentException(column + " is not a number: " + v);
+        return d;
+    }
+
+    private static boolean flag(Map<String, String> row, String column) {
+        String v = row.get(column);
+        if (v == null) return false;
+        return switch (v.toLowerCase(Locale.ROOT)) {
+            case "1", "y", "yes", "true", "t" -> true;
+            case "", "0", "n", "no", "false", "f" -> false;
+            default -> throw new IllegalArgumentException(column + " is not yes/no: " + v);
+        };
+    }
+
+    /** 1 or 0, or NaN when the column is blank or absent. */
+    private static double optionalFlag(Map<String, String> row, String column) {
+        String v = row.get(column);
+        if (v == null || v.isEmpty()) return Double.NaN;
+        return flag(row, column) ? 1 : 0;
+    }
+
+    private static double sex(Map<String, String> row) {
+        String v = row.get("sex");
+        if (v == null || v.isEmpty()) return Double.NaN;
+        return switch (v.toLowerCase(Locale.ROOT)) {
+            case "f", "female", "w" -> 1;
+            case "m", "male" -> 0;
+            default -> throw new IllegalArgumentException("sex is not M/F: " + v);
+        };
+    }
+
+    private static TiRadsFeature feature(Map<String, String> row, String column, String prefix) {
+        String v = row.get(column);
+        if (v == null || v.isEmpty()) throw new IllegalArgumentException("missing " + column);
+        String name = v.toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        try {
+            return TiRadsFeature.valueOf(name.startsWith(prefix) ? name : prefix + name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(column + " is not a " + prefix + "* TI-RADS feature: " + v);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.emr.gds.main.scoring;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams patient rows out of a CSV file (header line first) or a JSON cohort (an array of flat
+ * objects, or one object per line). Rows are returned one at a time, so cohorts never have to fit in
+ * memory. Column names are matched case-insensitively; every value is handed over as text.
+ */
+public abstract class CohortReader implements AutoCloseable {
+
+    /**
+     * Picks the format from the file name: {@code .json}/{@code .jsonl}/{@code .ndjson} is JSON,
+     * anything else CSV.
+     */
+    public static CohortReader open(String fileName, Reader in) throws IOException {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".json") || lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) {
+            return new Json(in);
+        }
+        return new Csv(in);
+    }
+
+    /** The next row, or {@code null} at the end of the input. */
+    public abstract Map<String, String> next() throws IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+
+    /** Reads up to {@code max} rows into {@code into}; returns {@code false} once the input is exhausted. */
+    public boolean fill(List<Map<String, String>> into, int max) throws IOException {
+        while (into.size() < max) {
+            Map<String, String> row = next();
+            if (row == null) return false;
+            into.add(row);
+        }
+        return true;
+    }
+
+    // ================================
+    // CSV (RFC 4180 quoting)
+    // ================================
+
+    static final class Csv extends CohortReader {
+        private final BufferedReader in;
+        private final String[] header;
+
+        Csv(Reader reader) throws IOException {
+            in = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+            List<String> names = readRecord();
+            if (names == null) {
+                header = new String[0];
+            } else {
+                header = new String[names.size()];
+                for (int i = 0; i < header.length; i++) {
+                    header[i] = names.get(i).strip().toLowerCase(Locale.ROOT);
+                }
+                if (header.length > 0 && header[0].startsWith("\uFEFF")) header[0] = header[0].substring(1);
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isBlank()); // skip empty lines
+
+            Map<String, String> row = new HashMap<>(header.length * 2);
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                row.put(header[i], fields.get(i).strip());
+            }
+            return row;
+        }
+
+        private List<String> readRecord() throws IOException {
+            String line = in.readLine();
+            if (line == null) return null;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) break;
+                    String more = in.readLine(); // newline inside a quoted field
+                    if (more == null) break;
+                    field.append('\n');
+                    line = more;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ================================
+    // JSON (flat objects only)
+    // ================================
+
+    static final class Json extends CohortReader {
+        private final PushbackReader in;
+
+        Json(Reader reader) {
+            in = new PushbackReader(reader instanceof BufferedReader ? reader : new BufferedReader(reader), 1);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            int c = skipSeparators();
+            if (c == -1 || c == ']') return null;
+            if (c != '{') throw error("expected '{' but found '" + (char) c + "'");
+
+            Map<String, String> row = new HashMap<>();
+            c = skipWhitespace();
+            if (c == '}') return row;
+            in.unread(c);
+            while (true) {
+                c = skipWhitespace();
+                if (c != '"') throw error("expected a field name");
+                String name = readString().strip().toLowerCase(Locale.ROOT);
+                if (skipWhitespace() != ':') throw error("expected ':' after \"" + name + "\"");
+                String value = readValue();
+                if (value != null) row.put(name, value.strip());
+                c = skipWhitespace();
+                if (c == '}') return row;
+                if (c != ',') throw error("expected ',' or '}' in object");
+            }
+        }
+
+        // Skips whitespace, the opening '[' and the commas between objects.
+        private int skipSeparators() throws IOException {
+            int c;
+            do {
+                c = skipWhitespace();
+            } while (c == '[' || c == ',');
+            return c;
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = in.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private String readValue() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') return readString();
+            if (c == '{' || c == '[') throw error("nested objects and arrays are not supported");
+            StringBuilder sb = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                sb.append((char) c);
+                c = in.read();
+            }
+            if (c != -1) in.unread(c);
+            String literal = sb.toString();
+            if (literal.isEmpty()) throw error("missing value");
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = in.read();
+                if (c == -1) throw error("unterminated string");
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append((char) c);
+                    continue;
+                }
+                int e = in.read();
+                switch (e) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'r' -> sb.append('\r');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int h = in.read();
+                            if (h == -1) throw error("truncated \\u escape");
+                            int digit = Character.digit(h, 16);
+                            if (digit < 0) throw error("invalid \\u escape");
+                            code = code << 4 | digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    case -1 -> throw error("unterminated string");
+                    default -> sb.append((char) e);
+                }
+            }
+        }
+
+        private static IOException error(String message) {
+            return new IOException("Invalid JSON cohort: " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.emr.gds.main.scoring;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless batch driver that scores a whole cohort with one {@link CohortCalculator}.
+ * <p>
+ * Rows are read in chunks of {@link #CHUNK_ROWS}. Each chunk is scored on a fork-join pool, split down
+ * to {@link #SPLIT_THRESHOLD} rows per task, while the next chunk is being read. Results are written
+ * as CSV in input order as soon as their chunk finishes, so memory stays flat however large the
+ * cohort is. A row that cannot be scored gets its message in the {@code error} column and does not
+ * stop the run.
+ * <p>
+ * Usage: {@code ./gradlew :app:scoreCohort -PcohortArgs="tirads nodules.csv results.csv"}
+ * (the output file is optional and defaults to standard output).
+ */
+public final class CohortScorer {
+
+    // ================================
+    // Constants
+    // ================================
+    static final int CHUNK_ROWS = 4096;
+    static final int SPLIT_THRESHOLD = 256;
+
+    /** Totals for one run. */
+    public record Summary(long rows, long failed, long elapsedNanos) {}
+
+    private final CohortCalculator calculator;
+    private final ForkJoinPool pool;
+
+    public CohortScorer(CohortCalculator calculator) {
+        this(calculator, ForkJoinPool.commonPool());
+    }
+
+    public CohortScorer(CohortCalculator calculator, ForkJoinPool pool) {
+        this.calculator = calculator;
+        this.pool = pool;
+    }
+
+    // ================================
+    // Scoring
+    // ================================
+
+    /**
+     * Scores every row of {@code in} and streams CSV results to {@code out}.
+     */
+    public Summary run(CohortReader in, Writer out) throws IOException {
+        long start = System.nanoTime();
+        writeHeader(out);
+
+        long rowNumber = 0;
+        long failed = 0;
+        List<Map<String, String>> chunk = new ArrayList<>(CHUNK_ROWS);
+        boolean more = in.fill(chunk, CHUNK_ROWS);
+        while (!chunk.isEmpty()) {
+            String[][] results = new String[chunk.size()][];
+            ForkJoinTask<Void> scoring = pool.submit(new ScoreRange(calculator, chunk, results, 0, chunk.size()));
+
+            List<Map<String, String>> next = new ArrayList<>(CHUNK_ROWS);
+            if (more) more = in.fill(next, CHUNK_ROWS); // read ahead while the chunk is scored
+            scoring.join();
+
+            for (int i = 0; i < results.length; i++) {
+                rowNumber++;
+                String[] result = results[i];
+                if (!result[result.length - 1].isEmpty()) failed++;
+                String id = chunk.get(i).get("id");
+                writeRow(out, id == null || id.isEmpty() ? Long.toString(rowNumber) : id, result);
+            }
+            chunk = next;
+        }
+        out.flush();
+        return new Summary(rowNumber, failed, System.nanoTime() - start);
+    }
+
+    /**
+     * Scores rows already in memory; each result holds the output columns followed by the error text.
+     */
+    public String[][] scoreAll(List<Map<String, String>> rows) {
+        String[][] results = new String[rows.size()][];
+        pool.invoke(new ScoreRange(calculator, rows, results, 0, rows.size()));
+        return results;
+    }
+
+    static String[] scoreRow(CohortCalculator calculator, Map<String, String> row) {
+        int outputs = calculator.outputColumns().size();
+        String[] result = new String[outputs + 1];
+        try {
+            String[] values = calculator.score(row);
+            System.arraycopy(values, 0, result, 0, outputs);
+            result[outputs] = "";
+        } catch (RuntimeException e) {
+            Arrays.fill(result, 0, outputs, "");
+            result[outputs] = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        }
+        return result;
+    }
+
+    private static final class ScoreRange extends RecursiveAction {
+        private final CohortCalculator calculator;
+        private final List<Map<String, String>> rows;
+        private final String[][] results;
+        private final int from;
+        private final int to;
+
+        ScoreRange(CohortCalculator calculator, List<Map<String, String>> rows, String[][] results, int from, int to) {
+            this.calculator = calculator;
+            this.rows = rows;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = scoreRow(calculator, rows.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreRange(calculator, rows, results, from, mid),
+                      new ScoreRange(calculator, rows, results, mid, to));
+        }
+    }
+
+    // ================================
+    // CSV output
+    // ================================
+
+    private void writeHeader(Writer out) throws IOException {
+        out.write("id");
+        for (String column : calculator.outputColumns()) {
+            out.write(',');
+            out.write(column);
+        }
+        out.write(",error\n");
+    }
+
+    private static void writeRow(Writer out, String id, String[] values) throws IOException {
+        writeField(out, id);
+        for (String v : values) {
+            out.write(',');
+            writeField(out, v);
+        }
+        out.write('\n');
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    // ================================
+    // Command line
+    // ================================
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CohortScorer <ata|tirads|dexa|hba1c|ekg> <cohort.csv|cohort.json> [results.csv]");
+            System.err.println("Input columns:");
+            for (CohortCalculator c : CohortCalculator.values()) {
+                System.err.println("  " + c.name().toLowerCase(Locale.ROOT) + ": id (optional), " + String.join(", ", c.inputColumns()));
+            }
+            System.exit(2);
+        }
+        CohortCalculator calculator = CohortCalculator.parse(args[0]);
+        Path input = Path.of(args[1]);
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             CohortReader cohort = CohortReader.open(input.getFileName().toString(), reader)) {
+            CohortScorer scorer = new CohortScorer(calculator);
+            Summary summary;
+            if (args.length == 3) {
+                try (Writer out = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+                    summary = scorer.run(cohort, out);
+                }
+            } else {
+                // Flush rather than close: System.out belongs to the JVM, not to us.
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                summary = scorer.run(cohort, out);
+                out.flush();
+            }
+            System.err.printf("[COHORT] Scored %,d rows with %s (%,d failed) in %.1f ms%n",
+                    summary.rows(), calculator, summary.failed(), summary.elapsedNanos() / 1_000_000.0);
+        }
+    }
+}
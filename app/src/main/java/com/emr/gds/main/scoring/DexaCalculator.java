@@ -0,0 +1,37 @@
+package com.emr.gds.main.scoring;
+
+/**
+ * Bone density interpretation behind the DEXA window, usable without a UI.
+ */
+public final class DexaCalculator {
+
+    private DexaCalculator() {}
+
+    /**
+     * Diagnosis and treatment comment; {@code comment} is empty when no action is suggested.
+     */
+    public record Result(String diagnosis, String comment) {}
+
+    public static Result evaluate(double score, boolean isTScore, boolean hasFragilityFracture) {
+        String diagnosis;
+        if (isTScore) {
+            if (score <= -2.5) {
+                diagnosis = hasFragilityFracture ? "Severe Osteoporosis" : "Osteoporosis";
+            } else if (score < -1.0) {
+                diagnosis = "Osteopenia";
+            } else {
+                diagnosis = "Normal Bone Density";
+            }
+        } else {
+            diagnosis = (score <= -2.0) ? "Below expected range for age" : "Within expected range for age";
+        }
+
+        String comment = "";
+        if (isTScore && score <= -2.5) {
+            comment = "Consider bisphosphonate, denosumab, or anabolic therapy.";
+        } else if (isTScore && score <= -1.0) {
+            comment = "Lifestyle modification, calcium + vitamin D, repeat DEXA in 2–3 years.";
+        }
+        return new Result(diagnosis, comment);
+    }
+}
@@ -0,0 +1,34 @@
+package com.emr.gds.main.scoring;
+
+/**
+ * HbA1c conversions and the glycemic control wording used in the notes, free of any UI.
+ */
+public final class Hba1cCalculator {
+
+    private Hba1cCalculator() {}
+
+    /** IFCC units, eAG and control status for one NGSP HbA1c value. */
+    public record Result(double hba1cPercent, double ifccMmolPerMol, double eagMgDl, String status) {}
+
+    public static Result evaluate(double hba1cPercent) {
+        return new Result(hba1cPercent, ifcc(hba1cPercent), estimatedAverageGlucose(hba1cPercent), controlStatus(hba1cPercent));
+    }
+
+    /** NGSP % to IFCC mmol/mol. */
+    public static double ifcc(double hba1cPercent) {
+        return (hba1cPercent - 2.15) * 10.929;
+    }
+
+    /** Estimated average glucose in mg/dL (ADAG). */
+    public static double estimatedAverageGlucose(double hba1cPercent) {
+        return (28.7 * hba1cPercent) - 46.7;
+    }
+
+    public static String controlStatus(double hba1cPercent) {
+        return (hba1cPercent > 9.0) ? "Very poor"
+                : (hba1cPercent > 8.5) ? "Poor"
+                : (hba1cPercent > 7.5) ? "Fair"
+                : (hba1cPercent > 6.5) ? "Good"
+                : "Excellent";
+    }
+}
@@ -0,0 +1,184 @@
+package com.emr.gds.main.spell;
+
+import com.emr.gds.main.IAMPaths;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * English spell checking for clinical notes on top of a memory-mapped {@link SpellDictionary}.
+ * <p>
+ * The dictionary file lives in {@code app/db/cache/spell_dict.bin} and is rebuilt only when its
+ * sources change; otherwise opening is just a file mapping. Words the user adds are kept in
+ * {@code app/db/spell_user_words.txt}; ignored words last for the session. Only Latin-letter tokens are
+ * checked: Korean text, numbers, all-caps abbreviations and mixed-case tokens such as {@code HbA1c}
+ * are always accepted. Safe to use from any thread.
+ */
+public final class SpellChecker {
+
+    /** A misspelled word: the [start, end) range in the checked text. */
+    public record Misspelling(int start, int end) {}
+
+    // ================================
+    // Constants
+    // ================================
+    private static final String DICT_FILE = "spell_dict.bin";
+    private static final String USER_WORDS_FILE = "spell_user_words.txt";
+    private static final int MIN_LENGTH = 3;
+    private static final String[][] SUFFIXES = {
+            {"ies", "y"}, {"es", ""}, {"s", ""}, {"ed", ""}, {"ed", "e"}, {"ing", ""}, {"ing", "e"}, {"ly", ""}
+    };
+
+    private final SpellDictionary dictionary;
+    private final Path userWordsFile;
+    private final Set<String> userWords = ConcurrentHashMap.newKeySet();
+    private final Set<String> ignored = ConcurrentHashMap.newKeySet();
+
+    SpellChecker(SpellDictionary dictionary, Path userWordsFile) {
+        this.dictionary = dictionary;
+        this.userWordsFile = userWordsFile;
+        if (userWordsFile != null && Files.isRegularFile(userWordsFile)) {
+            try {
+                for (String line : Files.readAllLines(userWordsFile, StandardCharsets.UTF_8)) {
+                    String w = line.strip().toLowerCase(Locale.ROOT);
+                    if (!w.isEmpty()) userWords.add(w);
+                }
+            } catch (IOException e) {
+                System.err.println("[SPELL] Failed to read user words: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Maps the cached dictionary, or rebuilds it from the bundled list, the KCD names,
+     * {@code abbreviations} and the medication catalog when those changed. Blocking; call off the FX
+     * thread.
+     */
+    public static SpellChecker open(Map<String, String> abbreviations) throws IOException {
+        Path root = IAMPaths.repoRoot();
+        Path db = IAMPaths.dbDirectory();
+        Path kcd = root.resolve("app").resolve("src").resolve("main").resolve("resources")
+                .resolve("database").resolve("kcd_database.db");
+        SpellSources sources = new SpellSources(kcd, abbreviations);
+        long stamp = sources.stamp();
+        Path file = db.resolve("cache").resolve(DICT_FILE);
+
+        long t0 = System.nanoTime();
+        SpellDictionary dict = SpellDictionary.map(file, stamp);
+        if (dict == null) {
+            dict = SpellDictionary.build(sources.words(), stamp, file);
+            System.out.printf("[SPELL] Built dictionary of %d words in %d ms%n", dict.size(), (System.nanoTime() - t0) / 1_000_000);
+        } else {
+            System.out.printf("[SPELL] Mapped dictionary of %d words in %d ms%n", dict.size(), (System.nanoTime() - t0) / 1_000_000);
+        }
+        return new SpellChecker(dict, db.resolve(USER_WORDS_FILE));
+    }
+
+    // ================================
+    // Checking
+    // ================================
+
+    /** Misspelled words in {@code text}, in order. */
+    public List<Misspelling> check(CharSequence text) {
+        List<Misspelling> out = new ArrayList<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            if (!isLatin(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean skip = false;
+            while (i < n) {
+                char c = text.charAt(i);
+                if (isLatin(c) || (c == '\'' && i + 1 < n && isLatin(text.charAt(i + 1)))) {
+                    i++;
+                } else if (Character.isLetterOrDigit(c)) {
+                    skip = true; // digits or Hangul glued to the word, e.g. "T4", "500mg", "DM약"
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (!skip && !isCorrect(text.subSequence(start, i).toString())) {
+                out.add(new Misspelling(start, i));
+            }
+        }
+        return out;
+    }
+
+    /** Whether a single token is accepted, applying the skip rules described on the class. */
+    public boolean isCorrect(String token) {
+        if (token.length() < MIN_LENGTH || isAcronymOrMixedCase(token)) return true;
+        String w = token.toLowerCase(Locale.ROOT);
+        if (w.endsWith("'s")) w = w.substring(0, w.length() - 2);
+        if (known(w)) return true;
+        for (String[] s : SUFFIXES) {
+            if (w.length() > s[0].length() + 1 && w.endsWith(s[0])
+                    && known(w.substring(0, w.length() - s[0].length()) + s[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean known(String w) {
+        return dictionary.contains(w) || userWords.contains(w) || ignored.contains(w);
+    }
+
+    private static boolean isLatin(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // All caps (TSH, COPD) or a capital after the first letter (HbA1c, eGFR, pH-style tokens).
+    private static boolean isAcronymOrMixedCase(String token) {
+        for (int i = 1; i < token.length(); i++) {
+            if (Character.isUpperCase(token.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    /** Up to {@code limit} corrections, keeping the capitalisation of the first letter. */
+    public List<String> suggest(String token, int limit) {
+        List<String> raw = dictionary.suggest(token.toLowerCase(Locale.ROOT), limit);
+        if (token.isEmpty() || !Character.isUpperCase(token.charAt(0))) return raw;
+        List<String> out = new ArrayList<>(raw.size());
+        for (String s : raw) out.add(Character.toUpperCase(s.charAt(0)) + s.substring(1));
+        return out;
+    }
+
+    // ================================
+    // User words
+    // ================================
+
+    /** Accepts {@code token} from now on and remembers it across launches. */
+    public void addUserWord(String token) {
+        String w = token.toLowerCase(Locale.ROOT);
+        if (!userWords.add(w) || userWordsFile == null) return;
+        try {
+            Files.createDirectories(userWordsFile.getParent());
+            Files.writeString(userWordsFile, w + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("[SPELL] Failed to save user word '" + w + "': " + e.getMessage());
+        }
+    }
+
+    /** Accepts {@code token} for the rest of the session. */
+    public void ignore(String token) {
+        ignored.add(token.toLowerCase(Locale.ROOT));
+    }
+
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,412 @@
+package com.emr.gds.main.spell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Read-only word list stored as a minimal DAWG plus a SymSpell deletion table, both laid out flat in
+ * one file that is memory-mapped rather than parsed.
+ * <p>
+ * Lookups walk the DAWG straight out of the mapping. Suggestions come from the deletion table: for
+ * every word, the strings obtained by deleting up to {@link #MAX_EDITS} characters from its first
+ * {@link #PREFIX_LENGTH} characters are hashed, and the sorted (hash, word id) pairs are stored. To
+ * suggest corrections for a misspelling its own deletes are looked up the same way and the candidates
+ * are ranked by true edit distance. All words are stored lower-case; callers fold before asking.
+ * <p>
+ * File layout (big-endian): {@code int magic, int version, long sourceStamp, int root, int dawgInts,
+ * int deleteCount, int wordCount, int wordBytes}, padding to 8 bytes, then the DAWG ints, the delete
+ * longs, {@code wordCount + 1} word offsets and the UTF-8 words.
+ */
+public final class SpellDictionary {
+
+    // ================================
+    // Constants
+    // ================================
+    static final int MAX_EDITS = 2;
+    static final int PREFIX_LENGTH = 7;
+    private static final int MAGIC = 0x4753504C; // "GSPL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    // DAWG edge: int 0 = label | TARGET_FINAL | LAST_EDGE, int 1 = target node offset or NO_NODE.
+    private static final int TARGET_FINAL = 1 << 16;
+    private static final int LAST_EDGE = 1 << 17;
+    private static final int NO_NODE = -1;
+
+    private final long sourceStamp;
+    private final int root;
+    private final IntBuffer dawg;
+    private final LongBuffer deletes;
+    private final IntBuffer wordOffsets;
+    private final ByteBuffer wordBytes;
+    private final int wordCount;
+
+    private SpellDictionary(ByteBuffer buf) throws IOException {
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+            throw new IOException("Not a spell dictionary");
+        }
+        sourceStamp = buf.getLong(8);
+        root = buf.getInt(16);
+        int dawgInts = buf.getInt(20);
+        int deleteCount = buf.getInt(24);
+        wordCount = buf.getInt(28);
+        int bytes = buf.getInt(32);
+
+        int pos = HEADER_BYTES;
+        dawg = slice(buf, pos, dawgInts * 4).asIntBuffer();
+        pos = align8(pos + dawgInts * 4);
+        deletes = slice(buf, pos, deleteCount * 8).asLongBuffer();
+        pos += deleteCount * 8;
+        wordOffsets = slice(buf, pos, (wordCount + 1) * 4).asIntBuffer();
+        pos += (wordCount + 1) * 4;
+        wordBytes = slice(buf, pos, bytes);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buf, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > buf.capacity()) throw new IOException("Truncated spell dictionary");
+        return buf.slice(offset, length);
+    }
+
+    private static int align8(int pos) {
+        return (pos + 7) & ~7;
+    }
+
+    // ================================
+    // Loading
+    // ================================
+
+    /**
+     * Maps a dictionary file; returns {@code null} if it is missing, damaged or was built from sources
+     * with a different stamp.
+     */
+    public static SpellDictionary map(Path file, long expectedStamp) {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            SpellDictionary dict = new SpellDictionary(buf);
+            return dict.sourceStamp == expectedStamp ? dict : null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SPELL] Ignoring unreadable dictionary " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Builds a dictionary from {@code words}, writes it to {@code file} atomically and maps it.
+     */
+    public static SpellDictionary build(Collection<String> words, long sourceStamp, Path file) throws IOException {
+        byte[] data = encode(words, sourceStamp);
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        SpellDictionary dict = map(file, sourceStamp);
+        if (dict == null) throw new IOException("Could not map freshly written " + file);
+        return dict;
+    }
+
+    /** Builds an in-memory dictionary without touching disk. */
+    public static SpellDictionary inMemory(Collection<String> words) {
+        try {
+            return new SpellDictionary(ByteBuffer.wrap(encode(words, 0)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    public int size() {
+        return wordCount;
+    }
+
+    /** Whether the lower-case {@code word} is in the dictionary. */
+    public boolean contains(String word) {
+        if (word.isEmpty()) return false;
+        int node = root;
+        for (int i = 0; i < word.length(); i++) {
+            if (node == NO_NODE) return false;
+            char c = word.charAt(i);
+            int edge = findEdge(node, c);
+            if (edge < 0) return false;
+            if (i == word.length() - 1) return (dawg.get(edge) & TARGET_FINAL) != 0;
+            node = dawg.get(edge + 1);
+        }
+        return false;
+    }
+
+    private int findEdge(int node, char c) {
+        for (int e = node; ; e += 2) {
+            int head = dawg.get(e);
+            if ((char) head == c) return e;
+            if ((head & LAST_EDGE) != 0) return -1;
+        }
+    }
+
+    public String word(int id) {
+        int from = wordOffsets.get(id);
+        int to = wordOffsets.get(id + 1);
+        byte[] b = new byte[to - from];
+        wordBytes.get(from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Up to {@code limit} dictionary words within {@link #MAX_EDITS} edits of the lower-case
+     * {@code word}, closest first.
+     */
+    public List<String> suggest(String word, int limit) {
+        Set<String> probes = deletes(word);
+        Set<Integer> seen = new HashSet<>();
+        List<Candidate> candidates = new ArrayList<>();
+        for (String probe : probes) {
+            int hash = probe.hashCode();
+            for (int i = lowerBound((long) hash << 32); i < deletes.limit(); i++) {
+                long entry = deletes.get(i);
+                if ((int) (entry >> 32) != hash) break;
+                int id = (int) entry;
+                if (!seen.add(id)) continue;
+                String candidate = word(id);
+                int distance = editDistance(word, candidate, MAX_EDITS);
+                if (distance <= MAX_EDITS && !candidate.equals(word)) {
+                    candidates.add(new Candidate(candidate, distance));
+                }
+            }
+        }
+        candidates.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+                : a.word.length() != b.word.length()
+                        ? Integer.compare(Math.abs(a.word.length() - word.length()), Math.abs(b.word.length() - word.length()))
+                        : a.word.compareTo(b.word));
+        List<String> result = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && result.size() < limit; i++) {
+            result.add(candidates.get(i).word);
+        }
+        return result;
+    }
+
+    private record Candidate(String word, int distance) {}
+
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = deletes.limit();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (deletes.get(mid) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** The word's prefix and every string made by deleting up to MAX_EDITS characters from it. */
+    static Set<String> deletes(String word) {
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        Set<String> out = new HashSet<>();
+        out.add(prefix);
+        addDeletes(prefix, MAX_EDITS, out);
+        return out;
+    }
+
+    private static void addDeletes(String s, int edits, Set<String> out) {
+        if (edits == 0 || s.length() <= 1) return;
+        for (int i = 0; i < s.length(); i++) {
+            String d = s.substring(0, i) + s.substring(i + 1);
+            if (out.add(d)) addDeletes(d, edits - 1, out);
+        }
+    }
+
+    /** Optimal string alignment distance, or {@code max + 1} once it is known to exceed {@code max}. */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] prev2 = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()];
+    }
+
+    // ================================
+    // Building
+    // ================================
+
+    private static byte[] encode(Collection<String> input, long sourceStamp) {
+        String[] words = new TreeSet<>(input).stream().filter(w -> !w.isEmpty()).toArray(String[]::new);
+        int[] dawgInts = new DawgBuilder().build(words);
+        long[] deleteTable = deleteTable(words);
+
+        byte[][] utf8 = new byte[words.length][];
+        int totalBytes = 0;
+        for (int i = 0; i < words.length; i++) {
+            utf8[i] = words[i].getBytes(StandardCharsets.UTF_8);
+            totalBytes += utf8[i].length;
+        }
+
+        int size = align8(HEADER_BYTES + (dawgInts.length - 1) * 4)
+                + deleteTable.length * 8 + (words.length + 1) * 4 + totalBytes;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(sourceStamp)
+                .putInt(dawgInts[0]).putInt(dawgInts.length - 1)
+                .putInt(deleteTable.length).putInt(words.length).putInt(totalBytes);
+        buf.position(HEADER_BYTES);
+        for (int i = 1; i < dawgInts.length; i++) buf.putInt(dawgInts[i]);
+        buf.position(align8(buf.position()));
+        for (long d : deleteTable) buf.putLong(d);
+        int offset = 0;
+        for (byte[] w : utf8) {
+            buf.putInt(offset);
+            offset += w.length;
+        }
+        buf.putInt(offset);
+        for (byte[] w : utf8) buf.put(w);
+        return buf.array();
+    }
+
+    private static long[] deleteTable(String[] words) {
+        long[] table = new long[words.length * 16];
+        int n = 0;
+        for (int id = 0; id < words.length; id++) {
+            for (String d : deletes(words[id])) {
+                if (n == table.length) table = Arrays.copyOf(table, table.length * 2);
+                table[n++] = ((long) d.hashCode() << 32) | (id & 0xFFFFFFFFL);
+            }
+        }
+        table = Arrays.copyOf(table, n);
+        Arrays.sort(table);
+        return table;
+    }
+
+    /**
+     * Incremental minimal DAWG construction from sorted input (Daciuk et al.), flattened so that a
+     * node is the offset of its first edge. Returns {@code [root, edges...]}.
+     */
+    private static final class DawgBuilder {
+        private static final class Node {
+            final StringBuilder labels = new StringBuilder();
+            final List<Node> targets = new ArrayList<>();
+            boolean isFinal;
+            int offset = Integer.MIN_VALUE;
+        }
+
+        private record Key(boolean isFinal, String labels, List<Node> targets) {}
+
+        private final Map<Key, Node> register = new HashMap<>();
+        private final List<Node> path = new ArrayList<>(); // nodes along the previous word
+        private int edgeInts;
+
+        int[] build(String[] words) {
+            Node root = new Node();
+            path.add(root);
+            String previous = "";
+            for (String word : words) {
+                int common = 0;
+                int max = Math.min(word.length(), previous.length());
+                while (common < max && word.charAt(common) == previous.charAt(common)) common++;
+                minimize(common);
+                Node node = path.get(common);
+                for (int i = common; i < word.length(); i++) {
+                    Node child = new Node();
+                    node.labels.append(word.charAt(i));
+                    node.targets.add(child);
+                    path.add(child);
+                    node = child;
+                }
+                node.isFinal = true;
+                previous = word;
+            }
+            minimize(0);
+
+            List<Node> order = new ArrayList<>();
+            collect(root, order);
+            int[] out = new int[1 + edgeInts];
+            int pos = 0;
+            for (Node n : order) {
+                if (n.labels.length() == 0) {
+                    n.offset = NO_NODE;
+                } else {
+                    n.offset = pos;
+                    pos += n.labels.length() * 2;
+                }
+            }
+            for (Node n : order) {
+                for (int i = 0; i < n.labels.length(); i++) {
+                    Node t = n.targets.get(i);
+                    int head = n.labels.charAt(i) | (t.isFinal ? TARGET_FINAL : 0)
+                            | (i == n.labels.length() - 1 ? LAST_EDGE : 0);
+                    out[1 + n.offset + i * 2] = head;
+                    out[1 + n.offset + i * 2 + 1] = t.offset;
+                }
+            }
+            out[0] = root.offset == NO_NODE ? 0 : root.offset;
+            if (root.labels.length() == 0) {
+                // Empty dictionary: a single edge that never matches a real character.
+                return new int[]{0, LAST_EDGE, NO_NODE};
+            }
+            return out;
+        }
+
+        // Replaces nodes deeper than `depth` on the current path with registered equivalents.
+        private void minimize(int depth) {
+            for (int i = path.size() - 1; i > depth; i--) {
+                Node parent = path.get(i - 1);
+                Node child = path.get(i);
+                Key key = new Key(child.isFinal, child.labels.toString(), List.copyOf(child.targets));
+                Node existing = register.get(key);
+                if (existing != null) {
+                    parent.targets.set(parent.targets.size() - 1, existing);
+                } else {
+                    register.put(key, child);
+                }
+                path.remove(i);
+            }
+        }
+
+        private void collect(Node node, List<Node> order) {
+            if (node.offset != Integer.MIN_VALUE) return;
+            node.offset = 0; // visited
+            order.add(node);
+            edgeInts += node.labels.length() * 2;
+            for (Node t : node.targets) collect(t, order);
+        }
+    }
+}
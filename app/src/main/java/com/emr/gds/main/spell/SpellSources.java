@@ -0,0 +1,148 @@
+package com.emr.gds.main.spell;
+
+import com.emr.gds.main.medication.db.MedicationCatalog;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gathers the words the spell dictionary is built from: the bundled English list, the English KCD
+ * disease names, both sides of the abbreviation table and the medication catalog item texts.
+ * <p>
+ * {@link #stamp()} hashes those inputs (the KCD database by size and modification time) so a mapped
+ * dictionary built from the same sources can be reused as is.
+ */
+final class SpellSources {
+
+    private static final String WORD_LIST = "/com/emr/gds/main/spell/words_en.txt";
+    private static final Pattern WORD = Pattern.compile("[A-Za-z][A-Za-z']*");
+
+    private final byte[] bundled;
+    private final Path kcdDatabase;
+    private final Map<String, String> abbreviations;
+    private final List<String> medications;
+
+    SpellSources(Path kcdDatabase, Map<String, String> abbreviations) {
+        this.bundled = readBundled();
+        this.kcdDatabase = kcdDatabase;
+        this.abbreviations = new TreeMap<>(abbreviations);
+        this.medications = medicationTexts();
+    }
+
+    /** SHA-256 of all inputs, folded to 64 bits. */
+    long stamp() {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(bundled);
+            if (kcdDatabase != null && Files.isRegularFile(kcdDatabase)) {
+                md.update(Long.toString(Files.size(kcdDatabase)).getBytes(StandardCharsets.UTF_8));
+                md.update(Long.toString(Files.getLastModifiedTime(kcdDatabase).toMillis()).getBytes(StandardCharsets.UTF_8));
+            }
+            abbreviations.forEach((k, v) -> {
+                md.update(k.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+                md.update(v.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            });
+            for (String m : medications) {
+                md.update(m.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            byte[] digest = md.digest();
+            long stamp = 0;
+            for (int i = 0; i < 8; i++) stamp = (stamp << 8) | (digest[i] & 0xFF);
+            return stamp;
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Cannot stamp spell dictionary sources", e);
+        }
+    }
+
+    /** Every distinct lower-case word from all sources. */
+    Set<String> words() {
+        Set<String> words = new TreeSet<>();
+        for (String line : new String(bundled, StandardCharsets.UTF_8).split("\n")) {
+            String w = line.strip();
+            if (!w.isEmpty() && !w.startsWith("#")) tokenize(w, words);
+        }
+        for (String name : kcdEnglishNames()) tokenize(name, words);
+        abbreviations.forEach((k, v) -> {
+            tokenize(k, words);
+            tokenize(v, words);
+        });
+        for (String m : medications) tokenize(m, words);
+        return words;
+    }
+
+    static void tokenize(String text, Set<String> out) {
+        Matcher m = WORD.matcher(text);
+        while (m.find()) {
+            String w = m.group();
+            while (w.endsWith("'")) w = w.substring(0, w.length() - 1);
+            if (w.length() > 1) out.add(w.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // ================================
+    // Source readers
+    // ================================
+
+    private static byte[] readBundled() {
+        try (InputStream is = SpellSources.class.getResourceAsStream(WORD_LIST)) {
+            if (is == null) {
+                System.err.println("[SPELL] Bundled word list not found: " + WORD_LIST);
+                return new byte[0];
+            }
+            return is.readAllBytes();
+        } catch (IOException e) {
+            System.err.println("[SPELL] Failed to read bundled word list: " + e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    private List<String> kcdEnglishNames() {
+        List<String> names = new ArrayList<>();
+        if (kcdDatabase == null || !Files.isRegularFile(kcdDatabase)) return names;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + kcdDatabase.toAbsolutePath());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT english_name FROM kcd_codes WHERE english_name IS NOT NULL")) {
+            while (rs.next()) names.add(rs.getString(1));
+        } catch (SQLException e) {
+            System.err.println("[SPELL] Skipping KCD names: " + e.getMessage());
+        }
+        return names;
+    }
+
+    private static List<String> medicationTexts() {
+        List<String> texts = new ArrayList<>();
+        try {
+            MedicationCatalog catalog = MedicationCatalog.shared();
+            for (String category : catalog.categories()) {
+                for (MedicationCatalog.Group group : catalog.groups(category)) {
+                    texts.add(group.title());
+                    texts.addAll(group.items());
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[SPELL] Skipping medication names: " + e.getMessage());
+        }
+        return texts;
+    }
+}
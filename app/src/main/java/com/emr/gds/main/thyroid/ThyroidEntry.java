@@ -8,11 +8,14 @@ import java.util.List;
 /**
  * Data model for a single thyroid-related EMR snapshot or visit.
  * Designed to work with ThyroidPane.
+ * Persisted with {@link ThyroidEntryCodec}; a new field must also be appended to its field table.
  */
 public class ThyroidEntry implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // ThyroidEntryCodec stores these enums by ordinal: only append new constants.
+
     public enum VisitType {
         NEW,
         FOLLOW_UP,
@@ -0,0 +1,322 @@
+package com.emr.gds.main.thyroid;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact, versioned binary form of a {@link ThyroidEntry}, used instead of Java serialization.
+ * <p>
+ * Layout: {@code varint version, varint fieldCount, null bitmap (fieldCount bits), values}. Only
+ * non-null fields have a value, in {@link #FIELDS} order: booleans as one byte, integers as zigzag
+ * varints, doubles as 8 raw bytes, dates as zigzag varint epoch days, strings as varint length plus
+ * UTF-8, enums as varint ordinals, and the category list as a bit set of ordinals.
+ * <p>
+ * Schema evolution: new fields are only ever appended to {@link #FIELDS}. A reader that knows more
+ * fields than were written leaves the extra ones null; a reader that knows fewer stops after its own
+ * and ignores the rest, which is why the entry is framed by its length when stored (see
+ * {@link ThyroidHistoryStore}). Enum constants are stored by ordinal, so ThyroidEntry's enums must
+ * also only grow at the end; an unknown ordinal decodes as null.
+ */
+public final class ThyroidEntryCodec {
+
+    // ================================
+    // Constants
+    // ================================
+    static final int VERSION = 1;
+
+    private enum Kind { BOOL, INT, DOUBLE, STRING, DATE, ENUM, CATEGORIES }
+
+    private record Field(String name, Kind kind, Class<? extends Enum<?>> enumType,
+                         Function<ThyroidEntry, Object> getter, BiConsumer<ThyroidEntry, Object> setter) {}
+
+    /** Append-only field table; the index of a field is its position in the bitmap. */
+    private static final List<Field> FIELDS = new ArrayList<>();
+
+    static {
+        addEnum("visitType", ThyroidEntry.VisitType.class, ThyroidEntry::getVisitType, (e, v) -> e.setVisitType((ThyroidEntry.VisitType) v));
+        add("categories", Kind.CATEGORIES, ThyroidEntry::getCategories, (e, v) -> e.setCategories(castCategories(v)));
+        addEnum("hypoEtiology", ThyroidEntry.HypoEtiology.class, ThyroidEntry::getHypoEtiology, (e, v) -> e.setHypoEtiology((ThyroidEntry.HypoEtiology) v));
+        add("hypoOvert", Kind.BOOL, ThyroidEntry::isHypoOvert, (e, v) -> e.setHypoOvert((Boolean) v));
+        addEnum("hyperEtiology", ThyroidEntry.HyperEtiology.class, ThyroidEntry::getHyperEtiology, (e, v) -> e.setHyperEtiology((ThyroidEntry.HyperEtiology) v));
+        add("hyperActive", Kind.BOOL, ThyroidEntry::isHyperActive, (e, v) -> e.setHyperActive((Boolean) v));
+        addEnum("cancerHistology", ThyroidEntry.CancerHistology.class, ThyroidEntry::getCancerHistology, (e, v) -> e.setCancerHistology((ThyroidEntry.CancerHistology) v));
+        add("tnmStage", Kind.STRING, ThyroidEntry::getTnmStage, (e, v) -> e.setTnmStage((String) v));
+        add("ataRisk", Kind.STRING, ThyroidEntry::getAtaRisk, (e, v) -> e.setAtaRisk((String) v));
+        add("grossExtrathyroidalExtension", Kind.BOOL, ThyroidEntry::getGrossExtrathyroidalExtension, (e, v) -> e.setGrossExtrathyroidalExtension((Boolean) v));
+        add("incompleteResection", Kind.BOOL, ThyroidEntry::getIncompleteResection, (e, v) -> e.setIncompleteResection((Boolean) v));
+        add("distantMetastases", Kind.BOOL, ThyroidEntry::getDistantMetastases, (e, v) -> e.setDistantMetastases((Boolean) v));
+        add("aggressiveHistology", Kind.BOOL, ThyroidEntry::getAggressiveHistology, (e, v) -> e.setAggressiveHistology((Boolean) v));
+        add("vascularInvasion", Kind.BOOL, ThyroidEntry::getVascularInvasion, (e, v) -> e.setVascularInvasion((Boolean) v));
+        add("lymphNodeCount", Kind.INT, ThyroidEntry::getLymphNodeCount, (e, v) -> e.setLymphNodeCount((Integer) v));
+        add("largestNodeSizeCm", Kind.DOUBLE, ThyroidEntry::getLargestNodeSizeCm, (e, v) -> e.setLargestNodeSizeCm((Double) v));
+        add("raiDone", Kind.BOOL, ThyroidEntry::getRaiDone, (e, v) -> e.setRaiDone((Boolean) v));
+        add("raiDoseMci", Kind.DOUBLE, ThyroidEntry::getRaiDoseMci, (e, v) -> e.setRaiDoseMci((Double) v));
+        add("raiDate", Kind.DATE, ThyroidEntry::getRaiDate, (e, v) -> e.setRaiDate((LocalDate) v));
+        add("cancerStatus", Kind.STRING, ThyroidEntry::getCancerStatus, (e, v) -> e.setCancerStatus((String) v));
+        add("patientWeightKg", Kind.DOUBLE, ThyroidEntry::getPatientWeightKg, (e, v) -> e.setPatientWeightKg((Double) v));
+        add("tiRadsScore", Kind.INT, ThyroidEntry::getTiRadsScore, (e, v) -> e.setTiRadsScore((Integer) v));
+        add("tiRadsLevel", Kind.STRING, ThyroidEntry::getTiRadsLevel, (e, v) -> e.setTiRadsLevel((String) v));
+        add("tsh", Kind.DOUBLE, ThyroidEntry::getTsh, (e, v) -> e.setTsh((Double) v));
+        add("freeT4", Kind.DOUBLE, ThyroidEntry::getFreeT4, (e, v) -> e.setFreeT4((Double) v));
+        add("freeT3", Kind.DOUBLE, ThyroidEntry::getFreeT3, (e, v) -> e.setFreeT3((Double) v));
+        add("tpoAb", Kind.DOUBLE, ThyroidEntry::getTpoAb, (e, v) -> e.setTpoAb((Double) v));
+        add("tg", Kind.DOUBLE, ThyroidEntry::getTg, (e, v) -> e.setTg((Double) v));
+        add("tgAb", Kind.DOUBLE, ThyroidEntry::getTgAb, (e, v) -> e.setTgAb((Double) v));
+        add("trab", Kind.DOUBLE, ThyroidEntry::getTrab, (e, v) -> e.setTrab((Double) v));
+        add("calcitonin", Kind.DOUBLE, ThyroidEntry::getCalcitonin, (e, v) -> e.setCalcitonin((Double) v));
+        add("lastLabDate", Kind.DATE, ThyroidEntry::getLastLabDate, (e, v) -> e.setLastLabDate((LocalDate) v));
+        add("lt4DoseMcgPerDay", Kind.DOUBLE, ThyroidEntry::getLt4DoseMcgPerDay, (e, v) -> e.setLt4DoseMcgPerDay((Double) v));
+        add("atdName", Kind.STRING, ThyroidEntry::getAtdName, (e, v) -> e.setAtdName((String) v));
+        add("atdDoseMgPerDay", Kind.DOUBLE, ThyroidEntry::getAtdDoseMgPerDay, (e, v) -> e.setAtdDoseMgPerDay((Double) v));
+        add("betaBlockerName", Kind.STRING, ThyroidEntry::getBetaBlockerName, (e, v) -> e.setBetaBlockerName((String) v));
+        add("betaBlockerDose", Kind.STRING, ThyroidEntry::getBetaBlockerDose, (e, v) -> e.setBetaBlockerDose((String) v));
+        add("otherMeds", Kind.STRING, ThyroidEntry::getOtherMeds, (e, v) -> e.setOtherMeds((String) v));
+        add("usSummary", Kind.STRING, ThyroidEntry::getUsSummary, (e, v) -> e.setUsSummary((String) v));
+        add("usDate", Kind.DATE, ThyroidEntry::getUsDate, (e, v) -> e.setUsDate((LocalDate) v));
+        add("scanSummary", Kind.STRING, ThyroidEntry::getScanSummary, (e, v) -> e.setScanSummary((String) v));
+        add("scanDate", Kind.DATE, ThyroidEntry::getScanDate, (e, v) -> e.setScanDate((LocalDate) v));
+        add("followUpInterval", Kind.STRING, ThyroidEntry::getFollowUpInterval, (e, v) -> e.setFollowUpInterval((String) v));
+        add("followUpPlanText", Kind.STRING, ThyroidEntry::getFollowUpPlanText, (e, v) -> e.setFollowUpPlanText((String) v));
+        add("clinicianNote", Kind.STRING, ThyroidEntry::getClinicianNote, (e, v) -> e.setClinicianNote((String) v));
+        add("problemListSummary", Kind.STRING, ThyroidEntry::getProblemListSummary, (e, v) -> e.setProblemListSummary((String) v));
+    }
+
+    private static final ThyroidEntry.MainCategory[] CATEGORIES = ThyroidEntry.MainCategory.values();
+
+    private ThyroidEntryCodec() {}
+
+    private static void add(String name, Kind kind, Function<ThyroidEntry, Object> getter, BiConsumer<ThyroidEntry, Object> setter) {
+        FIELDS.add(new Field(name, kind, null, getter, setter));
+    }
+
+    private static void addEnum(String name, Class<? extends Enum<?>> type, Function<ThyroidEntry, Object> getter, BiConsumer<ThyroidEntry, Object> setter) {
+        FIELDS.add(new Field(name, Kind.ENUM, type, getter, setter));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ThyroidEntry.MainCategory> castCategories(Object v) {
+        return (List<ThyroidEntry.MainCategory>) v;
+    }
+
+    // ================================
+    // Encoding
+    // ================================
+
+    public static byte[] encode(ThyroidEntry entry) {
+        int fieldCount = FIELDS.size();
+        Object[] values = new Object[fieldCount];
+        byte[] bitmap = new byte[(fieldCount + 7) >>> 3];
+        for (int i = 0; i < fieldCount; i++) {
+            Object v = FIELDS.get(i).getter().apply(entry);
+            if (v instanceof List<?> list && list.isEmpty()) v = null;
+            if (v != null) {
+                values[i] = v;
+                bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        Out out = new Out(64);
+        out.varint(VERSION);
+        out.varint(fieldCount);
+        out.bytes(bitmap);
+        for (int i = 0; i < fieldCount; i++) {
+            Object v = values[i];
+            if (v == null) continue;
+            switch (FIELDS.get(i).kind()) {
+                case BOOL -> out.raw((Boolean) v ? 1 : 0);
+                case INT -> out.varint(zigzag((Integer) v));
+                case DOUBLE -> out.fixed64(Double.doubleToRawLongBits((Double) v));
+                case STRING -> out.string((String) v);
+                case DATE -> out.varint(zigzag(((LocalDate) v).toEpochDay()));
+                case ENUM -> out.varint(((Enum<?>) v).ordinal());
+                case CATEGORIES -> {
+                    long bits = 0;
+                    for (Object c : (List<?>) v) bits |= 1L << ((Enum<?>) c).ordinal();
+                    out.varint(bits);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // ================================
+    // Decoding
+    // ================================
+
+    public static ThyroidEntry decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decodes an entry from {@code data[offset, offset + length)}.
+     *
+     * @throws IllegalArgumentException if the bytes are not a ThyroidEntry of a known version.
+     */
+    public static ThyroidEntry decode(byte[] data, int offset, int length) {
+        In in = new In(data, offset, offset + length);
+        try {
+            long version = in.varint();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalArgumentException("Unsupported ThyroidEntry version " + version);
+            }
+            int written = (int) in.varint();
+            byte[] bitmap = in.bytes((written + 7) >>> 3);
+
+            ThyroidEntry entry = new ThyroidEntry();
+            int known = Math.min(written, FIELDS.size());
+            for (int i = 0; i < known; i++) {
+                if ((bitmap[i >>> 3] & (1 << (i & 7))) == 0) continue;
+                Field f = FIELDS.get(i);
+                Object v = switch (f.kind()) {
+                    case BOOL -> in.raw() != 0;
+                    case INT -> (int) unzigzag(in.varint());
+                    case DOUBLE -> Double.longBitsToDouble(in.fixed64());
+                    case STRING -> in.string();
+                    case DATE -> LocalDate.ofEpochDay(unzigzag(in.varint()));
+                    case ENUM -> enumConstant(f.enumType(), in.varint());
+                    case CATEGORIES -> categories(in.varint());
+                };
+                f.setter().accept(entry, v);
+            }
+            // Fields past `known` come from a newer writer; they are skipped by the caller's framing.
+            return entry;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated ThyroidEntry", e);
+        }
+    }
+
+    private static Object enumConstant(Class<? extends Enum<?>> type, long ordinal) {
+        Enum<?>[] constants = type.getEnumConstants();
+        return ordinal >= 0 && ordinal < constants.length ? constants[(int) ordinal] : null;
+    }
+
+    private static List<ThyroidEntry.MainCategory> categories(long bits) {
+        List<ThyroidEntry.MainCategory> list = new ArrayList<>(Long.bitCount(bits));
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if ((bits & (1L << i)) != 0) list.add(CATEGORIES[i]);
+        }
+        return list;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // ================================
+    // Byte buffers
+    // ================================
+
+    private static final class Out {
+        private byte[] buf;
+        private int pos;
+
+        Out(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+
+        void raw(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void bytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void fixed64(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                buf[pos++] = (byte) (v >>> (8 * i));
+            }
+        }
+
+        void string(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class In {
+        private final byte[] buf;
+        private int pos;
+        private final int end;
+
+        In(byte[] buf, int offset, int end) {
+            this.buf = buf;
+            this.pos = offset;
+            this.end = end;
+        }
+
+        private void require(int n) {
+            if (pos + n > end) throw new ArrayIndexOutOfBoundsException("need " + n + " bytes at " + pos);
+        }
+
+        int raw() {
+            require(1);
+            return buf[pos++];
+        }
+
+        byte[] bytes(int n) {
+            require(n);
+            byte[] b = Arrays.copyOfRange(buf, pos, pos + n);
+            pos += n;
+            return b;
+        }
+
+        long varint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = raw();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long fixed64() {
+            require(8);
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v |= (buf[pos++] & 0xFFL) << (8 * i);
+            }
+            return v;
+        }
+
+        String string() {
+            int n = (int) varint();
+            require(n);
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.emr.gds.main.thyroid;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Registry of thyroid patients and when their next lab check and neck ultrasound are due.
+ * <p>
+ * Visits are persisted through {@link ThyroidHistoryStore}; only each patient's latest visit counts.
+ * For every {@link Test} the registry keeps a due-date index (a sorted set ordered by due date, then
+ * patient), so "who is due for an ultrasound this week" is a range lookup costing O(log n + matches)
+ * rather than a scan over every patient. The index is rebuilt from the store when the registry is
+ * opened and by {@link #recalculate(ThyroidFollowUpRules)} when the rules change; saving a visit only
+ * replaces that patient's entries.
+ */
+public final class ThyroidFollowUpRegistry {
+
+    public enum Test {
+        LABS("TSH / thyroid function"),
+        ULTRASOUND("Neck ultrasound");
+
+        private final String label;
+
+        Test(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /** One pending check; {@code visitDate} is the date of the visit it was derived from. */
+    public record Due(String patientId, Test test, LocalDate dueDate, LocalDate visitDate) {}
+
+    private static final Comparator<Due> BY_DATE =
+            Comparator.comparing(Due::dueDate).thenComparing(Due::patientId);
+
+    // Sorts after any patient id, for inclusive upper bounds in the index.
+    private static final String LAST_PATIENT = "\uffff";
+
+    private static volatile ThyroidFollowUpRegistry shared;
+
+    private final ThyroidHistoryStore store;
+    private final ZoneId zone;
+    private ThyroidFollowUpRules rules;
+    private final Map<Test, NavigableSet<Due>> index = new EnumMap<>(Test.class);
+    private final Map<String, Due[]> byPatient = new HashMap<>();
+
+    ThyroidFollowUpRegistry(ThyroidHistoryStore store, ThyroidFollowUpRules rules, ZoneId zone) {
+        this.store = store;
+        this.zone = zone;
+        recalculate(rules);
+    }
+
+    /**
+     * Returns the registry over {@link ThyroidHistoryStore#shared()} with the default rules.
+     */
+    public static ThyroidFollowUpRegistry shared() {
+        ThyroidFollowUpRegistry registry = shared;
+        if (registry == null) {
+            synchronized (ThyroidFollowUpRegistry.class) {
+                registry = shared;
+                if (registry == null) {
+                    registry = new ThyroidFollowUpRegistry(ThyroidHistoryStore.shared(),
+                            ThyroidFollowUpRules.defaults(), ZoneId.systemDefault());
+                    shared = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    // ================================
+    // Updates
+    // ================================
+
+    /**
+     * Saves the visit to the history store and re-indexes the patient if it is now their latest one.
+     */
+    public synchronized ThyroidHistoryStore.Visit save(String patientId, ThyroidEntry entry, long savedAt) throws IOException {
+        ThyroidHistoryStore.Visit visit = store.append(patientId, entry, savedAt);
+        ThyroidHistoryStore.Visit latest = store.latest(visit.patientId()).orElse(visit);
+        if (latest == visit) {
+            unindex(visit.patientId());
+            index(visit.patientId(), entry, visitDate(savedAt));
+        }
+        return visit;
+    }
+
+    /**
+     * Batch job: recomputes every patient's due dates from their latest visit under new rules.
+     *
+     * @return the number of patients indexed.
+     */
+    public synchronized int recalculate(ThyroidFollowUpRules newRules) {
+        rules = newRules;
+        for (Test t : Test.values()) {
+            index.put(t, new TreeSet<>(BY_DATE));
+        }
+        byPatient.clear();
+        List<ThyroidHistoryStore.Visit> latest = store.latestVisits();
+        for (ThyroidHistoryStore.Visit v : latest) {
+            try {
+                index(v.patientId(), v.entry(), visitDate(v.savedAt()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[THYROID REGISTRY] Skipping unreadable visit of " + v.patientId() + ": " + e.getMessage());
+            }
+        }
+        return byPatient.size();
+    }
+
+    private void index(String patient, ThyroidEntry entry, LocalDate visitDate) {
+        if (patient.isEmpty()) return; // saved without a patient id; nobody to recall
+        Due[] dues = new Due[Test.values().length];
+        dues[Test.LABS.ordinal()] = due(patient, Test.LABS, rules.labDue(entry, visitDate), visitDate);
+        dues[Test.ULTRASOUND.ordinal()] = due(patient, Test.ULTRASOUND, rules.ultrasoundDue(entry, visitDate), visitDate);
+        for (Due d : dues) {
+            if (d != null) index.get(d.test()).add(d);
+        }
+        byPatient.put(patient, dues);
+    }
+
+    private void unindex(String patient) {
+        Due[] dues = byPatient.remove(patient);
+        if (dues == null) return;
+        for (Due d : dues) {
+            if (d != null) index.get(d.test()).remove(d);
+        }
+    }
+
+    private static Due due(String patient, Test test, LocalDate date, LocalDate visitDate) {
+        return date == null ? null : new Due(patient, test, date, visitDate);
+    }
+
+    private LocalDate visitDate(long savedAt) {
+        return Instant.ofEpochMilli(savedAt).atZone(zone).toLocalDate();
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    /** Checks of one kind falling due between {@code from} and {@code to}, both inclusive, soonest first. */
+    public synchronized List<Due> dueBetween(Test test, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return List.of();
+        Due low = new Due("", test, from, null);
+        Due high = new Due(LAST_PATIENT, test, to, null);
+        return new ArrayList<>(index.get(test).subSet(low, true, high, true));
+    }
+
+    /** Checks of one kind that were due before {@code today}. */
+    public synchronized List<Due> overdue(Test test, LocalDate today) {
+        return new ArrayList<>(index.get(test).headSet(new Due("", test, today, null), false));
+    }
+
+    /** Everything overdue or due in the seven days starting today, by test, soonest first. */
+    public synchronized List<Due> dueThisWeek(LocalDate today) {
+        List<Due> result = new ArrayList<>();
+        for (Test t : Test.values()) {
+            result.addAll(index.get(t).headSet(new Due(LAST_PATIENT, t, today.plusDays(6), null), true));
+        }
+        return result;
+    }
+
+    /** The patient's pending checks, soonest first. */
+    public synchronized List<Due> pending(String patientId) {
+        Due[] dues = byPatient.get(patientId == null ? "" : patientId.strip());
+        List<Due> result = new ArrayList<>();
+        if (dues != null) {
+            for (Due d : dues) {
+                if (d != null) result.add(d);
+            }
+        }
+        result.sort(BY_DATE);
+        return result;
+    }
+
+    public synchronized int size() {
+        return byPatient.size();
+    }
+}
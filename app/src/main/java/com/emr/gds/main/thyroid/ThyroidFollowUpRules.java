@@ -0,0 +1,100 @@
+package com.emr.gds.main.thyroid;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Follow-up intervals used by {@link ThyroidFollowUpRegistry} to turn a saved visit into due dates.
+ * <p>
+ * A lab recheck (TSH/free T4, plus Tg for cancer) is due one interval after the last lab date, or the
+ * visit date when no lab date was entered. The clinician's chosen follow-up interval wins; otherwise
+ * the interval depends on the problem list. A neck ultrasound is due after the last ultrasound (or the
+ * visit) for differentiated cancer and for TR3–TR5 nodules, per ATA 2015 and ACR TI-RADS surveillance.
+ * When guidance changes, build a new instance and pass it to
+ * {@link ThyroidFollowUpRegistry#recalculate(ThyroidFollowUpRules)}.
+ */
+public record ThyroidFollowUpRules(Period activeHyperLab, Period hypoLab, Period cancerLab, Period otherLab,
+                                   Period cancerUs, Period tr3Us, Period tr4Us, Period tr5Us) {
+
+    private static final Pattern INTERVAL = Pattern.compile("(\\d+)\\s*(day|week|month|year)s?");
+
+    public static ThyroidFollowUpRules defaults() {
+        return new ThyroidFollowUpRules(
+                Period.ofWeeks(6),   // active hyperthyroidism on ATD
+                Period.ofMonths(6),  // stable hypothyroidism on LT4
+                Period.ofMonths(6),  // DTC surveillance: TSH, Tg, TgAb
+                Period.ofMonths(12), // nodule, goiter, thyroiditis
+                Period.ofMonths(12), // post-op neck US
+                Period.ofMonths(24), // TR3
+                Period.ofMonths(12), // TR4
+                Period.ofMonths(12)  // TR5
+        );
+    }
+
+    /** Date the next lab check is due, or {@code null} if the visit has no thyroid problem to follow. */
+    public LocalDate labDue(ThyroidEntry e, LocalDate visitDate) {
+        Period interval = parseInterval(e.getFollowUpInterval());
+        if (interval == null) interval = labInterval(e.getCategories(), Boolean.TRUE.equals(e.isHyperActive()));
+        if (interval == null) return null;
+        LocalDate basis = e.getLastLabDate() != null ? e.getLastLabDate() : visitDate;
+        return basis.plus(interval);
+    }
+
+    /** Date the next neck ultrasound is due, or {@code null} if none is indicated. */
+    public LocalDate ultrasoundDue(ThyroidEntry e, LocalDate visitDate) {
+        Period interval = null;
+        List<ThyroidEntry.MainCategory> categories = e.getCategories();
+        if (categories != null && categories.contains(ThyroidEntry.MainCategory.CANCER)) {
+            interval = cancerUs;
+        }
+        Period nodule = switch (tiRadsCategory(e.getTiRadsLevel())) {
+            case 3 -> tr3Us;
+            case 4 -> tr4Us;
+            case 5 -> tr5Us;
+            default -> null;
+        };
+        if (nodule != null && (interval == null || shorter(nodule, interval))) interval = nodule;
+        if (interval == null) return null;
+        LocalDate basis = e.getUsDate() != null ? e.getUsDate() : visitDate;
+        return basis.plus(interval);
+    }
+
+    private Period labInterval(List<ThyroidEntry.MainCategory> categories, boolean hyperActive) {
+        if (categories == null || categories.isEmpty()) return null;
+        if (categories.contains(ThyroidEntry.MainCategory.HYPERTHYROIDISM) && hyperActive) return activeHyperLab;
+        if (categories.contains(ThyroidEntry.MainCategory.CANCER)) return cancerLab;
+        if (categories.contains(ThyroidEntry.MainCategory.HYPOTHYROIDISM)
+                || categories.contains(ThyroidEntry.MainCategory.HYPERTHYROIDISM)) return hypoLab;
+        return otherLab;
+    }
+
+    /** Parses the follow-up combo text ("3 months", "1 year"); anything else (e.g. "Custom") is {@code null}. */
+    static Period parseInterval(String text) {
+        if (text == null) return null;
+        Matcher m = INTERVAL.matcher(text.strip().toLowerCase(Locale.ROOT));
+        if (!m.matches()) return null;
+        int n = Integer.parseInt(m.group(1));
+        return switch (m.group(2)) {
+            case "day" -> Period.ofDays(n);
+            case "week" -> Period.ofWeeks(n);
+            case "month" -> Period.ofMonths(n);
+            default -> Period.ofYears(n);
+        };
+    }
+
+    /** The TR number of a TI-RADS level such as "TR4 (Moderately Suspicious)", or 0. */
+    static int tiRadsCategory(String level) {
+        if (level == null || level.length() < 3 || !level.startsWith("TR")) return 0;
+        char c = level.charAt(2);
+        return c >= '1' && c <= '5' ? c - '0' : 0;
+    }
+
+    private static boolean shorter(Period a, Period b) {
+        LocalDate epoch = LocalDate.EPOCH;
+        return epoch.plus(a).isBefore(epoch.plus(b));
+    }
+}
@@ -0,0 +1,210 @@
+package com.emr.gds.main.thyroid;
+
+import com.emr.gds.main.IAMPaths;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-patient history of saved thyroid visits, persisted in {@code app/db/thyroid_history.dat}.
+ * <p>
+ * The file is a header followed by appended records: {@code int length, int patientBytes, patient
+ * (UTF-8), long savedAt (epoch millis), entry}, where the entry is {@link ThyroidEntryCodec} bytes.
+ * Visits are kept in memory in their encoded form (a few hundred bytes each instead of a graph of
+ * boxed fields) and decoded only when asked for. A record cut short by a crash is dropped, and the
+ * file truncated back to the last complete one, when the store is opened.
+ */
+public final class ThyroidHistoryStore {
+
+    /** One saved visit; {@link #entry()} decodes a fresh copy every time. */
+    public record Visit(String patientId, long savedAt, byte[] encoded) {
+        public ThyroidEntry entry() {
+            return ThyroidEntryCodec.decode(encoded);
+        }
+    }
+
+    // ================================
+    // Constants
+    // ================================
+    private static final String DATA_FILE = "thyroid_history.dat";
+    private static final int MAGIC = 0x47544859; // "GTHY"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private static volatile ThyroidHistoryStore shared;
+
+    private final Path dataFile;
+    private final FileChannel channel;
+    private final Map<String, List<Visit>> visitsByPatient = new HashMap<>();
+    private int visitCount;
+
+    // ================================
+    // Opening
+    // ================================
+
+    /**
+     * Returns the store in {@code app/db}, opening it on first use.
+     */
+    public static ThyroidHistoryStore shared() {
+        ThyroidHistoryStore store = shared;
+        if (store == null) {
+            synchronized (ThyroidHistoryStore.class) {
+                store = shared;
+                if (store == null) {
+                    try {
+                        store = open(IAMPaths.dbDirectory());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not open thyroid history", e);
+                    }
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Opens (or creates) a store in the given directory and loads every saved visit.
+     */
+    public static ThyroidHistoryStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new ThyroidHistoryStore(directory.resolve(DATA_FILE));
+    }
+
+    private ThyroidHistoryStore(Path dataFile) throws IOException {
+        this.dataFile = dataFile;
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FILE_VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+        } else {
+            load();
+        }
+        channel.position(channel.size());
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("Thyroid history too large: " + dataFile);
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) >= 0) {
+            // read until full
+        }
+        buf.flip();
+        if (buf.getInt() != MAGIC || buf.getInt() != FILE_VERSION) {
+            throw new IOException("Not a thyroid history file: " + dataFile);
+        }
+
+        long good = buf.position();
+        while (buf.remaining() >= Integer.BYTES) {
+            int length = buf.getInt();
+            if (length < Integer.BYTES + Long.BYTES || length > buf.remaining()) break;
+            int patientBytes = buf.getInt();
+            if (patientBytes < 0 || patientBytes > length - Integer.BYTES - Long.BYTES) break;
+            String patient = new String(buf.array(), buf.position(), patientBytes, StandardCharsets.UTF_8);
+            buf.position(buf.position() + patientBytes);
+            long savedAt = buf.getLong();
+            byte[] encoded = new byte[length - Integer.BYTES - patientBytes - Long.BYTES];
+            buf.get(encoded);
+            add(new Visit(patient, savedAt, encoded));
+            good = buf.position();
+        }
+        if (good < size) {
+            System.err.println("[THYROID HISTORY] Dropping " + (size - good) + " bytes of incomplete record at end of " + dataFile);
+            channel.truncate(good);
+        }
+    }
+
+    // ================================
+    // Writing and queries
+    // ================================
+
+    /**
+     * Encodes and appends a snapshot of {@code entry}; later changes to the entry are not seen.
+     */
+    public synchronized Visit append(String patientId, ThyroidEntry entry, long savedAt) throws IOException {
+        String patient = key(patientId);
+        byte[] encoded = ThyroidEntryCodec.encode(entry);
+        byte[] patientUtf8 = patient.getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES + patientUtf8.length + Long.BYTES + encoded.length;
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .putInt(patientUtf8.length).put(patientUtf8)
+                .putLong(savedAt)
+                .put(encoded)
+                .flip();
+        long start = channel.size();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record, start + record.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(start);
+            throw e;
+        }
+
+        Visit visit = new Visit(patient, savedAt, encoded);
+        add(visit);
+        return visit;
+    }
+
+    /** Every visit of a patient, oldest first. */
+    public synchronized List<Visit> history(String patientId) {
+        List<Visit> visits = visitsByPatient.get(key(patientId));
+        return visits == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(visits));
+    }
+
+    public synchronized Optional<Visit> latest(String patientId) {
+        List<Visit> visits = visitsByPatient.get(key(patientId));
+        return visits == null || visits.isEmpty() ? Optional.empty() : Optional.of(visits.get(visits.size() - 1));
+    }
+
+    /** The most recent visit of every patient, in no particular order. */
+    public synchronized List<Visit> latestVisits() {
+        List<Visit> latest = new ArrayList<>(visitsByPatient.size());
+        for (List<Visit> visits : visitsByPatient.values()) {
+            if (!visits.isEmpty()) latest.add(visits.get(visits.size() - 1));
+        }
+        return latest;
+    }
+
+    public synchronized int count(String patientId) {
+        List<Visit> visits = visitsByPatient.get(key(patientId));
+        return visits == null ? 0 : visits.size();
+    }
+
+    public synchronized int totalVisits() {
+        return visitCount;
+    }
+
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Keeps each patient's list in savedAt order; appends are normally already the newest.
+    private void add(Visit visit) {
+        List<Visit> visits = visitsByPatient.computeIfAbsent(visit.patientId(), p -> new ArrayList<>());
+        int at = visits.size();
+        while (at > 0 && visits.get(at - 1).savedAt() > visit.savedAt()) at--;
+        visits.add(at, visit);
+        visitCount++;
+    }
+
+    private static String key(String patientId) {
+        return patientId == null ? "" : patientId.strip();
+    }
+}
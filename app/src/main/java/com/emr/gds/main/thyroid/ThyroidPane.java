@@ -1,5 +1,9 @@
 package com.emr.gds.main.thyroid;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -81,6 +85,10 @@ public class ThyroidPane extends VBox {
     private final TextArea txtFollowUpPlan = new TextArea();
     private final TextArea txtSummaryOutput = new TextArea();
     private final Button btnGenerateSummary = new Button("Generate Specialist Summary");
+    private final TextField txtPatientId = new TextField();
+    private final Button btnSaveVisit = new Button("Save Visit");
+    private final Button btnDueThisWeek = new Button("Due This Week");
+    private final Label lblHistory = new Label();
 
     public ThyroidPane(ThyroidEntry entry) {
         this.entry = (entry != null) ? entry : new ThyroidEntry();
@@ -173,6 +181,8 @@ public class ThyroidPane extends VBox {
         txtFollowUpPlan.setPrefRowCount(3);
         txtSummaryOutput.setPromptText("Specialist summary...");
         txtSummaryOutput.setPrefRowCount(8);
+        txtPatientId.setPromptText("Patient ID");
+        txtPatientId.setPrefWidth(120);
     }
 
     private void buildLayout() {
@@ -297,13 +307,16 @@ public class ThyroidPane extends VBox {
 
         HBox intBox = new HBox(10, new Label("Interval:"), cmbFollowUpInterval);
         intBox.setAlignment(Pos.CENTER_LEFT);
+        HBox saveBox = new HBox(10, new Label("Patient ID:"), txtPatientId, btnSaveVisit, btnDueThisWeek, lblHistory);
+        saveBox.setAlignment(Pos.CENTER_LEFT);
 
         box.getChildren().addAll(
             intBox,
             new Label("Plan details:"),
             txtFollowUpPlan,
             btnGenerateSummary,
-            txtSummaryOutput
+            txtSummaryOutput,
+            saveBox
         );
         return new TitledPane("5. Plan & Summary", box);
     }
@@ -336,6 +349,54 @@ public class ThyroidPane extends VBox {
             txtSummaryOutput.setText(summary);
             entry.setProblemListSummary(summary);
         });
+
+        txtPatientId.textProperty().addListener((obs, oldVal, newVal) -> updateHistoryLabel());
+        btnSaveVisit.setOnAction(e -> saveVisit());
+        btnDueThisWeek.setOnAction(e -> showDueThisWeek());
+    }
+
+    private void saveVisit() {
+        mapUiToEntry();
+        try {
+            ThyroidFollowUpRegistry.shared().save(txtPatientId.getText(), entry, System.currentTimeMillis());
+            updateHistoryLabel();
+        } catch (IOException | UncheckedIOException ex) {
+            new Alert(Alert.AlertType.ERROR, "Could not save visit: " + ex.getMessage()).showAndWait();
+        }
+    }
+
+    private void showDueThisWeek() {
+        List<ThyroidFollowUpRegistry.Due> due;
+        try {
+            due = ThyroidFollowUpRegistry.shared().dueThisWeek(LocalDate.now());
+        } catch (UncheckedIOException ex) {
+            new Alert(Alert.AlertType.ERROR, "Could not open thyroid history: " + ex.getMessage()).showAndWait();
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ThyroidFollowUpRegistry.Due d : due) {
+            sb.append(d.dueDate()).append("  ").append(d.patientId()).append("  ").append(d.test().label());
+            if (d.dueDate().isBefore(LocalDate.now())) sb.append("  (overdue)");
+            sb.append('\n');
+        }
+        TextArea list = new TextArea(sb.length() == 0 ? "Nobody is due this week." : sb.toString());
+        list.setEditable(false);
+        list.setPrefRowCount(15);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Thyroid Follow-up");
+        alert.setHeaderText(due.size() + " checks overdue or due within 7 days");
+        alert.getDialogPane().setContent(list);
+        alert.showAndWait();
+    }
+
+    private void updateHistoryLabel() {
+        int visits;
+        try {
+            visits = ThyroidHistoryStore.shared().count(txtPatientId.getText());
+        } catch (UncheckedIOException ex) {
+            visits = 0; // reported when the user tries to save
+        }
+        lblHistory.setText(visits == 0 ? "" : visits + (visits == 1 ? " saved visit" : " saved visits"));
     }
 
     private void updateDoseEst() {
@@ -359,6 +420,8 @@ public class ThyroidPane extends VBox {
             );
             lblTiRadsResult.setText(String.format("Score: %d\nLevel: %s\nRec: %s", 
                 res.score, res.level, res.recommendation));
+            entry.setTiRadsScore(res.score);
+            entry.setTiRadsLevel(res.level);
         }
     }
 
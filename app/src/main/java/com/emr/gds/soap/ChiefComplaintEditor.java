@@ -1,31 +1,17 @@
 package com.emr.gds.soap;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
-import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -37,12 +23,13 @@ import javafx.stage.Stage;
  * A specialized editor for the Chief Complaint section, featuring quick templates, a phrase bank,
  * and automatic abbreviation expansion.
  */
-public class ChiefComplaintEditor {
+public class ChiefComplaintEditor implements SoapEditor {
 
-    private final TextArea sourceTextArea;
+    private TextArea sourceTextArea;
     private Stage editorStage;
     private TextArea editorTextArea;
-    private final Map<String, String> abbrevMap = new HashMap<>();
+    private PhraseBankPanel phraseBank;
+    private final Map<String, String> abbrevMap;
 
     private final String[] ccTemplates = {
             "Chest pain", "Shortness of breath", "Abdominal pain", "Headache", "Back pain",
@@ -54,49 +41,27 @@ public class ChiefComplaintEditor {
             "[ :cd ]", "-day ago onset", "-week ago onset", "-month ago onset", "-year ago onset"
     };
 
-    private final String[] clinicalPhrases = {
-            "Patient presents with acute onset of severe chest pain radiating to the left arm.",
-            "Complains of persistent shortness of breath worsened by physical activity.",
-            "Reports moderate to severe abdominal pain localized to the right lower quadrant.",
-            "Experiencing high fever with chills and night sweats for several days.",
-            "Presents with a throbbing headache accompanied by nausea and light sensitivity."
-    };
-
-    public static class Phrase {
-        private final SimpleStringProperty text;
-        public Phrase(String text) { this.text = new SimpleStringProperty(text); } 
-        public String getText() { return text.get(); }
-    }
-
-    public ChiefComplaintEditor(TextArea sourceTextArea) {
-        this.sourceTextArea = sourceTextArea;
-        initAbbrevDatabase();
+    /**
+     * Builds the window once; {@link #bind} points it at a text area before each opening.
+     *
+     * @param abbrevMap the application's live abbreviation map
+     */
+    public ChiefComplaintEditor(Map<String, String> abbrevMap) {
+        this.abbrevMap = abbrevMap;
         createEditorWindow();
     }
 
-    private void initAbbrevDatabase() {
-        try {
-            Path dbFile = getDbPath("abbreviations.db");
-            if (!Files.exists(dbFile)) return;
-            String url = "jdbc:sqlite:" + dbFile.toAbsolutePath();
-            try (Connection conn = DriverManager.getConnection(url);
-                 Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT * FROM abbreviations")) {
-                while (rs.next()) {
-                    abbrevMap.put(rs.getString("short"), rs.getString("full"));
-                }
-            }
-        } catch (Exception e) {
-            showError("Failed to initialize abbreviation database: " + e.getMessage());
-        }
+    @Override
+    public Stage stage() {
+        return editorStage;
     }
 
-    private Path getDbPath(String fileName) {
-        Path p = Paths.get("").toAbsolutePath();
-        while (p != null && !Files.exists(p.resolve("gradlew"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p.resolve("app/db/").resolve(fileName) : Paths.get("app/db").resolve(fileName);
+    @Override
+    public void bind(TextArea target) {
+        sourceTextArea = target;
+        editorTextArea.setText(target.getText());
+        editorTextArea.end();
+        phraseBank.reset();
     }
 
     private void createEditorWindow() {
@@ -115,24 +80,11 @@ public class ChiefComplaintEditor {
     }
 
     private VBox createWestPanel(double width) {
-        TableView<Phrase> table = new TableView<>();
-        table.setPrefWidth(width);
-        TableColumn<Phrase, String> phraseColumn = new TableColumn<>("Clinical Phrases");
-        phraseColumn.setCellValueFactory(new PropertyValueFactory<>("text"));
-        phraseColumn.prefWidthProperty().bind(table.widthProperty());
-        table.getColumns().add(phraseColumn);
-
-        ObservableList<Phrase> phraseData = Arrays.stream(clinicalPhrases).map(Phrase::new).collect(Collectors.toCollection(FXCollections::observableArrayList));
-        table.setItems(phraseData);
-
-        table.getSelectionModel().selectedItemProperty().addListener((obs, old, newSelection) -> {
-            if (newSelection != null) {
-                editorTextArea.appendText(newSelection.getText() + " ");
-                editorTextArea.requestFocus();
-            }
-        });
-
-        return new VBox(5, createStyledLabel("Phrase Bank", "-fx-font-weight: bold;"), table);
+        phraseBank = new PhraseBankPanel(PhraseLibrary.Section.CHIEF_COMPLAINT, width, text -> {
+            editorTextArea.appendText(text + " ");
+            editorTextArea.requestFocus();
+        }, () -> editorTextArea.getSelectedText().isBlank() ? editorTextArea.getText() : editorTextArea.getSelectedText());
+        return phraseBank;
     }
 
     private VBox createTopSection() {
@@ -144,7 +96,7 @@ public class ChiefComplaintEditor {
     }
 
     private VBox createCenterSection() {
-        editorTextArea = new TextArea(sourceTextArea.getText());
+        editorTextArea = new TextArea();
         editorTextArea.setWrapText(true);
         editorTextArea.setPrefRowCount(10);
 
@@ -155,7 +107,6 @@ public class ChiefComplaintEditor {
         previewArea.setStyle("-fx-background-color: #f5f5f5;");
 
         editorTextArea.textProperty().addListener((obs, old, newText) -> previewArea.setText(expandAbbreviations(newText)));
-        previewArea.setText(expandAbbreviations(editorTextArea.getText()));
 
         return new VBox(10,
                 createStyledLabel("Quick Templates:", "-fx-font-weight: bold;"),
@@ -232,12 +183,4 @@ public class ChiefComplaintEditor {
         button.setOnAction(handler);
         return button;
     }
-
-    private void showError(String message) {
-        new Alert(Alert.AlertType.ERROR, message).showAndWait();
-    }
-
-    public void showAndWait() {
-        editorStage.showAndWait();
-    }
 }
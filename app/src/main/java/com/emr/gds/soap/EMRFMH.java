@@ -1,18 +1,21 @@
 package com.emr.gds.soap;
 
 import com.emr.gds.input.IAITextAreaManager;
+import com.emr.gds.main.IAMDataRefresher;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import com.emr.gds.soap.FamilyHistoryStore.Category;
+import com.emr.gds.soap.FamilyHistoryStore.Condition;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -55,6 +58,7 @@ import javafx.stage.Stage;
  * - Full scrolling (Swing + JavaFX)
  * - Clean organization
  * - Embedded JavaFX form in JFXPanel
+ * - Condition lists and per-patient entries kept in {@link FamilyHistoryStore}
  */
 public class EMRFMH extends JFrame {
 
@@ -63,18 +67,15 @@ public class EMRFMH extends JFrame {
 	private final Map<String, String> abbrevMap;
 
 
-    private ObservableList<String> endocrineConditions;
-    private ObservableList<String> cancerConditions;
-    private ObservableList<String> cardiovascularConditions;
-    private ObservableList<String> geneticConditions;
-
-    private static final Path DATA_DIR = Paths.get("emr_fmh_data");
-    private static final Path ENDOCRINE_FILE = DATA_DIR.resolve("endocrine.txt");
-    private static final Path CANCER_FILE = DATA_DIR.resolve("cancer.txt");
-    private static final Path CARDIO_FILE = DATA_DIR.resolve("cardiovascular.txt");
-    private static final Path GENETIC_FILE = DATA_DIR.resolve("genetic.txt");
+    // Shown lists (FX thread only), filled from the store's shared snapshot
+    private final FamilyHistoryStore store = FamilyHistoryStore.shared();
+    private final Map<Category, ObservableList<Condition>> conditions = new EnumMap<>(Category.class);
+    private final Map<Category, FilteredList<Condition>> filteredConditions = new EnumMap<>(Category.class);
+    private final Map<Category, ListView<Condition>> conditionLists = new EnumMap<>(Category.class);
+    private Category lastFocusedCategory;
 
     // UI Components (to be reused)
+    private TextField patientIdField;
     private ComboBox<String> relationshipComboBox;
     private TextArea notesTextArea;
     private GridPane conditionsGrid;
@@ -92,12 +93,24 @@ public class EMRFMH extends JFrame {
         historyTextArea.setWrapStyleWord(true);
 		addAbbreviationExpansionListener(historyTextArea);
 
-        initializeData();   // load condition files
+        for (Category c : Category.values()) {
+            ObservableList<Condition> items = FXCollections.observableArrayList();
+            conditions.put(c, items);
+            filteredConditions.put(c, new FilteredList<>(items, p -> true));
+        }
         initializeUI();     // build the rest of the UI (uses historyTextArea)
-    }
 
-    private void initializeData() {
-        loadAllConditions();
+        // Lists come from the store, loaded once for all windows; later changes from this or another
+        // window, or from outside the app, arrive through the listener.
+        Runnable reload = this::showStoredConditions;
+        store.addListener(reload);
+        showStoredConditions();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                store.removeListener(reload);
+            }
+        });
     }
 
     private void initializeUI() {
@@ -200,11 +213,17 @@ public class EMRFMH extends JFrame {
         notesTextArea.setWrapText(true);
 		addAbbreviationExpansionListener(notesTextArea);
 
-        grid.add(new Label("Relationship:"), 0, 0);
-        grid.add(relationshipComboBox, 1, 0);
-        grid.add(new Label("Notes:"), 0, 1);
+        patientIdField = new TextField();
+        patientIdField.setPromptText("Optional; Enter shows this patient's saved entries");
+        patientIdField.setOnAction(e -> loadSavedEntries());
+
+        grid.add(new Label("Patient ID:"), 0, 0);
+        grid.add(patientIdField, 1, 0);
+        grid.add(new Label("Relationship:"), 0, 1);
+        grid.add(relationshipComboBox, 1, 1);
+        grid.add(new Label("Notes:"), 0, 2);
         GridPane.setHgrow(notesTextArea, Priority.ALWAYS);
-        grid.add(notesTextArea, 1, 1);
+        grid.add(notesTextArea, 1, 2);
 
         return grid;
     }
@@ -215,20 +234,23 @@ public class EMRFMH extends JFrame {
         grid.setVgap(15);
         grid.setPadding(new Insets(10));
 
-        grid.add(createConditionColumn("Endocrine", endocrineConditions), 0, 0);
-        grid.add(createConditionColumn("Cancer", cancerConditions), 1, 0);
-        grid.add(createConditionColumn("Cardiovascular", cardiovascularConditions), 2, 0);
-        grid.add(createConditionColumn("Genetic", geneticConditions), 3, 0);
+        for (Category c : Category.values()) {
+            grid.add(createConditionColumn(c), c.ordinal(), 0);
+        }
 
         return grid;
     }
 
-    private VBox createConditionColumn(String title, ObservableList<String> items) {
-        ListView<String> listView = new ListView<>(new FilteredList<>(items, p -> true));
+    private VBox createConditionColumn(Category category) {
+        ListView<Condition> listView = new ListView<>(filteredConditions.get(category));
         listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         listView.setPrefHeight(180);
+        listView.focusedProperty().addListener((obs, was, focused) -> {
+            if (focused) lastFocusedCategory = category;
+        });
+        conditionLists.put(category, listView);
 
-        VBox column = new VBox(8, new Label(title + ":"), listView);
+        VBox column = new VBox(8, new Label(category.title() + ":"), listView);
         column.setStyle("-fx-border-color: #ccc; -fx-border-radius: 5; -fx-padding: 8;");
         VBox.setVgrow(listView, Priority.ALWAYS);
         return column;
@@ -241,24 +263,18 @@ public class EMRFMH extends JFrame {
         HBox.setHgrow(searchField, Priority.ALWAYS);
 
         searchField.textProperty().addListener((obs, old, val) -> {
-            String filter = val.toLowerCase();
-            conditionsGrid.getChildren().forEach(node -> {
-                if (node instanceof VBox) {
-                    VBox col = (VBox) node;
-                    ListView<String> lv = (ListView<String>) col.getChildren().get(1);
-                    FilteredList<String> filtered = (FilteredList<String>) lv.getItems();
-                    filtered.setPredicate(s -> s.toLowerCase().contains(filter));
-                }
-            });
+            Predicate<Condition> filter = FamilyHistoryStore.matching(val);
+            filteredConditions.values().forEach(filtered -> filtered.setPredicate(filter));
         });
 
+        // Changes are saved as they are made, one row at a time.
         Button addButton = new Button("Add Condition");
-        addButton.setOnAction(e -> handleAddCondition(getFocusedListView()));
+        addButton.setOnAction(e -> handleAddCondition(lastFocusedCategory));
 
-        Button saveListsButton = new Button("Save Lists");
-        saveListsButton.setOnAction(e -> saveAllConditions());
+        Button removeButton = new Button("Remove Selected");
+        removeButton.setOnAction(e -> handleRemoveConditions(lastFocusedCategory));
 
-        return new HBox(12, new Label("Manage:"), searchField, addButton, saveListsButton);
+        return new HBox(12, new Label("Manage:"), searchField, addButton, removeButton);
     }
 
     private Button createAddHistoryButton() {
@@ -279,73 +295,109 @@ public class EMRFMH extends JFrame {
             return;
         }
 
-        StringBuilder entry = new StringBuilder();
-        entry.append(relationship).append(":\n");
-
         String notes = notesTextArea.getText().trim();
-        if (!notes.isEmpty()) {
-            entry.append("  Notes: ").append(notes).append("\n");
-        }
-
-        boolean hasCondition = false;
-        for (javafx.scene.Node node : conditionsGrid.getChildren()) {
-            if (node instanceof VBox) {
-                VBox col = (VBox) node;
-                ListView<String> lv = (ListView<String>) col.getChildren().get(1);
-                ObservableList<String> selected = lv.getSelectionModel().getSelectedItems();
-                if (!selected.isEmpty()) {
-                    hasCondition = true;
-                    Label titleLabel = (Label) col.getChildren().get(0);
-                    entry.append("  ").append(titleLabel.getText().replace(":", "")).append(": ")
-                            .append(String.join("; ", selected)).append("\n");
-                }
+        List<String> conditionLines = new ArrayList<>();
+        for (Map.Entry<Category, ListView<Condition>> e : conditionLists.entrySet()) {
+            List<String> selected = e.getValue().getSelectionModel().getSelectedItems().stream().map(Condition::name).toList();
+            if (!selected.isEmpty()) {
+                conditionLines.add(e.getKey().title() + ": " + String.join("; ", selected));
             }
         }
 
-        if (!hasCondition && notes.isEmpty()) {
+        if (conditionLines.isEmpty() && notes.isEmpty()) {
             showAlert(Alert.AlertType.WARNING, "No Data", "Please select at least one condition or add notes.");
             return;
         }
 
-        historyTextArea.append(entry.toString().trim() + "\n\n");
+        String conditionsText = String.join("\n", conditionLines);
+        String entry = formatEntry(relationship, notes, conditionsText);
+        SwingUtilities.invokeLater(() -> historyTextArea.append(entry + "\n\n"));
+
+        String patientId = patientIdField.getText();
+        if (!patientId.isBlank()) {
+            store.saveEntry(patientId, relationship, conditionsText, notes).whenComplete((saved, ex) -> {
+                if (ex != null) {
+                    showAlert(Alert.AlertType.ERROR, "Not Saved", "Entry added to the report but not saved: " + rootMessage(ex));
+                }
+            });
+        }
         clearFormInputs();
     }
 
+    private static String formatEntry(String relationship, String notes, String conditionLines) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(relationship).append(":\n");
+        if (notes != null && !notes.isBlank()) {
+            entry.append("  Notes: ").append(notes.trim()).append("\n");
+        }
+        if (conditionLines != null && !conditionLines.isBlank()) {
+            for (String line : conditionLines.split("\n")) entry.append("  ").append(line).append("\n");
+        }
+        return entry.toString().trim();
+    }
+
     private void clearFormInputs() {
         relationshipComboBox.setValue(null);
         notesTextArea.clear();
-        conditionsGrid.getChildren().forEach(node -> {
-            if (node instanceof VBox) {
-                ListView<String> lv = (ListView<String>) ((VBox) node).getChildren().get(1);
-                lv.getSelectionModel().clearSelection();
-            }
-        });
+        conditionLists.values().forEach(lv -> lv.getSelectionModel().clearSelection());
     }
 
-    private ListView<String> getFocusedListView() {
-        for (javafx.scene.Node node : conditionsGrid.getChildren()) {
-            if (node instanceof VBox) {
-                ListView<String> lv = (ListView<String>) ((VBox) node).getChildren().get(1);
-                if (lv.isFocused()) return lv;
+    /** Appends the entries saved earlier for the patient ID to the report. */
+    private void loadSavedEntries() {
+        String patientId = patientIdField.getText();
+        store.entries(patientId).whenComplete((entries, ex) -> {
+            if (ex != null) {
+                showAlert(Alert.AlertType.ERROR, "Load Failed", "Could not load saved entries: " + rootMessage(ex));
+                return;
             }
-        }
-        return null;
+            if (entries.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "No Entries", "No saved family history for " + patientId.strip() + ".");
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (FamilyHistoryStore.Entry e : entries) {
+                text.append(formatEntry(e.relationship(), e.notes(), e.conditions())).append("\n\n");
+            }
+            SwingUtilities.invokeLater(() -> historyTextArea.append(text.toString()));
+        });
     }
 
-    private void handleAddCondition(ListView<String> listView) {
-        if (listView == null) {
+    private void handleAddCondition(Category category) {
+        if (category == null) {
             showAlert(Alert.AlertType.WARNING, "No Selection", "Click on a condition list first.");
             return;
         }
 
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle("Add New Condition");
-        dialog.setHeaderText("Enter condition name:");
+        dialog.setHeaderText("Enter condition name for " + category.title() + ":");
         dialog.setContentText("Condition:");
 
         dialog.showAndWait().ifPresent(name -> {
-            if (!name.trim().isEmpty() && !listView.getItems().contains(name.trim())) {
-                listView.getItems().add(name.trim());
+            if (name.trim().isEmpty()) return;
+            store.addCondition(category, name).whenComplete((added, ex) -> Platform.runLater(() -> {
+                if (ex != null) {
+                    showAlert(Alert.AlertType.ERROR, "Not Added", "Could not add condition: " + rootMessage(ex));
+                    return;
+                }
+                showStoredConditions(); // the listener does this too, but the selection needs it now
+                ListView<Condition> lv = conditionLists.get(category);
+                lv.getSelectionModel().select(added);
+                lv.scrollTo(added);
+            }));
+        });
+    }
+
+    private void handleRemoveConditions(Category category) {
+        ListView<Condition> lv = category == null ? null : conditionLists.get(category);
+        List<Condition> selected = lv == null ? List.of() : List.copyOf(lv.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "No Selection", "Select conditions in a list first.");
+            return;
+        }
+        store.removeConditions(selected).whenComplete((v, ex) -> {
+            if (ex != null) {
+                showAlert(Alert.AlertType.ERROR, "Not Removed", "Could not remove conditions: " + rootMessage(ex));
             }
         });
     }
@@ -374,56 +426,13 @@ public class EMRFMH extends JFrame {
     }
 
     // ======================
-    // Data Loading & Saving
+    // Data Loading
     // ======================
-    private void loadAllConditions() {
-        endocrineConditions = loadConditions(ENDOCRINE_FILE, getDefaultEndocrine());
-        cancerConditions = loadConditions(CANCER_FILE, getDefaultCancer());
-        cardiovascularConditions = loadConditions(CARDIO_FILE, getDefaultCardiovascular());
-        geneticConditions = loadConditions(GENETIC_FILE, getDefaultGenetic());
-    }
 
-    private ObservableList<String> loadConditions(Path file, List<String> defaults) {
-        try {
-            if (Files.exists(file)) {
-                return FXCollections.observableArrayList(Files.readAllLines(file));
-            }
-        } catch (IOException e) {
-            // Fall back to defaults
-        }
-        return FXCollections.observableArrayList(defaults);
-    }
-
-    private void saveAllConditions() {
-        try {
-            Files.createDirectories(DATA_DIR);
-            Files.write(ENDOCRINE_FILE, endocrineConditions);
-            Files.write(CANCER_FILE, cancerConditions);
-            Files.write(CARDIO_FILE, cardiovascularConditions);
-            Files.write(GENETIC_FILE, geneticConditions);
-            showAlert(Alert.AlertType.INFORMATION, "Saved", "Condition lists saved successfully.");
-        } catch (IOException ex) {
-            showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save lists: " + ex.getMessage());
-        }
-    }
-
-    // ======================
-    // Defaults
-    // ======================
-    private List<String> getDefaultEndocrine() {
-        return Arrays.asList("Type 1 Diabetes", "Type 2 Diabetes", "Hypothyroidism", "Hyperthyroidism", "Thyroid Cancer");
-    }
-
-    private List<String> getDefaultCancer() {
-        return Arrays.asList("Breast Cancer", "Lung Cancer", "Prostate Cancer", "Colon Cancer", "Skin Cancer");
-    }
-
-    private List<String> getDefaultCardiovascular() {
-        return Arrays.asList("Coronary Artery Disease", "Hypertension", "Heart Attack", "Stroke", "Arrhythmia");
-    }
-
-    private List<String> getDefaultGenetic() {
-        return Arrays.asList("Cystic Fibrosis", "Huntington's Disease", "Down Syndrome", "Sickle Cell Anemia", "Hemophilia");
+    /** Shows the store's current lists, editing the shown ones in place so selections survive. */
+    private void showStoredConditions() {
+        store.conditions().thenAccept(snapshot -> Platform.runLater(() -> snapshot.forEach((category, fresh) ->
+                IAMDataRefresher.applyDiff(conditions.get(category), fresh))));
     }
 
     // ======================
@@ -444,6 +453,11 @@ public class EMRFMH extends JFrame {
         });
     }
 
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e.getMessage();
+    }
+
     private void showErrorDialog(String message) {
         JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
@@ -59,11 +59,11 @@ import javafx.stage.Stage;
  * - Copy to Clipboard: A new "Copy" button to easily export the summary.
  * - Specific Logic: Special handling for "All denied allergies" on save.
  */
-public class EMRPMH extends Application {
+public class EMRPMH extends Application implements SoapEditor {
 
     // --- Integration points (optional for embedded use) ---
     private final IAITextAreaManager textAreaManager;  // may be null
-    private final TextArea externalTarget;             // optional external target for saving
+    private TextArea externalTarget;                   // optional external target for saving; rebound on reuse
 
     // --- UI Components ---
     private Stage stage;
@@ -110,12 +110,29 @@ public class EMRPMH extends Application {
     }
 
     public void showDialog() {
-        Platform.runLater(() -> {
+        Platform.runLater(this::show);
+    }
+
+    // -------- SoapEditor (pooled embedded use) --------
+    /** Builds the window on first call and returns the same one afterwards. */
+    @Override
+    public Stage stage() {
+        if (stage == null) {
             Stage s = new Stage();
-            buildUI(s);
             s.initModality(Modality.NONE);
-            s.show();
-        });
+            buildUI(s);
+        }
+        return stage;
+    }
+
+    /** Saves into {@code target} from now on and starts from an empty form. */
+    @Override
+    public void bind(TextArea target) {
+        stage();
+        externalTarget = target;
+        pmhChecks.values().forEach(cb -> cb.setSelected(false));
+        pmhNotes.values().forEach(TextArea::clear);
+        updateLiveSummary();
     }
 
     // -------- UI builder --------
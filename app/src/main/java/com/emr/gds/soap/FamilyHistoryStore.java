@@ -0,0 +1,461 @@
+package com.emr.gds.soap;
+
+import com.emr.gds.main.IAMDataRefresher;
+import com.emr.gds.main.IAMPaths;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Family history data ({@code app/db/fmh.db}): the condition vocabulary shown in the four lists of
+ * {@link EMRFMH}, and the entries saved per patient.
+ * <p>
+ * Every statement runs on a single daemon thread that owns the connection. The vocabulary is read
+ * once and shared by every open window as an immutable snapshot; adding or removing a condition is one
+ * row in one transaction, after which the snapshot is swapped and the listeners are told. Each
+ * condition carries its lower-cased name, so filtering compares against that instead of lower-casing
+ * every item on every keystroke.
+ * <p>
+ * When the database is first created, the lists are imported from the old {@code emr_fmh_data/*.txt}
+ * files if they exist, otherwise the built-in defaults are used.
+ */
+public final class FamilyHistoryStore {
+
+    /** A condition list, with the conditions a new store starts with. */
+    public enum Category {
+        ENDOCRINE("endocrine", "Endocrine",
+                "Type 1 Diabetes", "Type 2 Diabetes", "Hypothyroidism", "Hyperthyroidism", "Thyroid Cancer"),
+        CANCER("cancer", "Cancer",
+                "Breast Cancer", "Lung Cancer", "Prostate Cancer", "Colon Cancer", "Skin Cancer"),
+        CARDIOVASCULAR("cardiovascular", "Cardiovascular",
+                "Coronary Artery Disease", "Hypertension", "Heart Attack", "Stroke", "Arrhythmia"),
+        GENETIC("genetic", "Genetic",
+                "Cystic Fibrosis", "Huntington's Disease", "Down Syndrome", "Sickle Cell Anemia", "Hemophilia");
+
+        private final String key;
+        private final String title;
+        private final List<String> defaults;
+
+        Category(String key, String title, String... defaults) {
+            this.key = key;
+            this.title = title;
+            this.defaults = List.of(defaults);
+        }
+
+        public String title() {
+            return title;
+        }
+    }
+
+    /** One condition in a list; {@code key} is the lower-cased name used for matching. */
+    public record Condition(long id, Category category, String name, String key) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** One saved relative's history for a patient. */
+    public record Entry(long id, String patientId, String relationship, String conditions, String notes, String createdAt) {}
+
+    // ================================
+    // Constants
+    // ================================
+    static final String DB_FILE = "fmh.db";
+    /** Where the lists were kept as text files, relative to the working directory; read once to import. */
+    static final Path LEGACY_DIR = Paths.get("emr_fmh_data");
+
+    private static volatile FamilyHistoryStore shared;
+
+    private final Path dbFile;
+    private final Path legacyDir;
+    private final ExecutorService worker;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private Connection connection; // confined to the worker thread
+    private volatile Map<Category, List<Condition>> vocabulary;
+    private CompletableFuture<Map<Category, List<Condition>>> loading;
+
+    FamilyHistoryStore(Path dbFile, Path legacyDir) {
+        this.dbFile = Objects.requireNonNull(dbFile);
+        this.legacyDir = legacyDir;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "fmh-store");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the store in {@code app/db}; the database is opened by the first statement. Edits made
+     * to the database outside the app are picked up through {@link IAMDataRefresher}.
+     */
+    public static FamilyHistoryStore shared() {
+        FamilyHistoryStore store = shared;
+        if (store == null) {
+            synchronized (FamilyHistoryStore.class) {
+                store = shared;
+                if (store == null) {
+                    store = new FamilyHistoryStore(IAMPaths.dbDirectory().resolve(DB_FILE), LEGACY_DIR);
+                    FamilyHistoryStore s = store;
+                    IAMDataRefresher.shared().addListener(IAMDataRefresher.Source.FMH, () -> s.reload().join());
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /** Closes the shared store, if it was ever opened. */
+    public static void closeShared() {
+        FamilyHistoryStore store = shared;
+        if (store != null) store.close().orTimeout(5, TimeUnit.SECONDS).exceptionally(e -> null).join();
+    }
+
+    // ================================
+    // Vocabulary
+    // ================================
+
+    /**
+     * The current condition lists. The first call reads them from disk; later calls return the shared
+     * snapshot. If the database cannot be read the built-in defaults are used and changes are not saved.
+     */
+    public synchronized CompletableFuture<Map<Category, List<Condition>>> conditions() {
+        if (loading == null) {
+            loading = submit(this::readConditions).exceptionally(e -> {
+                System.err.println("[FMH] Using built-in condition lists: " + rootMessage(e));
+                Map<Category, List<Condition>> defaults = new EnumMap<>(Category.class);
+                for (Category c : Category.values()) {
+                    List<Condition> list = new ArrayList<>();
+                    for (int i = 0; i < c.defaults.size(); i++) list.add(condition(-(i + 1), c, c.defaults.get(i)));
+                    defaults.put(c, List.copyOf(list));
+                }
+                vocabulary = Collections.unmodifiableMap(defaults);
+                return vocabulary;
+            });
+        }
+        return loading.thenApply(v -> vocabulary);
+    }
+
+    /** Re-reads the lists after the database was edited elsewhere; listeners run if anything changed. */
+    public CompletableFuture<Void> reload() {
+        return submit(() -> {
+            Map<Category, List<Condition>> before = vocabulary;
+            if (before == null) return null; // never loaded; the first conditions() call reads it
+            readConditions();
+            if (!before.equals(vocabulary)) notifyListeners();
+            return null;
+        });
+    }
+
+    /**
+     * Adds a condition to the end of its list.
+     *
+     * @return the new condition, or the existing one if the list already has it (ignoring case)
+     */
+    public CompletableFuture<Condition> addCondition(Category category, String name) {
+        String n = name == null ? "" : name.strip();
+        if (n.isEmpty()) return CompletableFuture.failedFuture(new IllegalArgumentException("Condition is empty."));
+        return conditions().thenCompose(v -> submit(() -> {
+            String key = key(n);
+            for (Condition c : vocabulary.get(category)) {
+                if (c.key().equals(key)) return c;
+            }
+            try (PreparedStatement ps = connection().prepareStatement(
+                    "INSERT INTO fmh_conditions (category, name, name_key, sort_order)"
+                    + " VALUES (?, ?, ?, (SELECT COALESCE(MAX(sort_order), -1) + 1 FROM fmh_conditions WHERE category = ?))",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, category.key);
+                ps.setString(2, n);
+                ps.setString(3, key);
+                ps.setString(4, category.key);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    Condition added = condition(keys.getLong(1), category, n);
+                    List<Condition> list = new ArrayList<>(vocabulary.get(category));
+                    list.add(added);
+                    replace(category, list);
+                    return added;
+                }
+            }
+        }));
+    }
+
+    /** Removes conditions from their lists in one transaction. */
+    public CompletableFuture<Void> removeConditions(Collection<Condition> conditions) {
+        List<Condition> doomed = List.copyOf(conditions);
+        if (doomed.isEmpty()) return CompletableFuture.completedFuture(null);
+        return conditions().thenCompose(v -> submit(() -> {
+            inTransaction(c -> {
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM fmh_conditions WHERE id = ?")) {
+                    for (Condition d : doomed) {
+                        ps.setLong(1, d.id());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+            for (Category category : Category.values()) {
+                List<Condition> list = new ArrayList<>(vocabulary.get(category));
+                if (list.removeAll(doomed)) replace(category, list);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Conditions whose name contains {@code query}, ignoring case. The query is lower-cased once here;
+     * a blank query matches everything.
+     */
+    public static Predicate<Condition> matching(String query) {
+        if (query == null || query.isBlank()) return c -> true;
+        String q = key(query.strip());
+        return c -> c.key().contains(q);
+    }
+
+    /** Runs {@code listener} on the store's thread whenever the vocabulary changes. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    // Runs on the worker.
+    private Map<Category, List<Condition>> readConditions() throws SQLException {
+        Map<Category, List<Condition>> read = new EnumMap<>(Category.class);
+        Map<String, Category> byKey = new HashMap<>();
+        for (Category c : Category.values()) {
+            read.put(c, new ArrayList<>());
+            byKey.put(c.key, c);
+        }
+        try (Statement st = connection().createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, category, name FROM fmh_conditions ORDER BY category, sort_order, id")) {
+            while (rs.next()) {
+                Category c = byKey.get(rs.getString(2));
+                if (c != null) read.get(c).add(condition(rs.getLong(1), c, rs.getString(3)));
+            }
+        }
+        read.replaceAll((c, list) -> List.copyOf(list));
+        vocabulary = Collections.unmodifiableMap(read);
+        return vocabulary;
+    }
+
+    // Runs on the worker.
+    private void replace(Category category, List<Condition> list) {
+        Map<Category, List<Condition>> next = new EnumMap<>(vocabulary);
+        next.put(category, List.copyOf(list));
+        vocabulary = Collections.unmodifiableMap(next);
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (Runnable l : listeners) {
+            try {
+                l.run();
+            } catch (RuntimeException e) {
+                System.err.println("[FMH] Listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Condition condition(long id, Category category, String name) {
+        return new Condition(id, category, name, key(name));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // ================================
+    // Patient entries
+    // ================================
+
+    /** Saves one relative's history for {@code patientId}. */
+    public CompletableFuture<Entry> saveEntry(String patientId, String relationship, String conditions, String notes) {
+        if (patientId == null || patientId.isBlank()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Patient ID is empty."));
+        }
+        String createdAt = LocalDateTime.now().toString();
+        return submit(() -> {
+            try (PreparedStatement ps = connection().prepareStatement(
+                    "INSERT INTO fmh_entries (patient_id, relationship, conditions, notes, created_at) VALUES (?,?,?,?,?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, patientId.strip());
+                ps.setString(2, relationship);
+                ps.setString(3, conditions);
+                ps.setString(4, notes);
+                ps.setString(5, createdAt);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    return new Entry(keys.getLong(1), patientId.strip(), relationship, conditions, notes, createdAt);
+                }
+            }
+        });
+    }
+
+    /** The patient's saved entries, oldest first; empty for a blank ID. */
+    public CompletableFuture<List<Entry>> entries(String patientId) {
+        if (patientId == null || patientId.isBlank()) return CompletableFuture.completedFuture(List.of());
+        return submit(() -> {
+            List<Entry> out = new ArrayList<>();
+            try (PreparedStatement ps = connection().prepareStatement(
+                    "SELECT id, patient_id, relationship, conditions, notes, created_at FROM fmh_entries"
+                    + " WHERE patient_id = ? ORDER BY created_at, id")) {
+                ps.setString(1, patientId.strip());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new Entry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.getString(5), rs.getString(6)));
+                    }
+                }
+            }
+            return out;
+        });
+    }
+
+    // ================================
+    // Connection
+    // ================================
+
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    private interface SqlAction {
+        void run(Connection c) throws SQLException;
+    }
+
+    private <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.run();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, worker);
+    }
+
+    private void inTransaction(SqlAction action) throws SQLException {
+        Connection c = connection();
+        c.setAutoCommit(false);
+        try {
+            action.run(c);
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection != null) return connection;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            Files.createDirectories(dbFile.getParent());
+        } catch (Exception e) {
+            throw new SQLException("Cannot open " + dbFile, e);
+        }
+        Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+            boolean created;
+            try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'fmh_conditions'")) {
+                created = !rs.next();
+            }
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS fmh_conditions (id INTEGER PRIMARY KEY, category TEXT NOT NULL, name TEXT NOT NULL, name_key TEXT NOT NULL, sort_order INTEGER NOT NULL, UNIQUE (category, name_key));");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS fmh_entries (id INTEGER PRIMARY KEY, patient_id TEXT NOT NULL, relationship TEXT, conditions TEXT, notes TEXT, created_at TEXT NOT NULL);");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_fmh_entries_patient ON fmh_entries (patient_id, created_at);");
+            if (created) seed(c);
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        connection = c;
+        return c;
+    }
+
+    private void seed(Connection c) throws SQLException {
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT OR IGNORE INTO fmh_conditions (category, name, name_key, sort_order) VALUES (?,?,?,?)")) {
+            for (Category category : Category.values()) {
+                List<String> names = legacyList(category);
+                for (int i = 0; i < names.size(); i++) {
+                    String name = names.get(i);
+                    ps.setString(1, category.key);
+                    ps.setString(2, name);
+                    ps.setString(3, key(name));
+                    ps.setInt(4, i);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    private List<String> legacyList(Category category) {
+        Path file = legacyDir == null ? null : legacyDir.resolve(category.key + ".txt");
+        if (file != null && Files.exists(file)) {
+            try {
+                List<String> lines = Files.readAllLines(file).stream().map(String::strip).filter(l -> !l.isEmpty()).toList();
+                System.out.println("[FMH] Imported " + lines.size() + " " + category.title + " condition(s) from " + file);
+                return lines;
+            } catch (IOException e) {
+                System.err.println("[FMH] Cannot import " + file + ": " + e.getMessage());
+            }
+        }
+        return category.defaults;
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e.getMessage();
+    }
+
+    /** Closes the connection. */
+    CompletableFuture<Void> close() {
+        CompletableFuture<Void> done = submit(() -> {
+            if (connection != null) connection.close();
+            connection = null;
+            return null;
+        });
+        worker.shutdown();
+        return done;
+    }
+}
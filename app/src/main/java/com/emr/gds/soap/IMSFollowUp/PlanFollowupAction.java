@@ -2,19 +2,11 @@ package com.emr.gds.soap.IMSFollowUp;
 
 import com.emr.gds.input.IAITextAreaManager;
 import com.emr.gds.main.IAMProblemAction;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.Statement;
+import com.emr.gds.soap.SoapEditor;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -24,6 +16,8 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
@@ -34,54 +28,52 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 /**
- * An editor for creating and managing Plan and Follow-up entries in the EMR.
+ * An editor for creating and managing Plan and Follow-up entries in the EMR. Applied text always goes
+ * to the P> area through the text area manager, so {@link #bind} only clears the form.
  */
-public class PlanFollowupAction {
+public class PlanFollowupAction implements SoapEditor {
 
     private final IAITextAreaManager textAreaManager;
     private final IAMProblemAction problemAction;
     private Stage editorStage;
     private TextArea editorTextArea;
-    private TextField fuField, medsCodeField;
-    private final Map<String, String> abbrevMap = new HashMap<>();
-    private final PlanRepository planRepo;
+    private TextField fuField, medsCodeField, patientIdField;
+    private final ListView<PlanHistoryStore.Plan> previousPlans = new ListView<>();
+    private final Map<String, String> abbrevMap;
+    private final PlanHistoryStore planHistory;
+
+    private static final int RECALL_LIMIT = 5;
 
     private static final String[] PLAN_TEMPLATES = {
             "1w", "2w", "4w", "1d", "3d", "7d", "1m", "3m", "6m", ":cd",
             "5", "55", "6", "8", "2", "4", "0", "1"
     };
 
-    public PlanFollowupAction(IAITextAreaManager textAreaManager, IAMProblemAction problemAction) {
+    /**
+     * @param abbrevMap the application's live abbreviation map, read at expansion time so F5 reloads
+     *                  reach an editor that is kept open between uses
+     */
+    public PlanFollowupAction(IAITextAreaManager textAreaManager, IAMProblemAction problemAction, Map<String, String> abbrevMap) {
         this.textAreaManager = textAreaManager;
         this.problemAction = problemAction;
-        this.planRepo = new PlanRepository(getDbPath("plan_history.db"));
-        initDatabases();
+        this.abbrevMap = (abbrevMap != null) ? abbrevMap : Collections.emptyMap();
+        this.planHistory = PlanHistoryStore.shared();
         createEditorWindow();
     }
 
-    public void showAndWait() {
-        editorStage.showAndWait();
-    }
-
-    private void initDatabases() {
-        try {
-            Class.forName("org.sqlite.JDBC");
-            initAbbrevDatabase();
-            planRepo.init();
-        } catch (Exception e) {
-            showError("Failed to initialize databases: " + e.getMessage());
-        }
+    @Override
+    public Stage stage() {
+        return editorStage;
     }
 
-    private void initAbbrevDatabase() throws Exception {
-        Path dbFile = getDbPath("abbreviations.db");
-        if (!Files.exists(dbFile.getParent())) Files.createDirectories(dbFile.getParent());
-        String url = "jdbc:sqlite:" + dbFile.toAbsolutePath();
-        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM abbreviations")) {
-            while (rs.next()) {
-                abbrevMap.put(rs.getString("short"), rs.getString("full"));
-            }
-        }
+    @Override
+    public void bind(TextArea target) {
+        editorTextArea.clear();
+        fuField.clear();
+        medsCodeField.clear();
+        patientIdField.clear();
+        previousPlans.getItems().clear();
+        editorTextArea.requestFocus();
     }
 
     private void createEditorWindow() {
@@ -95,7 +87,7 @@ public class PlanFollowupAction {
         root.setCenter(createCenterSection());
         root.setBottom(createBottomSection());
 
-        editorStage.setScene(new Scene(root, 400, 600));
+        editorStage.setScene(new Scene(root, 400, 720));
     }
 
     private VBox createTopSection() {
@@ -118,7 +110,8 @@ public class PlanFollowupAction {
         return new VBox(10,
                 createQuickPlanPanel(),
                 new Label("Plan Text:"), editorTextArea,
-                new Label("Preview:"), previewArea
+                new Label("Preview:"), previewArea,
+                new Label("Previous plans (double-click to reuse):"), createPreviousPlansList()
         );
     }
 
@@ -132,10 +125,19 @@ public class PlanFollowupAction {
         fuField.setOnAction(e -> medsCodeField.requestFocus());
         medsCodeField.setOnAction(e -> insertQuickPlan());
 
-        grid.add(new Label("Follow-up:"), 0, 0);
-        grid.add(fuField, 1, 0);
-        grid.add(new Label("Meds Code:"), 0, 1);
-        grid.add(medsCodeField, 1, 1);
+        patientIdField = new TextField();
+        patientIdField.setPromptText("Recall previous plans");
+        patientIdField.setOnAction(e -> recallPreviousPlans());
+        patientIdField.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) recallPreviousPlans();
+        });
+
+        grid.add(new Label("Patient ID:"), 0, 0);
+        grid.add(patientIdField, 1, 0);
+        grid.add(new Label("Follow-up:"), 0, 1);
+        grid.add(fuField, 1, 1);
+        grid.add(new Label("Meds Code:"), 0, 2);
+        grid.add(medsCodeField, 1, 2);
 
         GridPane templateGrid = new GridPane();
         templateGrid.setHgap(5);
@@ -146,10 +148,47 @@ public class PlanFollowupAction {
             btn.setOnAction(e -> insertTemplate(template));
             templateGrid.add(btn, i % 5, i / 5);
         }
-        grid.add(templateGrid, 0, 2, 2, 1);
+        grid.add(templateGrid, 0, 3, 2, 1);
         return grid;
     }
 
+    private ListView<PlanHistoryStore.Plan> createPreviousPlansList() {
+        previousPlans.setPrefHeight(110);
+        previousPlans.setPlaceholder(new Label("Enter a patient ID to see earlier plans."));
+        previousPlans.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(PlanHistoryStore.Plan plan, boolean empty) {
+                super.updateItem(plan, empty);
+                if (empty || plan == null) {
+                    setText(null);
+                } else {
+                    String content = plan.content() == null ? "" : plan.content().strip().replace('\n', ' ');
+                    setText(plan.encounterDate() + "  " + content);
+                }
+            }
+        });
+        previousPlans.setOnMouseClicked(e -> {
+            PlanHistoryStore.Plan plan = previousPlans.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && plan != null && plan.content() != null) {
+                editorTextArea.appendText(plan.content());
+            }
+        });
+        return previousPlans;
+    }
+
+    private void recallPreviousPlans() {
+        String patientId = patientIdField.getText();
+        planHistory.recall(patientId, RECALL_LIMIT).whenComplete((plans, ex) -> Platform.runLater(() -> {
+            if (!Objects.equals(patientId, patientIdField.getText())) return; // superseded
+            if (ex != null) {
+                System.err.println("[PLAN HISTORY] Recall failed: " + ex.getMessage());
+                previousPlans.getItems().clear();
+            } else {
+                previousPlans.getItems().setAll(plans);
+            }
+        }));
+    }
+
     private HBox createBottomSection() {
         Button applyButton = new Button("Apply Changes");
         applyButton.setOnAction(e -> applyChanges());
@@ -185,15 +224,9 @@ public class PlanFollowupAction {
             try {
                 textAreaManager.insertBlockIntoArea(IAITextAreaManager.AREA_P, expandedText, true);
                 if (problemAction != null) {
-                    problemAction.updateAndRedrawScratchpad("P>", expandedText);
+                    problemAction.flushScratchpadSync(); // the P> area changed; mirror it through the sync
                 }
-                new Thread(() -> {
-                    try {
-                        planRepo.savePlan("P>", expandedText, null, LocalDate.now().toString());
-                    } catch (Exception ex) {
-                        System.err.println("Failed to save plan history: " + ex.getMessage());
-                    }
-                }).start();
+                planHistory.save("P>", expandedText, patientIdField.getText(), LocalDate.now().toString());
                 editorStage.close();
             } catch (Exception ex) {
                 showError("Failed to apply changes: " + ex.getMessage());
@@ -238,14 +271,6 @@ public class PlanFollowupAction {
         };
     }
 
-    private Path getDbPath(String fileName) {
-        Path p = Paths.get("").toAbsolutePath();
-        while (p != null && !Files.exists(p.resolve("gradlew"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p.resolve("app/db/").resolve(fileName) : Paths.get("app/db").resolve(fileName);
-    }
-
     private Label createStyledLabel(String text, String style) {
         Label label = new Label(text);
         label.setStyle(style);
@@ -255,30 +280,4 @@ public class PlanFollowupAction {
     private void showError(String message) {
         Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, message).showAndWait());
     }
-
-    static final class PlanRepository {
-        private final Path dbFile;
-
-        PlanRepository(Path dbFile) {
-            this.dbFile = Objects.requireNonNull(dbFile);
-        }
-
-        void init() throws Exception {
-            Files.createDirectories(dbFile.getParent());
-            try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath()); Statement st = c.createStatement()) {
-                st.executeUpdate("CREATE TABLE IF NOT EXISTS plan_history (id INTEGER PRIMARY KEY, created_at TEXT NOT NULL, section TEXT, content TEXT, patient_id TEXT, encounter_date TEXT);");
-            }
-        }
-
-        void savePlan(String section, String content, String patientId, String encounterDate) throws Exception {
-            try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath()); PreparedStatement ps = c.prepareStatement("INSERT INTO plan_history (created_at, section, content, patient_id, encounter_date) VALUES (?,?,?,?,?)")) {
-                ps.setString(1, LocalDateTime.now().toString());
-                ps.setString(2, section);
-                ps.setString(3, content);
-                ps.setString(4, patientId);
-                ps.setString(5, encounterDate);
-                ps.executeUpdate();
-            }
-        }
-    }
 }
@@ -0,0 +1,218 @@
+package com.emr.gds.soap.IMSFollowUp;
+
+import com.emr.gds.main.IAMPaths;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plan history ({@code app/db/plan_history.db}) behind one long-lived SQLite connection.
+ * <p>
+ * Every statement runs on a single daemon thread that owns the connection, so callers on the FX
+ * thread never block on disk. Saved plans are queued and written in batches: whatever has piled up
+ * when the writer gets to the queue goes in with one prepared statement and one transaction. Recall
+ * reads use the {@code (patient_id, encounter_date)} index and only ever touch the rows they return.
+ */
+final class PlanHistoryStore {
+
+    /** One saved plan; {@code id} is 0 until the row has been written. */
+    record Plan(long id, String createdAt, String section, String content, String patientId, String encounterDate) {}
+
+    // ================================
+    // Constants
+    // ================================
+    static final String DB_FILE = "plan_history.db";
+    private static final String INSERT =
+            "INSERT INTO plan_history (created_at, section, content, patient_id, encounter_date) VALUES (?,?,?,?,?)";
+    private static final String RECALL =
+            "SELECT id, created_at, section, content, patient_id, encounter_date FROM plan_history"
+            + " WHERE patient_id = ? ORDER BY encounter_date DESC, id DESC LIMIT ?";
+
+    private static volatile PlanHistoryStore shared;
+
+    private final Path dbFile;
+    private final ExecutorService worker;
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private Connection connection; // confined to the worker thread
+
+    private record Pending(Plan plan, CompletableFuture<Void> done) {}
+
+    PlanHistoryStore(Path dbFile) {
+        this.dbFile = Objects.requireNonNull(dbFile);
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "plan-history");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the store in {@code app/db}; the database is opened by the first statement.
+     */
+    static PlanHistoryStore shared() {
+        PlanHistoryStore store = shared;
+        if (store == null) {
+            synchronized (PlanHistoryStore.class) {
+                store = shared;
+                if (store == null) {
+                    store = new PlanHistoryStore(IAMPaths.dbDirectory().resolve(DB_FILE));
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    // ================================
+    // Writing
+    // ================================
+
+    /**
+     * Queues a plan; the future completes once the batch holding it is committed.
+     */
+    CompletableFuture<Void> save(String section, String content, String patientId, String encounterDate) {
+        Pending p = new Pending(new Plan(0, LocalDateTime.now().toString(), section, content,
+                blankToNull(patientId), encounterDate), new CompletableFuture<>());
+        pending.add(p);
+        worker.execute(this::drain);
+        return p.done();
+    }
+
+    /**
+     * Writes many plans in a single transaction, e.g. when importing older history.
+     */
+    CompletableFuture<Void> saveAll(List<Plan> plans) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                insert(plans);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, worker);
+    }
+
+    // Runs on the worker; later drain tasks find the queue already empty.
+    private void drain() {
+        List<Pending> batch = new ArrayList<>();
+        for (Pending p; (p = pending.poll()) != null; ) batch.add(p);
+        if (batch.isEmpty()) return;
+
+        List<Plan> plans = new ArrayList<>(batch.size());
+        for (Pending p : batch) plans.add(p.plan());
+        try {
+            insert(plans);
+            batch.forEach(p -> p.done().complete(null));
+        } catch (SQLException e) {
+            System.err.println("[PLAN HISTORY] Failed to save " + batch.size() + " plan(s): " + e.getMessage());
+            batch.forEach(p -> p.done().completeExceptionally(e));
+        }
+    }
+
+    private void insert(List<Plan> plans) throws SQLException {
+        Connection c = connection();
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement(INSERT)) {
+            for (Plan plan : plans) {
+                ps.setString(1, plan.createdAt());
+                ps.setString(2, plan.section());
+                ps.setString(3, plan.content());
+                ps.setString(4, plan.patientId());
+                ps.setString(5, plan.encounterDate());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    // ================================
+    // Reading
+    // ================================
+
+    /**
+     * The patient's most recent plans, newest encounter first. Plans saved before this call are
+     * included, because the worker runs tasks in order.
+     */
+    CompletableFuture<List<Plan>> recall(String patientId, int limit) {
+        String patient = blankToNull(patientId);
+        if (patient == null) return CompletableFuture.completedFuture(List.of());
+        return CompletableFuture.supplyAsync(() -> {
+            try (PreparedStatement ps = connection().prepareStatement(RECALL)) {
+                ps.setString(1, patient);
+                ps.setInt(2, limit);
+                List<Plan> plans = new ArrayList<>(limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plans.add(new Plan(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getString(6)));
+                    }
+                }
+                return plans;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, worker);
+    }
+
+    // ================================
+    // Connection
+    // ================================
+
+    private Connection connection() throws SQLException {
+        if (connection != null) return connection;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            Files.createDirectories(dbFile.getParent());
+        } catch (Exception e) {
+            throw new SQLException("Cannot open " + dbFile, e);
+        }
+        Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS plan_history (id INTEGER PRIMARY KEY, created_at TEXT NOT NULL, section TEXT, content TEXT, patient_id TEXT, encounter_date TEXT);");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_plan_history_patient_date ON plan_history (patient_id, encounter_date);");
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        connection = c;
+        return c;
+    }
+
+    /** Closes the connection after queued work has finished. */
+    void close() {
+        worker.execute(() -> {
+            try {
+                if (connection != null) connection.close();
+            } catch (SQLException e) {
+                System.err.println("[PLAN HISTORY] Close failed: " + e.getMessage());
+            }
+            connection = null;
+        });
+        worker.shutdown();
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.strip();
+    }
+}
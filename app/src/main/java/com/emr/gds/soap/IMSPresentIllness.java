@@ -1,31 +1,17 @@
 package com.emr.gds.soap;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
-import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -37,12 +23,13 @@ import javafx.stage.Stage;
  * A specialized editor for the Present Illness section, featuring quick templates, a phrase bank,
  * and automatic abbreviation expansion.
  */
-public class IMSPresentIllness {
+public class IMSPresentIllness implements SoapEditor {
 
-    private final TextArea sourceTextArea;
+    private TextArea sourceTextArea;
     private Stage editorStage;
     private TextArea editorTextArea;
-    private final Map<String, String> abbrevMap = new HashMap<>();
+    private PhraseBankPanel phraseBank;
+    private final Map<String, String> abbrevMap;
 
     private final String[] piTemplates = {
             "Acute", "Chronic", "Severe", "Persistent", "Intermittent", "Localized",
@@ -51,47 +38,27 @@ public class IMSPresentIllness {
             "[ :cd ]", "-day ago onset", "-week ago onset", "-month ago onset", "-year ago onset"
     };
 
-    private final String[] clinicalPhrases = {
-            "Acute chest pain radiating to left arm with shortness of breath",
-            "Chronic lower back pain, worse with sitting/standing, with leg numbness",
-            "Persistent right lower quadrant abdominal pain with nausea and fever",
-            "Recurrent throbbing headaches with photophobia and nausea",
-            "Subacute shortness of breath, worse on exertion, with productive cough"
-    };
-
-    public static class Phrase {
-        private final SimpleStringProperty text;
-        public Phrase(String text) { this.text = new SimpleStringProperty(text); }
-        public String getText() { return text.get(); }
-    }
-
-    public IMSPresentIllness(TextArea sourceTextArea) {
-        this.sourceTextArea = sourceTextArea;
-        initAbbrevDatabase();
+    /**
+     * Builds the window once; {@link #bind} points it at a text area before each opening.
+     *
+     * @param abbrevMap the application's live abbreviation map
+     */
+    public IMSPresentIllness(Map<String, String> abbrevMap) {
+        this.abbrevMap = abbrevMap;
         createEditorWindow();
     }
 
-    private void initAbbrevDatabase() {
-        try {
-            Path dbFile = getDbPath("abbreviations.db");
-            if (!Files.exists(dbFile)) return;
-            String url = "jdbc:sqlite:" + dbFile.toAbsolutePath();
-            try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM abbreviations")) {
-                while (rs.next()) {
-                    abbrevMap.put(rs.getString("short"), rs.getString("full"));
-                }
-            }
-        } catch (Exception e) {
-            showError("Failed to initialize abbreviation database: " + e.getMessage());
-        }
+    @Override
+    public Stage stage() {
+        return editorStage;
     }
 
-    private Path getDbPath(String fileName) {
-        Path p = Paths.get("").toAbsolutePath();
-        while (p != null && !Files.exists(p.resolve("gradlew"))) {
-            p = p.getParent();
-        }
-        return (p != null) ? p.resolve("app/db/").resolve(fileName) : Paths.get("app/db").resolve(fileName);
+    @Override
+    public void bind(TextArea target) {
+        sourceTextArea = target;
+        editorTextArea.setText(target.getText());
+        editorTextArea.end();
+        phraseBank.reset();
     }
 
     private void createEditorWindow() {
@@ -110,24 +77,11 @@ public class IMSPresentIllness {
     }
 
     private VBox createWestPanel(double width) {
-        TableView<Phrase> table = new TableView<>();
-        table.setPrefWidth(width);
-        TableColumn<Phrase, String> phraseColumn = new TableColumn<>("Clinical Phrases");
-        phraseColumn.setCellValueFactory(new PropertyValueFactory<>("text"));
-        phraseColumn.prefWidthProperty().bind(table.widthProperty());
-        table.getColumns().add(phraseColumn);
-
-        ObservableList<Phrase> phraseData = Arrays.stream(clinicalPhrases).map(Phrase::new).collect(Collectors.toCollection(FXCollections::observableArrayList));
-        table.setItems(phraseData);
-
-        table.getSelectionModel().selectedItemProperty().addListener((obs, old, newSelection) -> {
-            if (newSelection != null) {
-                editorTextArea.appendText(newSelection.getText() + " ");
-                editorTextArea.requestFocus();
-            }
-        });
-
-        return new VBox(5, createStyledLabel("Phrase Bank", "-fx-font-weight: bold;"), table);
+        phraseBank = new PhraseBankPanel(PhraseLibrary.Section.PRESENT_ILLNESS, width, text -> {
+            editorTextArea.appendText(text + " ");
+            editorTextArea.requestFocus();
+        }, () -> editorTextArea.getSelectedText().isBlank() ? editorTextArea.getText() : editorTextArea.getSelectedText());
+        return phraseBank;
     }
 
     private VBox createTopSection() {
@@ -139,7 +93,7 @@ public class IMSPresentIllness {
     }
 
     private VBox createCenterSection() {
-        editorTextArea = new TextArea(sourceTextArea.getText());
+        editorTextArea = new TextArea();
         editorTextArea.setWrapText(true);
         editorTextArea.setPrefRowCount(10);
 
@@ -150,7 +104,6 @@ public class IMSPresentIllness {
         previewArea.setStyle("-fx-background-color: #f5f5f5;");
 
         editorTextArea.textProperty().addListener((obs, old, newText) -> previewArea.setText(expandAbbreviations(newText)));
-        previewArea.setText(expandAbbreviations(editorTextArea.getText()));
 
         return new VBox(10,
                 createStyledLabel("Quick Templates:", "-fx-font-weight: bold;"),
@@ -227,12 +180,4 @@ public class IMSPresentIllness {
         button.setOnAction(handler);
         return button;
     }
-
-    private void showError(String message) {
-        new Alert(Alert.AlertType.ERROR, message).showAndWait();
-    }
-
-    public void showAndWait() {
-        editorStage.showAndWait();
-    }
 }
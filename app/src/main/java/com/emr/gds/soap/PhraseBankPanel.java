@@ -0,0 +1,110 @@
+package com.emr.gds.soap;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+/**
+ * The phrase bank column of the Chief Complaint and Present Illness editors: a filter box over the
+ * section's phrases from {@link PhraseLibrary}, most used first. Clicking a phrase (or Enter) inserts
+ * it and counts the pick; the order changes the next time an editor opens, not under the mouse.
+ */
+final class PhraseBankPanel extends VBox {
+
+    private final PhraseLibrary library = PhraseLibrary.shared();
+    private final PhraseLibrary.Section section;
+    private final TableView<PhraseLibrary.Phrase> table = new TableView<>();
+    private final TextField filterField = new TextField();
+
+    /**
+     * @param onPick    receives the text of a picked phrase
+     * @param selection supplies the text offered by "Add to Bank"
+     */
+    PhraseBankPanel(PhraseLibrary.Section section, double width, Consumer<String> onPick, Supplier<String> selection) {
+        super(5);
+        this.section = section;
+
+        TableColumn<PhraseLibrary.Phrase, String> phraseColumn = new TableColumn<>("Clinical Phrases");
+        phraseColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().text()));
+        TableColumn<PhraseLibrary.Phrase, Integer> usesColumn = new TableColumn<>("Used");
+        usesColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().uses()));
+        usesColumn.setPrefWidth(48);
+        phraseColumn.prefWidthProperty().bind(table.widthProperty().subtract(usesColumn.widthProperty()).subtract(4));
+        table.getColumns().add(phraseColumn);
+        table.getColumns().add(usesColumn);
+        table.setPrefWidth(width);
+        table.setItems(FXCollections.observableArrayList(library.ranked(section)));
+
+        table.setRowFactory(tv -> {
+            TableRow<PhraseLibrary.Phrase> row = new TableRow<>();
+            // One pick per primary click; the second event of a double-click would insert and count it again.
+            row.setOnMouseClicked(e -> {
+                if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 1 && !row.isEmpty()) pick(row.getItem(), onPick);
+            });
+            return row;
+        });
+        table.setOnKeyPressed(e -> {
+            PhraseLibrary.Phrase p = table.getSelectionModel().getSelectedItem();
+            if (e.getCode() == KeyCode.ENTER && p != null) pick(p, onPick);
+        });
+
+        filterField.setPromptText("Filter phrases");
+        filterField.textProperty().addListener((obs, o, query) ->
+                table.getItems().setAll(library.filter(section, query)));
+        filterField.setOnAction(e -> {
+            if (!table.getItems().isEmpty()) pick(table.getItems().get(0), onPick);
+        });
+
+        Button addButton = new Button("Add to Bank");
+        addButton.setOnAction(e -> addPhrase(selection.get()));
+        HBox filterRow = new HBox(5, filterField, addButton);
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+
+        Label title = new Label("Phrase Bank");
+        title.setStyle("-fx-font-weight: bold;");
+        getChildren().addAll(title, filterRow, table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+    }
+
+    /** Clears the filter and shows the current ranking; called each time the editor is reopened. */
+    void reset() {
+        filterField.clear();
+        table.getItems().setAll(library.ranked(section));
+        table.getSelectionModel().clearSelection();
+        if (!table.getItems().isEmpty()) table.scrollTo(0);
+    }
+
+    private void pick(PhraseLibrary.Phrase phrase, Consumer<String> onPick) {
+        library.recordUse(phrase);
+        table.refresh();
+        onPick.accept(phrase.text());
+    }
+
+    private void addPhrase(String text) {
+        library.add(section, text).whenComplete((phrase, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                filterField.setPromptText("Not added: " + cause.getMessage());
+                return;
+            }
+            filterField.clear();
+            table.getItems().setAll(library.ranked(section));
+            table.getSelectionModel().select(phrase);
+            table.scrollTo(phrase);
+        }));
+    }
+}
@@ -0,0 +1,504 @@
+package com.emr.gds.soap;
+
+import com.emr.gds.main.IAMPaths;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Phrase bank shared by the Chief Complaint and Present Illness editors ({@code app/db/phrases.db}),
+ * ranked by how often and how recently the signed-in user picked each phrase.
+ * <p>
+ * Ranking is frecency with a one-week half-life, kept in the log2 domain against a fixed epoch: a pick
+ * at time {@code t} adds {@code 2^(t / halfLife)} to the phrase's score. Older picks are therefore
+ * worth half as much per week without ever rescoring anything, and each pick is one
+ * remove-and-insert in a skip list, O(log n). Picks update memory without locks; the changed counters
+ * are written back in one transaction every {@value #FLUSH_SECONDS} seconds and on close.
+ * <p>
+ * Every word of every phrase is kept in a sorted token array, so filtering by a typed prefix is a
+ * binary search plus the matches. The ranked list an editor opens with is cached per section until
+ * a pick or an added phrase changes it.
+ */
+public final class PhraseLibrary {
+
+    /** The editor a phrase belongs to, with the phrases a new library starts with. */
+    public enum Section {
+        CHIEF_COMPLAINT("cc",
+                "Patient presents with acute onset of severe chest pain radiating to the left arm.",
+                "Complains of persistent shortness of breath worsened by physical activity.",
+                "Reports moderate to severe abdominal pain localized to the right lower quadrant.",
+                "Experiencing high fever with chills and night sweats for several days.",
+                "Presents with a throbbing headache accompanied by nausea and light sensitivity."),
+        PRESENT_ILLNESS("pi",
+                "Acute chest pain radiating to left arm with shortness of breath",
+                "Chronic lower back pain, worse with sitting/standing, with leg numbness",
+                "Persistent right lower quadrant abdominal pain with nausea and fever",
+                "Recurrent throbbing headaches with photophobia and nausea",
+                "Subacute shortness of breath, worse on exertion, with productive cough");
+
+        private final String key;
+        private final List<String> defaults;
+
+        Section(String key, String... defaults) {
+            this.key = key;
+            this.defaults = List.of(defaults);
+        }
+    }
+
+    /** A phrase; its usage belongs to the signed-in user. */
+    public static final class Phrase {
+        private final long id;
+        private final Section section;
+        private final String text;
+        private final int order;
+        private final String[] tokens;
+        private final AtomicReference<Rank> rank = new AtomicReference<>();
+
+        private Phrase(long id, Section section, String text, int order) {
+            this.id = id;
+            this.section = section;
+            this.text = text;
+            this.order = order;
+            this.tokens = tokens(text).toArray(String[]::new);
+            rank.set(new Rank(this, Double.NEGATIVE_INFINITY, 0, 0));
+        }
+
+        public String text() { return text; }
+
+        public int uses() { return rank.get().uses(); }
+
+        @Override
+        public String toString() { return text; }
+    }
+
+    /** Ordering key in a section's skip list: best score first, then the library's own order. */
+    private record Rank(Phrase phrase, double score, int uses, long lastUsed) implements Comparable<Rank> {
+        @Override
+        public int compareTo(Rank o) {
+            int c = Double.compare(o.score, score);
+            if (c != 0) return c;
+            c = Integer.compare(phrase.order, o.phrase.order);
+            return c != 0 ? c : Long.compare(phrase.id, o.phrase.id);
+        }
+
+        Rank picked(long now) {
+            double x = (double) now / HALF_LIFE_MS;
+            double hi = Math.max(score, x), lo = Math.min(score, x);
+            double next = lo == Double.NEGATIVE_INFINITY ? hi : hi + Math.log1p(Math.pow(2, lo - hi)) / LN2;
+            return new Rank(phrase, next, uses + 1, now);
+        }
+    }
+
+    /** Every token of every phrase in a section, sorted, with the phrase it came from. */
+    private record PrefixIndex(String[] tokens, Phrase[] owners) {
+        static PrefixIndex build(List<Phrase> phrases) {
+            List<Map.Entry<String, Phrase>> pairs = new ArrayList<>();
+            for (Phrase p : phrases) {
+                for (String t : p.tokens) pairs.add(Map.entry(t, p));
+            }
+            pairs.sort(Map.Entry.comparingByKey());
+            return new PrefixIndex(pairs.stream().map(Map.Entry::getKey).toArray(String[]::new),
+                    pairs.stream().map(Map.Entry::getValue).toArray(Phrase[]::new));
+        }
+
+        void collect(String prefix, Set<Phrase> out) {
+            int lo = 0, hi = tokens.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tokens[mid].compareTo(prefix) < 0) lo = mid + 1; else hi = mid;
+            }
+            for (int i = lo; i < tokens.length && tokens[i].startsWith(prefix); i++) out.add(owners[i]);
+        }
+    }
+
+    private record Cached(long version, List<Phrase> phrases) {}
+
+    // ================================
+    // Constants
+    // ================================
+    static final String DB_FILE = "phrases.db";
+    static final long FLUSH_SECONDS = 30;
+    private static final long HALF_LIFE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final double LN2 = Math.log(2);
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String UPSERT_USAGE =
+            "INSERT INTO phrase_usage (user, phrase_id, uses, score, last_used) VALUES (?,?,?,?,?)"
+            + " ON CONFLICT(user, phrase_id) DO UPDATE SET uses = excluded.uses, score = excluded.score,"
+            + " last_used = excluded.last_used";
+
+    private static volatile PhraseLibrary shared;
+
+    private final Path dbFile;
+    private final ScheduledExecutorService worker;
+    private Connection connection; // confined to the worker thread
+
+    private final Map<Section, List<Phrase>> phrases = new EnumMap<>(Section.class);
+    private final Map<Section, ConcurrentSkipListSet<Rank>> rankings = new EnumMap<>(Section.class);
+    private final Map<Section, PrefixIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Section, AtomicLong> versions = new EnumMap<>(Section.class);
+    private final Map<Section, AtomicReference<Cached>> cache = new EnumMap<>(Section.class);
+    private final Set<Phrase> dirty = ConcurrentHashMap.newKeySet();
+    private volatile String user = System.getProperty("user.name", "default");
+
+    PhraseLibrary(Path dbFile) {
+        this.dbFile = Objects.requireNonNull(dbFile);
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "phrase-library");
+            t.setDaemon(true);
+            return t;
+        });
+        for (Section s : Section.values()) {
+            phrases.put(s, new ArrayList<>());
+            rankings.put(s, new ConcurrentSkipListSet<>());
+            versions.put(s, new AtomicLong());
+            cache.put(s, new AtomicReference<>(new Cached(-1, List.of())));
+        }
+    }
+
+    /**
+     * Returns the library in {@code app/db}, loading it on first use. If the database cannot be read
+     * the built-in phrases are used and picks are not saved.
+     */
+    public static PhraseLibrary shared() {
+        PhraseLibrary lib = shared;
+        if (lib == null) {
+            synchronized (PhraseLibrary.class) {
+                lib = shared;
+                if (lib == null) {
+                    lib = new PhraseLibrary(IAMPaths.dbDirectory().resolve(DB_FILE));
+                    lib.load();
+                    shared = lib;
+                }
+            }
+        }
+        return lib;
+    }
+
+    /** Flushes and closes the shared library, if it was ever opened. */
+    public static void closeShared() {
+        PhraseLibrary lib = shared;
+        if (lib != null) lib.close().orTimeout(5, TimeUnit.SECONDS).exceptionally(e -> null).join();
+    }
+
+    // ================================
+    // Loading
+    // ================================
+
+    /** Reads the phrases and the current user's usage, then starts the periodic flush. */
+    void load() {
+        try {
+            submit(() -> {
+                readPhrases();
+                readUsage(user);
+                return null;
+            }).join();
+        } catch (CompletionException e) {
+            System.err.println("[PHRASES] Using built-in phrases: " + e.getCause().getMessage());
+            for (Section s : Section.values()) {
+                for (int i = 0; i < s.defaults.size(); i++) addLoaded(new Phrase(-(i + 1), s, s.defaults.get(i), i));
+            }
+        }
+        for (Section s : Section.values()) {
+            indexes.put(s, PrefixIndex.build(phrases.get(s)));
+            versions.get(s).incrementAndGet();
+        }
+        worker.scheduleWithFixedDelay(this::flushNow, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void readPhrases() throws SQLException {
+        try (Statement st = connection().createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, section, text, sort_order FROM phrases ORDER BY sort_order, id")) {
+            Map<String, Section> byKey = new HashMap<>();
+            for (Section s : Section.values()) byKey.put(s.key, s);
+            while (rs.next()) {
+                Section s = byKey.get(rs.getString(2));
+                if (s != null) addLoaded(new Phrase(rs.getLong(1), s, rs.getString(3), rs.getInt(4)));
+            }
+        }
+    }
+
+    private void addLoaded(Phrase p) {
+        phrases.get(p.section).add(p);
+        rankings.get(p.section).add(p.rank.get());
+    }
+
+    private void readUsage(String forUser) throws SQLException {
+        Map<Long, Phrase> byId = new HashMap<>();
+        phrases.values().forEach(list -> list.forEach(p -> byId.put(p.id, p)));
+        try (PreparedStatement ps = connection().prepareStatement(
+                "SELECT phrase_id, uses, score, last_used FROM phrase_usage WHERE user = ?")) {
+            ps.setString(1, forUser);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Phrase p = byId.get(rs.getLong(1));
+                    if (p != null) replaceRank(p, new Rank(p, rs.getDouble(3), rs.getInt(2), rs.getLong(4)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches usage counters to {@code newUser}: the previous user's picks are flushed first.
+     */
+    public CompletableFuture<Void> signIn(String newUser) {
+        if (newUser == null || newUser.isBlank() || newUser.equals(user)) return CompletableFuture.completedFuture(null);
+        return submit(() -> {
+            flushNow();
+            user = newUser;
+            for (List<Phrase> list : phrases.values()) {
+                for (Phrase p : list) replaceRank(p, new Rank(p, Double.NEGATIVE_INFINITY, 0, 0));
+            }
+            readUsage(newUser);
+            return null;
+        });
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    /** The section's phrases, best first. The list is shared and unmodifiable. */
+    public List<Phrase> ranked(Section section) {
+        AtomicReference<Cached> ref = cache.get(section);
+        long version = versions.get(section).get();
+        Cached c = ref.get();
+        if (c.version() == version) return c.phrases();
+        List<Phrase> list = rankings.get(section).stream().map(Rank::phrase).toList();
+        ref.set(new Cached(version, list));
+        return list;
+    }
+
+    /**
+     * Phrases with a word starting with every word of {@code query} (case-insensitive), best first.
+     * A blank query returns {@link #ranked(Section)}.
+     */
+    public List<Phrase> filter(Section section, String query) {
+        List<String> words = query == null ? List.of() : tokens(query);
+        if (words.isEmpty()) return ranked(section);
+
+        Set<Phrase> candidates = new LinkedHashSet<>();
+        indexes.get(section).collect(words.get(0), candidates);
+        List<Phrase> out = new ArrayList<>(candidates.size());
+        for (Phrase p : candidates) {
+            if (words.stream().skip(1).allMatch(w -> Arrays.stream(p.tokens).anyMatch(t -> t.startsWith(w)))) out.add(p);
+        }
+        out.sort(Comparator.comparing((Phrase p) -> p.rank.get()));
+        return out;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        for (String t : TOKEN_SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty() && !out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    // ================================
+    // Updates
+    // ================================
+
+    /** Counts a pick of {@code phrase} now. Safe from any thread; never blocks. */
+    public void recordUse(Phrase phrase) {
+        recordUse(phrase, System.currentTimeMillis());
+    }
+
+    void recordUse(Phrase phrase, long now) {
+        Rank cur, next;
+        do {
+            cur = phrase.rank.get();
+            next = cur.picked(now);
+        } while (!phrase.rank.compareAndSet(cur, next));
+        reindex(phrase, cur, next);
+        dirty.add(phrase);
+    }
+
+    private void replaceRank(Phrase p, Rank next) {
+        reindex(p, p.rank.getAndSet(next), next);
+    }
+
+    // Ranks that compare equal occupy the same slot, so the set is left alone. Otherwise a racing
+    // update of the same phrase may have replaced `next` already; whoever sees that removes it.
+    private void reindex(Phrase p, Rank cur, Rank next) {
+        ConcurrentSkipListSet<Rank> ranking = rankings.get(p.section);
+        if (cur.compareTo(next) != 0) {
+            ranking.add(next);
+            ranking.remove(cur);
+            Rank now = p.rank.get();
+            if (now != next && now.compareTo(next) != 0) ranking.remove(next);
+        }
+        versions.get(p.section).incrementAndGet();
+    }
+
+    /**
+     * Adds a phrase to the end of its section.
+     *
+     * @return the new phrase, or the existing one if the text is already in the section
+     */
+    public CompletableFuture<Phrase> add(Section section, String text) {
+        String t = text == null ? "" : text.strip();
+        if (t.isEmpty()) return CompletableFuture.failedFuture(new IllegalArgumentException("Phrase is empty."));
+        return submit(() -> {
+            for (Phrase p : phrases.get(section)) {
+                if (p.text.equals(t)) return p;
+            }
+            int order = phrases.get(section).size();
+            try (PreparedStatement ps = connection().prepareStatement(
+                    "INSERT INTO phrases (section, text, sort_order) VALUES (?,?,?)", Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, section.key);
+                ps.setString(2, t);
+                ps.setInt(3, order);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    Phrase p = new Phrase(keys.getLong(1), section, t, order);
+                    List<Phrase> list = new ArrayList<>(phrases.get(section));
+                    list.add(p);
+                    phrases.put(section, list);
+                    rankings.get(section).add(p.rank.get());
+                    indexes.put(section, PrefixIndex.build(list));
+                    versions.get(section).incrementAndGet();
+                    return p;
+                }
+            }
+        });
+    }
+
+    // ================================
+    // Persistence
+    // ================================
+
+    /** Writes pending usage now, e.g. before exit. */
+    public CompletableFuture<Void> flush() {
+        return submit(() -> {
+            flushNow();
+            return null;
+        });
+    }
+
+    // Runs on the worker.
+    private void flushNow() {
+        if (dirty.isEmpty()) return;
+        List<Rank> rows = new ArrayList<>();
+        for (Phrase p : dirty) {
+            dirty.remove(p); // before reading, so a pick from here on marks it again
+            if (p.id > 0) rows.add(p.rank.get());
+        }
+        if (rows.isEmpty()) return;
+        try {
+            Connection c = connection();
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(UPSERT_USAGE)) {
+                for (Rank r : rows) {
+                    ps.setString(1, user);
+                    ps.setLong(2, r.phrase().id);
+                    ps.setInt(3, r.uses());
+                    ps.setDouble(4, r.score());
+                    ps.setLong(5, r.lastUsed());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("[PHRASES] Failed to save usage for " + rows.size() + " phrase(s): " + e.getMessage());
+            rows.forEach(r -> dirty.add(r.phrase()));
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    private <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.run();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, worker);
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection != null) return connection;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            Files.createDirectories(dbFile.getParent());
+        } catch (Exception e) {
+            throw new SQLException("Cannot open " + dbFile, e);
+        }
+        Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.toAbsolutePath());
+        try (Statement st = c.createStatement()) {
+            boolean created;
+            try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'phrases'")) {
+                created = !rs.next();
+            }
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS phrases (id INTEGER PRIMARY KEY, section TEXT NOT NULL, text TEXT NOT NULL, sort_order INTEGER NOT NULL, UNIQUE (section, text));");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS phrase_usage (user TEXT NOT NULL, phrase_id INTEGER NOT NULL, uses INTEGER NOT NULL, score REAL NOT NULL, last_used INTEGER NOT NULL, PRIMARY KEY (user, phrase_id));");
+            if (created) seed(c);
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        connection = c;
+        return c;
+    }
+
+    private static void seed(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO phrases (section, text, sort_order) VALUES (?,?,?)")) {
+            for (Section s : Section.values()) {
+                for (int i = 0; i < s.defaults.size(); i++) {
+                    ps.setString(1, s.key);
+                    ps.setString(2, s.defaults.get(i));
+                    ps.setInt(3, i);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Flushes pending usage and closes the connection. */
+    CompletableFuture<Void> close() {
+        CompletableFuture<Void> done = submit(() -> {
+            flushNow();
+            if (connection != null) connection.close();
+            connection = null;
+            return null;
+        });
+        worker.shutdown();
+        return done;
+    }
+}
@@ -0,0 +1,31 @@
+package com.emr.gds.soap;
+
+import javafx.scene.control.TextArea;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+/**
+ * A section editor opened by double-clicking a SOAP area. Implementations build their stage once, in
+ * the constructor or on the first {@link #stage} call, and are reused: each opening calls {@link #bind}
+ * and then {@link #show}, so both must only reset state, never rebuild the scene graph or touch the disk.
+ */
+public interface SoapEditor {
+
+    /** The editor's window; always the same instance. */
+    Stage stage();
+
+    /** Points the editor at {@code target} and resets its fields from it. */
+    void bind(TextArea target);
+
+    /** Shows the window, waiting for it to close if it is modal; brings it to front if already open. */
+    default void show() {
+        Stage stage = stage();
+        if (stage.isShowing()) {
+            stage.toFront();
+        } else if (stage.getModality() == Modality.NONE) {
+            stage.show();
+        } else {
+            stage.showAndWait();
+        }
+    }
+}